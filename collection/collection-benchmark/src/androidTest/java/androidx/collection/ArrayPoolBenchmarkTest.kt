@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import org.junit.runners.Parameterized.Parameters
+import java.util.concurrent.CountDownLatch
+import kotlin.concurrent.thread
+
+/**
+ * Measures building up and clearing small [SimpleArrayMap]s and [ArraySet]s, which allocates
+ * and recycles backing arrays through the shared array pools, while `contendingThreads` other
+ * threads do the same.
+ */
+@RunWith(Parameterized::class)
+class ArrayPoolBenchmarkTest(private val size: Int, private val contendingThreads: Int) {
+    @Volatile
+    private var running = true
+    private val threads = mutableListOf<Thread>()
+
+    @get:Rule
+    val benchmark = BenchmarkRule()
+
+    @Before
+    fun startContention() {
+        val started = CountDownLatch(contendingThreads)
+        repeat(contendingThreads) { index ->
+            threads += thread(name = "contention-$index") {
+                started.countDown()
+                val map = SimpleArrayMap<Int, Int>()
+                val set = ArraySet<Int>()
+                while (running) {
+                    fillAndClear(map, set)
+                }
+            }
+        }
+        started.await()
+    }
+
+    @After
+    fun stopContention() {
+        running = false
+        threads.forEach { it.join() }
+    }
+
+    @Test fun simpleArrayMapFillAndClear() {
+        val map = SimpleArrayMap<Int, Int>()
+        benchmark.measureRepeated {
+            for (i in 0 until size) {
+                map.put(i, i)
+            }
+            map.clear()
+        }
+    }
+
+    @Test fun arraySetFillAndClear() {
+        val set = ArraySet<Int>()
+        benchmark.measureRepeated {
+            for (i in 0 until size) {
+                set.add(i)
+            }
+            set.clear()
+        }
+    }
+
+    @Test fun simpleArrayMapAllocate() {
+        benchmark.measureRepeated {
+            SimpleArrayMap<Int, Int>(size).clear()
+        }
+    }
+
+    private fun fillAndClear(map: SimpleArrayMap<Int, Int>, set: ArraySet<Int>) {
+        for (i in 0 until size) {
+            map.put(i, i)
+            set.add(i)
+        }
+        map.clear()
+        set.clear()
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameters(name = "size={0},contendingThreads={1}")
+        fun parameters() = buildParameters(
+            listOf(4, 8, 32, 200),
+            listOf(0, 3, 7)
+        )
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import org.junit.runners.Parameterized.Parameters
+import kotlin.random.Random
+
+/**
+ * Compares the open-addressing [IntObjectMap] and [IntIntMap] against the existing int-keyed
+ * containers for lookups, inserts and removals.
+ */
+@RunWith(Parameterized::class)
+class IntKeyedMapBenchmarkTest(size: Int, private val type: String) {
+    private val keys: IntArray = Random(0).let { random ->
+        // Despite the fixed seed, the algorithm which produces random values may vary across
+        // OS versions. Since we're not doing cross-device comparison this is acceptable.
+        val seen = IntSet(size)
+        while (seen.size() < size) {
+            seen.add(random.nextInt())
+        }
+        IntArray(size) { seen.elementAt(it) }
+    }
+
+    private val map: IntKeyedMap = IntKeyedMap.create(type).apply {
+        for (key in keys) {
+            put(key)
+        }
+    }
+
+    @get:Rule
+    val benchmark = BenchmarkRule()
+
+    @Test fun get() {
+        var index = 0
+        benchmark.measureRepeated {
+            map.get(keys[index])
+            index = (index + 1) % keys.size
+        }
+    }
+
+    @Test fun getAbsent() {
+        benchmark.measureRepeated {
+            map.get(Int.MIN_VALUE)
+        }
+    }
+
+    @Test fun removeAndPut() {
+        var index = 0
+        benchmark.measureRepeated {
+            val key = keys[index]
+            map.remove(key)
+            map.put(key)
+            index = (index + 1) % keys.size
+        }
+    }
+
+    @Test fun fill() {
+        benchmark.measureRepeated {
+            val filled = runWithTimingDisabled { IntKeyedMap.create(type) }
+            for (key in keys) {
+                filled.put(key)
+            }
+        }
+    }
+
+    /** Uniform view of the containers under test. */
+    private interface IntKeyedMap {
+        fun get(key: Int): Any?
+        fun put(key: Int)
+        fun remove(key: Int)
+
+        companion object {
+            fun create(type: String): IntKeyedMap = when (type) {
+                "IntObjectMap" -> object : IntKeyedMap {
+                    val map = IntObjectMap<String>()
+                    override fun get(key: Int) = map.get(key)
+                    override fun put(key: Int) = map.put(key, VALUE)
+                    override fun remove(key: Int) = map.remove(key)
+                }
+                "IntIntMap" -> object : IntKeyedMap {
+                    val map = IntIntMap()
+                    override fun get(key: Int) = map.get(key)
+                    override fun put(key: Int) = map.put(key, key)
+                    override fun remove(key: Int) = map.remove(key)
+                }
+                "SparseArrayCompat" -> object : IntKeyedMap {
+                    val map = SparseArrayCompat<String>()
+                    override fun get(key: Int) = map.get(key)
+                    override fun put(key: Int) = map.put(key, VALUE)
+                    override fun remove(key: Int) = map.remove(key)
+                }
+                "SimpleArrayMap" -> object : IntKeyedMap {
+                    val map = SimpleArrayMap<Int, String>()
+                    override fun get(key: Int) = map.get(key)
+                    override fun put(key: Int) {
+                        map.put(key, VALUE)
+                    }
+                    override fun remove(key: Int) {
+                        map.remove(key)
+                    }
+                }
+                "HashMap" -> object : IntKeyedMap {
+                    val map = HashMap<Int, String>()
+                    override fun get(key: Int) = map.get(key)
+                    override fun put(key: Int) {
+                        map.put(key, VALUE)
+                    }
+                    override fun remove(key: Int) {
+                        map.remove(key)
+                    }
+                }
+                else -> throw IllegalArgumentException("Unknown map type $type")
+            }
+        }
+    }
+
+    companion object {
+        private const val VALUE = "value"
+
+        @JvmStatic
+        @Parameters(name = "size={0},type={1}")
+        fun parameters() = buildParameters(
+            listOf<Any>(10, 100, 1_000, 10_000),
+            listOf<Any>(
+                "IntObjectMap", "IntIntMap", "SparseArrayCompat", "SimpleArrayMap", "HashMap"
+            )
+        )
+    }
+}
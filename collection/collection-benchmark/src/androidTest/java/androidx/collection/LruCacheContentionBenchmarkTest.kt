@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import org.junit.runners.Parameterized.Parameters
+import java.util.concurrent.CountDownLatch
+import kotlin.concurrent.thread
+
+/**
+ * Measures [LruCache] and [ConcurrentLruCache] lookups on the benchmark thread while
+ * `contendingThreads` other threads continuously read and write the same cache.
+ */
+@RunWith(Parameterized::class)
+class LruCacheContentionBenchmarkTest(
+    private val type: String,
+    private val contendingThreads: Int
+) {
+    private val cache: Cache = when (type) {
+        "LruCache" -> object : Cache {
+            val cache = LruCache<Int, String>(CACHE_SIZE)
+            override fun get(key: Int) = cache.get(key)
+            override fun put(key: Int, value: String) {
+                cache.put(key, value)
+            }
+        }
+        "ConcurrentLruCache" -> object : Cache {
+            val cache = ConcurrentLruCache<Int, String>(CACHE_SIZE)
+            override fun get(key: Int) = cache.get(key)
+            override fun put(key: Int, value: String) {
+                cache.put(key, value)
+            }
+        }
+        else -> throw IllegalArgumentException("Unknown cache type $type")
+    }
+
+    @Volatile
+    private var running = true
+    private val threads = mutableListOf<Thread>()
+
+    @get:Rule
+    val benchmark = BenchmarkRule()
+
+    @Before
+    fun startContention() {
+        for (key in 0 until CACHE_SIZE) {
+            cache.put(key, "value$key")
+        }
+        val started = CountDownLatch(contendingThreads)
+        repeat(contendingThreads) { index ->
+            threads += thread(name = "contention-$index") {
+                started.countDown()
+                var key = index
+                while (running) {
+                    // Mostly reads, with one write in eight to keep reordering the queues.
+                    if ((key and 7) == 0) {
+                        cache.put(key % KEY_RANGE, "value")
+                    } else {
+                        cache.get(key % KEY_RANGE)
+                    }
+                    key++
+                }
+            }
+        }
+        started.await()
+    }
+
+    @After
+    fun stopContention() {
+        running = false
+        threads.forEach { it.join() }
+    }
+
+    @Test fun get() {
+        var key = 0
+        benchmark.measureRepeated {
+            cache.get(key)
+            key = (key + 1) % CACHE_SIZE
+        }
+    }
+
+    @Test fun put() {
+        var key = 0
+        benchmark.measureRepeated {
+            cache.put(key, "value")
+            key = (key + 1) % KEY_RANGE
+        }
+    }
+
+    private interface Cache {
+        fun get(key: Int): String?
+        fun put(key: Int, value: String)
+    }
+
+    companion object {
+        private const val CACHE_SIZE = 1_000
+        private const val KEY_RANGE = 2 * CACHE_SIZE
+
+        @JvmStatic
+        @Parameters(name = "type={0},contendingThreads={1}")
+        fun parameters() = buildParameters(
+            listOf<Any>("LruCache", "ConcurrentLruCache"),
+            listOf<Any>(0, 1, 3, 7, 15)
+        )
+    }
+}
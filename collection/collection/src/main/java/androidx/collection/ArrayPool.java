@@ -0,0 +1,179 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free pool of the hash and key/value arrays backing {@link SimpleArrayMap} and
+ * {@link ArraySet}, so that maps which grow and shrink do not spam garbage.
+ *
+ * <p>Arrays are pooled by capacity, in a small number of size classes alternating between
+ * powers of two and one and a half times powers of two.  A request is served from the smallest
+ * size class that holds it, see {@link #allocationSize(int)}, so a pooled array may be a little
+ * larger than requested.  When the pool has nothing to offer, callers allocate exactly the
+ * requested size, and only arrays that happen to match a size class are recycled later.  Each
+ * size class has a few slots which threads claim and fill with atomic operations, so threads
+ * never wait for each other; if every slot is taken a released array is simply dropped.
+ *
+ * <p>A pooled {@code Object[]} holds its hash array in element 0 and is otherwise cleared.
+ */
+final class ArrayPool {
+    static final int BASE_SIZE = 4;
+    private static final int MAX_POOLED_SIZE = 256;
+    private static final int SMALL_SLOT_COUNT = 10;
+    private static final int LARGE_SLOT_COUNT = 2;
+    private static final int[] SIZE_CLASSES = sizeClasses();
+
+    private final int mArrayMultiplier;
+    private final AtomicReferenceArray<Object[]>[] mSlots;
+    final AtomicLong mHitCount = new AtomicLong();
+    final AtomicLong mMissCount = new AtomicLong();
+    final AtomicLong mRecycleCount = new AtomicLong();
+    final AtomicLong mDropCount = new AtomicLong();
+
+    /**
+     * @param arrayMultiplier the length of the key/value array relative to the hash array, 2 for
+     *     maps and 1 for sets.
+     */
+    @SuppressWarnings("unchecked")
+    ArrayPool(int arrayMultiplier) {
+        mArrayMultiplier = arrayMultiplier;
+        mSlots = new AtomicReferenceArray[SIZE_CLASSES.length];
+        for (int i = 0; i < SIZE_CLASSES.length; i++) {
+            mSlots[i] = new AtomicReferenceArray<>(
+                    SIZE_CLASSES[i] <= BASE_SIZE * 2 ? SMALL_SLOT_COUNT : LARGE_SLOT_COUNT);
+        }
+    }
+
+    private static int[] sizeClasses() {
+        int count = 2;
+        for (int size = BASE_SIZE * 2; size < MAX_POOLED_SIZE; size <<= 1) {
+            count += 2;
+        }
+        int[] sizes = new int[count];
+        sizes[0] = BASE_SIZE;
+        sizes[1] = BASE_SIZE * 2;
+        for (int i = 2, size = BASE_SIZE * 2; i < count; i += 2, size <<= 1) {
+            sizes[i] = size + (size >> 1);
+            sizes[i + 1] = size << 1;
+        }
+        return sizes;
+    }
+
+    /**
+     * Returns the capacity of the pooled arrays that can serve a request of {@code size}: the
+     * smallest size class holding at least {@code size} entries, or {@code size} itself if it is
+     * too small or too large to be pooled.
+     */
+    static int allocationSize(int size) {
+        if (size <= BASE_SIZE * 2 || size > MAX_POOLED_SIZE) {
+            return size;
+        }
+        int high = Integer.highestOneBit(size - 1);
+        int mid = high + (high >> 1);
+        return size <= mid ? mid : high << 1;
+    }
+
+    /**
+     * Returns a recycled key/value array for a hash array of length {@code size}, with the hash
+     * array stored in element 0, or null if none is available.
+     */
+    @Nullable
+    Object[] acquire(int size) {
+        int sizeClass = ContainerHelpers.binarySearch(SIZE_CLASSES, SIZE_CLASSES.length, size);
+        if (sizeClass < 0) {
+            return null;
+        }
+        AtomicReferenceArray<Object[]> slots = mSlots[sizeClass];
+        int count = slots.length();
+        int start = startSlot(count);
+        for (int i = 0; i < count; i++) {
+            int slot = (start + i) % count;
+            if (slots.get(slot) == null) {
+                continue;
+            }
+            Object[] array = slots.getAndSet(slot, null);
+            if (array == null) {
+                continue;
+            }
+            Object hashes = array[0];
+            if (hashes instanceof int[] && ((int[]) hashes).length == size
+                    && array.length == size * mArrayMultiplier) {
+                mHitCount.incrementAndGet();
+                return array;
+            }
+            // Someone trampled the array after releasing it (probably due to not protecting
+            // their access with a lock), so it cannot be trusted. Drop it.
+            mDropCount.incrementAndGet();
+        }
+        mMissCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Offers arrays which are no longer used to the pool.  Make sure <b>NOT</b> to call this
+     * method with arrays that can still be modified.
+     *
+     * @param usedLength the number of leading elements of {@code array} which may be non-null.
+     */
+    void release(int[] hashes, Object[] array, int usedLength) {
+        int sizeClass = ContainerHelpers.binarySearch(SIZE_CLASSES, SIZE_CLASSES.length,
+                hashes.length);
+        if (sizeClass < 0) {
+            return;
+        }
+        AtomicReferenceArray<Object[]> slots = mSlots[sizeClass];
+        int count = slots.length();
+        int start = startSlot(count);
+        for (int i = 0; i < count; i++) {
+            int slot = (start + i) % count;
+            if (slots.get(slot) == null) {
+                for (int j = usedLength - 1; j >= 1; j--) {
+                    array[j] = null;
+                }
+                array[0] = hashes;
+                if (slots.compareAndSet(slot, null, array)) {
+                    mRecycleCount.incrementAndGet();
+                    return;
+                }
+            }
+        }
+        mDropCount.incrementAndGet();
+    }
+
+    /** Returns the number of arrays currently held by the pool. */
+    int pooledCount() {
+        int pooled = 0;
+        for (AtomicReferenceArray<Object[]> slots : mSlots) {
+            for (int i = 0, count = slots.length(); i < count; i++) {
+                if (slots.get(i) != null) {
+                    pooled++;
+                }
+            }
+        }
+        return pooled;
+    }
+
+    // Spreads threads across the slots of a size class to reduce failed claims.
+    private static int startSlot(int count) {
+        return (int) (Thread.currentThread().getId() % count);
+    }
+}
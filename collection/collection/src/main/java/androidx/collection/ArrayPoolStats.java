@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+
+/**
+ * A snapshot of the counters of the process-wide pools which recycle the backing arrays of
+ * {@link SimpleArrayMap} (and so {@link ArrayMap}) and of {@link ArraySet}.
+ *
+ * <p>The pools are shared by every instance in the process and are safe to use from any thread
+ * without locking. Counters are cumulative since the process started.
+ */
+public final class ArrayPoolStats {
+    private final long mHitCount;
+    private final long mMissCount;
+    private final long mRecycleCount;
+    private final long mDropCount;
+    private final int mPooledCount;
+
+    private ArrayPoolStats(ArrayPool pool) {
+        mHitCount = pool.mHitCount.get();
+        mMissCount = pool.mMissCount.get();
+        mRecycleCount = pool.mRecycleCount.get();
+        mDropCount = pool.mDropCount.get();
+        mPooledCount = pool.pooledCount();
+    }
+
+    /** Returns the current counters of the pool used by {@link SimpleArrayMap}. */
+    @NonNull
+    public static ArrayPoolStats forSimpleArrayMap() {
+        return new ArrayPoolStats(SimpleArrayMap.sArrayPool);
+    }
+
+    /** Returns the current counters of the pool used by {@link ArraySet}. */
+    @NonNull
+    public static ArrayPoolStats forArraySet() {
+        return new ArrayPoolStats(ArraySet.sArrayPool);
+    }
+
+    /** Returns the number of allocations of a poolable size that reused a pooled array. */
+    public long hitCount() {
+        return mHitCount;
+    }
+
+    /** Returns the number of allocations of a poolable size that found no pooled array. */
+    public long missCount() {
+        return mMissCount;
+    }
+
+    /** Returns the number of released arrays that were added to the pool. */
+    public long recycleCount() {
+        return mRecycleCount;
+    }
+
+    /**
+     * Returns the number of arrays that were discarded, either because the pool was full for
+     * their size or because they had been modified after being released.
+     */
+    public long dropCount() {
+        return mDropCount;
+    }
+
+    /** Returns the number of arrays held by the pool when this snapshot was taken. */
+    public int pooledCount() {
+        return mPooledCount;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return String.format(Locale.US,
+                "ArrayPoolStats[hits=%d,misses=%d,recycled=%d,dropped=%d,pooled=%d]",
+                mHitCount, mMissCount, mRecycleCount, mDropCount, mPooledCount);
+    }
+}
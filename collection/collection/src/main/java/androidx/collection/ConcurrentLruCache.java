@@ -0,0 +1,479 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A variant of {@link LruCache} for caches which are accessed by many threads at once.
+ *
+ * <p>Where {@link LruCache} guards every operation with a single monitor, this cache splits
+ * its entries across a fixed number of independently locked shards, chosen by the hash code
+ * of the key.  Each shard owns an equal part of {@link #maxSize()} and evicts its own least
+ * recently used entries, so threads working on keys in different shards never contend.
+ * Eviction order is therefore only least-recently-used within a shard; an entry may be evicted
+ * while another shard holds older entries.
+ *
+ * <p>The {@link #sizeOf}, {@link #create} and {@link #entryRemoved} contract is the same as for
+ * {@link LruCache}.  Since each shard holds at most {@code maxSize / shardCount}, an entry whose
+ * size exceeds that budget is evicted as soon as it is added.
+ */
+public class ConcurrentLruCache<K, V> {
+    private static final int DEFAULT_SHARD_COUNT = 16;
+
+    private final Shard<K, V>[] mShards;
+    private final int mShardMask;
+    private volatile int mMaxSize;
+
+    /**
+     * Creates a cache with up to 16 shards.
+     *
+     * @param maxSize for caches that do not override {@link #sizeOf}, this is
+     *     the maximum number of entries in the cache. For all other caches,
+     *     this is the maximum sum of the sizes of the entries in this cache.
+     */
+    public ConcurrentLruCache(int maxSize) {
+        this(maxSize, DEFAULT_SHARD_COUNT);
+    }
+
+    /**
+     * @param maxSize for caches that do not override {@link #sizeOf}, this is
+     *     the maximum number of entries in the cache. For all other caches,
+     *     this is the maximum sum of the sizes of the entries in this cache.
+     * @param shardCount the number of independently locked shards. This is rounded down to a
+     *     power of two no greater than {@code maxSize}.
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentLruCache(int maxSize, int shardCount) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shardCount <= 0");
+        }
+        int count = Integer.highestOneBit(Math.min(shardCount, maxSize));
+        mShards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            mShards[i] = new Shard<>();
+        }
+        mShardMask = count - 1;
+        setShardMaxSizes(maxSize);
+    }
+
+    /**
+     * Sets the size of the cache.
+     *
+     * @param maxSize The new maximum size.
+     */
+    public void resize(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        setShardMaxSizes(maxSize);
+        for (Shard<K, V> shard : mShards) {
+            trimShard(shard, shard.maxSize());
+        }
+    }
+
+    /**
+     * Returns the value for {@code key} if it exists in the cache or can be
+     * created by {@code #create}. If a value was returned, it is moved to the
+     * head of its shard's queue. This returns null if a value is not cached and
+     * cannot be created.
+     */
+    @Nullable
+    public final V get(@NonNull K key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+        Shard<K, V> shard = shardFor(key);
+
+        V mapValue;
+        synchronized (shard) {
+            mapValue = shard.map.get(key);
+            if (mapValue != null) {
+                shard.hitCount++;
+                return mapValue;
+            }
+            shard.missCount++;
+        }
+
+        /*
+         * Attempt to create a value. As in LruCache, this happens without holding the shard
+         * lock, and a conflicting value added meanwhile wins over the created one.
+         */
+
+        V createdValue = create(key);
+        if (createdValue == null) {
+            return null;
+        }
+
+        synchronized (shard) {
+            shard.createCount++;
+            mapValue = shard.map.put(key, createdValue);
+
+            if (mapValue != null) {
+                // There was a conflict so undo that last put
+                shard.map.put(key, mapValue);
+            } else {
+                shard.size += safeSizeOf(key, createdValue);
+            }
+        }
+
+        if (mapValue != null) {
+            entryRemoved(false, key, createdValue, mapValue);
+            return mapValue;
+        } else {
+            trimShard(shard, shard.maxSize());
+            return createdValue;
+        }
+    }
+
+    /**
+     * Caches {@code value} for {@code key}. The value is moved to the head of
+     * its shard's queue.
+     *
+     * @return the previous value mapped by {@code key}.
+     */
+    @Nullable
+    public final V put(@NonNull K key, @NonNull V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException("key == null || value == null");
+        }
+        Shard<K, V> shard = shardFor(key);
+
+        V previous;
+        synchronized (shard) {
+            shard.putCount++;
+            shard.size += safeSizeOf(key, value);
+            previous = shard.map.put(key, value);
+            if (previous != null) {
+                shard.size -= safeSizeOf(key, previous);
+            }
+        }
+
+        if (previous != null) {
+            entryRemoved(false, key, previous, value);
+        }
+
+        trimShard(shard, shard.maxSize());
+        return previous;
+    }
+
+    /**
+     * Remove the eldest entries of every shard until the total of the
+     * remaining entries is at or below the requested size.  Each shard is
+     * trimmed to its equal part of {@code maxSize}.
+     *
+     * @param maxSize the maximum size of the cache before returning. May be -1
+     *            to evict even 0-sized elements.
+     */
+    public void trimToSize(int maxSize) {
+        int shardCount = mShards.length;
+        for (int i = 0; i < shardCount; i++) {
+            trimShard(mShards[i], maxSize < 0 ? -1 : shardMaxSize(maxSize, i));
+        }
+    }
+
+    private void trimShard(Shard<K, V> shard, int maxSize) {
+        while (true) {
+            K key;
+            V value;
+            synchronized (shard) {
+                if (shard.size < 0 || (shard.map.isEmpty() && shard.size != 0)) {
+                    throw new IllegalStateException(getClass().getName()
+                            + ".sizeOf() is reporting inconsistent results!");
+                }
+
+                if (shard.size <= maxSize || shard.map.isEmpty()) {
+                    break;
+                }
+
+                Map.Entry<K, V> toEvict = shard.map.entrySet().iterator().next();
+                key = toEvict.getKey();
+                value = toEvict.getValue();
+                shard.map.remove(key);
+                shard.size -= safeSizeOf(key, value);
+                shard.evictionCount++;
+            }
+
+            entryRemoved(true, key, value, null);
+        }
+    }
+
+    /**
+     * Removes the entry for {@code key} if it exists.
+     *
+     * @return the previous value mapped by {@code key}.
+     */
+    @Nullable
+    public final V remove(@NonNull K key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+        Shard<K, V> shard = shardFor(key);
+
+        V previous;
+        synchronized (shard) {
+            previous = shard.map.remove(key);
+            if (previous != null) {
+                shard.size -= safeSizeOf(key, previous);
+            }
+        }
+
+        if (previous != null) {
+            entryRemoved(false, key, previous, null);
+        }
+
+        return previous;
+    }
+
+    /**
+     * Called for entries that have been evicted or removed. This method is
+     * invoked when a value is evicted to make space, removed by a call to
+     * {@link #remove}, or replaced by a call to {@link #put}. The default
+     * implementation does nothing.
+     *
+     * <p>The method is called without synchronization: other threads may
+     * access the cache while this method is executing.
+     *
+     * @param evicted true if the entry is being removed to make space, false
+     *     if the removal was caused by a {@link #put} or {@link #remove}.
+     * @param newValue the new value for {@code key}, if it exists. If non-null,
+     *     this removal was caused by a {@link #put}. Otherwise it was caused by
+     *     an eviction or a {@link #remove}.
+     */
+    protected void entryRemoved(boolean evicted, @NonNull K key, @NonNull V oldValue,
+            @Nullable V newValue) {
+    }
+
+    /**
+     * Called after a cache miss to compute a value for the corresponding key.
+     * Returns the computed value or null if no value can be computed. The
+     * default implementation returns null.
+     *
+     * <p>The method is called without synchronization: other threads may
+     * access the cache while this method is executing.
+     *
+     * <p>If a value for {@code key} exists in the cache when this method
+     * returns, the created value will be released with {@link #entryRemoved}
+     * and discarded. This can occur when multiple threads request the same key
+     * at the same time (causing multiple values to be created), or when one
+     * thread calls {@link #put} while another is creating a value for the same
+     * key.
+     */
+    @Nullable
+    protected V create(@NonNull K key) {
+        return null;
+    }
+
+    private int safeSizeOf(K key, V value) {
+        int result = sizeOf(key, value);
+        if (result < 0) {
+            throw new IllegalStateException("Negative size: " + key + "=" + value);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the size of the entry for {@code key} and {@code value} in
+     * user-defined units.  The default implementation returns 1 so that size
+     * is the number of entries and max size is the maximum number of entries.
+     *
+     * <p>An entry's size must not change while it is in the cache.
+     */
+    protected int sizeOf(@NonNull K key, @NonNull V value) {
+        return 1;
+    }
+
+    /**
+     * Clear the cache, calling {@link #entryRemoved} on each removed entry.
+     */
+    public final void evictAll() {
+        trimToSize(-1); // -1 will evict 0-sized elements
+    }
+
+    /**
+     * Returns the number of shards the entries of this cache are split across.
+     */
+    public final int shardCount() {
+        return mShards.length;
+    }
+
+    /**
+     * For caches that do not override {@link #sizeOf}, this returns the number
+     * of entries in the cache. For all other caches, this returns the sum of
+     * the sizes of the entries in this cache.
+     */
+    public final int size() {
+        int size = 0;
+        for (Shard<K, V> shard : mShards) {
+            synchronized (shard) {
+                size += shard.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * For caches that do not override {@link #sizeOf}, this returns the maximum
+     * number of entries in the cache. For all other caches, this returns the
+     * maximum sum of the sizes of the entries in this cache.
+     */
+    public final int maxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * Returns the number of times {@link #get} returned a value that was
+     * already present in the cache.
+     */
+    public final int hitCount() {
+        int count = 0;
+        for (Shard<K, V> shard : mShards) {
+            synchronized (shard) {
+                count += shard.hitCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of times {@link #get} returned null or required a new
+     * value to be created.
+     */
+    public final int missCount() {
+        int count = 0;
+        for (Shard<K, V> shard : mShards) {
+            synchronized (shard) {
+                count += shard.missCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of times {@link #create(Object)} returned a value.
+     */
+    public final int createCount() {
+        int count = 0;
+        for (Shard<K, V> shard : mShards) {
+            synchronized (shard) {
+                count += shard.createCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of times {@link #put} was called.
+     */
+    public final int putCount() {
+        int count = 0;
+        for (Shard<K, V> shard : mShards) {
+            synchronized (shard) {
+                count += shard.putCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of values that have been evicted.
+     */
+    public final int evictionCount() {
+        int count = 0;
+        for (Shard<K, V> shard : mShards) {
+            synchronized (shard) {
+                count += shard.evictionCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns a copy of the current contents of the cache.  Entries are ordered
+     * from least recently accessed to most recently accessed within each shard,
+     * one shard after another.
+     */
+    public final Map<K, V> snapshot() {
+        Map<K, V> snapshot = new LinkedHashMap<K, V>();
+        for (Shard<K, V> shard : mShards) {
+            synchronized (shard) {
+                snapshot.putAll(shard.map);
+            }
+        }
+        return snapshot;
+    }
+
+    @Override public final String toString() {
+        int hitCount = hitCount();
+        int missCount = missCount();
+        int accesses = hitCount + missCount;
+        int hitPercent = accesses != 0 ? (100 * hitCount / accesses) : 0;
+        return String.format(Locale.US,
+                "ConcurrentLruCache[maxSize=%d,shards=%d,hits=%d,misses=%d,hitRate=%d%%]",
+                mMaxSize, mShards.length, hitCount, missCount, hitPercent);
+    }
+
+    private Shard<K, V> shardFor(K key) {
+        return mShards[ContainerHelpers.mixHash(key.hashCode()) & mShardMask];
+    }
+
+    private void setShardMaxSizes(int maxSize) {
+        Shard<K, V>[] shards = mShards;
+        for (int i = 0; i < shards.length; i++) {
+            Shard<K, V> shard = shards[i];
+            synchronized (shard) {
+                shard.maxSize = shardMaxSize(maxSize, i);
+            }
+        }
+        mMaxSize = maxSize;
+    }
+
+    // Splits maxSize evenly across the shards, giving the remainder to the first shards.
+    private int shardMaxSize(int maxSize, int index) {
+        int shardCount = mShards.length;
+        return maxSize / shardCount + (index < maxSize % shardCount ? 1 : 0);
+    }
+
+    private static final class Shard<K, V> {
+        final LinkedHashMap<K, V> map = new LinkedHashMap<K, V>(0, 0.75f, true);
+
+        /** Size of this shard in units. Not necessarily the number of elements. */
+        int size;
+        int maxSize;
+
+        int putCount;
+        int createCount;
+        int evictionCount;
+        int hitCount;
+        int missCount;
+
+        Shard() {
+        }
+
+        synchronized int maxSize() {
+            return maxSize;
+        }
+    }
+}
@@ -80,6 +80,26 @@ class ContainerHelpers {
         return ~lo;  // value not present
     }
 
+    /**
+     * Returns the power-of-two size of an open-addressing slot table able to index
+     * {@code capacity} entries while staying at most half full.
+     */
+    static int hashTableSize(int capacity) {
+        int size = Math.max(capacity, 4) * 2;
+        return Integer.bitCount(size) == 1 ? size : Integer.highestOneBit(size) << 1;
+    }
+
+    // Spreads the bits of a hash code so that keys which only differ in their high bits, such as
+    // multiples of a power of two, do not all land in the same slot of a power-of-two table.
+    static int mixHash(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    static int mixHash(long hash) {
+        return mixHash((int) (hash ^ (hash >>> 32)));
+    }
+
     private ContainerHelpers() {
     }
 }
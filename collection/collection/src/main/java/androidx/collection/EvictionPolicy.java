@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Decides which entries a {@link BoundedCache} evicts when it grows beyond its maximum size.
+ *
+ * <p>A policy tracks the keys and sizes of the entries in a single cache and is told about
+ * every access, write and removal.  All calls are made while holding the cache's lock, so
+ * implementations do not need to be thread-safe, but an instance must not be shared between
+ * caches.
+ *
+ * <p>The built-in policies are:
+ * <ul>
+ *     <li>{@link #lru()}: evicts the least recently used entry, like {@link LruCache}.</li>
+ *     <li>{@link #segmentedLru()}: entries that are accessed again are promoted to a protected
+ *     segment, so a single scan of new keys only displaces other entries seen once.</li>
+ *     <li>{@link #twoQueue()}: new entries wait in a FIFO queue, and only keys that are requested
+ *     again soon after being evicted from it are admitted to the main LRU queue.</li>
+ *     <li>{@link #windowTinyLfu()}: new entries enter a small LRU window, and leave it only if
+ *     their estimated access frequency is higher than that of the entry they would displace.</li>
+ * </ul>
+ */
+public abstract class EvictionPolicy<K> {
+    /**
+     * Called when the cache is created or resized, before any other call.
+     *
+     * @param maxSize the maximum sum of the sizes of the entries in the cache.
+     */
+    public abstract void setMaxSize(int maxSize);
+
+    /**
+     * Called on every lookup of {@code key}.
+     *
+     * @param hit true if the cache held an entry for {@code key}. Misses are reported too, so
+     *     that a policy can learn the popularity of keys which are not cached.
+     */
+    public abstract void recordAccess(@NonNull K key, boolean hit);
+
+    /**
+     * Called when an entry for {@code key} is added to the cache or its value is replaced.
+     *
+     * @param size the size of the new entry, as returned by {@link BoundedCache#sizeOf}.
+     */
+    public abstract void recordWrite(@NonNull K key, int size);
+
+    /**
+     * Called when the entry for {@code key} is removed from the cache other than by
+     * {@link #evict()}.
+     */
+    public abstract void recordRemoval(@NonNull K key);
+
+    /**
+     * Chooses an entry to evict and stops tracking it. This is called while the cache is over
+     * its maximum size.
+     *
+     * @return the key of the evicted entry, or null if the policy tracks no entries.
+     */
+    @Nullable
+    public abstract K evict();
+
+    /** Returns a policy which evicts the least recently used entry. */
+    @NonNull
+    public static <K> EvictionPolicy<K> lru() {
+        return new LruPolicy<>();
+    }
+
+    /**
+     * Returns a segmented LRU policy. Entries start in a probationary segment and move to a
+     * protected segment, which holds up to 80% of the cache, when they are accessed again.
+     * Entries are evicted from the probationary segment first.
+     */
+    @NonNull
+    public static <K> EvictionPolicy<K> segmentedLru() {
+        return new SegmentedLruPolicy<>();
+    }
+
+    /**
+     * Returns a 2Q policy. New entries are held in a FIFO queue using up to 25% of the cache.
+     * The keys of entries evicted from that queue are remembered, and if one of them is written
+     * again it goes straight to the main LRU queue.
+     */
+    @NonNull
+    public static <K> EvictionPolicy<K> twoQueue() {
+        return new TwoQueuePolicy<>();
+    }
+
+    /**
+     * Returns a W-TinyLFU policy. New entries are held in an LRU window using 1% of the cache.
+     * An entry leaving the window is admitted to a segmented LRU main area only if a count-min
+     * sketch of recent accesses estimates it to be more popular than the main area's victim.
+     */
+    @NonNull
+    public static <K> EvictionPolicy<K> windowTinyLfu() {
+        return new WindowTinyLfuPolicy<>();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+/**
+ * A probabilistic estimate of how often keys have been accessed, used by
+ * {@link EvictionPolicy#windowTinyLfu()} to decide whether a new entry is worth admitting.
+ *
+ * <p>This is a count-min sketch of 4-bit counters packed sixteen to a {@code long}.  Each key
+ * maps to one counter in each of four rows, and its frequency is the smallest of those
+ * counters.  Once the number of recorded accesses reaches ten times the table's capacity, every
+ * counter is halved so that the sketch favors recent popularity over historic popularity.
+ */
+final class FrequencySketch {
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private long[] mTable = ContainerHelpers.EMPTY_LONGS;
+    private int mTableMask;
+    private int mSampleSize;
+    private int mAdditions;
+
+    /**
+     * Sizes the sketch to track at least {@code maximumSize} distinct keys. Growing the sketch
+     * discards the frequencies recorded so far.
+     */
+    void ensureCapacity(int maximumSize) {
+        int capacity = Math.min(Math.max(maximumSize, 16), MAXIMUM_CAPACITY);
+        if (mTable.length >= capacity) {
+            return;
+        }
+        int length = Integer.bitCount(capacity) == 1
+                ? capacity : Integer.highestOneBit(capacity) << 1;
+        mTable = new long[length];
+        mTableMask = length - 1;
+        mSampleSize = 10 * length;
+        mAdditions = 0;
+    }
+
+    /** Returns the estimated number of recent accesses of {@code key}, up to 15. */
+    int frequency(Object key) {
+        if (mTable.length == 0) {
+            return 0;
+        }
+        int hash = ContainerHelpers.mixHash(key.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((mTable[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /** Records an access of {@code key}, periodically aging all counters. */
+    void increment(Object key) {
+        if (mTable.length == 0) {
+            return;
+        }
+        int hash = ContainerHelpers.mixHash(key.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++mAdditions == mSampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = 0xfL << offset;
+        if ((mTable[index] & mask) != mask) {
+            mTable[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    private int indexOf(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return ((int) h) & mTableMask;
+    }
+
+    private void reset() {
+        long[] table = mTable;
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        mAdditions >>>= 1;
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * IntSet is a set of integers using open addressing.  Unlike an {@link ArraySet}
+ * of {@link Integer}, membership tests, insertions and removals take constant
+ * time on average regardless of the number of elements, and elements are never
+ * boxed.
+ *
+ * <p>Elements are stored densely in an array which is indexed by a power-of-two
+ * slot table using linear probing, in the same way as {@link IntIntMap}.</p>
+ *
+ * <p>It is possible to iterate over the elements in this container using
+ * {@link #elementAt(int)}.  The elements are not kept in any particular order.
+ * Removing an element moves the last element into its index, so iterate
+ * backwards when removing while iterating.</p>
+ */
+public class IntSet implements Cloneable {
+    private int[] mElements;
+    // Each slot holds the index of an element plus one, or 0 if the slot is free.
+    private int[] mSlots;
+    private int mSize;
+
+    /**
+     * Creates a new empty IntSet.
+     */
+    public IntSet() {
+        this(10);
+    }
+
+    /**
+     * Creates a new empty IntSet that will not require any additional memory
+     * allocation to store the specified number of elements.  If you supply an
+     * initial capacity of 0, the set will be initialized with a light-weight
+     * representation not requiring any additional array allocations.
+     */
+    public IntSet(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity < 0");
+        }
+        if (initialCapacity == 0) {
+            mElements = ContainerHelpers.EMPTY_INTS;
+            mSlots = ContainerHelpers.EMPTY_INTS;
+        } else {
+            initialCapacity = ContainerHelpers.idealIntArraySize(initialCapacity);
+            mElements = new int[initialCapacity];
+            mSlots = new int[ContainerHelpers.hashTableSize(initialCapacity)];
+        }
+    }
+
+    @Override
+    public IntSet clone() {
+        IntSet clone;
+        try {
+            clone = (IntSet) super.clone();
+            clone.mElements = mElements.clone();
+            clone.mSlots = mSlots.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e); // Cannot happen as we implement Cloneable.
+        }
+        return clone;
+    }
+
+    /**
+     * Adds the specified element to this set if it is not already present.
+     *
+     * @return true if this set did not already contain the specified element.
+     */
+    public boolean add(int element) {
+        if (indexOf(element) >= 0) {
+            return false;
+        }
+
+        if (mSize >= mElements.length) {
+            grow(ContainerHelpers.idealIntArraySize(mSize + 1));
+        }
+
+        int pos = mSize;
+        mElements[pos] = element;
+        mSlots[freeSlot(element)] = pos + 1;
+        mSize = pos + 1;
+        return true;
+    }
+
+    /**
+     * Adds all of the elements of {@code other} to this set.
+     */
+    public void addAll(@NonNull IntSet other) {
+        ensureCapacity(mSize + other.mSize);
+        for (int i = 0, size = other.mSize; i < size; i++) {
+            add(other.mElements[i]);
+        }
+    }
+
+    /**
+     * Removes the specified element from this set if it is present.
+     *
+     * @return true if this set contained the specified element.
+     */
+    public boolean remove(int element) {
+        int i = indexOf(element);
+        if (i < 0) {
+            return false;
+        }
+        removeAt(i);
+        return true;
+    }
+
+    /**
+     * Removes the element at the given index.  The last element is moved into
+     * {@code index}, so indices greater than or equal to {@code index} are
+     * invalidated by this call.
+     */
+    public void removeAt(int index) {
+        if (index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        clearSlot(slotOf(mElements[index], index + 1));
+
+        int last = mSize - 1;
+        if (index != last) {
+            int element = mElements[last];
+            mElements[index] = element;
+            mSlots[slotOf(element, last + 1)] = index + 1;
+        }
+        mSize = last;
+    }
+
+    /**
+     * Returns the number of elements in this set.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Return true if size() is 0.
+     * @return true if size() is 0.
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, returns
+     * the <code>index</code>th element that this IntSet stores.
+     */
+    public int elementAt(int index) {
+        if (index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return mElements[index];
+    }
+
+    /**
+     * Returns the index for which {@link #elementAt} would return the
+     * specified element, or a negative number if the element is not
+     * in this set.
+     */
+    public int indexOf(int element) {
+        if (mSize == 0) {
+            return -1;
+        }
+        int[] slots = mSlots;
+        int mask = slots.length - 1;
+        int slot = ContainerHelpers.mixHash(element) & mask;
+        while (true) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (mElements[entry - 1] == element) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /** Returns true if the specified element is in this set. */
+    public boolean contains(int element) {
+        return indexOf(element) >= 0;
+    }
+
+    /**
+     * Ensures that this set can hold at least {@code minimumCapacity} elements
+     * without growing its backing arrays.
+     */
+    public void ensureCapacity(int minimumCapacity) {
+        if (mElements.length < minimumCapacity) {
+            grow(ContainerHelpers.idealIntArraySize(minimumCapacity));
+        }
+    }
+
+    /**
+     * Removes all elements from this IntSet.
+     */
+    public void clear() {
+        if (mSize != 0) {
+            Arrays.fill(mSlots, 0);
+            mSize = 0;
+        }
+    }
+
+    private void grow(int capacity) {
+        int[] nelements = new int[capacity];
+        System.arraycopy(mElements, 0, nelements, 0, mSize);
+        mElements = nelements;
+
+        int tableSize = ContainerHelpers.hashTableSize(capacity);
+        if (tableSize != mSlots.length) {
+            mSlots = new int[tableSize];
+            for (int i = 0; i < mSize; i++) {
+                mSlots[freeSlot(mElements[i])] = i + 1;
+            }
+        }
+    }
+
+    // Returns the first free slot in the probe sequence of element. The table must not be full.
+    private int freeSlot(int element) {
+        int[] slots = mSlots;
+        int mask = slots.length - 1;
+        int slot = ContainerHelpers.mixHash(element) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Returns the slot holding entry, which must be present in the probe sequence of element.
+    private int slotOf(int element, int entry) {
+        int[] slots = mSlots;
+        int mask = slots.length - 1;
+        int slot = ContainerHelpers.mixHash(element) & mask;
+        while (slots[slot] != entry) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Frees the given slot, shifting back any later entries of the same probe run which would
+    // otherwise become unreachable.
+    private void clearSlot(int hole) {
+        int[] slots = mSlots;
+        int mask = slots.length - 1;
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            int entry = slots[slot];
+            if (entry == 0) {
+                break;
+            }
+            int home = ContainerHelpers.mixHash(mElements[entry - 1]) & mask;
+            // The entry can fill the hole only if its home slot does not lie cyclically
+            // within (hole, slot].
+            if (hole <= slot ? (home <= hole || home > slot) : (home <= hole && home > slot)) {
+                slots[hole] = entry;
+                hole = slot;
+            }
+        }
+        slots[hole] = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation composes a string by iterating over its elements.
+     */
+    @Override
+    public String toString() {
+        if (mSize <= 0) {
+            return "{}";
+        }
+
+        StringBuilder buffer = new StringBuilder(mSize * 12);
+        buffer.append('{');
+        for (int i = 0; i < mSize; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(mElements[i]);
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+}
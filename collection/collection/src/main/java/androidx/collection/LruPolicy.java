@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import java.util.HashMap;
+
+/** Evicts the least recently used entry. See {@link EvictionPolicy#lru()}. */
+final class LruPolicy<K> extends EvictionPolicy<K> {
+    private final HashMap<K, PolicyDeque.Node<K>> mNodes = new HashMap<>();
+    private final PolicyDeque<K> mDeque = new PolicyDeque<>();
+
+    @Override
+    public void setMaxSize(int maxSize) {
+    }
+
+    @Override
+    public void recordAccess(K key, boolean hit) {
+        PolicyDeque.Node<K> node = mNodes.get(key);
+        if (node != null) {
+            mDeque.moveToLast(node);
+        }
+    }
+
+    @Override
+    public void recordWrite(K key, int size) {
+        PolicyDeque.Node<K> node = mNodes.get(key);
+        if (node == null) {
+            node = new PolicyDeque.Node<>(key, size);
+            mNodes.put(key, node);
+            mDeque.addLast(node);
+        } else {
+            mDeque.resize(node, size);
+            mDeque.moveToLast(node);
+        }
+    }
+
+    @Override
+    public void recordRemoval(K key) {
+        PolicyDeque.Node<K> node = mNodes.remove(key);
+        if (node != null) {
+            mDeque.remove(node);
+        }
+    }
+
+    @Override
+    public K evict() {
+        PolicyDeque.Node<K> node = mDeque.peekFirst();
+        if (node == null) {
+            return null;
+        }
+        mDeque.remove(node);
+        mNodes.remove(node.key);
+        return node.key;
+    }
+}
@@ -0,0 +1,418 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * ObjectIntMap maps Objects to integers using open addressing.  Unlike a
+ * {@link java.util.HashMap} or {@link SimpleArrayMap} holding {@link Integer}
+ * values, values are never boxed, and no entry object is allocated for each
+ * mapping.  Keys are compared using {@link Object#equals(Object)} and may be
+ * {@code null}.
+ *
+ * <p>Mappings are stored densely in a pair of parallel key and value arrays,
+ * which are indexed by a power-of-two slot table using linear probing.  The
+ * slot table is never more than half full, and removals shift later probes
+ * back instead of leaving tombstones behind, so lookups stay short even after
+ * many removals.</p>
+ *
+ * <p>It is possible to iterate over the items in this container using
+ * {@link #keyAt(int)} and {@link #valueAt(int)}.  The mappings are not kept in
+ * any particular order.  Removing a mapping moves the last
+ * mapping into its index, so iterate backwards when removing while
+ * iterating.</p>
+ */
+public class ObjectIntMap<K> implements Cloneable {
+    private Object[] mKeys;
+    private int[] mValues;
+    // Each slot holds the index of a mapping plus one, or 0 if the slot is free.
+    private int[] mSlots;
+    private int mSize;
+
+    /**
+     * Creates a new ObjectIntMap containing no mappings.
+     */
+    public ObjectIntMap() {
+        this(10);
+    }
+
+    /**
+     * Creates a new ObjectIntMap containing no mappings that will not
+     * require any additional memory allocation to store the specified
+     * number of mappings.  If you supply an initial capacity of 0, the
+     * map will be initialized with a light-weight representation
+     * not requiring any additional array allocations.
+     */
+    public ObjectIntMap(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity < 0");
+        }
+        if (initialCapacity == 0) {
+            mKeys = ContainerHelpers.EMPTY_OBJECTS;
+            mValues = ContainerHelpers.EMPTY_INTS;
+            mSlots = ContainerHelpers.EMPTY_INTS;
+        } else {
+            initialCapacity = ContainerHelpers.idealIntArraySize(initialCapacity);
+            mKeys = new Object[initialCapacity];
+            mValues = new int[initialCapacity];
+            mSlots = new int[ContainerHelpers.hashTableSize(initialCapacity)];
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ObjectIntMap<K> clone() {
+        ObjectIntMap<K> clone;
+        try {
+            clone = (ObjectIntMap<K>) super.clone();
+            clone.mKeys = mKeys.clone();
+            clone.mValues = mValues.clone();
+            clone.mSlots = mSlots.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e); // Cannot happen as we implement Cloneable.
+        }
+        return clone;
+    }
+
+    /**
+     * Gets the int mapped from the specified key, or <code>0</code>
+     * if no such mapping has been made.
+     */
+    public int get(@Nullable K key) {
+        return get(key, 0);
+    }
+
+    /**
+     * Gets the int mapped from the specified key, or the specified value
+     * if no such mapping has been made.
+     */
+    public int get(@Nullable K key, int valueIfKeyNotFound) {
+        int i = indexOfKey(key);
+        return i < 0 ? valueIfKeyNotFound : mValues[i];
+    }
+
+    /**
+     * Adds a mapping from the specified key to the specified value,
+     * replacing the previous mapping from the specified key if there
+     * was one.
+     */
+    public void put(@Nullable K key, int value) {
+        int i = indexOfKey(key);
+        if (i >= 0) {
+            mValues[i] = value;
+            return;
+        }
+
+        if (mSize >= mKeys.length) {
+            grow(ContainerHelpers.idealIntArraySize(mSize + 1));
+        }
+
+        int pos = mSize;
+        mKeys[pos] = key;
+        mValues[pos] = value;
+        mSlots[freeSlot(key)] = pos + 1;
+        mSize = pos + 1;
+    }
+
+    /**
+     * Copies all of the mappings from the {@code other} to this map. The effect of this call is
+     * equivalent to that of calling {@link #put(Object, int)} on this map once for each mapping
+     * from key to value in {@code other}.
+     */
+    public void putAll(@NonNull ObjectIntMap<? extends K> other) {
+        ensureCapacity(mSize + other.mSize);
+        for (int i = 0, size = other.mSize; i < size; i++) {
+            put(other.keyAt(i), other.mValues[i]);
+        }
+    }
+
+    /**
+     * Add a new value to the map, unless a mapping for {@code key} already exists.
+     *
+     * @param key The key under which to store the value.
+     * @param value The value to store for the given key.
+     * @return Returns the value that was stored for the given key, or {@code value} if
+     * there was no such key.
+     */
+    public int putIfAbsent(@Nullable K key, int value) {
+        int i = indexOfKey(key);
+        if (i >= 0) {
+            return mValues[i];
+        }
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * Removes the mapping from the specified key, if there was any.
+     */
+    public void remove(@Nullable K key) {
+        int i = indexOfKey(key);
+        if (i >= 0) {
+            removeAt(i);
+        }
+    }
+
+    /**
+     * Removes the mapping at the given index.  The last mapping is moved into
+     * {@code index}, so indices greater than or equal to {@code index} are
+     * invalidated by this call.
+     */
+    public void removeAt(int index) {
+        if (index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        clearSlot(slotOf(mKeys[index], index + 1));
+
+        int last = mSize - 1;
+        if (index != last) {
+            Object key = mKeys[last];
+            mKeys[index] = key;
+            mValues[index] = mValues[last];
+            mSlots[slotOf(key, last + 1)] = index + 1;
+        }
+        mKeys[last] = null;
+        mSize = last;
+    }
+
+    /**
+     * Returns the number of key-value mappings that this ObjectIntMap
+     * currently stores.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Return true if size() is 0.
+     * @return true if size() is 0.
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, returns
+     * the key from the <code>index</code>th key-value mapping that this
+     * ObjectIntMap stores.
+     */
+    @SuppressWarnings("unchecked")
+    public K keyAt(int index) {
+        if (index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return (K) mKeys[index];
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, returns
+     * the value from the <code>index</code>th key-value mapping that this
+     * ObjectIntMap stores.
+     */
+    public int valueAt(int index) {
+        if (index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return mValues[index];
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, sets a new
+     * value for the <code>index</code>th key-value mapping that this
+     * ObjectIntMap stores.
+     */
+    public void setValueAt(int index, int value) {
+        if (index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        mValues[index] = value;
+    }
+
+    /**
+     * Returns the index for which {@link #keyAt} would return the
+     * specified key, or a negative number if the specified
+     * key is not mapped.
+     */
+    public int indexOfKey(@Nullable Object key) {
+        if (mSize == 0) {
+            return -1;
+        }
+        int[] slots = mSlots;
+        int mask = slots.length - 1;
+        int slot = hash(key) & mask;
+        while (true) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (ContainerHelpers.equal(mKeys[entry - 1], key)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Returns an index for which {@link #valueAt} would return the
+     * specified value, or a negative number if no keys map to the
+     * specified value.
+     * <p>Beware that this is a linear search, unlike lookups by key,
+     * and that multiple keys can map to the same value and this will
+     * find only one of them.
+     */
+    public int indexOfValue(int value) {
+        for (int i = 0; i < mSize; i++) {
+            if (mValues[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns true if the specified key is mapped. */
+    public boolean containsKey(@Nullable Object key) {
+        return indexOfKey(key) >= 0;
+    }
+
+    /** Returns true if the specified value is mapped from any key. */
+    public boolean containsValue(int value) {
+        return indexOfValue(value) >= 0;
+    }
+
+    /**
+     * Ensures that this map can hold at least {@code minimumCapacity} mappings
+     * without growing its backing arrays.
+     */
+    public void ensureCapacity(int minimumCapacity) {
+        if (mKeys.length < minimumCapacity) {
+            grow(ContainerHelpers.idealIntArraySize(minimumCapacity));
+        }
+    }
+
+    /**
+     * Removes all key-value mappings from this ObjectIntMap.
+     */
+    public void clear() {
+        if (mSize != 0) {
+            Arrays.fill(mSlots, 0);
+            Arrays.fill(mKeys, 0, mSize, null);
+            mSize = 0;
+        }
+    }
+
+    private void grow(int capacity) {
+        Object[] nkeys = new Object[capacity];
+        int[] nvalues = new int[capacity];
+        System.arraycopy(mKeys, 0, nkeys, 0, mSize);
+        System.arraycopy(mValues, 0, nvalues, 0, mSize);
+        mKeys = nkeys;
+        mValues = nvalues;
+
+        int tableSize = ContainerHelpers.hashTableSize(capacity);
+        if (tableSize != mSlots.length) {
+            mSlots = new int[tableSize];
+            for (int i = 0; i < mSize; i++) {
+                mSlots[freeSlot(mKeys[i])] = i + 1;
+            }
+        }
+    }
+
+    private static int hash(@Nullable Object key) {
+        return key == null ? 0 : ContainerHelpers.mixHash(key.hashCode());
+    }
+
+    // Returns the first free slot in the probe sequence of key. The table must not be full.
+    private int freeSlot(@Nullable Object key) {
+        int[] slots = mSlots;
+        int mask = slots.length - 1;
+        int slot = hash(key) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Returns the slot holding entry, which must be present in the probe sequence of key.
+    private int slotOf(@Nullable Object key, int entry) {
+        int[] slots = mSlots;
+        int mask = slots.length - 1;
+        int slot = hash(key) & mask;
+        while (slots[slot] != entry) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Frees the given slot, shifting back any later entries of the same probe run which would
+    // otherwise become unreachable.
+    private void clearSlot(int hole) {
+        int[] slots = mSlots;
+        int mask = slots.length - 1;
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            int entry = slots[slot];
+            if (entry == 0) {
+                break;
+            }
+            int home = hash(mKeys[entry - 1]) & mask;
+            // The entry can fill the hole only if its home slot does not lie cyclically
+            // within (hole, slot].
+            if (hole <= slot ? (home <= hole || home > slot) : (home <= hole && home > slot)) {
+                slots[hole] = entry;
+                hole = slot;
+            }
+        }
+        slots[hole] = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation composes a string by iterating over its mappings. If
+     * this map contains itself as a key, the string "(this Map)"
+     * will appear in its place.
+     */
+    @Override
+    public String toString() {
+        if (mSize <= 0) {
+            return "{}";
+        }
+
+        StringBuilder buffer = new StringBuilder(mSize * 28);
+        buffer.append('{');
+        for (int i = 0; i < mSize; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            Object key = mKeys[i];
+            if (key != this) {
+                buffer.append(key);
+            } else {
+                buffer.append("(this Map)");
+            }
+            buffer.append('=');
+            buffer.append(mValues[i]);
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+/**
+ * An intrusive doubly linked list of policy nodes, ordered from least to most recently used.
+ * Tracks the total size of its nodes so that eviction policies can budget their segments.
+ */
+final class PolicyDeque<K> {
+    static final class Node<K> {
+        final K key;
+        int size;
+        // Identifies the deque or segment that currently holds this node.
+        int queue;
+        Node<K> prev;
+        Node<K> next;
+
+        Node(K key, int size) {
+            this.key = key;
+            this.size = size;
+        }
+    }
+
+    private Node<K> mFirst;
+    private Node<K> mLast;
+    private int mSize;
+
+    /** Returns the total size of the nodes in this deque. */
+    int size() {
+        return mSize;
+    }
+
+    boolean isEmpty() {
+        return mFirst == null;
+    }
+
+    /** Returns the least recently used node, or null if this deque is empty. */
+    Node<K> peekFirst() {
+        return mFirst;
+    }
+
+    void addLast(Node<K> node) {
+        node.prev = mLast;
+        node.next = null;
+        if (mLast == null) {
+            mFirst = node;
+        } else {
+            mLast.next = node;
+        }
+        mLast = node;
+        mSize += node.size;
+    }
+
+    void remove(Node<K> node) {
+        if (node.prev == null) {
+            mFirst = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            mLast = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+        mSize -= node.size;
+    }
+
+    void moveToLast(Node<K> node) {
+        if (node != mLast) {
+            remove(node);
+            addLast(node);
+        }
+    }
+
+    /** Changes the size of a node held by this deque. */
+    void resize(Node<K> node, int size) {
+        mSize += size - node.size;
+        node.size = size;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import java.util.HashMap;
+
+/**
+ * Evicts from a probationary segment before a protected one. See
+ * {@link EvictionPolicy#segmentedLru()}.
+ */
+final class SegmentedLruPolicy<K> extends EvictionPolicy<K> {
+    private static final int PROBATION = 0;
+    private static final int PROTECTED = 1;
+
+    private final HashMap<K, PolicyDeque.Node<K>> mNodes = new HashMap<>();
+    private final PolicyDeque<K> mProbation = new PolicyDeque<>();
+    private final PolicyDeque<K> mProtected = new PolicyDeque<>();
+    private int mMaxProtectedSize;
+
+    @Override
+    public void setMaxSize(int maxSize) {
+        mMaxProtectedSize = (int) (maxSize * 0.8f);
+        demoteProtected();
+    }
+
+    @Override
+    public void recordAccess(K key, boolean hit) {
+        PolicyDeque.Node<K> node = mNodes.get(key);
+        if (node != null) {
+            promote(node);
+        }
+    }
+
+    @Override
+    public void recordWrite(K key, int size) {
+        PolicyDeque.Node<K> node = mNodes.get(key);
+        if (node == null) {
+            node = new PolicyDeque.Node<>(key, size);
+            node.queue = PROBATION;
+            mNodes.put(key, node);
+            mProbation.addLast(node);
+        } else {
+            dequeOf(node).resize(node, size);
+            promote(node);
+        }
+    }
+
+    @Override
+    public void recordRemoval(K key) {
+        PolicyDeque.Node<K> node = mNodes.remove(key);
+        if (node != null) {
+            dequeOf(node).remove(node);
+        }
+    }
+
+    @Override
+    public K evict() {
+        PolicyDeque.Node<K> node = mProbation.peekFirst();
+        if (node == null) {
+            node = mProtected.peekFirst();
+            if (node == null) {
+                return null;
+            }
+        }
+        dequeOf(node).remove(node);
+        mNodes.remove(node.key);
+        return node.key;
+    }
+
+    private void promote(PolicyDeque.Node<K> node) {
+        if (node.queue == PROTECTED) {
+            mProtected.moveToLast(node);
+            return;
+        }
+        mProbation.remove(node);
+        node.queue = PROTECTED;
+        mProtected.addLast(node);
+        demoteProtected();
+    }
+
+    // Moves the least recently used protected entries back to probation while the protected
+    // segment is over its budget.
+    private void demoteProtected() {
+        while (mProtected.size() > mMaxProtectedSize) {
+            PolicyDeque.Node<K> node = mProtected.peekFirst();
+            mProtected.remove(node);
+            node.queue = PROBATION;
+            mProbation.addLast(node);
+        }
+    }
+
+    private PolicyDeque<K> dequeOf(PolicyDeque.Node<K> node) {
+        return node.queue == PROTECTED ? mProtected : mProbation;
+    }
+}
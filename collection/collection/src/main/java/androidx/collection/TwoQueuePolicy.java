@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+
+/**
+ * Admits entries to a main LRU queue only once they have proven to be reused. See
+ * {@link EvictionPolicy#twoQueue()}.
+ */
+final class TwoQueuePolicy<K> extends EvictionPolicy<K> {
+    private static final int IN = 0;
+    private static final int MAIN = 1;
+
+    private final HashMap<K, PolicyDeque.Node<K>> mNodes = new HashMap<>();
+    private final PolicyDeque<K> mIn = new PolicyDeque<>();
+    private final PolicyDeque<K> mMain = new PolicyDeque<>();
+    // Keys recently evicted from mIn, oldest first.
+    private final LinkedHashSet<K> mGhosts = new LinkedHashSet<>();
+    private int mMaxInSize;
+    private int mMaxGhostCount;
+
+    @Override
+    public void setMaxSize(int maxSize) {
+        mMaxInSize = Math.max(1, maxSize / 4);
+        mMaxGhostCount = Math.max(1, maxSize / 2);
+        trimGhosts();
+    }
+
+    @Override
+    public void recordAccess(K key, boolean hit) {
+        PolicyDeque.Node<K> node = mNodes.get(key);
+        // Entries in the FIFO queue are not reordered by access, so that keys which are only
+        // used in a short burst leave it in order.
+        if (node != null && node.queue == MAIN) {
+            mMain.moveToLast(node);
+        }
+    }
+
+    @Override
+    public void recordWrite(K key, int size) {
+        PolicyDeque.Node<K> node = mNodes.get(key);
+        if (node != null) {
+            PolicyDeque<K> deque = node.queue == MAIN ? mMain : mIn;
+            deque.resize(node, size);
+            if (node.queue == MAIN) {
+                mMain.moveToLast(node);
+            }
+            return;
+        }
+        node = new PolicyDeque.Node<>(key, size);
+        mNodes.put(key, node);
+        if (mGhosts.remove(key)) {
+            node.queue = MAIN;
+            mMain.addLast(node);
+        } else {
+            node.queue = IN;
+            mIn.addLast(node);
+        }
+    }
+
+    @Override
+    public void recordRemoval(K key) {
+        PolicyDeque.Node<K> node = mNodes.remove(key);
+        if (node != null) {
+            (node.queue == MAIN ? mMain : mIn).remove(node);
+        }
+    }
+
+    @Override
+    public K evict() {
+        PolicyDeque.Node<K> node;
+        if (mIn.size() > mMaxInSize || mMain.isEmpty()) {
+            node = mIn.peekFirst();
+            if (node == null) {
+                return null;
+            }
+            mIn.remove(node);
+            mGhosts.add(node.key);
+            trimGhosts();
+        } else {
+            node = mMain.peekFirst();
+            mMain.remove(node);
+        }
+        mNodes.remove(node.key);
+        return node.key;
+    }
+
+    private void trimGhosts() {
+        while (mGhosts.size() > mMaxGhostCount) {
+            K eldest = mGhosts.iterator().next();
+            mGhosts.remove(eldest);
+        }
+    }
+}
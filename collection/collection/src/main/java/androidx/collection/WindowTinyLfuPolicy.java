@@ -0,0 +1,167 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import java.util.HashMap;
+
+/**
+ * Admits entries from a small LRU window into a segmented LRU main area based on their
+ * estimated access frequency. See {@link EvictionPolicy#windowTinyLfu()}.
+ */
+final class WindowTinyLfuPolicy<K> extends EvictionPolicy<K> {
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final HashMap<K, PolicyDeque.Node<K>> mNodes = new HashMap<>();
+    private final PolicyDeque<K> mWindow = new PolicyDeque<>();
+    private final PolicyDeque<K> mProbation = new PolicyDeque<>();
+    private final PolicyDeque<K> mProtected = new PolicyDeque<>();
+    private final FrequencySketch mSketch = new FrequencySketch();
+    private int mMaxWindowSize;
+    private int mMaxMainSize;
+    private int mMaxProtectedSize;
+
+    @Override
+    public void setMaxSize(int maxSize) {
+        mMaxWindowSize = Math.max(1, maxSize / 100);
+        mMaxMainSize = maxSize - mMaxWindowSize;
+        mMaxProtectedSize = (int) (mMaxMainSize * 0.8f);
+        mSketch.ensureCapacity(mNodes.size());
+        demoteProtected();
+    }
+
+    @Override
+    public void recordAccess(K key, boolean hit) {
+        mSketch.increment(key);
+        PolicyDeque.Node<K> node = mNodes.get(key);
+        if (node != null) {
+            onHit(node);
+        }
+    }
+
+    @Override
+    public void recordWrite(K key, int size) {
+        PolicyDeque.Node<K> node = mNodes.get(key);
+        if (node != null) {
+            dequeOf(node).resize(node, size);
+            onHit(node);
+            return;
+        }
+        node = new PolicyDeque.Node<>(key, size);
+        node.queue = WINDOW;
+        mNodes.put(key, node);
+        mWindow.addLast(node);
+        // The sketch needs about one counter per tracked key to keep estimates accurate.
+        mSketch.ensureCapacity(mNodes.size());
+    }
+
+    @Override
+    public void recordRemoval(K key) {
+        PolicyDeque.Node<K> node = mNodes.remove(key);
+        if (node != null) {
+            dequeOf(node).remove(node);
+        }
+    }
+
+    @Override
+    public K evict() {
+        while (true) {
+            if (mWindow.size() <= mMaxWindowSize || mWindow.isEmpty()) {
+                // Only the main area can be over budget.
+                PolicyDeque.Node<K> victim = mainVictim();
+                return victim != null ? evict(victim) : evictFirst(mWindow);
+            }
+
+            PolicyDeque.Node<K> candidate = mWindow.peekFirst();
+            if (mProbation.size() + mProtected.size() + candidate.size <= mMaxMainSize) {
+                // The main area has room, so the candidate can be admitted without a contest.
+                admit(candidate);
+                continue;
+            }
+
+            PolicyDeque.Node<K> victim = mainVictim();
+            if (victim != null
+                    && mSketch.frequency(candidate.key) > mSketch.frequency(victim.key)) {
+                admit(candidate);
+                return evict(victim);
+            }
+            return evict(candidate);
+        }
+    }
+
+    private void onHit(PolicyDeque.Node<K> node) {
+        switch (node.queue) {
+            case WINDOW:
+                mWindow.moveToLast(node);
+                break;
+            case PROBATION:
+                mProbation.remove(node);
+                node.queue = PROTECTED;
+                mProtected.addLast(node);
+                demoteProtected();
+                break;
+            default:
+                mProtected.moveToLast(node);
+                break;
+        }
+    }
+
+    private void admit(PolicyDeque.Node<K> node) {
+        mWindow.remove(node);
+        node.queue = PROBATION;
+        mProbation.addLast(node);
+    }
+
+    private PolicyDeque.Node<K> mainVictim() {
+        PolicyDeque.Node<K> victim = mProbation.peekFirst();
+        return victim != null ? victim : mProtected.peekFirst();
+    }
+
+    private K evictFirst(PolicyDeque<K> deque) {
+        PolicyDeque.Node<K> node = deque.peekFirst();
+        return node != null ? evict(node) : null;
+    }
+
+    private K evict(PolicyDeque.Node<K> node) {
+        dequeOf(node).remove(node);
+        mNodes.remove(node.key);
+        return node.key;
+    }
+
+    // Moves the least recently used protected entries back to probation while the protected
+    // segment is over its budget.
+    private void demoteProtected() {
+        while (mProtected.size() > mMaxProtectedSize) {
+            PolicyDeque.Node<K> node = mProtected.peekFirst();
+            mProtected.remove(node);
+            node.queue = PROBATION;
+            mProbation.addLast(node);
+        }
+    }
+
+    private PolicyDeque<K> dequeOf(PolicyDeque.Node<K> node) {
+        switch (node.queue) {
+            case WINDOW:
+                return mWindow;
+            case PROBATION:
+                return mProbation;
+            default:
+                return mProtected;
+        }
+    }
+}
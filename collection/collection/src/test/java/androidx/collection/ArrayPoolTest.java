@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ArrayPoolTest {
+    @Test
+    public void allocationSizeRoundsUpToSizeClass() {
+        assertEquals(1, ArrayPool.allocationSize(1));
+        assertEquals(4, ArrayPool.allocationSize(4));
+        assertEquals(8, ArrayPool.allocationSize(8));
+        assertEquals(12, ArrayPool.allocationSize(9));
+        assertEquals(16, ArrayPool.allocationSize(13));
+        assertEquals(24, ArrayPool.allocationSize(17));
+        assertEquals(256, ArrayPool.allocationSize(193));
+        assertEquals(257, ArrayPool.allocationSize(257));
+    }
+
+    @Test
+    public void releasedArraysAreReused() {
+        ArrayPool pool = new ArrayPool(2);
+        int[] hashes = new int[12];
+        Object[] array = new Object[24];
+        array[5] = "value";
+        pool.release(hashes, array, 6);
+        assertEquals(1, pool.pooledCount());
+
+        Object[] acquired = pool.acquire(12);
+        assertSame(array, acquired);
+        assertSame(hashes, acquired[0]);
+        assertNull(acquired[5]);
+        assertEquals(1, pool.mHitCount.get());
+        assertEquals(1, pool.mRecycleCount.get());
+        assertNull(pool.acquire(12));
+        assertEquals(1, pool.mMissCount.get());
+    }
+
+    @Test
+    public void unpooledSizesAreIgnored() {
+        ArrayPool pool = new ArrayPool(1);
+        pool.release(new int[5], new Object[5], 5);
+        pool.release(new int[0], new Object[0], 0);
+        assertEquals(0, pool.pooledCount());
+        assertNull(pool.acquire(5));
+    }
+
+    @Test
+    public void fullPoolDropsArrays() {
+        ArrayPool pool = new ArrayPool(1);
+        for (int i = 0; i < 3; i++) {
+            pool.release(new int[16], new Object[16], 0);
+        }
+        assertEquals(2, pool.pooledCount());
+        assertEquals(1, pool.mDropCount.get());
+    }
+
+    @Test
+    public void trampledArrayIsDropped() {
+        ArrayPool pool = new ArrayPool(1);
+        Object[] array = new Object[4];
+        pool.release(new int[4], array, 4);
+        array[0] = "trampled";
+        assertNull(pool.acquire(4));
+        assertEquals(1, pool.mDropCount.get());
+    }
+
+    @Test
+    public void pooledMissKeepsExactSize() {
+        // drain the size class that would serve the request
+        while (SimpleArrayMap.sArrayPool.acquire(ArrayPool.allocationSize(100)) != null) { }
+        SimpleArrayMap<Integer, Integer> map = new SimpleArrayMap<>(100);
+        assertEquals(100, map.mHashes.length);
+        assertEquals(200, map.mArray.length);
+
+        // a released array of a size class serves a slightly smaller request
+        SimpleArrayMap.sArrayPool.release(new int[128], new Object[256], 0);
+        map = new SimpleArrayMap<>(100);
+        assertEquals(128, map.mHashes.length);
+        assertEquals(256, map.mArray.length);
+    }
+
+    @Test
+    public void mapsRecycleArraysThroughSharedPool() {
+        long hits = ArrayPoolStats.forSimpleArrayMap().hitCount();
+        for (int i = 0; i < 10; i++) {
+            SimpleArrayMap<Integer, Integer> map = new SimpleArrayMap<>();
+            for (int j = 0; j < 20; j++) {
+                map.put(j, j);
+            }
+            map.clear();
+        }
+        assertTrue(ArrayPoolStats.forSimpleArrayMap().hitCount() > hits);
+        assertNotNull(ArrayPoolStats.forArraySet().toString());
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class BoundedCacheTest {
+    // Policies must not be shared between caches, so every test creates its own.
+    private static List<EvictionPolicy<String>> policies() {
+        return Arrays.asList(
+                EvictionPolicy.<String>lru(), EvictionPolicy.<String>segmentedLru(),
+                EvictionPolicy.<String>twoQueue(), EvictionPolicy.<String>windowTinyLfu());
+    }
+
+    @Test
+    public void hitsAndMissesAreCounted() {
+        for (EvictionPolicy<String> policy : policies()) {
+            BoundedCache<String, String> cache = new BoundedCache<>(10, policy);
+            cache.put("a", "A");
+            assertEquals("A", cache.get("a"));
+            assertNull(cache.get("b"));
+            assertEquals(1, cache.hitCount());
+            assertEquals(1, cache.missCount());
+            assertEquals(1, cache.putCount());
+        }
+    }
+
+    @Test
+    public void sizeStaysWithinMaxSize() {
+        for (EvictionPolicy<String> policy : policies()) {
+            final List<String> evicted = new ArrayList<>();
+            BoundedCache<String, String> cache = new BoundedCache<String, String>(20, policy) {
+                @Override
+                protected void entryRemoved(boolean wasEvicted, String key, String oldValue,
+                        String newValue) {
+                    if (wasEvicted) {
+                        evicted.add(key);
+                    }
+                }
+            };
+            for (int i = 0; i < 200; i++) {
+                cache.put("k" + (i % 50), "v" + i);
+                cache.get("k" + (i % 7));
+                assertTrue(cache.size() <= 20);
+            }
+            assertEquals(cache.size(), cache.snapshot().size());
+            assertEquals(cache.evictionCount(), evicted.size());
+        }
+    }
+
+    @Test
+    public void sizeOfIsRespected() {
+        for (EvictionPolicy<String> policy : policies()) {
+            BoundedCache<String, String> cache = new BoundedCache<String, String>(10, policy) {
+                @Override
+                protected int sizeOf(String key, String value) {
+                    return value.length();
+                }
+            };
+            cache.put("a", "aaaa");
+            cache.put("b", "bbbb");
+            cache.put("c", "cccc");
+            assertTrue(cache.size() <= 10);
+            assertEquals(cache.size(), 4 * cache.snapshot().size());
+        }
+    }
+
+    @Test
+    public void removeAndEvictAllEmptyTheCache() {
+        for (EvictionPolicy<String> policy : policies()) {
+            BoundedCache<String, String> cache = new BoundedCache<>(10, policy);
+            cache.put("a", "A");
+            cache.put("b", "B");
+            assertEquals("A", cache.remove("a"));
+            assertEquals(1, cache.size());
+            cache.evictAll();
+            assertEquals(0, cache.size());
+            assertTrue(cache.snapshot().isEmpty());
+        }
+    }
+
+    @Test
+    public void resizeEvictsEntries() {
+        for (EvictionPolicy<String> policy : policies()) {
+            BoundedCache<String, String> cache = new BoundedCache<>(10, policy);
+            for (int i = 0; i < 10; i++) {
+                cache.put("k" + i, "v" + i);
+            }
+            cache.resize(3);
+            assertEquals(3, cache.maxSize());
+            assertEquals(3, cache.size());
+        }
+    }
+
+    @Test
+    public void frequentlyUsedEntrySurvivesScan() {
+        BoundedCache<String, String> cache = new BoundedCache<>(100);
+        cache.put("hot", "value");
+        for (int i = 0; i < 10; i++) {
+            cache.get("hot");
+        }
+        for (int i = 0; i < 1_000; i++) {
+            cache.put("scan" + i, "value");
+        }
+        assertEquals("value", cache.get("hot"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void policyChoosingUnknownEntryFails() {
+        BoundedCache<String, String> cache = new BoundedCache<>(1, new EvictionPolicy<String>() {
+            @Override
+            public void setMaxSize(int maxSize) {
+            }
+
+            @Override
+            public void recordAccess(String key, boolean hit) {
+            }
+
+            @Override
+            public void recordWrite(String key, int size) {
+            }
+
+            @Override
+            public void recordRemoval(String key) {
+            }
+
+            @Override
+            public String evict() {
+                return "unknown";
+            }
+        });
+        cache.put("a", "A");
+        cache.put("b", "B");
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Replays access traces against a {@link BoundedCache} to compare the hit ratios of
+ * {@link EvictionPolicy eviction policies}.
+ *
+ * <p>Recorded access logs can be replayed with {@link #readTrace(Reader)}, which reads one key
+ * per line, and synthetic traces can be generated with {@link #zipfTrace} and
+ * {@link #withScans}.
+ */
+final class CacheSimulator {
+    private CacheSimulator() {
+    }
+
+    /**
+     * Looks up every key of {@code trace} in a cache of {@code maxSize} entries using
+     * {@code policy}, loading each missing key, and returns the cache's hit ratio.
+     */
+    static <K> double hitRatio(EvictionPolicy<K> policy, int maxSize, Iterable<K> trace) {
+        BoundedCache<K, K> cache = new BoundedCache<K, K>(maxSize, policy) {
+            @Override
+            protected K create(K key) {
+                return key;
+            }
+        };
+        for (K key : trace) {
+            cache.get(key);
+        }
+        int accesses = cache.hitCount() + cache.missCount();
+        return accesses == 0 ? 0 : (double) cache.hitCount() / accesses;
+    }
+
+    /** Reads a trace of one key per line, skipping blank lines and lines starting with '#'. */
+    static List<String> readTrace(Reader reader) throws IOException {
+        List<String> trace = new ArrayList<>();
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                trace.add(line);
+            }
+        }
+        return trace;
+    }
+
+    /**
+     * Returns {@code length} accesses over {@code keyCount} keys whose popularity follows a Zipf
+     * distribution with the given exponent.
+     */
+    static List<Integer> zipfTrace(int length, int keyCount, double exponent, long seed) {
+        double[] cumulative = new double[keyCount];
+        double sum = 0;
+        for (int i = 0; i < keyCount; i++) {
+            sum += 1 / Math.pow(i + 1, exponent);
+            cumulative[i] = sum;
+        }
+        Random random = new Random(seed);
+        List<Integer> trace = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            double target = random.nextDouble() * sum;
+            int lo = 0;
+            int hi = keyCount - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (cumulative[mid] < target) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            trace.add(lo);
+        }
+        return trace;
+    }
+
+    /**
+     * Returns a copy of {@code trace} in which, every {@code interval} accesses, a scan of
+     * {@code scanLength} keys that are never used again is inserted.
+     */
+    static List<Integer> withScans(List<Integer> trace, int interval, int scanLength) {
+        List<Integer> scanned = new ArrayList<>();
+        int nextScanKey = -1;
+        for (int i = 0; i < trace.size(); i++) {
+            if (i > 0 && i % interval == 0) {
+                for (int j = 0; j < scanLength; j++) {
+                    scanned.add(nextScanKey--);
+                }
+            }
+            scanned.add(trace.get(i));
+        }
+        return scanned;
+    }
+}
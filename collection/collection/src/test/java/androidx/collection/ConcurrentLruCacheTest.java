@@ -0,0 +1,146 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+@RunWith(JUnit4.class)
+public class ConcurrentLruCacheTest {
+    @Test
+    public void shardCountIsPowerOfTwoNoGreaterThanMaxSize() {
+        assertEquals(16, new ConcurrentLruCache<String, String>(100).shardCount());
+        assertEquals(4, new ConcurrentLruCache<String, String>(100, 6).shardCount());
+        assertEquals(2, new ConcurrentLruCache<String, String>(3, 16).shardCount());
+    }
+
+    @Test
+    public void getCountsHitsAndMisses() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(10, 4);
+        cache.put("a", "A");
+        assertEquals("A", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(1, cache.putCount());
+    }
+
+    @Test
+    public void createIsCalledOnMiss() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(10) {
+            @Override
+            protected String create(String key) {
+                return key.toUpperCase();
+            }
+        };
+        assertEquals("A", cache.get("a"));
+        assertEquals("A", cache.get("a"));
+        assertEquals(1, cache.createCount());
+        assertEquals(1, cache.hitCount());
+    }
+
+    @Test
+    public void sizeNeverExceedsMaxSize() {
+        final List<String> evicted = new ArrayList<>();
+        ConcurrentLruCache<Integer, String> cache = new ConcurrentLruCache<Integer, String>(8, 4) {
+            @Override
+            protected void entryRemoved(boolean wasEvicted, Integer key, String oldValue,
+                    String newValue) {
+                if (wasEvicted) {
+                    evicted.add(oldValue);
+                }
+            }
+        };
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, "v" + i);
+            assertTrue(cache.size() <= 8);
+        }
+        assertEquals(100 - cache.size(), cache.evictionCount());
+        assertEquals(cache.evictionCount(), evicted.size());
+    }
+
+    @Test
+    public void sizeOfIsRespected() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(10, 1) {
+            @Override
+            protected int sizeOf(String key, String value) {
+                return value.length();
+            }
+        };
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        cache.put("c", "cccc");
+        assertEquals(8, cache.size());
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void evictAllClearsEveryShard() {
+        ConcurrentLruCache<Integer, Integer> cache = new ConcurrentLruCache<>(64, 8);
+        for (int i = 0; i < 64; i++) {
+            cache.put(i, i);
+        }
+        cache.evictAll();
+        assertEquals(0, cache.size());
+        assertTrue(cache.snapshot().isEmpty());
+    }
+
+    @Test
+    public void resizeTrimsShards() {
+        ConcurrentLruCache<Integer, Integer> cache = new ConcurrentLruCache<>(64, 4);
+        for (int i = 0; i < 256; i++) {
+            cache.put(i, i);
+        }
+        cache.resize(8);
+        assertEquals(8, cache.maxSize());
+        assertTrue(cache.size() <= 8);
+    }
+
+    @Test
+    public void concurrentPutsKeepSizeConsistent() throws InterruptedException {
+        final ConcurrentLruCache<Integer, Integer> cache = new ConcurrentLruCache<>(100, 8);
+        final int threadCount = 8;
+        final CountDownLatch done = new CountDownLatch(threadCount);
+        for (int t = 0; t < threadCount; t++) {
+            final int offset = t * 1000;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; i++) {
+                        cache.put(offset + i, i);
+                        cache.get(offset + i / 2);
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        assertEquals(cache.snapshot().size(), cache.size());
+        assertTrue(cache.size() <= 100);
+        assertEquals(threadCount * 1000, cache.putCount());
+        assertEquals(threadCount * 1000, cache.hitCount() + cache.missCount());
+    }
+}
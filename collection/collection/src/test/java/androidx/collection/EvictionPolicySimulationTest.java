@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class EvictionPolicySimulationTest {
+    private static final int CACHE_SIZE = 500;
+    private static final List<Integer> SCANNED_ZIPF = CacheSimulator.withScans(
+            CacheSimulator.zipfTrace(100_000, 10_000, 0.9, 0), 5_000, 2_000);
+
+    @Test
+    public void lruMatchesLruCache() {
+        List<Integer> trace = CacheSimulator.zipfTrace(20_000, 1_000, 0.9, 1);
+        LruCache<Integer, Integer> lruCache = new LruCache<Integer, Integer>(100) {
+            @Override
+            protected Integer create(Integer key) {
+                return key;
+            }
+        };
+        for (Integer key : trace) {
+            lruCache.get(key);
+        }
+        double expected = (double) lruCache.hitCount() / trace.size();
+        assertEquals(expected,
+                CacheSimulator.hitRatio(EvictionPolicy.<Integer>lru(), 100, trace), 0.0);
+    }
+
+    @Test
+    public void segmentedLruResistsScans() {
+        assertBeatsLru(EvictionPolicy.<Integer>segmentedLru());
+    }
+
+    @Test
+    public void twoQueueResistsScans() {
+        assertBeatsLru(EvictionPolicy.<Integer>twoQueue());
+    }
+
+    @Test
+    public void windowTinyLfuResistsScans() {
+        assertBeatsLru(EvictionPolicy.<Integer>windowTinyLfu());
+    }
+
+    @Test
+    public void readTraceSkipsCommentsAndBlankLines() throws IOException {
+        List<String> trace = CacheSimulator.readTrace(
+                new StringReader("# recorded trace\na\n\n b \na\n"));
+        assertEquals(Arrays.asList("a", "b", "a"), trace);
+        assertEquals(1.0 / 3, CacheSimulator.hitRatio(
+                EvictionPolicy.<String>windowTinyLfu(), 10, trace), 1e-9);
+    }
+
+    private static void assertBeatsLru(EvictionPolicy<Integer> policy) {
+        double lru = CacheSimulator.hitRatio(EvictionPolicy.<Integer>lru(), CACHE_SIZE,
+                SCANNED_ZIPF);
+        double hitRatio = CacheSimulator.hitRatio(policy, CACHE_SIZE, SCANNED_ZIPF);
+        assertTrue("hit ratio " + hitRatio + " is not above LRU's " + lru, hitRatio > lru);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class IntIntMapTest {
+    @Test
+    public void getReturnsDefaultWhenAbsent() {
+        IntIntMap map = new IntIntMap();
+        assertEquals(0, map.get(1));
+        assertEquals(-1, map.get(1, -1));
+    }
+
+    @Test
+    public void putReplacesStoredValue() {
+        IntIntMap map = new IntIntMap();
+        map.put(1, 1);
+        map.put(1, 2);
+        assertEquals(1, map.size());
+        assertEquals(2, map.get(1));
+    }
+
+    @Test
+    public void putIfAbsentDoesNotOverwriteStoredValue() {
+        IntIntMap map = new IntIntMap();
+        map.put(1, 1);
+        assertEquals(1, map.putIfAbsent(1, 2));
+        assertEquals(1, map.get(1));
+        assertEquals(3, map.putIfAbsent(2, 3));
+        assertEquals(3, map.get(2));
+    }
+
+    @Test
+    public void zeroInitialCapacityGrows() {
+        IntIntMap map = new IntIntMap(0);
+        assertFalse(map.containsKey(0));
+        for (int i = 0; i < 100; i++) {
+            map.put(i, -i);
+        }
+        assertEquals(100, map.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(-i, map.get(i, 1));
+        }
+    }
+
+    @Test
+    public void removeKeepsCollidingKeysReachable() {
+        // Multiples of a large power of two share their low bits, exercising long probe runs.
+        IntIntMap map = new IntIntMap();
+        for (int i = 0; i < 64; i++) {
+            map.put(i << 16, i);
+        }
+        for (int i = 0; i < 64; i += 2) {
+            map.remove(i << 16);
+        }
+        assertEquals(32, map.size());
+        for (int i = 0; i < 64; i++) {
+            assertEquals(i % 2 == 0 ? -1 : i, map.get(i << 16, -1));
+        }
+    }
+
+    @Test
+    public void removeAtMovesLastMapping() {
+        IntIntMap map = new IntIntMap();
+        map.put(1, 10);
+        map.put(2, 20);
+        map.put(3, 30);
+        map.removeAt(map.indexOfKey(1));
+        assertEquals(2, map.size());
+        assertEquals(-1, map.indexOfKey(1));
+        assertEquals(3, map.keyAt(map.indexOfKey(3)));
+        assertEquals(30, map.valueAt(map.indexOfKey(3)));
+    }
+
+    @Test
+    public void matchesHashMapUnderRandomOperations() {
+        Random random = new Random(0);
+        IntIntMap map = new IntIntMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            int key = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                map.put(key, i);
+                expected.put(key, i);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int i = 0; i < map.size(); i++) {
+            assertEquals((int) expected.get(map.keyAt(i)), map.valueAt(i));
+        }
+    }
+
+    @Test
+    public void cloneIsIndependent() {
+        IntIntMap map = new IntIntMap();
+        map.put(1, 1);
+        IntIntMap clone = map.clone();
+        clone.put(2, 2);
+        assertFalse(map.containsKey(2));
+        assertTrue(clone.containsKey(1));
+    }
+
+    @Test
+    public void clearRemovesAllMappings() {
+        IntIntMap map = new IntIntMap();
+        map.put(1, 1);
+        map.put(2, 2);
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(1));
+        map.put(2, 3);
+        assertEquals(3, map.get(2));
+    }
+
+    @Test
+    public void toStringListsMappings() {
+        IntIntMap map = new IntIntMap();
+        assertEquals("{}", map.toString());
+        map.put(1, 2);
+        assertEquals("{1=2}", map.toString());
+    }
+}
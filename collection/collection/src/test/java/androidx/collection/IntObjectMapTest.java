@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class IntObjectMapTest {
+    @Test
+    public void getOrDefaultUsesDefaultWhenAbsent() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        assertNull(map.get(1));
+        assertEquals("1", map.get(1, "1"));
+    }
+
+    @Test
+    public void getOrDefaultReturnsNullWhenNullStored() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(1, null);
+        assertNull(map.get(1, "1"));
+    }
+
+    @Test
+    public void putIfAbsentReplacesNullValue() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(1, null);
+        assertNull(map.putIfAbsent(1, "2"));
+        assertEquals("2", map.get(1));
+        assertEquals("2", map.putIfAbsent(1, "3"));
+    }
+
+    @Test
+    public void removeAtReleasesValue() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(1, "1");
+        map.put(2, "2");
+        map.remove(2);
+        map.remove(1);
+        assertEquals(0, map.size());
+        assertFalse(map.containsValue("1"));
+    }
+
+    @Test
+    public void toStringWithSelfReference() {
+        IntObjectMap<Object> map = new IntObjectMap<>();
+        map.put(1, map);
+        assertEquals("{1=(this Map)}", map.toString());
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class IntSetTest {
+    @Test
+    public void addReportsWhetherElementWasNew() {
+        IntSet set = new IntSet();
+        assertTrue(set.add(1));
+        assertFalse(set.add(1));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void removeReportsWhetherElementWasPresent() {
+        IntSet set = new IntSet(0);
+        set.add(1);
+        assertTrue(set.remove(1));
+        assertFalse(set.remove(1));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void elementsSurviveGrowthAndRemoval() {
+        IntSet set = new IntSet();
+        for (int i = 0; i < 1000; i++) {
+            set.add(i * 1024);
+        }
+        for (int i = 0; i < 1000; i += 3) {
+            set.remove(i * 1024);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 3 != 0, set.contains(i * 1024));
+        }
+        for (int i = 0; i < set.size(); i++) {
+            assertEquals(i, set.indexOf(set.elementAt(i)));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class LongLongMapTest {
+    @Test
+    public void keysDifferingOnlyInHighBitsAreDistinct() {
+        LongLongMap map = new LongLongMap();
+        for (long i = 0; i < 100; i++) {
+            map.put(i << 32, i);
+        }
+        assertEquals(100, map.size());
+        for (long i = 0; i < 100; i++) {
+            assertEquals(i, map.get(i << 32, -1L));
+        }
+    }
+
+    @Test
+    public void removeDeletesOnlyGivenKey() {
+        LongLongMap map = new LongLongMap();
+        map.put(Long.MAX_VALUE, 1L);
+        map.put(Long.MIN_VALUE, 2L);
+        map.remove(Long.MAX_VALUE);
+        assertFalse(map.containsKey(Long.MAX_VALUE));
+        assertTrue(map.containsKey(Long.MIN_VALUE));
+        assertEquals(2L, map.get(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void indexOfValueFindsMapping() {
+        LongLongMap map = new LongLongMap(0);
+        map.put(5L, 50L);
+        assertEquals(5L, map.keyAt(map.indexOfValue(50L)));
+        assertEquals(-1, map.indexOfValue(5L));
+    }
+}
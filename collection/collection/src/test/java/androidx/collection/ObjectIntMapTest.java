@@ -0,0 +1,60 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ObjectIntMapTest {
+    @Test
+    public void keysAreComparedWithEquals() {
+        ObjectIntMap<String> map = new ObjectIntMap<>();
+        map.put(new String("key"), 1);
+        assertTrue(map.containsKey("key"));
+        assertEquals(1, map.get(new String("key")));
+    }
+
+    @Test
+    public void nullKeyIsSupported() {
+        ObjectIntMap<String> map = new ObjectIntMap<>();
+        map.put(null, 1);
+        map.put("a", 2);
+        assertEquals(1, map.get(null, -1));
+        map.remove(null);
+        assertFalse(map.containsKey(null));
+        assertEquals(2, map.get("a"));
+    }
+
+    @Test
+    public void putAllCopiesMappings() {
+        ObjectIntMap<String> source = new ObjectIntMap<>();
+        source.put("a", 1);
+        source.put("b", 2);
+        ObjectIntMap<Object> map = new ObjectIntMap<>(0);
+        map.put("a", 3);
+        map.putAll(source);
+        assertEquals(2, map.size());
+        assertEquals(1, map.get("a"));
+        assertEquals(2, map.get("b"));
+    }
+}
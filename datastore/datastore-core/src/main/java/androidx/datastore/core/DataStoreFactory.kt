@@ -44,6 +44,11 @@ public object DataStoreFactory {
      * @param migrations Migrations are run before any access to data can occur. Migrations must
      * be idempotent.
      * @param scope The scope in which IO operations and transform functions will execute.
+     * @param enableDeltaJournal Whether updates are appended to a journal next to the data file
+     * instead of rewriting the whole file, which requires [serializer] to be a [DeltaSerializer].
+     * The journal is compacted into the data file once it outgrows it. Only a DataStore that
+     * enables the journal reads it, so updates in the journal are lost if it is disabled again,
+     * for example by a downgrade of the app. Defaults to false, which keeps all data in the file.
      * @param produceFile Function which returns the file that the new DataStore will act on. The
      * function must return the same path every time. No two instances of DataStore should act on
      * the same file at the same time.
@@ -54,6 +59,7 @@ public object DataStoreFactory {
         corruptionHandler: ReplaceFileCorruptionHandler<T>? = null,
         migrations: List<DataMigration<T>> = listOf(),
         scope: CoroutineScope = CoroutineScope(Dispatchers.IO + SupervisorJob()),
+        enableDeltaJournal: Boolean = false,
         produceFile: () -> File
     ): DataStore<T> =
         SingleProcessDataStore(
@@ -61,6 +67,7 @@ public object DataStoreFactory {
             serializer = serializer,
             corruptionHandler = corruptionHandler ?: NoOpCorruptionHandler(),
             initTasksList = listOf(DataMigrationInitializer.getInitializer(migrations)),
-            scope = scope
+            scope = scope,
+            enableDeltaJournal = enableDeltaJournal
         )
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.datastore.core
+
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileNotFoundException
+import java.io.FileOutputStream
+import java.io.IOException
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.util.zip.CRC32
+
+/**
+ * Append-only journal of deltas applied on top of a snapshot file. This is NOT thread safe, it
+ * is only used from within the [SingleProcessDataStore] actor.
+ *
+ * The journal starts with a header identifying the snapshot it applies to (its length and
+ * CRC32), followed by records of `[length][crc32][delta]`. A journal whose header does not match
+ * the current snapshot is stale (a compaction completed but the journal could not be deleted)
+ * and is discarded. A partially written final record is the result of a crash mid-append and is
+ * truncated. Any other damage is reported as a [CorruptionException].
+ */
+internal class DeltaJournal<T>(
+    private val journalFile: File,
+    private val serializer: DeltaSerializer<T>
+) {
+    /** Length of the snapshot the journal applies to, or [NO_SNAPSHOT]. */
+    private var snapshotLength = NO_SNAPSHOT
+
+    /** CRC32 of the snapshot the journal applies to. */
+    private var snapshotChecksum = 0L
+
+    /** Number of valid bytes in the journal file, 0 if it has no header yet. */
+    private var journalLength = 0L
+
+    /**
+     * Reads [snapshotFile] and replays the journal on top of it.
+     */
+    fun readFrom(snapshotFile: File): T {
+        val snapshot = readBytesOrNull(snapshotFile)
+        var data = if (snapshot == null) {
+            serializer.defaultValue
+        } else {
+            serializer.readFrom(ByteArrayInputStream(snapshot))
+        }
+        snapshotLength = snapshot?.size?.toLong() ?: NO_SNAPSHOT
+        snapshotChecksum = snapshot?.let { checksum(it, 0, it.size) } ?: 0L
+        journalLength = 0L
+
+        val journal = readBytesOrNull(journalFile) ?: return data
+        if (journal.size < HEADER_SIZE) {
+            // Crashed while writing the header, nothing was committed.
+            journalFile.delete()
+            return data
+        }
+
+        val buffer = ByteBuffer.wrap(journal)
+        if (buffer.getInt(0) != MAGIC) {
+            throw CorruptionException("$journalFile is not a DataStore journal.")
+        }
+        if (buffer.getLong(4) != snapshotLength || buffer.getLong(12) != snapshotChecksum) {
+            // The snapshot was compacted after this journal was written.
+            journalFile.delete()
+            return data
+        }
+
+        var offset = HEADER_SIZE
+        while (journal.size - offset >= RECORD_HEADER_SIZE) {
+            val length = buffer.getInt(offset)
+            val recordStart = offset + RECORD_HEADER_SIZE
+            if (length < 0 || journal.size - recordStart < length) {
+                break
+            }
+            if (checksum(journal, recordStart, length).toInt() != buffer.getInt(offset + 4)) {
+                if (recordStart + length == journal.size) {
+                    // Torn final record.
+                    break
+                }
+                throw CorruptionException("$journalFile has a damaged record at offset $offset.")
+            }
+            data = serializer.readDelta(data, ByteArrayInputStream(journal, recordStart, length))
+            offset = recordStart + length
+        }
+
+        if (offset < journal.size) {
+            truncate(offset.toLong())
+        }
+        journalLength = offset.toLong()
+        return data
+    }
+
+    /**
+     * Appends the delta from [oldData] to [newData] and fsyncs the journal.
+     *
+     * @return false if the journal would outgrow the snapshot, in which case nothing is written
+     * and the caller should compact by writing a new snapshot
+     */
+    fun append(oldData: T, newData: T): Boolean {
+        val delta = ByteArrayOutputStream()
+        serializer.writeDelta(oldData, newData, delta)
+        val payload = delta.toByteArray()
+
+        val headerSize = if (journalLength == 0L) HEADER_SIZE else 0
+        val recordSize = headerSize + RECORD_HEADER_SIZE + payload.size
+        if (journalLength + recordSize > maxOf(snapshotLength, MIN_COMPACTION_BYTES)) {
+            return false
+        }
+
+        val record = ByteBuffer.allocate(recordSize)
+        if (headerSize != 0) {
+            record.putInt(MAGIC).putLong(snapshotLength).putLong(snapshotChecksum)
+        }
+        record.putInt(payload.size)
+            .putInt(checksum(payload, 0, payload.size).toInt())
+            .put(payload)
+
+        try {
+            FileOutputStream(journalFile, /* append= */ journalLength != 0L).use { stream ->
+                stream.write(record.array())
+                stream.fd.sync()
+            }
+        } catch (ex: IOException) {
+            try {
+                if (journalLength == 0L) {
+                    journalFile.delete()
+                } else {
+                    truncate(journalLength)
+                }
+            } catch (truncateEx: IOException) {
+                ex.addSuppressed(truncateEx)
+            }
+            throw ex
+        }
+
+        journalLength += recordSize
+        return true
+    }
+
+    /**
+     * Called once a new snapshot has been durably written. Deltas in the journal are now part of
+     * the snapshot, so the journal is discarded.
+     */
+    fun onSnapshotWritten(length: Long, checksum: Long) {
+        snapshotLength = length
+        snapshotChecksum = checksum
+        journalLength = 0L
+        // If this fails, the stale header is detected on the next read.
+        journalFile.delete()
+    }
+
+    private fun truncate(length: Long) {
+        RandomAccessFile(journalFile, "rw").use { it.setLength(length) }
+    }
+
+    private fun readBytesOrNull(file: File): ByteArray? {
+        return try {
+            FileInputStream(file).use { it.readBytes() }
+        } catch (ex: FileNotFoundException) {
+            if (file.exists()) {
+                throw ex
+            }
+            null
+        }
+    }
+
+    private fun checksum(bytes: ByteArray, offset: Int, length: Int): Long {
+        return CRC32().apply { update(bytes, offset, length) }.value
+    }
+
+    internal companion object {
+        private const val MAGIC = 0x44534a31 // "DSJ1"
+        private const val NO_SNAPSHOT = -1L
+
+        /** magic + snapshot length + snapshot crc32 */
+        private const val HEADER_SIZE = 4 + 8 + 8
+
+        /** record length + record crc32 */
+        private const val RECORD_HEADER_SIZE = 4 + 4
+
+        /**
+         * Journals are allowed to grow to the size of the snapshot before being compacted, but
+         * never less than this, so that small data does not compact on every write.
+         */
+        internal const val MIN_COMPACTION_BYTES = 16 * 1024L
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.datastore.core
+
+import java.io.InputStream
+import java.io.OutputStream
+
+/**
+ * A [Serializer] that can also encode the difference between two values.
+ *
+ * DataStores backed by a DeltaSerializer that enable the delta journal persist small updates by
+ * appending the delta to a journal next to the data file instead of rewriting the whole file.
+ * Once the journal grows past the size of the full data, it is compacted back into the data file
+ * with [writeTo]. See [DataStoreFactory.create].
+ *
+ * Applying the delta written by `writeDelta(old, new, output)` to `old` with [readDelta] MUST
+ * produce a value equal to `new`.
+ */
+public interface DeltaSerializer<T> : Serializer<T> {
+
+    /**
+     * Marshal the changes needed to turn [old] into [new] to a stream. writeDelta should not
+     * close [output].
+     *
+     * @param old the data currently persisted
+     * @param new the data to persist
+     * @param output the OutputStream to serialize the delta to
+     */
+    public fun writeDelta(old: T, new: T, output: OutputStream)
+
+    /**
+     * Unmarshal a delta written by [writeDelta] and apply it to [base].
+     *
+     * @param base the data the delta was computed against
+     * @param input the InputStream with the delta to deserialize
+     * @return the data with the delta applied
+     * @throws CorruptionException if the delta cannot be parsed
+     */
+    public fun readDelta(base: T, input: InputStream): T
+}
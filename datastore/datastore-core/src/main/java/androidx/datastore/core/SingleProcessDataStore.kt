@@ -45,6 +45,8 @@ import java.io.IOException
 import java.io.OutputStream
 import java.lang.IllegalStateException
 import java.util.concurrent.atomic.AtomicReference
+import java.util.zip.CRC32
+import java.util.zip.CheckedOutputStream
 
 private class DataAndHash<T>(val value: T, val hashCode: Int) {
     fun checkHashCode() {
@@ -56,6 +58,10 @@ private class DataAndHash<T>(val value: T, val hashCode: Int) {
 
 /**
  * Single process implementation of DataStore. This is NOT multi-process safe.
+ *
+ * If [enableDeltaJournal] is set, [serializer] must be a [DeltaSerializer]. Updates are then
+ * appended to a journal next to the data file and only compacted into the data file once the
+ * journal outgrows it.
  */
 @OptIn(ExperimentalCoroutinesApi::class, ObsoleteCoroutinesApi::class, FlowPreview::class)
 internal class SingleProcessDataStore<T>(
@@ -70,9 +76,16 @@ internal class SingleProcessDataStore<T>(
      */
     initTasksList: List<suspend (api: InitializerApi<T>) -> Unit> = emptyList(),
     private val corruptionHandler: CorruptionHandler<T> = NoOpCorruptionHandler<T>(),
-    private val scope: CoroutineScope = CoroutineScope(Dispatchers.IO + SupervisorJob())
+    private val scope: CoroutineScope = CoroutineScope(Dispatchers.IO + SupervisorJob()),
+    private val enableDeltaJournal: Boolean = false
 ) : DataStore<T> {
 
+    init {
+        require(!enableDeltaJournal || serializer is DeltaSerializer<T>) {
+            "The delta journal can only be enabled with a DeltaSerializer."
+        }
+    }
+
     override val data: Flow<T> = flow {
         val curChannel = downstreamChannel()
         actor.offer(Message.Read(curChannel))
@@ -97,9 +110,18 @@ internal class SingleProcessDataStore<T>(
     }
 
     private val SCRATCH_SUFFIX = ".tmp"
+    private val JOURNAL_SUFFIX = ".journal"
 
     private val file: File by lazy { produceFile() }
 
+    private val journal: DeltaJournal<T>? by lazy {
+        if (enableDeltaJournal) {
+            DeltaJournal(File(file.absolutePath + JOURNAL_SUFFIX), serializer as DeltaSerializer<T>)
+        } else {
+            null
+        }
+    }
+
     /**
      * The external facing channel. The data flow emits the values from this channel.
      *
@@ -244,6 +266,8 @@ internal class SingleProcessDataStore<T>(
     }
 
     private suspend fun readData(): T {
+        journal?.let { return it.readFrom(file) }
+
         try {
             FileInputStream(file).use { stream ->
                 return serializer.readFrom(stream)
@@ -277,12 +301,23 @@ internal class SingleProcessDataStore<T>(
         return if (curData == newData) {
             curData
         } else {
-            writeData(newData)
+            appendOrWriteData(curData, newData)
             updateDataChannel.offer(DataAndHash(newData, newData.hashCode()))
             newData
         }
     }
 
+    private fun appendOrWriteData(curData: T, newData: T) {
+        val journal = journal
+        if (journal != null) {
+            file.createParentDirectories()
+            if (journal.append(curData, newData)) {
+                return
+            }
+        }
+        writeData(newData)
+    }
+
     /**
      * Internal only to prevent creation of synthetic accessor function. Do not call this from
      * outside this class.
@@ -292,8 +327,16 @@ internal class SingleProcessDataStore<T>(
 
         val scratchFile = File(file.absolutePath + SCRATCH_SUFFIX)
         try {
+            val checksum = CRC32()
+            var length = 0L
             FileOutputStream(scratchFile).use { stream ->
-                serializer.writeTo(newData, UncloseableOutputStream(stream))
+                val output = UncloseableOutputStream(stream)
+                if (journal == null) {
+                    serializer.writeTo(newData, output)
+                } else {
+                    serializer.writeTo(newData, CheckedOutputStream(output, checksum))
+                    length = stream.channel.position()
+                }
                 stream.fd.sync()
                 // TODO(b/151635324): fsync the directory, otherwise a badly timed crash could
                 //  result in reverting to a previous state.
@@ -302,6 +345,7 @@ internal class SingleProcessDataStore<T>(
             if (!scratchFile.renameTo(file)) {
                 throw IOException("$scratchFile could not be renamed to $file")
             }
+            journal?.onSnapshotWritten(length, checksum.value)
         } catch (ex: IOException) {
             if (scratchFile.exists()) {
                 scratchFile.delete()
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.datastore.core
+
+import androidx.datastore.core.handlers.NoOpCorruptionHandler
+import androidx.datastore.core.handlers.ReplaceFileCorruptionHandler
+import androidx.testutils.assertThrows
+import com.google.common.truth.Truth.assertThat
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.test.TestCoroutineDispatcher
+import kotlinx.coroutines.test.TestCoroutineScope
+import kotlinx.coroutines.test.runBlockingTest
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+import java.io.File
+import java.io.IOException
+import java.io.InputStream
+import java.io.OutputStream
+import java.io.RandomAccessFile
+
+@kotlinx.coroutines.ExperimentalCoroutinesApi
+@kotlinx.coroutines.ObsoleteCoroutinesApi
+@kotlinx.coroutines.FlowPreview
+@RunWith(JUnit4::class)
+class DeltaJournalTest {
+    @get:Rule
+    val tempFolder = TemporaryFolder()
+
+    private lateinit var testFile: File
+    private lateinit var journalFile: File
+    private lateinit var serializer: CountingDeltaSerializer
+    private lateinit var dataStoreScope: TestCoroutineScope
+
+    @Before
+    fun setUp() {
+        testFile = File(tempFolder.root, "test_file")
+        journalFile = File(testFile.absolutePath + ".journal")
+        serializer = CountingDeltaSerializer()
+        dataStoreScope = TestCoroutineScope(TestCoroutineDispatcher() + Job())
+    }
+
+    @After
+    fun cleanUp() {
+        dataStoreScope.cleanupTestCoroutines()
+    }
+
+    @Test
+    fun testJournalIsDisabledByDefault() = runBlockingTest {
+        val store = SingleProcessDataStore({ testFile }, serializer, scope = dataStoreScope)
+        store.updateData { "a" }
+        store.updateData { "ab" }
+
+        assertThat(journalFile.exists()).isFalse()
+        assertThat(serializer.snapshotWrites).isEqualTo(2)
+        assertThat(serializer.deltaWrites).isEqualTo(0)
+    }
+
+    @Test
+    fun testUpdateAppendsToJournal() = runBlockingTest {
+        val store = newDataStore()
+        store.updateData { "a" }
+        store.updateData { "ab" }
+
+        assertThat(testFile.exists()).isFalse()
+        assertThat(journalFile.exists()).isTrue()
+        assertThat(serializer.snapshotWrites).isEqualTo(0)
+        assertThat(serializer.deltaWrites).isEqualTo(2)
+        assertThat(newDataStore().data.first()).isEqualTo("ab")
+    }
+
+    @Test
+    fun testJournalReplayedOnTopOfSnapshot() = runBlockingTest {
+        testFile.writeText("snapshot")
+
+        newDataStore().updateData { it + "+delta" }
+
+        assertThat(testFile.readText()).isEqualTo("snapshot")
+        assertThat(newDataStore().data.first()).isEqualTo("snapshot+delta")
+    }
+
+    @Test
+    fun testJournalCompactedOnceLargerThanSnapshot() = runBlockingTest {
+        val store = newDataStore()
+        val value = "x".repeat(1024)
+
+        var writes = 0
+        while (serializer.snapshotWrites == 0) {
+            store.updateData { value + writes }
+            writes++
+        }
+
+        assertThat(writes.toLong()).isAtMost(DeltaJournal.MIN_COMPACTION_BYTES / value.length + 1)
+        assertThat(journalFile.exists()).isFalse()
+        assertThat(testFile.readText()).isEqualTo(value + (writes - 1))
+        assertThat(newDataStore().data.first()).isEqualTo(value + (writes - 1))
+    }
+
+    @Test
+    fun testTornFinalRecordIsTruncated() = runBlockingTest {
+        val store = newDataStore()
+        store.updateData { "a" }
+        val goodLength = journalFile.length()
+        journalFile.appendBytes(byteArrayOf(0, 0, 0, 10, 1, 2))
+
+        assertThat(newDataStore().data.first()).isEqualTo("a")
+        assertThat(journalFile.length()).isEqualTo(goodLength)
+    }
+
+    @Test
+    fun testDamagedFinalRecordIsTruncated() = runBlockingTest {
+        val store = newDataStore()
+        store.updateData { "a" }
+        val goodLength = journalFile.length()
+        store.updateData { "b" }
+        flipLastByte(journalFile)
+
+        assertThat(newDataStore().data.first()).isEqualTo("a")
+        assertThat(journalFile.length()).isEqualTo(goodLength)
+    }
+
+    @Test
+    fun testDamagedRecordIsCorruption() = runBlockingTest {
+        val store = newDataStore()
+        store.updateData { "a" }
+        val firstRecordEnd = journalFile.length()
+        store.updateData { "b" }
+        RandomAccessFile(journalFile, "rw").use {
+            it.seek(firstRecordEnd - 1)
+            it.write('z'.toInt())
+        }
+
+        assertThrows<CorruptionException> { newDataStore().data.first() }
+    }
+
+    @Test
+    fun testCorruptJournalGoesThroughCorruptionHandler() = runBlockingTest {
+        journalFile.writeBytes(ByteArray(32) { 0x7f })
+
+        val store = newDataStore(
+            corruptionHandler = ReplaceFileCorruptionHandler { "replaced" }
+        )
+
+        assertThat(store.data.first()).isEqualTo("replaced")
+        assertThat(journalFile.exists()).isFalse()
+        assertThat(newDataStore().data.first()).isEqualTo("replaced")
+    }
+
+    @Test
+    fun testStaleJournalIsDiscarded() = runBlockingTest {
+        testFile.writeText("old")
+        newDataStore().updateData { "delta" }
+
+        // Simulate a compaction whose journal deletion did not complete.
+        testFile.writeText("new")
+
+        assertThat(newDataStore().data.first()).isEqualTo("new")
+        assertThat(journalFile.exists()).isFalse()
+    }
+
+    @Test
+    fun testFailedDeltaWriteLeavesJournalIntact() = runBlockingTest {
+        val store = newDataStore()
+        store.updateData { "a" }
+        val goodLength = journalFile.length()
+
+        serializer.failingDeltaWrite = true
+        assertThrows<IOException> { store.updateData { "b" } }
+        serializer.failingDeltaWrite = false
+
+        assertThat(journalFile.length()).isEqualTo(goodLength)
+        assertThat(store.data.first()).isEqualTo("a")
+        assertThat(newDataStore().data.first()).isEqualTo("a")
+    }
+
+    private fun flipLastByte(file: File) {
+        RandomAccessFile(file, "rw").use {
+            it.seek(it.length() - 1)
+            val last = it.read()
+            it.seek(it.length() - 1)
+            it.write(last xor 0xff)
+        }
+    }
+
+    private fun newDataStore(
+        corruptionHandler: CorruptionHandler<String> = NoOpCorruptionHandler()
+    ): DataStore<String> {
+        return SingleProcessDataStore(
+            { testFile },
+            serializer = serializer,
+            corruptionHandler = corruptionHandler,
+            scope = dataStoreScope,
+            enableDeltaJournal = true
+        )
+    }
+
+    /**
+     * Stores a String. Deltas hold the full new value, which is enough to exercise the journal.
+     */
+    private class CountingDeltaSerializer : DeltaSerializer<String> {
+        @Volatile var failingDeltaWrite = false
+        var snapshotWrites = 0
+        var deltaWrites = 0
+
+        override val defaultValue: String = ""
+
+        override fun readFrom(input: InputStream): String {
+            return input.readBytes().toString(Charsets.UTF_8)
+        }
+
+        override fun writeTo(t: String, output: OutputStream) {
+            snapshotWrites++
+            output.write(t.toByteArray(Charsets.UTF_8))
+        }
+
+        override fun writeDelta(old: String, new: String, output: OutputStream) {
+            if (failingDeltaWrite) {
+                throw IOException("I was asked to fail on delta writes")
+            }
+            deltaWrites++
+            output.write(new.toByteArray(Charsets.UTF_8))
+        }
+
+        override fun readDelta(base: String, input: InputStream): String {
+            return readFrom(input)
+        }
+    }
+}
@@ -45,6 +45,11 @@ public object PreferenceDataStoreFactory {
      * may be run more than once whether or not it already succeeded (potentially because another
      * migration failed or a write to disk failed.)
      * @param scope The scope in which IO operations and transform functions will execute.
+     * @param enableDeltaJournal Whether a changed preference is appended to a journal next to the
+     * file instead of rewriting all preferences, which pays off for large files with frequent
+     * small edits. Only a DataStore that enables the journal reads it, so preferences changed
+     * since the last compaction of the journal are lost if it is disabled again, for example by a
+     * downgrade of the app. Defaults to false.
      * @param produceFile Function which returns the file that the new DataStore will act on.
      * The function must return the same path every time. No two instances of PreferenceDataStore
      * should act on the same file at the same time. The file must have the extension
@@ -55,13 +60,17 @@ public object PreferenceDataStoreFactory {
         corruptionHandler: ReplaceFileCorruptionHandler<Preferences>? = null,
         migrations: List<DataMigration<Preferences>> = listOf(),
         scope: CoroutineScope = CoroutineScope(Dispatchers.IO + SupervisorJob()),
+        enableDeltaJournal: Boolean = false,
         produceFile: () -> File
     ): DataStore<Preferences> {
+        val serializer =
+            if (enableDeltaJournal) PreferencesDeltaSerializer else PreferencesSerializer
         val delegate = DataStoreFactory.create(
-            serializer = PreferencesSerializer,
+            serializer = serializer,
             corruptionHandler = corruptionHandler,
             migrations = migrations,
-            scope = scope
+            scope = scope,
+            enableDeltaJournal = enableDeltaJournal
         ) {
             val file = produceFile()
             check(file.extension == PreferencesSerializer.fileExtension) {
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.datastore.preferences.core
+
+import androidx.datastore.core.CorruptionException
+import androidx.datastore.core.DeltaSerializer
+import androidx.datastore.core.Serializer
+import androidx.datastore.preferences.PreferencesMapCompat
+import androidx.datastore.preferences.PreferencesProto.PreferenceMap
+import androidx.datastore.preferences.PreferencesProto.Value
+import java.io.IOException
+import java.io.InputStream
+import java.io.OutputStream
+import kotlin.jvm.Throws
+
+/**
+ * [PreferencesSerializer] that can also encode deltas, for Preferences DataStores that enable the
+ * delta journal. The data file has the same format as with [PreferencesSerializer].
+ *
+ * Deltas are encoded as a PreferenceMap of the changed preferences, where removed preferences
+ * are mapped to a Value with no value set.
+ */
+internal object PreferencesDeltaSerializer :
+    DeltaSerializer<Preferences>,
+    Serializer<Preferences> by PreferencesSerializer {
+
+    @Throws(IOException::class)
+    override fun writeDelta(old: Preferences, new: Preferences, output: OutputStream) {
+        val oldPreferences = old.asMap()
+        val newPreferences = new.asMap()
+        val protoBuilder = PreferenceMap.newBuilder()
+
+        for ((key, value) in newPreferences) {
+            if (oldPreferences[key] != value) {
+                protoBuilder.putPreferences(key.name, PreferencesSerializer.getValueProto(value))
+            }
+        }
+        for (key in oldPreferences.keys) {
+            if (key !in newPreferences) {
+                protoBuilder.putPreferences(key.name, Value.getDefaultInstance())
+            }
+        }
+
+        protoBuilder.build().writeTo(output)
+    }
+
+    @Throws(IOException::class, CorruptionException::class)
+    override fun readDelta(base: Preferences, input: InputStream): Preferences {
+        val deltaProto = PreferencesMapCompat.readFrom(input)
+
+        val mutablePreferences = base.toMutablePreferences()
+
+        deltaProto.preferencesMap.forEach { (name, value) ->
+            if (value.valueCase == Value.ValueCase.VALUE_NOT_SET) {
+                mutablePreferences.remove(Preferences.Key<Any>(name))
+            } else {
+                PreferencesSerializer.addProtoEntryToPreferences(name, value, mutablePreferences)
+            }
+        }
+
+        return mutablePreferences.toPreferences()
+    }
+}
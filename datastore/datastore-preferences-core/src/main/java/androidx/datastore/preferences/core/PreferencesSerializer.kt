@@ -66,7 +66,7 @@ internal object PreferencesSerializer : Serializer<Preferences> {
         protoBuilder.build().writeTo(output)
     }
 
-    private fun getValueProto(value: Any): Value {
+    internal fun getValueProto(value: Any): Value {
         return when (value) {
             is Boolean -> Value.newBuilder().setBoolean(value).build()
             is Float -> Value.newBuilder().setFloat(value).build()
@@ -85,7 +85,7 @@ internal object PreferencesSerializer : Serializer<Preferences> {
         }
     }
 
-    private fun addProtoEntryToPreferences(
+    internal fun addProtoEntryToPreferences(
         name: String,
         value: Value,
         mutablePreferences: MutablePreferences
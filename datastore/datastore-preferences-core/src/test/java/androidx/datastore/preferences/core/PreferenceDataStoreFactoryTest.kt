@@ -31,6 +31,7 @@ import java.io.File
 import java.lang.IllegalStateException
 import kotlin.test.assertEquals
 import kotlin.test.assertFailsWith
+import kotlin.test.assertFalse
 
 @ObsoleteCoroutinesApi
 @kotlinx.coroutines.ExperimentalCoroutinesApi
@@ -69,6 +70,26 @@ class PreferenceDataStoreFactoryTest {
         assertEquals(expectedPreferences, store.data.first())
     }
 
+    @Test
+    fun testDeltaJournalDisabledByDefault() = runBlockingTest {
+        val store = PreferenceDataStoreFactory.create(
+            scope = dataStoreScope
+        ) { testFile }
+
+        store.edit { prefs ->
+            prefs[stringKey] = "value"
+        }
+        store.edit { prefs ->
+            prefs[stringKey] = "updated"
+        }
+
+        assertFalse(File(testFile.absolutePath + ".journal").exists())
+        assertEquals(
+            preferencesOf(stringKey to "updated"),
+            testFile.inputStream().use { PreferencesSerializer.readFrom(it) }
+        )
+    }
+
     @Test
     fun testCorruptionHandlerInstalled() = runBlockingTest {
         testFile.writeBytes(byteArrayOf(0x00, 0x00, 0x00, 0x03)) // Protos can not start with 0x00.
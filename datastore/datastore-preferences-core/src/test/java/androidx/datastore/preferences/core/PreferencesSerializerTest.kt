@@ -188,4 +188,31 @@ class PreferencesSerializerTest {
             }
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    fun testWriteAndReadDelta() {
+        val stringKey = preferencesKey<String>("string_key")
+        val intKey = preferencesKey<Int>("int_key")
+        val removedKey = preferencesKey<Long>("removed_key")
+
+        val old = preferencesOf(
+            stringKey to "string1",
+            intKey to 1,
+            removedKey to 2L
+        )
+        val new = preferencesOf(
+            stringKey to "string1",
+            intKey to 3
+        )
+
+        testFile.outputStream().use {
+            PreferencesDeltaSerializer.writeDelta(old, new, it)
+        }
+
+        val readPrefs = testFile.inputStream().use {
+            PreferencesDeltaSerializer.readDelta(old, it)
+        }
+
+        assertEquals(new, readPrefs)
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.datastore.preferences.core
+
+import kotlinx.coroutines.FlowPreview
+import kotlinx.coroutines.ObsoleteCoroutinesApi
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.test.TestCoroutineScope
+import kotlinx.coroutines.test.runBlockingTest
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.ByteArrayOutputStream
+import java.io.File
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+
+/**
+ * Measures bytes written to disk per small edit of a large Preferences DataStore, compared to
+ * rewriting the whole file on every edit.
+ */
+@ObsoleteCoroutinesApi
+@kotlinx.coroutines.ExperimentalCoroutinesApi
+@FlowPreview
+class PreferencesWriteAmplificationTest {
+    @get:Rule
+    val tmp = TemporaryFolder()
+
+    private lateinit var testFile: File
+    private lateinit var journalFile: File
+    private lateinit var dataStoreScope: TestCoroutineScope
+
+    @Before
+    fun setUp() {
+        testFile = tmp.newFile("test_file." + PreferencesSerializer.fileExtension)
+        journalFile = File(testFile.absolutePath + ".journal")
+        dataStoreScope = TestCoroutineScope()
+    }
+
+    @Test
+    fun testSmallEditsWriteOnlyDeltas() = runBlockingTest {
+        val store = PreferenceDataStoreFactory.create(
+            scope = dataStoreScope,
+            enableDeltaJournal = true
+        ) { testFile }
+        store.edit { prefs ->
+            for (i in 0 until KEY_COUNT) {
+                prefs[preferencesKey<String>("key$i")] = "value$i"
+            }
+        }
+
+        var fullRewriteBytes = 0L
+        var journaledBytes = 0L
+        for (i in 0 until UPDATE_COUNT) {
+            val journalLengthBefore = journalFile.length()
+            val updated = store.edit { prefs ->
+                prefs[preferencesKey<String>("key${i % KEY_COUNT}")] = "updated$i"
+            }
+
+            fullRewriteBytes += serializedSize(updated)
+            val journalLengthAfter = journalFile.length()
+            journaledBytes += if (journalLengthAfter > journalLengthBefore) {
+                journalLengthAfter - journalLengthBefore
+            } else {
+                // Compacted into a new snapshot.
+                testFile.length()
+            }
+        }
+
+        println(
+            "write amplification: full rewrite ${fullRewriteBytes / UPDATE_COUNT} B/update, " +
+                "journaled ${journaledBytes / UPDATE_COUNT} B/update"
+        )
+        assertTrue(journaledBytes * 10 < fullRewriteBytes)
+
+        val reopened = PreferenceDataStoreFactory.create(
+            scope = dataStoreScope,
+            enableDeltaJournal = true
+        ) { testFile }
+        assertEquals(store.data.first(), reopened.data.first())
+    }
+
+    private fun serializedSize(preferences: Preferences): Long {
+        val output = ByteArrayOutputStream()
+        PreferencesSerializer.writeTo(preferences, output)
+        return output.size().toLong()
+    }
+
+    private companion object {
+        const val KEY_COUNT = 1000
+        const val UPDATE_COUNT = 2000
+    }
+}
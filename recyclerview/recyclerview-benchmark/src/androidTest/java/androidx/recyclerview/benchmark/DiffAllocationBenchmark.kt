@@ -0,0 +1,147 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.benchmark
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.recyclerview.widget.DiffUtil
+import androidx.recyclerview.widget.ListUpdateCallback
+import androidx.test.filters.LargeTest
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import kotlin.random.Random
+
+/**
+ * Measures how much large diffs allocate, separately for calculating and for dispatching them.
+ *
+ * [BenchmarkRule] reports the allocation count of each benchmark next to its timing, which is
+ * the number to watch here.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class DiffAllocationBenchmark(
+    val input: Input
+) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    @Test
+    fun calculateDiff() {
+        benchmarkRule.measureRepeated {
+            input.calculateDiff()
+        }
+    }
+
+    @Test
+    fun dispatchUpdates() {
+        val result = input.calculateDiff()
+        benchmarkRule.measureRepeated {
+            result.dispatchUpdatesTo(dummyUpdateCallback)
+        }
+    }
+
+    companion object {
+        private const val SIZE = 100_000
+
+        private val dummyUpdateCallback = object : ListUpdateCallback {
+            override fun onChanged(position: Int, count: Int, payload: Any?) {
+            }
+
+            override fun onMoved(fromPosition: Int, toPosition: Int) {
+            }
+
+            override fun onInserted(position: Int, count: Int) {
+            }
+
+            override fun onRemoved(position: Int, count: Int) {
+            }
+        }
+
+        private val items = (0 until SIZE).map { Item(it, 0) }
+
+        @JvmStatic
+        @Parameterized.Parameters(name = "input_{0}")
+        fun params() = listOf(
+            Input(
+                name = "update_every_10th",
+                before = items,
+                after = items.map { if (it.id % 10 == 0) it.copy(version = 1) else it }
+            ),
+            Input(
+                name = "replace_every_10th",
+                before = items,
+                after = items.map { if (it.id % 10 == 0) Item(-it.id - 1, 0) else it },
+                keyed = true
+            ),
+            Input(
+                name = "move_every_100th",
+                before = items,
+                after = items.toMutableList().apply {
+                    for (index in 100 until size - 100 step 100) {
+                        add(index + 50, removeAt(index))
+                    }
+                }
+            ),
+            Input(
+                name = "shuffle",
+                before = items,
+                after = items.shuffled(Random(0)),
+                keyed = true
+            )
+        ).flatMap {
+            // Myers's algorithm is too slow for lists with this many changes, so only the keyed
+            // diff runs on those.
+            if (it.keyed) listOf(it) else listOf(it, it.copy(keyed = true))
+        }
+    }
+
+    data class Item(val id: Int, val version: Int)
+
+    data class Input(
+        val name: String,
+        val before: List<Item>,
+        val after: List<Item>,
+        val keyed: Boolean = false
+    ) {
+        private val callback = object : DiffUtil.KeyedCallback() {
+            override fun getOldItemKey(oldItemPosition: Int) = before[oldItemPosition].id.toLong()
+
+            override fun getNewItemKey(newItemPosition: Int) = after[newItemPosition].id.toLong()
+
+            override fun areItemsTheSame(oldItemPosition: Int, newItemPosition: Int) =
+                before[oldItemPosition].id == after[newItemPosition].id
+
+            override fun getOldListSize() = before.size
+
+            override fun getNewListSize() = after.size
+
+            override fun areContentsTheSame(oldItemPosition: Int, newItemPosition: Int) =
+                before[oldItemPosition] == after[newItemPosition]
+        }
+
+        fun calculateDiff(): DiffUtil.DiffResult = if (keyed) {
+            DiffUtil.calculateKeyedDiff(callback)
+        } else {
+            DiffUtil.calculateDiff(callback)
+        }
+
+        override fun toString() = name + (if (keyed) "_keyed" else "") + "_size_${before.size}"
+    }
+}
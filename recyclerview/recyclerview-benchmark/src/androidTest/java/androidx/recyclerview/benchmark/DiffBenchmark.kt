@@ -25,6 +25,7 @@ import org.junit.Rule
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.junit.runners.Parameterized
+import kotlin.random.Random
 
 @LargeTest
 @RunWith(Parameterized::class)
@@ -38,7 +39,11 @@ class DiffBenchmark(
     @Test
     fun runDiff() {
         benchmarkRule.measureRepeated {
-            val result = DiffUtil.calculateDiff(input.callback, input.detectMoves)
+            val result = if (input.keyed) {
+                DiffUtil.calculateKeyedDiff(input.callback, input.detectMoves)
+            } else {
+                DiffUtil.calculateDiff(input.callback, input.detectMoves)
+            }
             if (input.dispatchUpdates) {
                 result.dispatchUpdatesTo(dummyUpdateCallback)
             }
@@ -60,6 +65,17 @@ class DiffBenchmark(
             }
         }
 
+        /**
+         * Moves every [interval]th item to the position [interval] / 2 items further.
+         */
+        private fun List<Int>.moveEvery(interval: Int): List<Int> {
+            val result = toMutableList()
+            for (index in interval until size - interval step interval) {
+                result.add(index + interval / 2, result.removeAt(index))
+            }
+            return result
+        }
+
         @JvmStatic
         @Parameterized.Parameters(name = "input_{0}")
         fun params() = listOf(
@@ -102,12 +118,37 @@ class DiffBenchmark(
                 name = "move_from_end_to_beginning",
                 before = (0..1000).toList(),
                 after = (900..1000).toList() + (0..899).toList()
+            ),
+            Input(
+                name = "scattered_moves",
+                before = (0..10000).toList(),
+                after = (0..10000).toList().moveEvery(100)
+            ),
+            Input(
+                name = "shuffle",
+                before = (0..1000).toList(),
+                after = (0..1000).shuffled(Random(0))
+            ),
+            Input(
+                name = "replace_half",
+                before = (0..10000).toList(),
+                after = (0..10000).map { if (it % 2 == 0) it else -it }
             )
         ).flatMap {
             listOf(
                 it,
                 it.copy(detectMoves = false)
             )
+        }.flatMap {
+            // The keyed diff requires unique keys.
+            if (it.after.toSet().size == it.after.size) {
+                listOf(
+                    it,
+                    it.copy(keyed = true)
+                )
+            } else {
+                listOf(it)
+            }
         }.flatMap {
             listOf(
                 it,
@@ -121,9 +162,14 @@ class DiffBenchmark(
         val before: List<Int>,
         val after: List<Int>,
         val dispatchUpdates: Boolean = true,
-        val detectMoves: Boolean = true
+        val detectMoves: Boolean = true,
+        val keyed: Boolean = false
     ) {
-        val callback = object : DiffUtil.Callback() {
+        val callback = object : DiffUtil.KeyedCallback() {
+            override fun getOldItemKey(oldItemPosition: Int) = before[oldItemPosition].toLong()
+
+            override fun getNewItemKey(newItemPosition: Int) = after[newItemPosition].toLong()
+
             override fun areItemsTheSame(oldItemPosition: Int, newItemPosition: Int) =
                 before[oldItemPosition] == after[newItemPosition]
 
@@ -136,6 +182,7 @@ class DiffBenchmark(
         }
 
         override fun toString() = name +
+            (if (keyed) "_keyed" else "") +
             "_dispatchUpdates_$dispatchUpdates" +
             "_detectMoves_$detectMoves" +
             "_size_[${before.size}_${after.size}]"
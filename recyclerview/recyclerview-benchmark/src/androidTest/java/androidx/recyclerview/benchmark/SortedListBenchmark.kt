@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.benchmark
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.recyclerview.widget.SortedList
+import androidx.test.filters.LargeTest
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import kotlin.random.Random
+
+@LargeTest
+@RunWith(Parameterized::class)
+class SortedListBenchmark(
+    private val size: Int
+) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val random = Random(0)
+    private lateinit var list: SortedList<Int>
+
+    @Before
+    fun setup() {
+        list = SortedList(Int::class.javaObjectType, callback)
+        // even numbers, so that odd ones are always new
+        list.addAll(Array(size) { it * 2 }, true)
+    }
+
+    @Test
+    fun addAndRemove() {
+        benchmarkRule.measureRepeated {
+            list.add(random.nextInt(size) * 2 + 1)
+            list.removeItemAt(random.nextInt(list.size()))
+        }
+    }
+
+    @Test
+    fun addAllFewItems() {
+        val items = Array(8) { 0 }
+        benchmarkRule.measureRepeated {
+            for (i in items.indices) {
+                items[i] = random.nextInt(size) * 2 + 1
+            }
+            list.addAll(*items)
+            runWithTimingDisabled {
+                for (item in items) {
+                    list.remove(item)
+                }
+            }
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "size_{0}")
+        fun params() = listOf(1_000, 10_000, 100_000)
+
+        private val callback = object : SortedList.Callback<Int>() {
+            override fun compare(o1: Int, o2: Int) = o1.compareTo(o2)
+
+            override fun areContentsTheSame(oldItem: Int, newItem: Int) = oldItem == newItem
+
+            override fun areItemsTheSame(item1: Int, item2: Int) = item1 == item2
+
+            override fun onInserted(position: Int, count: Int) {
+            }
+
+            override fun onRemoved(position: Int, count: Int) {
+            }
+
+            override fun onMoved(fromPosition: Int, toPosition: Int) {
+            }
+
+            override fun onChanged(position: Int, count: Int) {
+            }
+        }
+    }
+}
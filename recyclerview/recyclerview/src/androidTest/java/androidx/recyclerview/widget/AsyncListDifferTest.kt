@@ -22,15 +22,22 @@ import androidx.testutils.TestExecutor
 import org.junit.Assert.assertEquals
 import org.junit.Assert.assertNotSame
 import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
 import org.junit.Assert.fail
 import org.junit.Test
 import org.junit.runner.RunWith
+import org.mockito.ArgumentMatchers.anyLong
+import org.mockito.ArgumentMatchers.eq
 import org.mockito.Mockito.mock
 import org.mockito.Mockito.reset
 import org.mockito.Mockito.verify
 import org.mockito.Mockito.verifyNoMoreInteractions
 import org.mockito.Mockito.verifyZeroInteractions
 import java.util.Collections.emptyList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
 
 @MediumTest
 @RunWith(AndroidJUnit4::class)
@@ -39,13 +46,15 @@ class AsyncListDifferTest {
     private val mBackgroundThread = TestExecutor()
 
     private fun createDiffer(
-        listUpdateCallback: ListUpdateCallback = IGNORE_CALLBACK
+        listUpdateCallback: ListUpdateCallback = IGNORE_CALLBACK,
+        diffParallelism: Int = 1
     ): AsyncListDiffer<String> {
         return AsyncListDiffer(
             listUpdateCallback,
             AsyncDifferConfig.Builder(STRING_DIFF_CALLBACK)
                 .setMainThreadExecutor(mMainThread)
                 .setBackgroundThreadExecutor(mBackgroundThread)
+                .setDiffParallelism(diffParallelism)
                 .build()
         )
     }
@@ -346,6 +355,165 @@ class AsyncListDifferTest {
         verifyNoMoreInteractions(listener)
     }
 
+    @Test
+    fun diffLatencyListener() {
+        val differ = createDiffer()
+        val listener = mock(AsyncListDiffer.DiffLatencyListener::class.java)
+        differ.addDiffLatencyListener(listener)
+
+        // first list is committed without a diff
+        differ.submitList(listOf("a", "b"))
+        drain()
+        verifyZeroInteractions(listener)
+
+        differ.submitList(listOf("a", "b", "c"))
+        verifyZeroInteractions(listener)
+        drain()
+        verify(listener).onDiffDispatched(eq(2), eq(3), anyLong(), anyLong())
+        verifyNoMoreInteractions(listener)
+
+        differ.removeDiffLatencyListener(listener)
+        differ.submitList(listOf("a"))
+        drain()
+        verifyNoMoreInteractions(listener)
+    }
+
+    @Test
+    fun supersededDiffIsCanceled() {
+        val callback = mock(ListUpdateCallback::class.java)
+        val differ = createDiffer(callback)
+        val listener = mock(AsyncListDiffer.DiffLatencyListener::class.java)
+        differ.addDiffLatencyListener(listener)
+        differ.submitList(listOf("a", "b"))
+        verify(callback).onInserted(0, 2)
+
+        // the first diff is canceled before it runs, so it never posts its result
+        differ.submitList(listOf("a", "b", "c"))
+        differ.submitList(listOf("a", "b", "c", "d"))
+        mBackgroundThread.executeAll()
+        mMainThread.executeAll()
+        verify(listener).onDiffDispatched(eq(2), eq(4), anyLong(), anyLong())
+        verifyNoMoreInteractions(listener)
+        verify(callback).onInserted(2, 2)
+        verifyNoMoreInteractions(callback)
+        assertEquals(listOf("a", "b", "c", "d"), differ.currentList)
+    }
+
+    @Test
+    fun parallelDiff() {
+        val callback = mock(ListUpdateCallback::class.java)
+        val differ = createDiffer(callback, diffParallelism = 4)
+        // items are identified by their first char, so use a distinct char for each item
+        val before = (0 until 5000).map { (it + 0x100).toChar().toString() }
+        val after = before.filterIndexed { index, _ -> index % 100 != 0 }
+        differ.submitList(before)
+        verify(callback).onInserted(0, 5000)
+
+        differ.submitList(after)
+        drain()
+        for (position in 4900 downTo 0 step 100) {
+            verify(callback).onRemoved(position, 1)
+        }
+        verifyNoMoreInteractions(callback)
+        assertEquals(after, differ.currentList)
+    }
+
+    @Test
+    fun parallelDiffOnThreadPool() {
+        val background = Executors.newFixedThreadPool(4)
+        val main = Executors.newSingleThreadExecutor()
+        try {
+            // the superseded diff blocks in its first comparison until the next list is submitted
+            val supersededStarted = CountDownLatch(1)
+            val supersededReleased = CountDownLatch(1)
+            val supersededComparisons = AtomicInteger()
+            val itemCallback = object : DiffUtil.ItemCallback<String>() {
+                override fun areItemsTheSame(oldItem: String, newItem: String): Boolean {
+                    if (newItem.endsWith("x")) {
+                        supersededComparisons.incrementAndGet()
+                        supersededStarted.countDown()
+                        supersededReleased.await(5, TimeUnit.SECONDS)
+                    }
+                    return STRING_DIFF_CALLBACK.areItemsTheSame(oldItem, newItem)
+                }
+
+                override fun areContentsTheSame(oldItem: String, newItem: String): Boolean {
+                    return STRING_DIFF_CALLBACK.areContentsTheSame(oldItem, newItem)
+                }
+
+                override fun getChangePayload(oldItem: String, newItem: String): Any? {
+                    return STRING_DIFF_CALLBACK.getChangePayload(oldItem, newItem)
+                }
+            }
+            val events = ArrayList<String>()
+            val differ = AsyncListDiffer(
+                RecordingCallback(events),
+                AsyncDifferConfig.Builder(itemCallback)
+                    .setMainThreadExecutor(main)
+                    .setBackgroundThreadExecutor(background)
+                    .setDiffParallelism(4)
+                    .build()
+            )
+            val listener = mock(AsyncListDiffer.DiffLatencyListener::class.java)
+            differ.addDiffLatencyListener(listener)
+
+            // items are identified by their first char, so use a distinct char for each item
+            val before = (0 until 5000).map { (it + 0x100).toChar().toString() }
+            // reversing the list is the worst case for the diff, it would take long to complete
+            val superseded = before.reversed().map { it + "x" }
+            val after = before.filterIndexed { index, _ -> index % 7 != 0 }
+                .mapIndexed { index, item -> if (index % 11 == 0) "$item!" else item }
+            val committed = CountDownLatch(1)
+            main.submit(Runnable {
+                differ.submitList(before)
+                differ.submitList(superseded)
+            }).get()
+            assertTrue(supersededStarted.await(5, TimeUnit.SECONDS))
+            main.submit(Runnable {
+                differ.submitList(after) { committed.countDown() }
+            }).get()
+            supersededReleased.countDown()
+            assertTrue(committed.await(10, TimeUnit.SECONDS))
+            // the latency is dispatched after the commit callback
+            main.submit(Runnable {}).get()
+            // nothing is posted to the background executor once the last diff is committed
+            background.shutdown()
+            assertTrue(background.awaitTermination(5, TimeUnit.SECONDS))
+
+            // the superseded diff stopped right after it was released
+            assertTrue(supersededComparisons.get() < superseded.size)
+            verify(listener).onDiffDispatched(eq(5000), eq(after.size), anyLong(), anyLong())
+            verifyNoMoreInteractions(listener)
+
+            // the updates are those of a sequential diff, in the same order
+            val expected = ArrayList<String>()
+            val expectedCallback = RecordingCallback(expected)
+            expectedCallback.onInserted(0, before.size)
+            DiffUtil.calculateDiff(object : DiffUtil.Callback() {
+                override fun getOldListSize() = before.size
+
+                override fun getNewListSize() = after.size
+
+                override fun areItemsTheSame(oldItemPosition: Int, newItemPosition: Int) =
+                    STRING_DIFF_CALLBACK.areItemsTheSame(
+                        before[oldItemPosition], after[newItemPosition])
+
+                override fun areContentsTheSame(oldItemPosition: Int, newItemPosition: Int) =
+                    STRING_DIFF_CALLBACK.areContentsTheSame(
+                        before[oldItemPosition], after[newItemPosition])
+
+                override fun getChangePayload(oldItemPosition: Int, newItemPosition: Int) =
+                    STRING_DIFF_CALLBACK.getChangePayload(
+                        before[oldItemPosition], after[newItemPosition])
+            }).dispatchUpdatesTo(expectedCallback)
+            assertEquals(expected, events)
+            assertEquals(after, differ.currentList)
+        } finally {
+            background.shutdownNow()
+            main.shutdownNow()
+        }
+    }
+
     private fun drain() {
         var executed: Boolean
         do {
@@ -374,6 +542,24 @@ class AsyncListDifferTest {
             }
         }
 
+        private class RecordingCallback(val events: MutableList<String>) : ListUpdateCallback {
+            override fun onInserted(position: Int, count: Int) {
+                events.add("inserted $position $count")
+            }
+
+            override fun onRemoved(position: Int, count: Int) {
+                events.add("removed $position $count")
+            }
+
+            override fun onMoved(fromPosition: Int, toPosition: Int) {
+                events.add("moved $fromPosition $toPosition")
+            }
+
+            override fun onChanged(position: Int, count: Int, payload: Any?) {
+                events.add("changed $position $count $payload")
+            }
+        }
+
         private val IGNORE_CALLBACK = object : ListUpdateCallback {
             override fun onInserted(position: Int, count: Int) {}
 
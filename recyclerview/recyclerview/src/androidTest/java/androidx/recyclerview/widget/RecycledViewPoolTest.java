@@ -22,6 +22,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
 import android.content.Context;
 import android.view.View;
@@ -35,6 +36,8 @@ import androidx.test.filters.SmallTest;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.concurrent.TimeUnit;
+
 @SmallTest
 @RunWith(AndroidJUnit4.class)
 public class RecycledViewPoolTest {
@@ -91,6 +94,27 @@ public class RecycledViewPoolTest {
         assertEquals(0, pool.getRecycledViewCount(3));
     }
 
+    @Test
+    public void itemCost() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        assertEquals(0, pool.getItemCostNs(90));
+
+        pool.factorInCreateTime(1, TimeUnit.MILLISECONDS.toNanos(4));
+        pool.factorInBindTime(1, TimeUnit.MILLISECONDS.toNanos(2));
+        pool.factorInBindTime(2, TimeUnit.MILLISECONDS.toNanos(3));
+
+        // type 1 has to be created and bound
+        long costNs = pool.getItemCostNs(90);
+        assertTrue(costNs > TimeUnit.MILLISECONDS.toNanos(6));
+        assertTrue(costNs < TimeUnit.MILLISECONDS.toNanos(8));
+
+        // a pooled ViewHolder of type 1 only has to be bound, so type 2 is more expensive
+        pool.putRecycledView(makeHolder(1));
+        costNs = pool.getItemCostNs(90);
+        assertTrue(costNs > TimeUnit.MILLISECONDS.toNanos(3));
+        assertTrue(costNs < TimeUnit.MILLISECONDS.toNanos(4));
+    }
+
     @Test
     public void onAdapterChanged_attachedToOneOldAdapterNotNullNotCompatWithPrev_clears() {
         onAdapterChanged(1, true, true, true);
@@ -57,6 +57,7 @@ import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @SmallTest
 @RunWith(AndroidJUnit4.class)
@@ -463,6 +464,55 @@ public class RecyclerViewBasicTest {
         }
     }
 
+    @Test
+    public void prefetchLookaheadChangesCacheSizeUntilFlingEnds() {
+        mRecyclerView.setAdapter(new MockAdapter(20));
+        MockLayoutManager mlm = new MockLayoutManager() {
+            @Override
+            public void onLayoutChildren(RecyclerView.Recycler recycler,
+                    RecyclerView.State state) {
+                super.onLayoutChildren(recycler, state);
+                detachAndScrapAttachedViews(recycler);
+                for (int i = 0; i < 3; i++) {
+                    View view = recycler.getViewForPosition(i);
+                    addView(view);
+                    layoutDecorated(view, 0, i * 10, 100, (i + 1) * 10);
+                }
+            }
+
+            @Override
+            public void collectAdjacentPrefetchPositions(int dx, int dy, RecyclerView.State state,
+                    RecyclerView.LayoutManager.LayoutPrefetchRegistry prefetchManager) {
+                prefetchManager.addPosition(3, 0);
+            }
+        };
+        mRecyclerView.setLayoutManager(mlm);
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            RecyclerView.Recycler recycler = mRecyclerView.mRecycler;
+            // layout, so prefetches can occur
+            mRecyclerView.measure(View.MeasureSpec.EXACTLY | 100, View.MeasureSpec.EXACTLY | 100);
+            mRecyclerView.layout(0, 0, 100, 100);
+
+            // lookahead adds items beyond the one requested, and expands cache by all of them
+            mRecyclerView.setScrollState(RecyclerView.SCROLL_STATE_SETTLING);
+            mRecyclerView.mPrefetchRegistry.setPrefetchVector(0, 10);
+            mRecyclerView.mPrefetchRegistry.setLookahead(50, TimeUnit.MILLISECONDS.toNanos(100),
+                    TimeUnit.MILLISECONDS.toNanos(1));
+            mRecyclerView.mPrefetchRegistry.collectPrefetchPositionsFromView(mRecyclerView, false);
+            final int count = mRecyclerView.mPrefetchRegistry.mCount;
+            assertTrue(count > 1);
+            assertEquals(1, mlm.mPrefetchMaxCountObserved);
+            assertEquals(RecyclerView.Recycler.DEFAULT_CACHE_SIZE + count,
+                    recycler.mViewCacheMax);
+
+            // the end of the fling resets the expansion for lookahead only
+            mRecyclerView.setScrollState(RecyclerView.SCROLL_STATE_IDLE);
+            assertEquals(0, mlm.mPrefetchLookaheadCountObserved);
+            assertEquals(RecyclerView.Recycler.DEFAULT_CACHE_SIZE + 1, recycler.mViewCacheMax);
+        }
+    }
+
     @Test
     public void getNanoTime() throws InterruptedException {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
@@ -39,15 +39,18 @@ public final class AsyncDifferConfig<T> {
     private final Executor mBackgroundThreadExecutor;
     @NonNull
     private final DiffUtil.ItemCallback<T> mDiffCallback;
+    private final int mDiffParallelism;
 
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     AsyncDifferConfig(
             @Nullable Executor mainThreadExecutor,
             @NonNull Executor backgroundThreadExecutor,
-            @NonNull DiffUtil.ItemCallback<T> diffCallback) {
+            @NonNull DiffUtil.ItemCallback<T> diffCallback,
+            int diffParallelism) {
         mMainThreadExecutor = mainThreadExecutor;
         mBackgroundThreadExecutor = backgroundThreadExecutor;
         mDiffCallback = diffCallback;
+        mDiffParallelism = diffParallelism;
     }
 
     /** @hide */
@@ -70,6 +73,15 @@ public final class AsyncDifferConfig<T> {
         return mDiffCallback;
     }
 
+    /**
+     * @return The maximum number of threads that calculate the diff between two lists.
+     * @see Builder#setDiffParallelism(int)
+     */
+    @SuppressWarnings("WeakerAccess")
+    public int getDiffParallelism() {
+        return mDiffParallelism;
+    }
+
     /**
      * Builder class for {@link AsyncDifferConfig}.
      *
@@ -80,6 +92,7 @@ public final class AsyncDifferConfig<T> {
         private Executor mMainThreadExecutor;
         private Executor mBackgroundThreadExecutor;
         private final DiffUtil.ItemCallback<T> mDiffCallback;
+        private int mDiffParallelism = 1;
 
         public Builder(@NonNull DiffUtil.ItemCallback<T> diffCallback) {
             mDiffCallback = diffCallback;
@@ -119,6 +132,31 @@ public final class AsyncDifferConfig<T> {
             return this;
         }
 
+        /**
+         * Defines the maximum number of threads that calculate the diff between an old and a new
+         * list.
+         * <p>
+         * When larger than 1, the diff of large lists is split into independent parts that are
+         * calculated on up to this many threads of the background executor. The
+         * {@link DiffUtil.ItemCallback} must then be safe to call from several threads at once.
+         * The default background executor has two threads, so provide one with
+         * {@link #setBackgroundThreadExecutor(Executor)} to use more.
+         * <p>
+         * Defaults to 1, which calculates each diff on a single thread.
+         *
+         * @param parallelism The maximum number of threads calculating one diff.
+         * @return this
+         */
+        @SuppressWarnings({"unused", "WeakerAccess"})
+        @NonNull
+        public Builder<T> setDiffParallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism must be at least 1");
+            }
+            mDiffParallelism = parallelism;
+            return this;
+        }
+
         /**
          * Creates a {@link AsyncListDiffer} with the given parameters.
          *
@@ -137,7 +175,8 @@ public final class AsyncDifferConfig<T> {
             return new AsyncDifferConfig<>(
                     mMainThreadExecutor,
                     mBackgroundThreadExecutor,
-                    mDiffCallback);
+                    mDiffCallback,
+                    mDiffParallelism);
         }
 
         // TODO: remove the below once supportlib has its own appropriate executors
@@ -21,11 +21,14 @@ import android.os.Looper;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.os.CancellationSignal;
+import androidx.core.os.OperationCanceledException;
 
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Helper for computing the difference between two lists via {@link DiffUtil} on a background
@@ -147,6 +150,28 @@ public class AsyncListDiffer<T> {
 
     private final List<ListListener<T>> mListeners = new CopyOnWriteArrayList<>();
 
+    /**
+     * Listener for the time it takes to calculate and dispatch the diff of a submitted List.
+     */
+    public interface DiffLatencyListener {
+        /**
+         * Called on the main thread after the diff of a submitted List was dispatched and the List
+         * became the current List.
+         * <p>
+         * This is not called for Lists that are committed without a diff, such as the first List,
+         * or for Lists that are replaced by another List before their diff completes.
+         *
+         * @param oldListSize The size of the previous list.
+         * @param newListSize The size of the new list.
+         * @param calculationTimeMillis The time spent calculating the diff in the background.
+         * @param latencyMillis The time between submitting the List and it becoming current.
+         */
+        void onDiffDispatched(int oldListSize, int newListSize, long calculationTimeMillis,
+                long latencyMillis);
+    }
+
+    private final List<DiffLatencyListener> mLatencyListeners = new CopyOnWriteArrayList<>();
+
     /**
      * Convenience for
      * {@code AsyncListDiffer(new AdapterListUpdateCallback(adapter),
@@ -200,6 +225,10 @@ public class AsyncListDiffer<T> {
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     int mMaxScheduledGeneration;
 
+    // Cancels the diff of the most recently scheduled runnable
+    @Nullable
+    private CancellationSignal mDiffCancellationSignal;
+
     /**
      * Get the current List - any diffing to present this list has already been computed and
      * dispatched via the ListUpdateCallback.
@@ -252,6 +281,11 @@ public class AsyncListDiffer<T> {
             @Nullable final Runnable commitCallback) {
         // incrementing generation means any currently-running diffs are discarded when they finish
         final int runGeneration = ++mMaxScheduledGeneration;
+        // stop the diff that is currently running, its result would be discarded anyway
+        if (mDiffCancellationSignal != null) {
+            mDiffCancellationSignal.cancel();
+            mDiffCancellationSignal = null;
+        }
 
         if (newList == mList) {
             // nothing to do (Note - still had to inc generation, since may have ongoing work)
@@ -286,10 +320,14 @@ public class AsyncListDiffer<T> {
         }
 
         final List<T> oldList = mList;
+        final CancellationSignal cancellationSignal = new CancellationSignal();
+        mDiffCancellationSignal = cancellationSignal;
+        final long submitTimeNanos = System.nanoTime();
         mConfig.getBackgroundThreadExecutor().execute(new Runnable() {
             @Override
             public void run() {
-                final DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+                final long startTimeNanos = System.nanoTime();
+                final DiffUtil.Callback callback = new DiffUtil.Callback() {
                     @Override
                     public int getOldListSize() {
                         return oldList.size();
@@ -342,13 +380,24 @@ public class AsyncListDiffer<T> {
                         // non-null which is the only case handled above.
                         throw new AssertionError();
                     }
-                });
+                };
+                final DiffUtil.DiffResult result;
+                try {
+                    result = DiffUtil.calculateDiff(callback, true, cancellationSignal,
+                            mConfig.getBackgroundThreadExecutor(), mConfig.getDiffParallelism());
+                } catch (OperationCanceledException e) {
+                    // a newer list was submitted
+                    return;
+                }
+                final long calculationTimeNanos = System.nanoTime() - startTimeNanos;
 
                 mMainThreadExecutor.execute(new Runnable() {
                     @Override
                     public void run() {
                         if (mMaxScheduledGeneration == runGeneration) {
                             latchList(newList, result, commitCallback);
+                            dispatchLatency(oldList.size(), newList.size(),
+                                    calculationTimeNanos, System.nanoTime() - submitTimeNanos);
                         }
                     }
                 });
@@ -369,6 +418,16 @@ public class AsyncListDiffer<T> {
         onCurrentListChanged(previousList, commitCallback);
     }
 
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    void dispatchLatency(int oldListSize, int newListSize, long calculationTimeNanos,
+            long latencyNanos) {
+        for (DiffLatencyListener listener : mLatencyListeners) {
+            listener.onDiffDispatched(oldListSize, newListSize,
+                    TimeUnit.NANOSECONDS.toMillis(calculationTimeNanos),
+                    TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+        }
+    }
+
     private void onCurrentListChanged(@NonNull List<T> previousList,
             @Nullable Runnable commitCallback) {
         // current list is always mReadOnlyList
@@ -402,4 +461,24 @@ public class AsyncListDiffer<T> {
     public void removeListListener(@NonNull ListListener<T> listener) {
         mListeners.remove(listener);
     }
+
+    /**
+     * Add a DiffLatencyListener to receive the time it took to present each submitted List.
+     *
+     * @param listener Listener to receive diff latencies.
+     * @see #removeDiffLatencyListener(DiffLatencyListener)
+     */
+    public void addDiffLatencyListener(@NonNull DiffLatencyListener listener) {
+        mLatencyListeners.add(listener);
+    }
+
+    /**
+     * Remove a previously registered DiffLatencyListener.
+     *
+     * @param listener Previously registered listener.
+     * @see #addDiffLatencyListener(DiffLatencyListener)
+     */
+    public void removeDiffLatencyListener(@NonNull DiffLatencyListener listener) {
+        mLatencyListeners.remove(listener);
+    }
 }
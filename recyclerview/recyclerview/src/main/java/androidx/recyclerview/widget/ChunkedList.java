@@ -0,0 +1,285 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.widget;
+
+import java.util.Arrays;
+
+/**
+ * A list that keeps its items in chunks of bounded size, so that inserting or removing an item
+ * only shifts the items of one chunk instead of the whole list.
+ * <p>
+ * The sizes of the chunks are kept in a Fenwick tree, which finds the chunk of a position in
+ * O(log n) time. Chunks are split when they overflow and merged with a neighbor when they get
+ * small, which rebuilds the tree, but that only happens once every few hundred operations.
+ * <p>
+ * This is the backing store of large {@link SortedList}s.
+ */
+@SuppressWarnings("unchecked")
+class ChunkedList<T> {
+
+    static final int MAX_CHUNK_SIZE = 256;
+
+    // Bulk loaded chunks are left partially empty so that insertions do not split them right away.
+    private static final int FILL_SIZE = MAX_CHUNK_SIZE * 3 / 4;
+
+    // Neighboring chunks are merged if they fit into this size together.
+    private static final int MERGE_SIZE = MAX_CHUNK_SIZE / 2;
+
+    private Object[][] mChunks;
+    private int[] mChunkSizes;
+    // Fenwick tree of the chunk sizes, 1-based.
+    private int[] mTree;
+    private int mChunkCount;
+    private int mSize;
+
+    // The position in its chunk of the item found by the last call to findChunk.
+    private int mOffset;
+
+    // The chunk that was accessed last and its start position, which makes sequential reads fast.
+    // Reset whenever the chunks change.
+    private int mLastChunk = -1;
+    private int mLastChunkStart;
+
+    /**
+     * Creates a list with the first {@code size} items of the given array.
+     */
+    ChunkedList(T[] items, int size) {
+        final int chunkCount = (size + FILL_SIZE - 1) / FILL_SIZE;
+        final int capacity = Math.max(4, chunkCount * 2);
+        mChunks = new Object[capacity][];
+        mChunkSizes = new int[capacity];
+        mTree = new int[capacity + 1];
+        for (int start = 0; start < size; start += FILL_SIZE) {
+            final int chunkSize = Math.min(FILL_SIZE, size - start);
+            final Object[] chunk = new Object[MAX_CHUNK_SIZE];
+            System.arraycopy(items, start, chunk, 0, chunkSize);
+            mChunks[mChunkCount] = chunk;
+            mChunkSizes[mChunkCount] = chunkSize;
+            mChunkCount++;
+        }
+        mSize = size;
+        rebuildTree();
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    T get(int index) {
+        if (mLastChunk < 0 || index < mLastChunkStart
+                || index >= mLastChunkStart + mChunkSizes[mLastChunk]) {
+            mLastChunk = findChunk(index);
+            mLastChunkStart = index - mOffset;
+        }
+        return (T) mChunks[mLastChunk][index - mLastChunkStart];
+    }
+
+    /**
+     * Replaces the item at the given position.
+     *
+     * @return The previous item at the position.
+     */
+    T set(int index, T item) {
+        final int chunk = findChunk(index);
+        final T previous = (T) mChunks[chunk][mOffset];
+        mChunks[chunk][mOffset] = item;
+        return previous;
+    }
+
+    void add(int index, T item) {
+        if (index < 0 || index > mSize) {
+            throw new IndexOutOfBoundsException(
+                    "cannot add item to " + index + " because size is " + mSize);
+        }
+        mLastChunk = -1;
+        if (mChunkCount == 0) {
+            addChunk(0, item);
+            return;
+        }
+        int chunk;
+        int offset;
+        if (index == mSize) {
+            chunk = mChunkCount - 1;
+            offset = mChunkSizes[chunk];
+        } else {
+            chunk = findChunk(index);
+            offset = mOffset;
+        }
+        if (mChunkSizes[chunk] == MAX_CHUNK_SIZE) {
+            if (offset == MAX_CHUNK_SIZE) {
+                // appending to a full chunk, e.g. when items are added in order, so start a new
+                // one instead of leaving two half full chunks behind
+                addChunk(chunk + 1, item);
+                return;
+            }
+            if (offset == 0) {
+                addChunk(chunk, item);
+                return;
+            }
+            splitChunk(chunk);
+            final int firstHalf = mChunkSizes[chunk];
+            if (offset > firstHalf) {
+                chunk++;
+                offset -= firstHalf;
+            }
+        }
+        final Object[] data = mChunks[chunk];
+        System.arraycopy(data, offset, data, offset + 1, mChunkSizes[chunk] - offset);
+        data[offset] = item;
+        mChunkSizes[chunk]++;
+        mSize++;
+        updateTree(chunk, 1);
+    }
+
+    T remove(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException(
+                    "cannot remove item at " + index + " because size is " + mSize);
+        }
+        mLastChunk = -1;
+        final int chunk = findChunk(index);
+        final int offset = mOffset;
+        final Object[] data = mChunks[chunk];
+        final T item = (T) data[offset];
+        final int chunkSize = --mChunkSizes[chunk];
+        System.arraycopy(data, offset + 1, data, offset, chunkSize - offset);
+        data[chunkSize] = null;
+        mSize--;
+        if (chunkSize == 0) {
+            removeChunk(chunk);
+        } else if (chunk + 1 < mChunkCount
+                && chunkSize + mChunkSizes[chunk + 1] <= MERGE_SIZE) {
+            mergeWithNext(chunk);
+        } else if (chunk > 0 && mChunkSizes[chunk - 1] + chunkSize <= MERGE_SIZE) {
+            mergeWithNext(chunk - 1);
+        } else {
+            updateTree(chunk, -1);
+        }
+        return item;
+    }
+
+    /**
+     * Copies the items into the given array, which must be large enough to hold them.
+     */
+    T[] toArray(T[] array) {
+        int start = 0;
+        for (int i = 0; i < mChunkCount; i++) {
+            System.arraycopy(mChunks[i], 0, array, start, mChunkSizes[i]);
+            start += mChunkSizes[i];
+        }
+        return array;
+    }
+
+    /**
+     * Returns the chunk that contains the item at the given position and stores the position of
+     * the item within that chunk in {@link #mOffset}.
+     */
+    private int findChunk(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("Asked to get item at " + index
+                    + " but size is " + mSize);
+        }
+        // walk down the tree, skipping every subtree that ends before the index
+        int chunk = 0;
+        int remaining = index;
+        for (int step = Integer.highestOneBit(mChunkCount); step > 0; step >>= 1) {
+            final int next = chunk + step;
+            if (next <= mChunkCount && mTree[next] <= remaining) {
+                chunk = next;
+                remaining -= mTree[next];
+            }
+        }
+        mOffset = remaining;
+        return chunk;
+    }
+
+    private void addChunk(int chunk, T item) {
+        if (mChunkCount == mChunks.length) {
+            final int capacity = mChunks.length * 2;
+            mChunks = Arrays.copyOf(mChunks, capacity);
+            mChunkSizes = Arrays.copyOf(mChunkSizes, capacity);
+            mTree = new int[capacity + 1];
+        }
+        System.arraycopy(mChunks, chunk, mChunks, chunk + 1, mChunkCount - chunk);
+        System.arraycopy(mChunkSizes, chunk, mChunkSizes, chunk + 1, mChunkCount - chunk);
+        final Object[] data = new Object[MAX_CHUNK_SIZE];
+        data[0] = item;
+        mChunks[chunk] = data;
+        mChunkSizes[chunk] = 1;
+        mChunkCount++;
+        mSize++;
+        rebuildTree();
+    }
+
+    private void splitChunk(int chunk) {
+        // add an empty chunk after it, then move the second half of the items there
+        if (mChunkCount == mChunks.length) {
+            final int capacity = mChunks.length * 2;
+            mChunks = Arrays.copyOf(mChunks, capacity);
+            mChunkSizes = Arrays.copyOf(mChunkSizes, capacity);
+            mTree = new int[capacity + 1];
+        }
+        System.arraycopy(mChunks, chunk + 1, mChunks, chunk + 2, mChunkCount - chunk - 1);
+        System.arraycopy(mChunkSizes, chunk + 1, mChunkSizes, chunk + 2,
+                mChunkCount - chunk - 1);
+        mChunkCount++;
+        final Object[] data = mChunks[chunk];
+        final int size = mChunkSizes[chunk];
+        final int firstHalf = size / 2;
+        final Object[] next = new Object[MAX_CHUNK_SIZE];
+        System.arraycopy(data, firstHalf, next, 0, size - firstHalf);
+        Arrays.fill(data, firstHalf, size, null);
+        mChunks[chunk + 1] = next;
+        mChunkSizes[chunk + 1] = size - firstHalf;
+        mChunkSizes[chunk] = firstHalf;
+        rebuildTree();
+    }
+
+    private void mergeWithNext(int chunk) {
+        final int size = mChunkSizes[chunk];
+        final int nextSize = mChunkSizes[chunk + 1];
+        System.arraycopy(mChunks[chunk + 1], 0, mChunks[chunk], size, nextSize);
+        mChunkSizes[chunk] = size + nextSize;
+        removeChunk(chunk + 1);
+    }
+
+    private void removeChunk(int chunk) {
+        System.arraycopy(mChunks, chunk + 1, mChunks, chunk, mChunkCount - chunk - 1);
+        System.arraycopy(mChunkSizes, chunk + 1, mChunkSizes, chunk, mChunkCount - chunk - 1);
+        mChunkCount--;
+        mChunks[mChunkCount] = null;
+        mChunkSizes[mChunkCount] = 0;
+        rebuildTree();
+    }
+
+    private void updateTree(int chunk, int delta) {
+        for (int i = chunk + 1; i <= mChunkCount; i += i & -i) {
+            mTree[i] += delta;
+        }
+    }
+
+    private void rebuildTree() {
+        Arrays.fill(mTree, 0);
+        for (int i = 1; i <= mChunkCount; i++) {
+            mTree[i] += mChunkSizes[i - 1];
+            final int parent = i + (i & -i);
+            if (parent <= mChunkCount) {
+                mTree[parent] += mTree[i];
+            }
+        }
+    }
+}
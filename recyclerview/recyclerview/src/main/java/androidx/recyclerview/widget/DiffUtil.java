@@ -19,15 +19,13 @@ package androidx.recyclerview.widget;
 import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.os.CancellationSignal;
+import androidx.core.os.OperationCanceledException;
+import androidx.core.util.Pools;
 
-import java.util.ArrayDeque;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * DiffUtil is a utility class that calculates the difference between two lists and outputs a
@@ -75,6 +73,12 @@ import java.util.List;
  * </ul>
  * <p>
  * Due to implementation constraints, the max size of the list can be 2^26.
+ * <p>
+ * If every item of both lists has a unique key, such as a stable id, you can use
+ * {@link #calculateKeyedDiff(KeyedCallback, boolean)} instead. It matches items through their keys
+ * in O(N log N) time regardless of the number of changes, and finds moves without the O(MN) pass.
+ * It dispatches the same kind of updates, but may pick a different (still correct) set of moves
+ * than Myers's algorithm.
  *
  * @see ListAdapter
  * @see AsyncListDiffer
@@ -84,13 +88,6 @@ public class DiffUtil {
         // utility class, no instance.
     }
 
-    private static final Comparator<Diagonal> DIAGONAL_COMPARATOR = new Comparator<Diagonal>() {
-        @Override
-        public int compare(Diagonal o1, Diagonal o2) {
-            return o1.x - o2.x;
-        }
-    };
-
     // Myers' algorithm uses two lists as axis labels. In DiffUtil's implementation, `x` axis is
     // used for old list and `y` axis is used for new list.
 
@@ -121,17 +118,40 @@ public class DiffUtil {
      */
     @NonNull
     public static DiffResult calculateDiff(@NonNull Callback cb, boolean detectMoves) {
+        return calculateDiff(cb, detectMoves, null, null, 1);
+    }
+
+    /**
+     * Calculates the list of update operations that can covert one list into the other one,
+     * optionally on several threads and with support for cancellation.
+     * <p>
+     * Each step of Myers' algorithm finds a middle snake that splits a range of the lists into two
+     * independent ranges. When {@code parallelism} is larger than 1, large ranges are shared with
+     * up to {@code parallelism - 1} tasks posted to {@code parallelExecutor}, which requires the
+     * callback to be thread safe. The calling thread keeps solving ranges while it waits for the
+     * other tasks, so this never blocks on a busy executor. The result is the same as the result
+     * of {@link #calculateDiff(Callback, boolean)}.
+     *
+     * @param cb                 The callback that acts as a gateway to the backing list data
+     * @param detectMoves        True if DiffUtil should try to detect moved items, false otherwise.
+     * @param cancellationSignal If not null, the calculation stops with an
+     *                           {@link OperationCanceledException} once it is canceled.
+     * @param parallelExecutor   The executor to run the additional tasks on, if parallelism > 1.
+     * @param parallelism        The maximum number of threads that calculate the diff.
+     * @return A DiffResult that contains the information about the edit sequence to convert the
+     * old list into the new list.
+     */
+    @NonNull
+    static DiffResult calculateDiff(@NonNull Callback cb, boolean detectMoves,
+            @Nullable CancellationSignal cancellationSignal,
+            @Nullable Executor parallelExecutor, int parallelism) {
+        if (parallelExecutor != null && parallelism > 1) {
+            return new ParallelDiff(cb, cancellationSignal).calculate(detectMoves,
+                    parallelExecutor, parallelism);
+        }
         final int oldSize = cb.getOldListSize();
         final int newSize = cb.getNewListSize();
 
-        final List<Diagonal> diagonals = new ArrayList<>();
-
-        // instead of a recursive implementation, we keep our own stack to avoid potential stack
-        // overflow exceptions
-        final List<Range> stack = new ArrayList<>();
-
-        stack.add(new Range(0, oldSize, 0, newSize));
-
         final int max = (oldSize + newSize + 1) / 2;
         // allocate forward and backward k-lines. K lines are diagonal lines in the matrix. (see the
         // paper for details)
@@ -139,81 +159,209 @@ public class DiffUtil {
         final CenteredArray forward = new CenteredArray(max * 2 + 1);
         final CenteredArray backward = new CenteredArray(max * 2 + 1);
 
-        // We pool the ranges to avoid allocations for each recursive call.
-        final List<Range> rangePool = new ArrayList<>();
-        while (!stack.isEmpty()) {
-            final Range range = stack.remove(stack.size() - 1);
-            final Snake snake = midPoint(range, cb, forward, backward);
-            if (snake != null) {
-                // if it has a diagonal, save it
-                if (snake.diagonalSize() > 0) {
-                    diagonals.add(snake.toDiagonal());
+        final ScratchBuffers scratch = ScratchBuffers.obtain();
+        try {
+            final Diagonals diagonals = scratch.mDiagonals;
+            // instead of a recursive implementation, we keep our own stack to avoid potential
+            // stack overflow exceptions
+            final RangeStack stack = scratch.mRanges;
+            final Range range = scratch.mRange;
+            final Snake snake = scratch.mSnake;
+
+            stack.push(0, oldSize, 0, newSize);
+            while (stack.pop(range)) {
+                if (midPoint(range, cb, forward, backward, cancellationSignal, snake)) {
+                    // if it has a diagonal, save it
+                    if (snake.diagonalSize() > 0) {
+                        snake.addDiagonalTo(diagonals);
+                    }
+                    // add new ranges for left and right
+                    stack.push(range.oldListStart, snake.startX, range.newListStart, snake.startY);
+                    stack.push(snake.endX, range.oldListEnd, snake.endY, range.newListEnd);
                 }
-                // add new ranges for left and right
-                final Range left = rangePool.isEmpty() ? new Range() : rangePool.remove(
-                        rangePool.size() - 1);
-                left.oldListStart = range.oldListStart;
-                left.newListStart = range.newListStart;
-                left.oldListEnd = snake.startX;
-                left.newListEnd = snake.startY;
-                stack.add(left);
-
-                // re-use range for right
-                //noinspection UnnecessaryLocalVariable
-                final Range right = range;
-                right.oldListEnd = range.oldListEnd;
-                right.newListEnd = range.newListEnd;
-                right.oldListStart = snake.endX;
-                right.newListStart = snake.endY;
-                stack.add(right);
-            } else {
-                rangePool.add(range);
             }
+            // sort snakes
+            diagonals.sort();
+
+            return new DiffResult(cb, diagonals,
+                    forward.backingData(), backward.backingData(),
+                    detectMoves);
+        } finally {
+            scratch.recycle();
+        }
+    }
+
+    /**
+     * Calculates the list of update operations that can covert one list into the other one, using
+     * the unique keys of the items.
+     *
+     * @param cb The callback that acts as a gateway to the backing list data
+     * @return A DiffResult that contains the information about the edit sequence to convert the
+     * old list into the new list.
+     * @throws IllegalArgumentException if a key appears more than once in one of the lists
+     * @see #calculateKeyedDiff(KeyedCallback, boolean)
+     */
+    @NonNull
+    public static DiffResult calculateKeyedDiff(@NonNull KeyedCallback cb) {
+        return calculateKeyedDiff(cb, true);
+    }
 
+    /**
+     * Calculates the list of update operations that can covert one list into the other one, using
+     * the unique keys of the items.
+     * <p>
+     * Items are matched through their keys instead of
+     * {@link Callback#areItemsTheSame(int, int)}. The longest sequence of matched items that keep
+     * their relative order stays in place and all other matched items are moved, so this takes
+     * O(N log N) time where N is the total size of the lists, no matter how much the lists differ.
+     * <p>
+     * Keys must be unique within each list.
+     *
+     * @param cb          The callback that acts as a gateway to the backing list data
+     * @param detectMoves True if moved items should be dispatched as moves, false if they should
+     *                    be dispatched as a removal and an addition.
+     * @return A DiffResult that contains the information about the edit sequence to convert the
+     * old list into the new list.
+     * @throws IllegalArgumentException if a key appears more than once in one of the lists
+     */
+    @NonNull
+    public static DiffResult calculateKeyedDiff(@NonNull KeyedCallback cb, boolean detectMoves) {
+        final int oldSize = cb.getOldListSize();
+        final int newSize = cb.getNewListSize();
+
+        final KeyIndex newKeys = new KeyIndex(newSize);
+        for (int y = 0; y < newSize; y++) {
+            if (!newKeys.put(cb.getNewItemKey(y), y)) {
+                throw new IllegalArgumentException("Duplicate key " + cb.getNewItemKey(y)
+                        + " in the new list at position " + y);
+            }
+        }
+        // The position of every old item in the new list, or NO_POSITION.
+        final int[] oldToNew = new int[oldSize];
+        final KeyIndex oldKeys = new KeyIndex(oldSize);
+        for (int x = 0; x < oldSize; x++) {
+            final long key = cb.getOldItemKey(x);
+            if (!oldKeys.put(key, x)) {
+                throw new IllegalArgumentException("Duplicate key " + key
+                        + " in the old list at position " + x);
+            }
+            oldToNew[x] = newKeys.get(key);
+        }
+
+        final boolean[] anchors = findLongestIncreasingSubsequence(oldToNew);
+        final ScratchBuffers scratch = ScratchBuffers.obtain();
+        final Diagonals diagonals = scratch.mDiagonals;
+        int diagonalX = 0;
+        int diagonalY = 0;
+        int diagonalSize = 0;
+        for (int x = 0; x < oldSize; x++) {
+            if (!anchors[x]) {
+                continue;
+            }
+            final int y = oldToNew[x];
+            if (diagonalSize > 0 && diagonalX + diagonalSize == x
+                    && diagonalY + diagonalSize == y) {
+                diagonalSize++;
+            } else {
+                if (diagonalSize > 0) {
+                    diagonals.add(diagonalX, diagonalY, diagonalSize);
+                }
+                diagonalX = x;
+                diagonalY = y;
+                diagonalSize = 1;
+            }
+        }
+        if (diagonalSize > 0) {
+            diagonals.add(diagonalX, diagonalY, diagonalSize);
         }
-        // sort snakes
-        Collections.sort(diagonals, DIAGONAL_COMPARATOR);
+        try {
+            return new DiffResult(cb, diagonals, new int[oldSize], new int[newSize], detectMoves,
+                    oldToNew);
+        } finally {
+            scratch.recycle();
+        }
+    }
 
-        return new DiffResult(cb, diagonals,
-                forward.backingData(), backward.backingData(),
-                detectMoves);
+    /**
+     * Finds the longest strictly increasing subsequence of the matched positions, ignoring
+     * {@link DiffResult#NO_POSITION}s, in O(N log N) time.
+     *
+     * @return For every index, whether it is part of the subsequence.
+     */
+    private static boolean[] findLongestIncreasingSubsequence(int[] positions) {
+        final int size = positions.length;
+        // tails[i] is the index of the smallest tail of an increasing subsequence of length i + 1
+        final int[] tails = new int[size];
+        final int[] predecessors = new int[size];
+        int length = 0;
+        for (int i = 0; i < size; i++) {
+            final int value = positions[i];
+            if (value == DiffResult.NO_POSITION) {
+                continue;
+            }
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (positions[tails[mid]] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            predecessors[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+        final boolean[] result = new boolean[size];
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = predecessors[i]) {
+            result[i] = true;
+        }
+        return result;
     }
 
     /**
      * Finds a middle snake in the given range.
+     *
+     * @param snake Receives the middle snake, if there is one.
+     * @return True if a middle snake was found, false if the range is empty.
      */
-    @Nullable
-    private static Snake midPoint(
+    static boolean midPoint(
             Range range,
             Callback cb,
             CenteredArray forward,
-            CenteredArray backward) {
+            CenteredArray backward,
+            @Nullable CancellationSignal cancellationSignal,
+            Snake snake) {
         if (range.oldSize() < 1 || range.newSize() < 1) {
-            return null;
+            return false;
         }
         int max = (range.oldSize() + range.newSize() + 1) / 2;
         forward.set(1, range.oldListStart);
         backward.set(1, range.oldListEnd);
         for (int d = 0; d < max; d++) {
-            Snake snake = forward(range, cb, forward, backward, d);
-            if (snake != null) {
-                return snake;
+            if (cancellationSignal != null) {
+                cancellationSignal.throwIfCanceled();
+            }
+            if (forward(range, cb, forward, backward, d, snake)) {
+                return true;
             }
-            snake = backward(range, cb, forward, backward, d);
-            if (snake != null) {
-                return snake;
+            if (backward(range, cb, forward, backward, d, snake)) {
+                return true;
             }
         }
-        return null;
+        return false;
     }
 
-    @Nullable
-    private static Snake forward(
+    private static boolean forward(
             Range range,
             Callback cb,
             CenteredArray forward,
             CenteredArray backward,
-            int d) {
+            int d,
+            Snake snake) {
         boolean checkForSnake = Math.abs(range.oldSize() - range.newSize()) % 2 == 1;
         int delta = range.oldSize() - range.newSize();
         for (int k = -d; k <= d; k += 2) {
@@ -251,26 +399,25 @@ public class DiffUtil {
                         && backwardsK <= d - 1
                         && backward.get(backwardsK) <= x) {
                     // match
-                    Snake snake = new Snake();
                     snake.startX = startX;
                     snake.startY = startY;
                     snake.endX = x;
                     snake.endY = y;
                     snake.reverse = false;
-                    return snake;
+                    return true;
                 }
             }
         }
-        return null;
+        return false;
     }
 
-    @Nullable
-    private static Snake backward(
+    private static boolean backward(
             Range range,
             Callback cb,
             CenteredArray forward,
             CenteredArray backward,
-            int d) {
+            int d,
+            Snake snake) {
         boolean checkForSnake = (range.oldSize() - range.newSize()) % 2 == 0;
         int delta = range.oldSize() - range.newSize();
         // same as forward but we go backwards from end of the lists to be beginning
@@ -312,18 +459,17 @@ public class DiffUtil {
                         && forwardsK <= d
                         && forward.get(forwardsK) >= x) {
                     // match
-                    Snake snake = new Snake();
                     // assignment are reverse since we are a reverse snake
                     snake.startX = x;
                     snake.startY = y;
                     snake.endX = startX;
                     snake.endY = startY;
                     snake.reverse = true;
-                    return snake;
+                    return true;
                 }
             }
         }
-        return null;
+        return false;
     }
 
     /**
@@ -397,6 +543,40 @@ public class DiffUtil {
         }
     }
 
+    /**
+     * A Callback for lists whose items have unique keys, used by
+     * {@link DiffUtil#calculateKeyedDiff(KeyedCallback, boolean)}.
+     * <p>
+     * Two items are the same item if they have the same key. For example, if you are using
+     * DiffUtil with a {@link RecyclerView.Adapter RecyclerView.Adapter} that has stable ids, the
+     * key of an item can be its {@link RecyclerView.Adapter#getItemId(int) id}.
+     */
+    public abstract static class KeyedCallback extends Callback {
+        /**
+         * Returns the key of an item in the old list.
+         *
+         * @param oldItemPosition The position of the item in the old list
+         * @return The key of the item, unique within the old list.
+         */
+        public abstract long getOldItemKey(int oldItemPosition);
+
+        /**
+         * Returns the key of an item in the new list.
+         *
+         * @param newItemPosition The position of the item in the new list
+         * @return The key of the item, unique within the new list.
+         */
+        public abstract long getNewItemKey(int newItemPosition);
+
+        /**
+         * Returns whether the two items have the same key.
+         */
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return getOldItemKey(oldItemPosition) == getNewItemKey(newItemPosition);
+        }
+    }
+
     /**
      * Callback for calculating the diff between two non-null items in a list.
      * <p>
@@ -470,26 +650,143 @@ public class DiffUtil {
     }
 
     /**
+     * The diagonals of the path, packed into an int array as (x, y, size) triples to avoid
+     * allocating an object for each of them.
+     * <p>
      * A diagonal is a match in the graph.
      * Rather than snakes, we only record the diagonals in the path.
      */
-    static class Diagonal {
-        public final int x;
-        public final int y;
-        public final int size;
+    static class Diagonals {
+        private static final int[] EMPTY = new int[0];
+        private static final int X = 0;
+        private static final int Y = 1;
+        private static final int SIZE = 2;
+        private static final int STRIDE = 3;
+
+        private int[] mData;
+        private int mCount;
+
+        Diagonals() {
+            mData = EMPTY;
+        }
+
+        private Diagonals(int[] data, int count) {
+            mData = data;
+            mCount = count;
+        }
+
+        int count() {
+            return mCount;
+        }
 
-        Diagonal(int x, int y, int size) {
-            this.x = x;
-            this.y = y;
-            this.size = size;
+        int x(int index) {
+            return mData[index * STRIDE + X];
         }
 
-        int endX() {
-            return x + size;
+        int y(int index) {
+            return mData[index * STRIDE + Y];
         }
 
-        int endY() {
-            return y + size;
+        int size(int index) {
+            return mData[index * STRIDE + SIZE];
+        }
+
+        int endX(int index) {
+            return x(index) + size(index);
+        }
+
+        int endY(int index) {
+            return y(index) + size(index);
+        }
+
+        void add(int x, int y, int size) {
+            final int offset = mCount * STRIDE;
+            if (offset + STRIDE > mData.length) {
+                mData = Arrays.copyOf(mData, Math.max(offset * 2, STRIDE * 16));
+            }
+            mData[offset + X] = x;
+            mData[offset + Y] = y;
+            mData[offset + SIZE] = size;
+            mCount++;
+        }
+
+        void addAll(Diagonals other) {
+            for (int i = 0; i < other.mCount; i++) {
+                add(other.x(i), other.y(i), other.size(i));
+            }
+        }
+
+        void clear() {
+            mCount = 0;
+        }
+
+        /**
+         * Sorts the diagonals by their position in the old list, in place.
+         */
+        void sort() {
+            // heap sort, as it neither allocates nor degrades on already sorted input
+            for (int i = mCount / 2 - 1; i >= 0; i--) {
+                siftDown(i, mCount);
+            }
+            for (int end = mCount - 1; end > 0; end--) {
+                swap(0, end);
+                siftDown(0, end);
+            }
+        }
+
+        private void siftDown(int index, int end) {
+            while (true) {
+                int child = index * 2 + 1;
+                if (child >= end) {
+                    return;
+                }
+                if (child + 1 < end && x(child + 1) > x(child)) {
+                    child++;
+                }
+                if (x(index) >= x(child)) {
+                    return;
+                }
+                swap(index, child);
+                index = child;
+            }
+        }
+
+        private void swap(int first, int second) {
+            final int firstOffset = first * STRIDE;
+            final int secondOffset = second * STRIDE;
+            for (int i = 0; i < STRIDE; i++) {
+                final int value = mData[firstOffset + i];
+                mData[firstOffset + i] = mData[secondOffset + i];
+                mData[secondOffset + i] = value;
+            }
+        }
+
+        /**
+         * Returns a copy of these sorted diagonals that also starts with a diagonal at (0, 0) and
+         * ends with an empty diagonal at the end of the lists, so that we can iterate as long as
+         * there are diagonals w/o lots of null checks around.
+         */
+        Diagonals copyWithEdges(int oldListSize, int newListSize) {
+            // see if we should add 1 to the 0,0
+            final boolean addFirst = mCount == 0 || x(0) != 0 || y(0) != 0;
+            final int count = mCount + (addFirst ? 2 : 1);
+            final int[] data = new int[count * STRIDE];
+            System.arraycopy(mData, 0, data, addFirst ? STRIDE : 0, mCount * STRIDE);
+            // always add one last
+            final int last = (count - 1) * STRIDE;
+            data[last + X] = oldListSize;
+            data[last + Y] = newListSize;
+            return new Diagonals(data, count);
+        }
+
+        /**
+         * Drops the backing array if it is too large to keep around.
+         */
+        void trim() {
+            mCount = 0;
+            if (mData.length > ScratchBuffers.MAX_POOLED_ARRAY_SIZE) {
+                mData = EMPTY;
+            }
         }
     }
 
@@ -540,23 +837,22 @@ public class DiffUtil {
          * Extract the diagonal of the snake to make reasoning easier for the rest of the
          * algorithm where we try to produce a path and also find moves.
          */
-        @NonNull
-        Diagonal toDiagonal() {
+        void addDiagonalTo(@NonNull Diagonals diagonals) {
             if (hasAdditionOrRemoval()) {
                 if (reverse) {
                     // snake edge it at the end
-                    return new Diagonal(startX, startY, diagonalSize());
+                    diagonals.add(startX, startY, diagonalSize());
                 } else {
                     // snake edge it at the beginning
                     if (isAddition()) {
-                        return new Diagonal(startX, startY + 1, diagonalSize());
+                        diagonals.add(startX, startY + 1, diagonalSize());
                     } else {
-                        return new Diagonal(startX + 1, startY, diagonalSize());
+                        diagonals.add(startX + 1, startY, diagonalSize());
                     }
                 }
             } else {
                 // we are a pure diagonal
-                return new Diagonal(startX, startY, endX - startX);
+                diagonals.add(startX, startY, endX - startX);
             }
         }
     }
@@ -593,6 +889,59 @@ public class DiffUtil {
         }
     }
 
+    /**
+     * A stack of {@link Range}s packed into an int array, so that pushing a range does not
+     * allocate.
+     */
+    static class RangeStack {
+        private static final int STRIDE = 4;
+
+        private int[] mData = new int[STRIDE * 16];
+        private int mSize;
+
+        boolean isEmpty() {
+            return mSize == 0;
+        }
+
+        void push(int oldListStart, int oldListEnd, int newListStart, int newListEnd) {
+            if (mSize + STRIDE > mData.length) {
+                mData = Arrays.copyOf(mData, mData.length * 2);
+            }
+            mData[mSize] = oldListStart;
+            mData[mSize + 1] = oldListEnd;
+            mData[mSize + 2] = newListStart;
+            mData[mSize + 3] = newListEnd;
+            mSize += STRIDE;
+        }
+
+        /**
+         * Pops the top range into the given range.
+         *
+         * @return False if the stack was empty.
+         */
+        boolean pop(Range range) {
+            if (mSize == 0) {
+                return false;
+            }
+            mSize -= STRIDE;
+            range.oldListStart = mData[mSize];
+            range.oldListEnd = mData[mSize + 1];
+            range.newListStart = mData[mSize + 2];
+            range.newListEnd = mData[mSize + 3];
+            return true;
+        }
+
+        /**
+         * Drops the backing array if it is too large to keep around.
+         */
+        void trim() {
+            mSize = 0;
+            if (mData.length > ScratchBuffers.MAX_POOLED_ARRAY_SIZE) {
+                mData = new int[STRIDE * 16];
+            }
+        }
+    }
+
     /**
      * This class holds the information about the result of a
      * {@link DiffUtil#calculateDiff(Callback, boolean)} call.
@@ -636,7 +985,7 @@ public class DiffUtil {
         private static final int FLAG_MASK = (1 << FLAG_OFFSET) - 1;
 
         // The diagonals extracted from The Myers' snakes.
-        private final List<Diagonal> mDiagonals;
+        private final Diagonals mDiagonals;
 
         // The list to keep oldItemStatuses. As we traverse old items, we assign flags to them
         // which also includes whether they were a real removal or a move (and its new index).
@@ -653,16 +1002,38 @@ public class DiffUtil {
 
         private final boolean mDetectMoves;
 
+        // The number of items that were detected as moves.
+        private int mMoveCount;
+
+        // For keyed diffs, the position of every old item in the new list, or NO_POSITION.
+        @Nullable
+        private final int[] mOldToNewPositions;
+
         /**
          * @param callback        The callback that was used to calculate the diff
-         * @param diagonals       Matches between the two lists
+         * @param diagonals       Matches between the two lists, sorted
          * @param oldItemStatuses An int[] that can be re-purposed to keep metadata
          * @param newItemStatuses An int[] that can be re-purposed to keep metadata
          * @param detectMoves     True if this DiffResult will try to detect moved items
          */
-        DiffResult(Callback callback, List<Diagonal> diagonals, int[] oldItemStatuses,
+        DiffResult(Callback callback, Diagonals diagonals, int[] oldItemStatuses,
                 int[] newItemStatuses, boolean detectMoves) {
-            mDiagonals = diagonals;
+            this(callback, diagonals, oldItemStatuses, newItemStatuses, detectMoves, null);
+        }
+
+        /**
+         * @param callback          The callback that was used to calculate the diff
+         * @param diagonals         Matches between the two lists, sorted. They are copied, so the
+         *                          caller can reuse them.
+         * @param oldItemStatuses   An int[] that can be re-purposed to keep metadata
+         * @param newItemStatuses   An int[] that can be re-purposed to keep metadata
+         * @param detectMoves       True if this DiffResult will try to detect moved items
+         * @param oldToNewPositions The position of every old item in the new list if it is
+         *                          already known, in which case moves are found without searching
+         */
+        DiffResult(Callback callback, Diagonals diagonals, int[] oldItemStatuses,
+                int[] newItemStatuses, boolean detectMoves, @Nullable int[] oldToNewPositions) {
+            mOldToNewPositions = oldToNewPositions;
             mOldItemStatuses = oldItemStatuses;
             mNewItemStatuses = newItemStatuses;
             Arrays.fill(mOldItemStatuses, 0);
@@ -671,34 +1042,24 @@ public class DiffUtil {
             mOldListSize = callback.getOldListSize();
             mNewListSize = callback.getNewListSize();
             mDetectMoves = detectMoves;
-            addEdgeDiagonals();
+            mDiagonals = diagonals.copyWithEdges(mOldListSize, mNewListSize);
             findMatchingItems();
         }
 
-        /**
-         * Add edge diagonals so that we can iterate as long as there are diagonals w/o lots of
-         * null checks around
-         */
-        private void addEdgeDiagonals() {
-            Diagonal first = mDiagonals.isEmpty() ? null : mDiagonals.get(0);
-            // see if we should add 1 to the 0,0
-            if (first == null || first.x != 0 || first.y != 0) {
-                mDiagonals.add(0, new Diagonal(0, 0, 0));
-            }
-            // always add one last
-            mDiagonals.add(new Diagonal(mOldListSize, mNewListSize, 0));
-        }
-
         /**
          * Find position mapping from old list to new list.
          * If moves are requested, we'll also try to do an n^2 search between additions and
          * removals to find moves.
          */
         private void findMatchingItems() {
-            for (Diagonal diagonal : mDiagonals) {
-                for (int offset = 0; offset < diagonal.size; offset++) {
-                    int posX = diagonal.x + offset;
-                    int posY = diagonal.y + offset;
+            final int diagonalCount = mDiagonals.count();
+            for (int i = 0; i < diagonalCount; i++) {
+                final int x = mDiagonals.x(i);
+                final int y = mDiagonals.y(i);
+                final int size = mDiagonals.size(i);
+                for (int offset = 0; offset < size; offset++) {
+                    int posX = x + offset;
+                    int posY = y + offset;
                     final boolean theSame = mCallback.areContentsTheSame(posX, posY);
                     final int changeFlag = theSame ? FLAG_NOT_CHANGED : FLAG_CHANGED;
                     mOldItemStatuses[posX] = (posY << FLAG_OFFSET) | changeFlag;
@@ -716,8 +1077,10 @@ public class DiffUtil {
         private void findMoveMatches() {
             // for each removal, find matching addition
             int posX = 0;
-            for (Diagonal diagonal : mDiagonals) {
-                while (posX < diagonal.x) {
+            final int diagonalCount = mDiagonals.count();
+            for (int i = 0; i < diagonalCount; i++) {
+                final int diagonalX = mDiagonals.x(i);
+                while (posX < diagonalX) {
                     if (mOldItemStatuses[posX] == 0) {
                         // there is a removal, find matching addition from the rest
                         findMatchingAddition(posX);
@@ -725,21 +1088,43 @@ public class DiffUtil {
                     posX++;
                 }
                 // snap back for the next diagonal
-                posX = diagonal.endX();
+                posX = mDiagonals.endX(i);
             }
         }
 
         /**
-         * Search the whole list to find the addition for the given removal of position posX
+         * Find the addition for the given removal of position posX, either from the known
+         * positions or by searching the whole list.
          *
          * @param posX position in the old list
          */
         private void findMatchingAddition(int posX) {
+            if (mOldToNewPositions == null) {
+                searchMatchingAddition(posX);
+                return;
+            }
+            final int posY = mOldToNewPositions[posX];
+            if (posY != NO_POSITION && mNewItemStatuses[posY] == 0) {
+                boolean contentsMatching = mCallback.areContentsTheSame(posX, posY);
+                final int changeFlag = contentsMatching ? FLAG_MOVED_NOT_CHANGED
+                        : FLAG_MOVED_CHANGED;
+                mOldItemStatuses[posX] = (posY << FLAG_OFFSET) | changeFlag;
+                mNewItemStatuses[posY] = (posX << FLAG_OFFSET) | changeFlag;
+                mMoveCount++;
+            }
+        }
+
+        /**
+         * Search the whole list to find the addition for the given removal of position posX
+         *
+         * @param posX position in the old list
+         */
+        private void searchMatchingAddition(int posX) {
             int posY = 0;
-            final int diagonalsSize = mDiagonals.size();
-            for (int i = 0; i < diagonalsSize; i++) {
-                final Diagonal diagonal = mDiagonals.get(i);
-                while (posY < diagonal.y) {
+            final int diagonalCount = mDiagonals.count();
+            for (int i = 0; i < diagonalCount; i++) {
+                final int diagonalY = mDiagonals.y(i);
+                while (posY < diagonalY) {
                     // found some additions, evaluate
                     if (mNewItemStatuses[posY] == 0) { // not evaluated yet
                         boolean matching = mCallback.areItemsTheSame(posX, posY);
@@ -751,12 +1136,13 @@ public class DiffUtil {
                             // once we process one of these, it will mark the other one as ignored.
                             mOldItemStatuses[posX] = (posY << FLAG_OFFSET) | changeFlag;
                             mNewItemStatuses[posY] = (posX << FLAG_OFFSET) | changeFlag;
+                            mMoveCount++;
                             return;
                         }
                     }
                     posY++;
                 }
-                posY = diagonal.endY();
+                posY = mDiagonals.endY(i);
             }
         }
 
@@ -861,23 +1247,32 @@ public class DiffUtil {
                 //noinspection UnusedAssignment
                 updateCallback = batchingCallback;
             }
+            final ScratchBuffers scratch = ScratchBuffers.obtain();
+            try {
+                dispatchUpdates(batchingCallback, scratch.postponedUpdates(mOldListSize,
+                        mNewListSize, mMoveCount));
+            } finally {
+                scratch.recycle();
+            }
+            batchingCallback.dispatchLastEvent();
+        }
+
+        private void dispatchUpdates(BatchingListUpdateCallback batchingCallback,
+                PostponedUpdates postponedUpdates) {
             // track up to date current list size for moves
             // when a move is found, we record its position from the end of the list (which is
             // less likely to change since we iterate in reverse).
             // Later when we find the match of that move, we dispatch the update
             int currentListSize = mOldListSize;
-            // list of postponed moves
-            final Collection<PostponedUpdate> postponedUpdates = new ArrayDeque<>();
             // posX and posY are exclusive
             int posX = mOldListSize;
             int posY = mNewListSize;
             // iterate from end of the list to the beginning.
             // this just makes offsets easier since changes in the earlier indices has an effect
             // on the later indices.
-            for (int diagonalIndex = mDiagonals.size() - 1; diagonalIndex >= 0; diagonalIndex--) {
-                final Diagonal diagonal = mDiagonals.get(diagonalIndex);
-                int endX = diagonal.endX();
-                int endY = diagonal.endY();
+            for (int diagonalIndex = mDiagonals.count() - 1; diagonalIndex >= 0; diagonalIndex--) {
+                int endX = mDiagonals.endX(diagonalIndex);
+                int endY = mDiagonals.endY(diagonalIndex);
                 // dispatch removals and additions until we reach to that diagonal
                 // first remove then add so that it can go into its place and we don't need
                 // to offset values
@@ -887,12 +1282,12 @@ public class DiffUtil {
                     int status = mOldItemStatuses[posX];
                     if ((status & FLAG_MOVED) != 0) {
                         int newPos = status >> FLAG_OFFSET;
-                        // get postponed addition
-                        PostponedUpdate postponedUpdate = getPostponedUpdate(postponedUpdates,
-                                newPos, false);
-                        if (postponedUpdate != null) {
+                        // new items from posY onwards are already dispatched, so if the addition
+                        // is among them, it was postponed
+                        if (newPos >= posY) {
                             // this is an addition that was postponed. Now dispatch it.
-                            int updatedNewPos = currentListSize - postponedUpdate.currentPos;
+                            int updatedNewPos = currentListSize
+                                    - postponedUpdates.takeAddition(newPos);
                             batchingCallback.onMoved(posX, updatedNewPos - 1);
                             if ((status & FLAG_MOVED_CHANGED) != 0) {
                                 Object changePayload = mCallback.getChangePayload(posX, newPos);
@@ -900,11 +1295,7 @@ public class DiffUtil {
                             }
                         } else {
                             // first time we are seeing this, we'll see a matching addition
-                            postponedUpdates.add(new PostponedUpdate(
-                                    posX,
-                                    currentListSize - posX - 1,
-                                    true
-                            ));
+                            postponedUpdates.postponeRemoval(posX, currentListSize - posX - 1);
                         }
                     } else {
                         // simple removal
@@ -920,22 +1311,17 @@ public class DiffUtil {
                         // this is a move not an addition.
                         // see if this is postponed
                         int oldPos = status >> FLAG_OFFSET;
-                        // get postponed removal
-                        PostponedUpdate postponedUpdate = getPostponedUpdate(postponedUpdates,
-                                oldPos, true);
-                        // empty size returns 0 for indexOf
-                        if (postponedUpdate == null) {
+                        // old items from posX onwards are already dispatched, so if the removal
+                        // is among them, it was postponed
+                        if (oldPos < posX) {
                             // postpone it until we see the removal
-                            postponedUpdates.add(new PostponedUpdate(
-                                    posY,
-                                    currentListSize - posX,
-                                    false
-                            ));
+                            postponedUpdates.postponeAddition(posY, currentListSize - posX);
                         } else {
                             // oldPosFromEnd = foundListSize - posX
                             // we can find posX if we swap the list sizes
                             // posX = listSize - oldPosFromEnd
-                            int updatedOldPos = currentListSize - postponedUpdate.currentPos - 1;
+                            int updatedOldPos = currentListSize
+                                    - postponedUpdates.takeRemoval(oldPos) - 1;
                             batchingCallback.onMoved(updatedOldPos, posX);
                             if ((status & FLAG_MOVED_CHANGED) != 0) {
                                 Object changePayload = mCallback.getChangePayload(oldPos, posY);
@@ -949,9 +1335,10 @@ public class DiffUtil {
                     }
                 }
                 // now dispatch updates for the diagonal
-                posX = diagonal.x;
-                posY = diagonal.y;
-                for (int i = 0; i < diagonal.size; i++) {
+                posX = mDiagonals.x(diagonalIndex);
+                posY = mDiagonals.y(diagonalIndex);
+                final int size = mDiagonals.size(diagonalIndex);
+                for (int i = 0; i < size; i++) {
                     // dispatch changes
                     if ((mOldItemStatuses[posX] & FLAG_MASK) == FLAG_CHANGED) {
                         Object changePayload = mCallback.getChangePayload(posX, posY);
@@ -961,67 +1348,373 @@ public class DiffUtil {
                     posY++;
                 }
                 // snap back for the next diagonal
-                posX = diagonal.x;
-                posY = diagonal.y;
+                posX = mDiagonals.x(diagonalIndex);
+                posY = mDiagonals.y(diagonalIndex);
             }
-            batchingCallback.dispatchLastEvent();
-        }
-
-        @Nullable
-        private static PostponedUpdate getPostponedUpdate(
-                Collection<PostponedUpdate> postponedUpdates,
-                int posInList,
-                boolean removal) {
-            PostponedUpdate postponedUpdate = null;
-            Iterator<PostponedUpdate> itr = postponedUpdates.iterator();
-            while (itr.hasNext()) {
-                PostponedUpdate update = itr.next();
-                if (update.posInOwnerList == posInList && update.removal == removal) {
-                    postponedUpdate = update;
-                    itr.remove();
-                    break;
-                }
-            }
-            while (itr.hasNext()) {
-                // re-offset all others
-                PostponedUpdate update = itr.next();
-                if (removal) {
-                    update.currentPos--;
-                } else {
-                    update.currentPos++;
-                }
-            }
-            return postponedUpdate;
         }
     }
 
     /**
-     * Represents an update that we skipped because it was a move.
+     * Tracks the updates that we skipped because they were moves.
      * <p>
      * When an update is skipped, it is tracked as other updates are dispatched until the matching
      * add/remove operation is found at which point the tracked position is used to dispatch the
      * update.
+     * <p>
+     * Dispatching a postponed update shifts the positions of all updates that were postponed
+     * after it. Instead of visiting each of them, the shifts are kept in a Fenwick tree indexed by
+     * the order in which the updates were postponed, so that both postponing and taking an update
+     * take O(log M) time where M is the number of moves.
      */
-    private static class PostponedUpdate {
+    static class PostponedUpdates {
+        private static final int[] EMPTY = new int[0];
+
+        // For each old position followed by each new position, the index of its postponed update.
+        private int[] mIndices = EMPTY;
+        // For each postponed update, its position wrt to the end of the list, without the shifts.
+        private int[] mPositions = EMPTY;
+        // A Fenwick tree of the shifts, such that the sum of its first i + 1 entries is the shift
+        // of the i'th postponed update.
+        private int[] mShifts = EMPTY;
+        private int mOldListSize;
+        private int mCount;
+        private int mMaxCount;
+
+        void reset(int oldListSize, int newListSize, int maxCount) {
+            mOldListSize = oldListSize;
+            mCount = 0;
+            mMaxCount = maxCount;
+            if (mIndices.length < oldListSize + newListSize) {
+                mIndices = new int[oldListSize + newListSize];
+            }
+            if (mPositions.length < maxCount) {
+                mPositions = new int[maxCount];
+            }
+            if (mShifts.length < maxCount + 1) {
+                mShifts = new int[maxCount + 1];
+            } else {
+                Arrays.fill(mShifts, 0, maxCount + 1, 0);
+            }
+        }
+
+        /**
+         * Postpones the removal of the item at the given old position until its addition is found.
+         *
+         * @param currentPos The position of the item wrt to the end of the list
+         */
+        void postponeRemoval(int oldPos, int currentPos) {
+            postpone(oldPos, currentPos);
+        }
+
+        /**
+         * Postpones the addition of the item at the given new position until its removal is found.
+         *
+         * @param currentPos The position of the item wrt to the end of the list
+         */
+        void postponeAddition(int newPos, int currentPos) {
+            postpone(mOldListSize + newPos, currentPos);
+        }
+
         /**
-         * position in the list that owns this item
+         * Returns the current position of a postponed removal wrt to the end of the list, and
+         * shifts all updates that were postponed after it.
          */
-        int posInOwnerList;
+        int takeRemoval(int oldPos) {
+            return take(oldPos, -1);
+        }
 
         /**
-         * position wrt to the end of the list
+         * Returns the current position of a postponed addition wrt to the end of the list, and
+         * shifts all updates that were postponed after it.
          */
-        int currentPos;
+        int takeAddition(int newPos) {
+            return take(mOldListSize + newPos, 1);
+        }
+
+        private void postpone(int key, int currentPos) {
+            final int index = mCount++;
+            mIndices[key] = index;
+            // updates that are taken later do not affect this one, but the shifts of the ones
+            // taken before are recorded for every update after them, so cancel them out
+            mPositions[index] = currentPos - shift(index);
+        }
+
+        private int take(int key, int shift) {
+            final int index = mIndices[key];
+            final int currentPos = mPositions[index] + shift(index);
+            // shift every update that was postponed after this one
+            for (int i = index + 2; i <= mMaxCount; i += i & -i) {
+                mShifts[i] += shift;
+            }
+            return currentPos;
+        }
+
+        private int shift(int index) {
+            int shift = 0;
+            for (int i = index + 1; i > 0; i -= i & -i) {
+                shift += mShifts[i];
+            }
+            return shift;
+        }
 
         /**
-         * true if this is a removal, false otherwise
+         * Drops the backing arrays if they are too large to keep around.
          */
-        boolean removal;
+        void trim() {
+            if (mIndices.length > ScratchBuffers.MAX_POOLED_ARRAY_SIZE) {
+                mIndices = EMPTY;
+            }
+            if (mPositions.length > ScratchBuffers.MAX_POOLED_ARRAY_SIZE) {
+                mPositions = EMPTY;
+                mShifts = EMPTY;
+            }
+        }
+    }
+
+    /**
+     * Scratch buffers that are only needed while a diff is calculated or dispatched. They are
+     * pooled so that they can be reused across diffs instead of being allocated for each of them.
+     */
+    static class ScratchBuffers {
+        // Arrays larger than this many ints (1MB) are not kept in the pool.
+        static final int MAX_POOLED_ARRAY_SIZE = 1 << 18;
+
+        private static final Pools.Pool<ScratchBuffers> sPool =
+                new Pools.SynchronizedPool<>(2);
+
+        final Diagonals mDiagonals = new Diagonals();
+        final RangeStack mRanges = new RangeStack();
+        final Range mRange = new Range();
+        final Snake mSnake = new Snake();
+        private final PostponedUpdates mPostponedUpdates = new PostponedUpdates();
+
+        static ScratchBuffers obtain() {
+            final ScratchBuffers scratch = sPool.acquire();
+            return scratch != null ? scratch : new ScratchBuffers();
+        }
+
+        PostponedUpdates postponedUpdates(int oldListSize, int newListSize, int maxCount) {
+            mPostponedUpdates.reset(oldListSize, newListSize, maxCount);
+            return mPostponedUpdates;
+        }
+
+        void recycle() {
+            mDiagonals.trim();
+            mRanges.trim();
+            mPostponedUpdates.trim();
+            sPool.release(this);
+        }
+    }
+
+    /**
+     * Runs Myers' algorithm on several threads.
+     * <p>
+     * Ranges are kept on a shared stack. A worker that takes a large range finds its middle snake
+     * and pushes the two remaining ranges back so that other workers can pick them up, while small
+     * ranges are solved by the worker that took them without further synchronization.
+     */
+    private static class ParallelDiff {
+        // Ranges smaller than this (old + new size) are not shared with other workers.
+        private static final int MIN_SHARED_RANGE_SIZE = 2048;
+
+        private final Callback mCallback;
+        @Nullable
+        private final CancellationSignal mCancellationSignal;
+        private final int mOldSize;
+        private final int mNewSize;
+        private final Object mLock = new Object();
+        // Guarded by mLock.
+        private final RangeStack mStack = new RangeStack();
+        private final Diagonals mDiagonals = new Diagonals();
+        // The number of ranges that are on the stack or being solved.
+        private int mPendingRanges;
+        @Nullable
+        private RuntimeException mFailure;
+
+        ParallelDiff(Callback callback, @Nullable CancellationSignal cancellationSignal) {
+            mCallback = callback;
+            mCancellationSignal = cancellationSignal;
+            mOldSize = callback.getOldListSize();
+            mNewSize = callback.getNewListSize();
+        }
+
+        DiffResult calculate(boolean detectMoves, Executor executor, int parallelism) {
+            mStack.push(0, mOldSize, 0, mNewSize);
+            mPendingRanges = 1;
+            for (int i = 1; i < parallelism; i++) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            solveRanges();
+                        } catch (RuntimeException e) {
+                            fail(e);
+                        }
+                    }
+                });
+            }
+            try {
+                solveRanges();
+            } catch (RuntimeException e) {
+                fail(e);
+            }
+            synchronized (mLock) {
+                if (mFailure != null) {
+                    throw mFailure;
+                }
+            }
+            mDiagonals.sort();
+            return new DiffResult(mCallback, mDiagonals, new int[mOldSize], new int[mNewSize],
+                    detectMoves);
+        }
+
+        @SuppressWarnings("WeakerAccess") /* synthetic access */
+        void fail(RuntimeException e) {
+            synchronized (mLock) {
+                if (mFailure == null) {
+                    mFailure = e;
+                }
+                mLock.notifyAll();
+            }
+        }
+
+        /**
+         * Takes ranges from the stack until all of them are solved.
+         */
+        @SuppressWarnings("WeakerAccess") /* synthetic access */
+        void solveRanges() {
+            CenteredArray forward = null;
+            CenteredArray backward = null;
+            final Diagonals diagonals = new Diagonals();
+            final RangeStack localStack = new RangeStack();
+            final Range range = new Range();
+            final Snake snake = new Snake();
+            while (true) {
+                synchronized (mLock) {
+                    while (mStack.isEmpty() && mPendingRanges > 0 && mFailure == null) {
+                        try {
+                            mLock.wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new OperationCanceledException(e.getMessage());
+                        }
+                    }
+                    if (mPendingRanges == 0 || mFailure != null) {
+                        return;
+                    }
+                    mStack.pop(range);
+                }
+                if (forward == null) {
+                    // only allocate once there is work, late tasks return right away
+                    final int max = (mOldSize + mNewSize + 1) / 2;
+                    forward = new CenteredArray(max * 2 + 1);
+                    backward = new CenteredArray(max * 2 + 1);
+                }
+                int newRanges = 0;
+                if (range.oldSize() + range.newSize() >= MIN_SHARED_RANGE_SIZE) {
+                    final boolean found = midPoint(range, mCallback, forward, backward,
+                            mCancellationSignal, snake);
+                    if (found) {
+                        if (snake.diagonalSize() > 0) {
+                            snake.addDiagonalTo(diagonals);
+                        }
+                        newRanges = 2;
+                    }
+                    synchronized (mLock) {
+                        if (found) {
+                            mStack.push(range.oldListStart, snake.startX,
+                                    range.newListStart, snake.startY);
+                            mStack.push(snake.endX, range.oldListEnd,
+                                    snake.endY, range.newListEnd);
+                        }
+                        mDiagonals.addAll(diagonals);
+                        finishRange(newRanges);
+                    }
+                } else {
+                    solveLocally(range, localStack, diagonals, forward, backward, snake);
+                    synchronized (mLock) {
+                        mDiagonals.addAll(diagonals);
+                        finishRange(0);
+                    }
+                }
+                diagonals.clear();
+            }
+        }
+
+        // Must be called with mLock held.
+        private void finishRange(int newRanges) {
+            mPendingRanges += newRanges - 1;
+            if (newRanges > 0 || mPendingRanges == 0) {
+                mLock.notifyAll();
+            }
+        }
+
+        private void solveLocally(Range range, RangeStack stack, Diagonals diagonals,
+                CenteredArray forward, CenteredArray backward, Snake snake) {
+            stack.push(range.oldListStart, range.oldListEnd, range.newListStart,
+                    range.newListEnd);
+            while (stack.pop(range)) {
+                if (midPoint(range, mCallback, forward, backward, mCancellationSignal, snake)) {
+                    if (snake.diagonalSize() > 0) {
+                        snake.addDiagonalTo(diagonals);
+                    }
+                    stack.push(range.oldListStart, snake.startX,
+                            range.newListStart, snake.startY);
+                    stack.push(snake.endX, range.oldListEnd,
+                            snake.endY, range.newListEnd);
+                }
+            }
+        }
+    }
+
+    /**
+     * An open addressing hash map from the keys of the items of a list to their positions.
+     */
+    private static class KeyIndex {
+        private final long[] mKeys;
+        private final int[] mPositions;
+        private final int mMask;
+
+        KeyIndex(int size) {
+            // keep the load factor at or below 0.5
+            int capacity = Integer.highestOneBit(Math.max(2, size) * 2 - 1) << 1;
+            mKeys = new long[capacity];
+            mPositions = new int[capacity];
+            mMask = capacity - 1;
+            Arrays.fill(mPositions, DiffResult.NO_POSITION);
+        }
+
+        /**
+         * @return False if the key was already present.
+         */
+        boolean put(long key, int position) {
+            int slot = slot(key);
+            while (mPositions[slot] != DiffResult.NO_POSITION) {
+                if (mKeys[slot] == key) {
+                    return false;
+                }
+                slot = (slot + 1) & mMask;
+            }
+            mKeys[slot] = key;
+            mPositions[slot] = position;
+            return true;
+        }
+
+        int get(long key) {
+            int slot = slot(key);
+            while (mPositions[slot] != DiffResult.NO_POSITION) {
+                if (mKeys[slot] == key) {
+                    return mPositions[slot];
+                }
+                slot = (slot + 1) & mMask;
+            }
+            return DiffResult.NO_POSITION;
+        }
 
-        PostponedUpdate(int posInOwnerList, int currentPos, boolean removal) {
-            this.posInOwnerList = posInOwnerList;
-            this.currentPos = currentPos;
-            this.removal = removal;
+        private int slot(long key) {
+            // mix the bits as keys are often sequential
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mMask;
         }
     }
 
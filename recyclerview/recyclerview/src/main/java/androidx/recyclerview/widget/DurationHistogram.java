@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.widget;
+
+/**
+ * A histogram of durations, used by {@link GapWorker} to estimate how long creating or binding a
+ * ViewHolder takes, and how much idle time there is between frames.
+ * <p>
+ * Unlike a running average, a percentile of the histogram is not skewed by a few very fast
+ * binds, e.g. ones that hit an image cache, which makes it a better estimate for planning ahead.
+ * <p>
+ * Buckets are spaced logarithmically, four per power of two, between 1 microsecond and about 1
+ * second. Once {@link #MAX_COUNT} durations are recorded, all counts are halved so that recent
+ * durations weigh more than old ones.
+ */
+final class DurationHistogram {
+
+    static final int MAX_COUNT = 256;
+
+    private static final int MIN_EXPONENT = 10;
+    private static final int MAX_EXPONENT = 30;
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - MIN_EXPONENT) << SUB_BUCKET_BITS;
+
+    // allocated lazily, since many histograms never get a duration, e.g. for nested prefetch
+    private int[] mBuckets;
+    private int mCount;
+
+    void record(long durationNs) {
+        if (mBuckets == null) {
+            mBuckets = new int[BUCKET_COUNT];
+        }
+        mBuckets[getBucket(durationNs)]++;
+        if (++mCount >= MAX_COUNT) {
+            mCount = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                mBuckets[i] >>= 1;
+                mCount += mBuckets[i];
+            }
+        }
+    }
+
+    int getCount() {
+        return mCount;
+    }
+
+    /**
+     * Returns the duration that the given percentage of the recorded durations do not exceed,
+     * rounded up to the end of its bucket, or 0 if no durations are recorded.
+     */
+    long getPercentileNs(int percentile) {
+        if (mCount == 0) {
+            return 0;
+        }
+        // the rank of the duration that we are looking for, at least 1
+        final int rank = Math.max(1, (int) ((long) mCount * percentile / 100));
+        int seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += mBuckets[i];
+            if (seen >= rank) {
+                return getBucketEndNs(i);
+            }
+        }
+        return getBucketEndNs(BUCKET_COUNT - 1);
+    }
+
+    private static int getBucket(long durationNs) {
+        // this includes negative durations, e.g. an idle time after a missed deadline
+        if (durationNs < 1L << MIN_EXPONENT) {
+            return 0;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(durationNs);
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        // the bits after the leading one select the sub-bucket
+        final int subBucket = (int) (durationNs >>> (exponent - SUB_BUCKET_BITS))
+                & ((1 << SUB_BUCKET_BITS) - 1);
+        return ((exponent - MIN_EXPONENT) << SUB_BUCKET_BITS) + subBucket;
+    }
+
+    private static long getBucketEndNs(int bucket) {
+        final int exponent = (bucket >> SUB_BUCKET_BITS) + MIN_EXPONENT;
+        final int subBucket = bucket & ((1 << SUB_BUCKET_BITS) - 1);
+        return (1L << exponent) + ((long) (subBucket + 1) << (exponent - SUB_BUCKET_BITS));
+    }
+}
@@ -17,6 +17,7 @@ package androidx.recyclerview.widget;
 
 import android.annotation.SuppressLint;
 import android.view.View;
+import android.widget.OverScroller;
 
 import androidx.annotation.Nullable;
 import androidx.core.os.TraceCompat;
@@ -34,6 +35,7 @@ final class GapWorker implements Runnable {
     ArrayList<RecyclerView> mRecyclerViews = new ArrayList<>();
     long mPostTimeNs;
     long mFrameIntervalNs;
+    final PrefetchPlanner mPlanner = new PrefetchPlanner();
 
     static class Task {
         public boolean immediate;
@@ -70,13 +72,35 @@ final class GapWorker implements Runnable {
 
         int mCount;
 
+        // Number of the positions that were added by addLookaheadPositions
+        int mLookaheadCount;
+
+        // Distance along the fling up to which items are prefetched in addition to the ones that
+        // the layout manager reports, and the numbers that limit how many of them fit into the
+        // current gap. See PrefetchPlanner.
+        int mLookaheadDistance;
+        long mLookaheadIdleNs;
+        long mLookaheadItemCostNs;
+
+        /**
+         * Time spent prefetching the items of nested RecyclerViews, per item of this view.
+         */
+        final DurationHistogram mNestedPrefetchTimeHistogram = new DurationHistogram();
+
         void setPrefetchVector(int dx, int dy) {
             mPrefetchDx = dx;
             mPrefetchDy = dy;
         }
 
+        void setLookahead(int distance, long idleNs, long itemCostNs) {
+            mLookaheadDistance = distance;
+            mLookaheadIdleNs = idleNs;
+            mLookaheadItemCostNs = itemCostNs;
+        }
+
         void collectPrefetchPositionsFromView(RecyclerView view, boolean nested) {
             mCount = 0;
+            mLookaheadCount = 0;
             if (mPrefetchArray != null) {
                 Arrays.fill(mPrefetchArray, -1);
             }
@@ -96,17 +120,99 @@ final class GapWorker implements Runnable {
                     if (!view.hasPendingAdapterUpdates()) {
                         layout.collectAdjacentPrefetchPositions(mPrefetchDx, mPrefetchDy,
                                 view.mState, this);
+                        if (mLookaheadDistance > 0) {
+                            addLookaheadPositions(view, layout);
+                        }
                     }
                 }
 
-                if (mCount > layout.mPrefetchMaxCountObserved) {
-                    layout.mPrefetchMaxCountObserved = mCount;
+                final int requestedCount = mCount - mLookaheadCount;
+                if (requestedCount > layout.mPrefetchMaxCountObserved) {
+                    layout.mPrefetchMaxCountObserved = requestedCount;
                     layout.mPrefetchMaxObservedInInitialPrefetch = nested;
                     view.mRecycler.updateViewCacheSize();
                 }
             }
         }
 
+        /**
+         * Adds the items beyond the ones reported by the layout manager, up to
+         * {@link #mLookaheadDistance}.
+         * <p>
+         * This assumes that positions increase or decrease steadily along the scroll direction,
+         * as they do in linear and grid layouts, so nothing is added unless the reported
+         * positions all lie on the same side of the attached ones.
+         * <p>
+         * The view cache grows to hold the added items until the fling ends, see
+         * {@link RecyclerView.LayoutManager#mPrefetchLookaheadCountObserved}.
+         */
+        private void addLookaheadPositions(RecyclerView view, RecyclerView.LayoutManager layout) {
+            if (mCount == 0) {
+                return;
+            }
+            int minPosition = Integer.MAX_VALUE;
+            int maxPosition = Integer.MIN_VALUE;
+            int farthestDistance = 0;
+            for (int i = 0; i < mCount * 2; i += 2) {
+                minPosition = Math.min(minPosition, mPrefetchArray[i]);
+                maxPosition = Math.max(maxPosition, mPrefetchArray[i]);
+                farthestDistance = Math.max(farthestDistance, mPrefetchArray[i + 1]);
+            }
+
+            // estimate the size of an item from the attached ones, which also covers grids
+            final boolean horizontal = Math.abs(mPrefetchDx) > Math.abs(mPrefetchDy);
+            int minAttachedPosition = Integer.MAX_VALUE;
+            int maxAttachedPosition = Integer.MIN_VALUE;
+            int start = Integer.MAX_VALUE;
+            int end = Integer.MIN_VALUE;
+            int attachedCount = 0;
+            final int childCount = view.mChildHelper.getUnfilteredChildCount();
+            for (int i = 0; i < childCount; i++) {
+                final View child = view.mChildHelper.getUnfilteredChildAt(i);
+                final RecyclerView.ViewHolder holder = RecyclerView.getChildViewHolderInt(child);
+                if (holder.isInvalid()) {
+                    continue;
+                }
+                // Note: can use mPosition here because adapter doesn't have pending updates
+                minAttachedPosition = Math.min(minAttachedPosition, holder.mPosition);
+                maxAttachedPosition = Math.max(maxAttachedPosition, holder.mPosition);
+                start = Math.min(start, horizontal ? child.getLeft() : child.getTop());
+                end = Math.max(end, horizontal ? child.getRight() : child.getBottom());
+                attachedCount++;
+            }
+            if (attachedCount == 0) {
+                return;
+            }
+
+            final int step;
+            int position;
+            if (minPosition > maxAttachedPosition) {
+                step = 1;
+                position = maxPosition;
+            } else if (maxPosition < minAttachedPosition) {
+                step = -1;
+                position = minPosition;
+            } else {
+                return;
+            }
+            final int itemSize = (end - start) / attachedCount;
+            final int count = PrefetchPlanner.getLookaheadItemCount(mLookaheadDistance,
+                    farthestDistance, itemSize, mLookaheadIdleNs, mLookaheadItemCostNs);
+            final int itemCount = view.mState.getItemCount();
+            for (int i = 1; i <= count; i++) {
+                position += step;
+                if (position < 0 || position >= itemCount) {
+                    break;
+                }
+                addPosition(position, farthestDistance + i * itemSize);
+                mLookaheadCount++;
+            }
+            if (mLookaheadCount > layout.mPrefetchLookaheadCountObserved) {
+                layout.mPrefetchLookaheadCountObserved = mLookaheadCount;
+                view.mRecycler.updateViewCacheSize();
+            }
+        }
+
         @Override
         public void addPosition(int layoutPosition, int pixelDistance) {
             if (layoutPosition < 0) {
@@ -153,6 +259,7 @@ final class GapWorker implements Runnable {
                 Arrays.fill(mPrefetchArray, -1);
             }
             mCount = 0;
+            mLookaheadCount = 0;
         }
     }
 
@@ -212,13 +319,38 @@ final class GapWorker implements Runnable {
         }
     };
 
-    private void buildTaskList() {
+    /**
+     * Decides how far ahead of a fling the given view should prefetch, based on how long its items
+     * took to create and bind so far, including the items of nested RecyclerViews.
+     */
+    private void updateLookahead(RecyclerView view, long deadlineNs) {
+        final LayoutPrefetchRegistryImpl prefetchRegistry = view.mPrefetchRegistry;
+        final OverScroller scroller = view.mViewFlinger.mOverScroller;
+        if (deadlineNs == RecyclerView.FOREVER_NS
+                || view.getScrollState() != RecyclerView.SCROLL_STATE_SETTLING
+                || scroller.isFinished()) {
+            prefetchRegistry.setLookahead(0, 0, 0);
+            return;
+        }
+        final int remainingDistance = Math.abs(scroller.getFinalX() - scroller.getCurrX())
+                + Math.abs(scroller.getFinalY() - scroller.getCurrY());
+        final long itemCostNs = view.mRecycler.getRecycledViewPool()
+                .getItemCostNs(PrefetchPlanner.COST_PERCENTILE)
+                + prefetchRegistry.mNestedPrefetchTimeHistogram
+                        .getPercentileNs(PrefetchPlanner.COST_PERCENTILE);
+        final int distance = mPlanner.getLookaheadDistance(scroller.getCurrVelocity(),
+                remainingDistance, mFrameIntervalNs, itemCostNs);
+        prefetchRegistry.setLookahead(distance, deadlineNs - view.getNanoTime(), itemCostNs);
+    }
+
+    private void buildTaskList(long deadlineNs) {
         // Update PrefetchRegistry in each view
         final int viewCount = mRecyclerViews.size();
         int totalTaskCount = 0;
         for (int i = 0; i < viewCount; i++) {
             RecyclerView view = mRecyclerViews.get(i);
             if (view.getWindowVisibility() == View.VISIBLE) {
+                updateLookahead(view, deadlineNs);
                 view.mPrefetchRegistry.collectPrefetchPositionsFromView(view, false);
                 totalTaskCount += view.mPrefetchRegistry.mCount;
             }
@@ -348,7 +480,12 @@ final class GapWorker implements Runnable {
                 && holder.mNestedRecyclerView != null
                 && holder.isBound()
                 && !holder.isInvalid()) {
+            // the time spent on the nested items counts towards the cost of this item when
+            // deciding how far ahead to prefetch
+            final long startNs = task.view.getNanoTime();
             prefetchInnerRecyclerViewWithDeadline(holder.mNestedRecyclerView.get(), deadlineNs);
+            task.view.mPrefetchRegistry.mNestedPrefetchTimeHistogram.record(
+                    task.view.getNanoTime() - startNs);
         }
     }
 
@@ -364,7 +501,11 @@ final class GapWorker implements Runnable {
     }
 
     void prefetch(long deadlineNs) {
-        buildTaskList();
+        if (deadlineNs != RecyclerView.FOREVER_NS && !mRecyclerViews.isEmpty()) {
+            // all views share the same time base, so any of them can tell how long the gap is
+            mPlanner.recordIdleTime(deadlineNs - mRecyclerViews.get(0).getNanoTime());
+        }
+        buildTaskList(deadlineNs);
         flushTasksWithDeadline(deadlineNs);
     }
 
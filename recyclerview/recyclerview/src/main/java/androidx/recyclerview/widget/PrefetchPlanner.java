@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.widget;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides how far ahead of a fling {@link GapWorker} prefetches.
+ * <p>
+ * Layout managers only report the items that the next frame will need. That is enough while an
+ * item can be prepared in the idle time between any two frames. If items take longer than the
+ * short gaps, e.g. because every other frame is busy with other work, the items needed after a
+ * short gap are only prefetched once they are needed immediately, which delays the next frame.
+ * In that case, the planner looks further ahead, so that the idle time of the long gaps is used
+ * to prepare the items of the following frames.
+ * <p>
+ * This class has no Android dependencies, so that it can be driven by a simulated frame clock in
+ * tests.
+ */
+final class PrefetchPlanner {
+
+    /**
+     * The percentile of recorded create and bind times that is used as the cost of an item.
+     */
+    static final int COST_PERCENTILE = 90;
+
+    /**
+     * The percentile of recorded idle times that is considered a short gap.
+     */
+    static final int SHORT_IDLE_PERCENTILE = 10;
+
+    /**
+     * The number of frames that the planner looks ahead at most.
+     */
+    static final int MAX_LOOKAHEAD_FRAMES = 4;
+
+    /**
+     * The number of items that the planner adds to the prefetch at most, on top of the ones
+     * reported by the layout manager. Prefetched items are kept in the view cache, so this also
+     * bounds how much the cache grows.
+     */
+    static final int MAX_LOOKAHEAD_ITEMS = 8;
+
+    private final DurationHistogram mIdleTimeHistogram = new DurationHistogram();
+
+    /**
+     * Records the time between the start of a prefetch and the next frame.
+     */
+    void recordIdleTime(long idleNs) {
+        mIdleTimeHistogram.record(idleNs);
+    }
+
+    /**
+     * Returns the distance in pixels along the fling up to which items should be prefetched, or 0
+     * if the items reported by the layout manager are enough.
+     *
+     * @param velocity          Current velocity of the fling, in pixels per second.
+     * @param remainingDistance Distance in pixels until the fling stops.
+     * @param frameIntervalNs   Time between two frames.
+     * @param itemCostNs        Expected time to prepare one item, or 0 if unknown.
+     */
+    int getLookaheadDistance(float velocity, int remainingDistance, long frameIntervalNs,
+            long itemCostNs) {
+        if (velocity <= 0 || remainingDistance <= 0 || frameIntervalNs <= 0 || itemCostNs <= 0
+                || mIdleTimeHistogram.getCount() == 0) {
+            return 0;
+        }
+        if (itemCostNs <= mIdleTimeHistogram.getPercentileNs(SHORT_IDLE_PERCENTILE)) {
+            // items fit into short gaps too, so they are ready in time without looking ahead
+            return 0;
+        }
+        final float distance = velocity * MAX_LOOKAHEAD_FRAMES * frameIntervalNs
+                / TimeUnit.SECONDS.toNanos(1);
+        return (int) Math.min(distance, remainingDistance);
+    }
+
+    /**
+     * Returns how many items to add to the prefetch beyond the farthest one reported by the
+     * layout manager.
+     * <p>
+     * This is limited to the items within the lookahead distance, and to the number of items that
+     * can be prepared until the next frame. The rest is planned again in the next gap.
+     *
+     * @param lookaheadDistance Distance returned by {@link #getLookaheadDistance}.
+     * @param farthestDistance  Distance to the farthest item reported by the layout manager.
+     * @param itemSize          Average size of an item along the fling, in pixels.
+     * @param idleNs            Time left until the next frame.
+     * @param itemCostNs        Expected time to prepare one item.
+     */
+    static int getLookaheadItemCount(int lookaheadDistance, int farthestDistance, int itemSize,
+            long idleNs, long itemCostNs) {
+        if (itemSize <= 0 || itemCostNs <= 0 || lookaheadDistance <= farthestDistance) {
+            return 0;
+        }
+        final long count = Math.min((lookaheadDistance - farthestDistance) / itemSize,
+                idleNs / itemCostNs);
+        return (int) Math.max(0, Math.min(count, MAX_LOOKAHEAD_ITEMS));
+    }
+}
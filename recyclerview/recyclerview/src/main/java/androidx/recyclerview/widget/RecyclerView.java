@@ -1614,6 +1614,11 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
         mScrollState = state;
         if (state != SCROLL_STATE_SETTLING) {
             stopScrollersInternal();
+            if (mLayout != null && mLayout.mPrefetchLookaheadCountObserved != 0) {
+                // Fling lookahead has expanded cache, so reset once the fling is over.
+                mLayout.mPrefetchLookaheadCountObserved = 0;
+                mRecycler.updateViewCacheSize();
+            }
         }
         dispatchOnScrollStateChanged(state);
     }
@@ -5845,6 +5850,8 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
             int mMaxScrap = DEFAULT_MAX_SCRAP;
             long mCreateRunningAverageNs = 0;
             long mBindRunningAverageNs = 0;
+            final DurationHistogram mCreateTimeHistogram = new DurationHistogram();
+            final DurationHistogram mBindTimeHistogram = new DurationHistogram();
         }
 
         SparseArray<ScrapData> mScrap = new SparseArray<>();
@@ -5952,12 +5959,32 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
             ScrapData scrapData = getScrapDataForType(viewType);
             scrapData.mCreateRunningAverageNs = runningAverage(
                     scrapData.mCreateRunningAverageNs, createTimeNs);
+            scrapData.mCreateTimeHistogram.record(createTimeNs);
         }
 
         void factorInBindTime(int viewType, long bindTimeNs) {
             ScrapData scrapData = getScrapDataForType(viewType);
             scrapData.mBindRunningAverageNs = runningAverage(
                     scrapData.mBindRunningAverageNs, bindTimeNs);
+            scrapData.mBindTimeHistogram.record(bindTimeNs);
+        }
+
+        /**
+         * Returns the time it takes to prepare an item of the most expensive view type in this
+         * pool at the given percentile of the recorded create and bind times. Creating an item is
+         * only counted if the pool has no ViewHolder of its type that could be reused.
+         */
+        long getItemCostNs(int percentile) {
+            long maxCostNs = 0;
+            for (int i = 0; i < mScrap.size(); i++) {
+                final ScrapData scrapData = mScrap.valueAt(i);
+                long costNs = scrapData.mBindTimeHistogram.getPercentileNs(percentile);
+                if (scrapData.mScrapHeap.isEmpty()) {
+                    costNs += scrapData.mCreateTimeHistogram.getPercentileNs(percentile);
+                }
+                maxCostNs = Math.max(maxCostNs, costNs);
+            }
+            return maxCostNs;
         }
 
         boolean willCreateInTime(int viewType, long approxCurrentNs, long deadlineNs) {
@@ -6123,7 +6150,9 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
         }
 
         void updateViewCacheSize() {
-            int extraCache = mLayout != null ? mLayout.mPrefetchMaxCountObserved : 0;
+            int extraCache = mLayout != null
+                    ? mLayout.mPrefetchMaxCountObserved + mLayout.mPrefetchLookaheadCountObserved
+                    : 0;
             mViewCacheMax = mRequestedCacheMax + extraCache;
 
             // first, try the views that can be recycled
@@ -8020,6 +8049,15 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
          */
         boolean mPrefetchMaxObservedInInitialPrefetch;
 
+        /**
+         * Written by {@link GapWorker} to track the largest number of views it prefetched beyond
+         * the ones requested by
+         * {@link #collectAdjacentPrefetchPositions(int, int, State, LayoutPrefetchRegistry)}
+         * during the current fling. Reset when the fling ends, so that the cache only holds the
+         * extra views while they may still scroll in.
+         */
+        int mPrefetchLookaheadCountObserved;
+
         /**
          * These measure specs might be the measure specs that were passed into RecyclerView's
          * onMeasure method OR fake measure specs created by the RecyclerView.
@@ -8351,6 +8389,7 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
             if (enabled != mItemPrefetchEnabled) {
                 mItemPrefetchEnabled = enabled;
                 mPrefetchMaxCountObserved = 0;
+                mPrefetchLookaheadCountObserved = 0;
                 if (mRecyclerView != null) {
                     mRecyclerView.mRecycler.updateViewCacheSize();
                 }
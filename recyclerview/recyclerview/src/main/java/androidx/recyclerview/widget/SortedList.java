@@ -18,6 +18,7 @@ package androidx.recyclerview.widget;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 
 import java.lang.reflect.Array;
 import java.util.Arrays;
@@ -35,6 +36,10 @@ import java.util.Comparator;
  * call appropriate methods while editing them to avoid data inconsistencies.
  * <p>
  * You can control the order of items and change notifications via the {@link Callback} parameter.
+ * <p>
+ * Small lists keep their items in a single array. Once a list grows past a few thousand items, it
+ * moves them into chunks of a few hundred items each, so that adding or removing an item takes
+ * O(log n) time instead of shifting the whole array.
  */
 @SuppressWarnings("unchecked")
 public class SortedList<T> {
@@ -49,8 +54,41 @@ public class SortedList<T> {
     private static final int INSERTION = 1;
     private static final int DELETION = 1 << 1;
     private static final int LOOKUP = 1 << 2;
+
+    /**
+     * Lists that grow larger than this move their items from {@link #mData} into
+     * {@link #mChunks}.
+     */
+    static final int CHUNKING_THRESHOLD = 4096;
+
+    /**
+     * A merge inserts the new items one by one instead of copying the list if the list is at least
+     * this many times larger than the number of new items.
+     */
+    private static final int INCREMENTAL_MERGE_FACTOR = 32;
+
+    /**
+     * The items of the list, unless they are kept in {@link #mChunks}, in which case this is null.
+     */
     T[] mData;
 
+    /**
+     * The items of the list once it grows larger than {@link #mChunkingThreshold}, or null.
+     * <p>
+     * Operations that go through all of the items (addAll and replaceAll) still work on a single
+     * array and move the items back into chunks when they are done.
+     */
+    @Nullable
+    ChunkedList<T> mChunks;
+
+    @VisibleForTesting
+    int mChunkingThreshold = CHUNKING_THRESHOLD;
+
+    /**
+     * True while new items are inserted one by one into {@link #mChunks} during an addAll.
+     */
+    private boolean mMergingIncrementally;
+
     /**
      * A reference to the previous set of data that is kept during a mutation operation (addAll or
      * replaceAll).
@@ -256,9 +294,13 @@ public class SortedList<T> {
         final int newSize = sortAndDedup(newItems);
 
         if (mSize == 0) {
+            mChunks = null;
             mData = newItems;
             mSize = newSize;
+            chunkIfLarge();
             mCallback.onInserted(0, newSize);
+        } else if (mChunks != null && mSize / INCREMENTAL_MERGE_FACTOR >= newSize) {
+            mergeIncrementally(newItems, newSize);
         } else {
             merge(newItems, newSize);
         }
@@ -270,6 +312,7 @@ public class SortedList<T> {
             beginBatchedUpdates();
         }
 
+        unchunk();
         mOldDataStart = 0;
         mOldDataSize = mSize;
         mOldData = mData;
@@ -324,6 +367,7 @@ public class SortedList<T> {
         }
 
         mOldData = null;
+        chunkIfLarge();
 
         if (forceBatchedUpdates) {
             endBatchedUpdates();
@@ -410,6 +454,7 @@ public class SortedList<T> {
             beginBatchedUpdates();
         }
 
+        unchunk();
         mOldData = mData;
         mOldDataStart = 0;
         mOldDataSize = mSize;
@@ -465,18 +510,108 @@ public class SortedList<T> {
         }
 
         mOldData = null;
+        chunkIfLarge();
+
+        if (forceBatchedUpdates) {
+            endBatchedUpdates();
+        }
+    }
+
+    /**
+     * Merges a few sorted and deduplicated items into a large list by inserting them one by one,
+     * which is faster than copying the whole list. It dispatches the same events as
+     * {@link #merge(Object[], int)}.
+     */
+    private void mergeIncrementally(T[] newData, int newDataSize) {
+        final boolean forceBatchedUpdates = !(mCallback instanceof BatchedCallback);
+        if (forceBatchedUpdates) {
+            beginBatchedUpdates();
+        }
+        mMergingIncrementally = true;
+
+        // Like merge, never look at the items before the last merged item again.
+        int start = 0;
+        for (int newDataStart = 0; newDataStart < newDataSize; newDataStart++) {
+            final T newItem = newData[newDataStart];
+            int index = findFirstNotLower(newItem, start, mSize);
+            boolean replaced = false;
+            while (index < mSize) {
+                final T oldItem = mChunks.get(index);
+                final int compare = mCallback.compare(oldItem, newItem);
+                if (compare > 0) {
+                    break;
+                }
+                if (compare == 0 && mCallback.areItemsTheSame(oldItem, newItem)) {
+                    // Items are the same. Replace the old item.
+                    mChunks.set(index, newItem);
+                    replaced = true;
+                    if (!mCallback.areContentsTheSame(oldItem, newItem)) {
+                        mCallback.onChanged(index, 1,
+                                mCallback.getChangePayload(oldItem, newItem));
+                    }
+                    break;
+                }
+                // Old item is equal to (but not the same as the new). Keep it before the new one.
+                index++;
+            }
+            if (!replaced) {
+                mChunks.add(index, newItem);
+                mSize++;
+                mCallback.onInserted(index, 1);
+            }
+            start = index + 1;
+        }
+
+        mMergingIncrementally = false;
 
         if (forceBatchedUpdates) {
             endBatchedUpdates();
         }
     }
 
+    /**
+     * Returns the position of the first item in the given range that is not lower than the given
+     * item, or the end of the range if there is no such item.
+     */
+    private int findFirstNotLower(T item, int left, int right) {
+        while (left < right) {
+            final int middle = (left + right) >>> 1;
+            if (mCallback.compare(itemAt(mData, middle), item) < 0) {
+                left = middle + 1;
+            } else {
+                right = middle;
+            }
+        }
+        return left;
+    }
+
+    /**
+     * Moves the items from {@link #mChunks} into {@link #mData} if they are chunked.
+     */
+    private void unchunk() {
+        if (mChunks != null) {
+            mData = mChunks.toArray((T[]) Array.newInstance(mTClass, mSize + CAPACITY_GROWTH));
+            mChunks = null;
+        }
+    }
+
+    /**
+     * Moves the items from {@link #mData} into {@link #mChunks} if there are too many of them to
+     * keep in a single array.
+     */
+    private void chunkIfLarge() {
+        if (mChunks == null && mSize > mChunkingThreshold) {
+            mChunks = new ChunkedList<>(mData, mSize);
+            mData = null;
+        }
+    }
+
     /**
      * Throws an exception if called while we are in the middle of a mutation operation (addAll or
      * replaceAll).
      */
     private void throwIfInMutationOperation() {
-        if (mOldData != null) {
+        if (mOldData != null || mMergingIncrementally) {
             throw new IllegalStateException("Data cannot be mutated in the middle of a batch "
                     + "update operation such as addAll or replaceAll.");
         }
@@ -543,14 +678,14 @@ public class SortedList<T> {
         if (index == INVALID_POSITION) {
             index = 0;
         } else if (index < mSize) {
-            T existing = mData[index];
+            T existing = itemAt(mData, index);
             if (mCallback.areItemsTheSame(existing, item)) {
                 if (mCallback.areContentsTheSame(existing, item)) {
                     //no change but still replace the item
-                    mData[index] = item;
+                    setItemAt(index, item);
                     return index;
                 } else {
-                    mData[index] = item;
+                    setItemAt(index, item);
                     mCallback.onChanged(index, 1, mCallback.getChangePayload(existing, item));
                     return index;
                 }
@@ -599,9 +734,14 @@ public class SortedList<T> {
     }
 
     private void removeItemAtIndex(int index, boolean notify) {
-        System.arraycopy(mData, index + 1, mData, index, mSize - index - 1);
-        mSize--;
-        mData[mSize] = null;
+        if (mChunks != null) {
+            mChunks.remove(index);
+            mSize--;
+        } else {
+            System.arraycopy(mData, index + 1, mData, index, mSize - index - 1);
+            mSize--;
+            mData[mSize] = null;
+        }
         if (notify) {
             mCallback.onRemoved(index, 1);
         }
@@ -636,7 +776,7 @@ public class SortedList<T> {
             // different items, we can use comparison and may avoid lookup
             final int cmp = mCallback.compare(existing, item);
             if (cmp == 0) {
-                mData[index] = item;
+                setItemAt(index, item);
                 if (contentsChanged) {
                     mCallback.onChanged(index, 1, mCallback.getChangePayload(existing, item));
                 }
@@ -713,7 +853,7 @@ public class SortedList<T> {
                 return mOldData[index - mNewDataStart + mOldDataStart];
             }
         }
-        return mData[index];
+        return itemAt(mData, index);
     }
 
     /**
@@ -739,10 +879,14 @@ public class SortedList<T> {
         return findIndexOf(item, mData, 0, mSize, LOOKUP);
     }
 
-    private int findIndexOf(T item, T[] mData, int left, int right, int reason) {
+    /**
+     * Finds the item in the given array, or in {@link #mChunks} if the array is null because the
+     * items are chunked.
+     */
+    private int findIndexOf(T item, @Nullable T[] data, int left, int right, int reason) {
         while (left < right) {
             final int middle = (left + right) / 2;
-            T myItem = mData[middle];
+            T myItem = itemAt(data, middle);
             final int cmp = mCallback.compare(myItem, item);
             if (cmp < 0) {
                 left = middle + 1;
@@ -750,7 +894,7 @@ public class SortedList<T> {
                 if (mCallback.areItemsTheSame(myItem, item)) {
                     return middle;
                 } else {
-                    int exact = linearEqualitySearch(item, middle, left, right);
+                    int exact = linearEqualitySearch(item, data, middle, left, right);
                     if (reason == INSERTION) {
                         return exact == INVALID_POSITION ? middle : exact;
                     } else {
@@ -764,10 +908,11 @@ public class SortedList<T> {
         return reason == INSERTION ? left : INVALID_POSITION;
     }
 
-    private int linearEqualitySearch(T item, int middle, int left, int right) {
+    private int linearEqualitySearch(T item, @Nullable T[] data, int middle, int left,
+            int right) {
         // go left
         for (int next = middle - 1; next >= left; next--) {
-            T nextItem = mData[next];
+            T nextItem = itemAt(data, next);
             int cmp = mCallback.compare(nextItem, item);
             if (cmp != 0) {
                 break;
@@ -777,7 +922,7 @@ public class SortedList<T> {
             }
         }
         for (int next = middle + 1; next < right; next++) {
-            T nextItem = mData[next];
+            T nextItem = itemAt(data, next);
             int cmp = mCallback.compare(nextItem, item);
             if (cmp != 0) {
                 break;
@@ -789,11 +934,32 @@ public class SortedList<T> {
         return INVALID_POSITION;
     }
 
+    /**
+     * Returns the item at the given position of the given array, or of {@link #mChunks} if the
+     * array is null because the items are chunked.
+     */
+    private T itemAt(@Nullable T[] data, int index) {
+        return data != null ? data[index] : mChunks.get(index);
+    }
+
+    private void setItemAt(int index, T item) {
+        if (mChunks != null) {
+            mChunks.set(index, item);
+        } else {
+            mData[index] = item;
+        }
+    }
+
     private void addToData(int index, T item) {
         if (index > mSize) {
             throw new IndexOutOfBoundsException(
                     "cannot add item to " + index + " because size is " + mSize);
         }
+        if (mChunks != null) {
+            mChunks.add(index, item);
+            mSize++;
+            return;
+        }
         if (mSize == mData.length) {
             // we are at the limit enlarge
             T[] newData = (T[]) Array.newInstance(mTClass, mData.length + CAPACITY_GROWTH);
@@ -807,6 +973,7 @@ public class SortedList<T> {
             mData[index] = item;
         }
         mSize++;
+        chunkIfLarge();
     }
 
     private T[] copyArray(T[] items) {
@@ -824,7 +991,12 @@ public class SortedList<T> {
             return;
         }
         final int prevSize = mSize;
-        Arrays.fill(mData, 0, prevSize, null);
+        if (mChunks != null) {
+            mChunks = null;
+            mData = (T[]) Array.newInstance(mTClass, MIN_CAPACITY);
+        } else {
+            Arrays.fill(mData, 0, prevSize, null);
+        }
         mSize = 0;
         mCallback.onRemoved(0, prevSize);
     }
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.widget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class ChunkedListTest {
+
+    @Test
+    public void testAppend() {
+        ChunkedList<Integer> list = new ChunkedList<>(new Integer[0], 0);
+        for (int i = 0; i < ChunkedList.MAX_CHUNK_SIZE * 10; i++) {
+            list.add(i, i);
+        }
+        assertEquals(ChunkedList.MAX_CHUNK_SIZE * 10, list.size());
+        for (int i = 0; i < list.size(); i++) {
+            assertEquals(i, (int) list.get(i));
+        }
+    }
+
+    @Test
+    public void testPrepend() {
+        ChunkedList<Integer> list = new ChunkedList<>(new Integer[0], 0);
+        for (int i = 0; i < ChunkedList.MAX_CHUNK_SIZE * 10; i++) {
+            list.add(0, i);
+        }
+        for (int i = 0; i < list.size(); i++) {
+            assertEquals(list.size() - i - 1, (int) list.get(i));
+        }
+    }
+
+    @Test
+    public void testBulkLoad() {
+        Integer[] items = new Integer[ChunkedList.MAX_CHUNK_SIZE * 5 + 10];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = i;
+        }
+        ChunkedList<Integer> list = new ChunkedList<>(items, items.length - 10);
+        assertEquals(items.length - 10, list.size());
+        Integer[] copy = list.toArray(new Integer[list.size()]);
+        for (int i = 0; i < copy.length; i++) {
+            assertSame(items[i], copy[i]);
+            assertSame(items[i], list.get(i));
+        }
+    }
+
+    @Test
+    public void testSet() {
+        ChunkedList<Integer> list = new ChunkedList<>(new Integer[]{1, 2, 3}, 3);
+        assertEquals(2, (int) list.set(1, 5));
+        assertEquals(5, (int) list.get(1));
+        assertEquals(3, list.size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetOutOfBounds() {
+        ChunkedList<Integer> list = new ChunkedList<>(new Integer[]{1, 2, 3}, 3);
+        list.get(3);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testAddOutOfBounds() {
+        ChunkedList<Integer> list = new ChunkedList<>(new Integer[]{1, 2, 3}, 3);
+        list.add(4, 4);
+    }
+
+    @Test
+    public void testRandom() {
+        Random random = new Random(0);
+        List<Integer> expected = new ArrayList<>();
+        ChunkedList<Integer> list = new ChunkedList<>(new Integer[0], 0);
+        for (int i = 0; i < 100000; i++) {
+            // grow the list for a while, then shrink it back
+            boolean add = expected.isEmpty()
+                    || random.nextInt(100) < (i % 40000 < 20000 ? 60 : 40);
+            if (add) {
+                int index = random.nextInt(expected.size() + 1);
+                expected.add(index, i);
+                list.add(index, i);
+            } else {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.remove(index), list.remove(index));
+            }
+            if (i % 1000 == 0) {
+                assertEquals(expected.size(), list.size());
+                for (int j = 0; j < expected.size(); j++) {
+                    assertEquals(expected.get(j), list.get(j));
+                }
+            }
+        }
+        assertEquals(expected.size(), list.size());
+        Integer[] copy = list.toArray(new Integer[list.size()]);
+        for (int j = 0; j < expected.size(); j++) {
+            assertEquals(expected.get(j), copy[j]);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.widget
+
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+import java.util.Random
+
+@RunWith(JUnit4::class)
+class DiffUtilKeyedTest {
+    private val before = mutableListOf<Item>()
+    private val after = mutableListOf<Item>()
+    private var nextKey = 0L
+
+    @Test
+    fun noChange() {
+        initWithSize(5)
+        check()
+    }
+
+    @Test
+    fun addRemoveAndChange() {
+        initWithSize(5)
+        after.add(2, newItem())
+        after.removeAt(0)
+        after[3] = after[3].copy(data = "changed")
+        check()
+    }
+
+    @Test
+    fun moveToEnd() {
+        initWithSize(5)
+        after.add(after.removeAt(0))
+        val result = check()
+        assertThat(result.convertOldPositionToNew(0), `is`(4))
+        assertThat(result.convertNewPositionToOld(0), `is`(1))
+    }
+
+    @Test
+    fun movesWithoutMoveDetection() {
+        initWithSize(5)
+        after.add(after.removeAt(0))
+        val result = check(detectMoves = false)
+        assertThat(result.convertOldPositionToNew(0), `is`(DiffUtil.DiffResult.NO_POSITION))
+    }
+
+    @Test
+    fun random() {
+        val random = Random(0)
+        repeat(500) {
+            initWithSize(random.nextInt(50))
+            repeat(random.nextInt(30)) {
+                when (random.nextInt(4)) {
+                    0 -> after.add(random.nextInt(after.size + 1), newItem())
+                    1 -> if (after.isNotEmpty()) {
+                        after.removeAt(random.nextInt(after.size))
+                    }
+                    2 -> if (after.isNotEmpty()) {
+                        val item = after.removeAt(random.nextInt(after.size))
+                        after.add(random.nextInt(after.size + 1), item)
+                    }
+                    3 -> if (after.isNotEmpty()) {
+                        val index = random.nextInt(after.size)
+                        after[index] = after[index].copy(data = "changed$it")
+                    }
+                }
+            }
+            check()
+            check(detectMoves = false)
+        }
+    }
+
+    @Test
+    fun shuffle() {
+        // most items are moves, so many of them are postponed while dispatching
+        initWithSize(2000)
+        after.shuffle(Random(0))
+        check()
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun duplicateKeys() {
+        initWithSize(2)
+        after.add(after[0])
+        check()
+    }
+
+    private fun initWithSize(size: Int) {
+        before.clear()
+        after.clear()
+        repeat(size) {
+            before.add(newItem())
+        }
+        after.addAll(before)
+    }
+
+    private fun newItem() = Item(key = nextKey++, data = "new")
+
+    private fun check(detectMoves: Boolean = true): DiffUtil.DiffResult {
+        val result = DiffUtil.calculateKeyedDiff(KeyedItemCallback(before, after), detectMoves)
+        val applied = before.toMutableList<Item?>()
+        result.dispatchUpdatesTo(object : ListUpdateCallback {
+            override fun onInserted(position: Int, count: Int) {
+                repeat(count) {
+                    applied.add(position, null)
+                }
+            }
+
+            override fun onRemoved(position: Int, count: Int) {
+                repeat(count) {
+                    applied.removeAt(position)
+                }
+            }
+
+            override fun onMoved(fromPosition: Int, toPosition: Int) {
+                applied.add(toPosition, applied.removeAt(fromPosition))
+            }
+
+            override fun onChanged(position: Int, count: Int, payload: Any?) {
+                repeat(count) { offset ->
+                    val item = applied[position + offset]!!
+                    applied[position + offset] = item.copy(data = payload as String)
+                }
+            }
+        })
+        assertThat(applied.size, `is`(after.size))
+        val beforeKeys = before.map { it.key }.toSet()
+        after.forEachIndexed { index, item ->
+            val oldPosition = result.convertNewPositionToOld(index)
+            if (applied[index] == null) {
+                // Inserted, or moved without move detection.
+                assertThat(item.key !in beforeKeys || !detectMoves, `is`(true))
+                assertThat(oldPosition, `is`(DiffUtil.DiffResult.NO_POSITION))
+            } else {
+                assertThat(applied[index], `is`(item))
+                assertThat(before[oldPosition].key, `is`(item.key))
+            }
+        }
+        return result
+    }
+
+    private data class Item(val key: Long, val data: String)
+
+    private class KeyedItemCallback(
+        private val oldList: List<Item>,
+        private val newList: List<Item>
+    ) : DiffUtil.KeyedCallback() {
+        override fun getOldListSize() = oldList.size
+
+        override fun getNewListSize() = newList.size
+
+        override fun getOldItemKey(oldItemPosition: Int) = oldList[oldItemPosition].key
+
+        override fun getNewItemKey(newItemPosition: Int) = newList[newItemPosition].key
+
+        override fun areContentsTheSame(oldItemPosition: Int, newItemPosition: Int) =
+            oldList[oldItemPosition].data == newList[newItemPosition].data
+
+        override fun getChangePayload(oldItemPosition: Int, newItemPosition: Int) =
+            newList[newItemPosition].data
+    }
+}
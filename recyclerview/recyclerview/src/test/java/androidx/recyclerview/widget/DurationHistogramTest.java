@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.widget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.TimeUnit;
+
+@RunWith(JUnit4.class)
+public class DurationHistogramTest {
+
+    @Test
+    public void testEmpty() {
+        DurationHistogram histogram = new DurationHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileNs(90));
+    }
+
+    @Test
+    public void testPercentileRoundsUp() {
+        DurationHistogram histogram = new DurationHistogram();
+        final long durationNs = TimeUnit.MILLISECONDS.toNanos(5);
+        histogram.record(durationNs);
+        final long percentileNs = histogram.getPercentileNs(50);
+        assertTrue(percentileNs > durationNs);
+        // four buckets per power of two
+        assertTrue(percentileNs <= durationNs * 5 / 4);
+    }
+
+    @Test
+    public void testPercentiles() {
+        DurationHistogram histogram = new DurationHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(20));
+        }
+        assertEquals(100, histogram.getCount());
+        assertTrue(histogram.getPercentileNs(90) < TimeUnit.MILLISECONDS.toNanos(2));
+        assertTrue(histogram.getPercentileNs(95) > TimeUnit.MILLISECONDS.toNanos(20));
+        assertTrue(histogram.getPercentileNs(100) > TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    public void testOutOfRange() {
+        DurationHistogram histogram = new DurationHistogram();
+        histogram.record(-1);
+        histogram.record(0);
+        assertTrue(histogram.getPercentileNs(100) <= TimeUnit.MICROSECONDS.toNanos(2));
+        histogram.record(TimeUnit.SECONDS.toNanos(10));
+        assertTrue(histogram.getPercentileNs(100) >= TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void testDecay() {
+        DurationHistogram histogram = new DurationHistogram();
+        for (int i = 0; i < DurationHistogram.MAX_COUNT - 1; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(20));
+        }
+        assertTrue(histogram.getPercentileNs(50) > TimeUnit.MILLISECONDS.toNanos(20));
+        // once the count is halved, new durations soon outweigh the old ones
+        for (int i = 0; i < DurationHistogram.MAX_COUNT / 2; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        assertTrue(histogram.getCount() < DurationHistogram.MAX_COUNT);
+        assertTrue(histogram.getPercentileNs(50) < TimeUnit.MILLISECONDS.toNanos(2));
+    }
+}
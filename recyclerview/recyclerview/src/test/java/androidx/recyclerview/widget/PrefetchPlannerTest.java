@@ -0,0 +1,205 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.widget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.TimeUnit;
+
+@RunWith(JUnit4.class)
+public class PrefetchPlannerTest {
+    private static final long FRAME_INTERVAL_NS = TimeUnit.SECONDS.toNanos(1) / 60;
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void testNoLookaheadWithoutData() {
+        PrefetchPlanner planner = new PrefetchPlanner();
+        assertEquals(0, planner.getLookaheadDistance(5000, 10000, FRAME_INTERVAL_NS, 10 * MS));
+        planner.recordIdleTime(10 * MS);
+        assertEquals(0, planner.getLookaheadDistance(5000, 10000, FRAME_INTERVAL_NS, 0));
+        assertEquals(0, planner.getLookaheadDistance(0, 10000, FRAME_INTERVAL_NS, 20 * MS));
+    }
+
+    @Test
+    public void testNoLookaheadForCheapItems() {
+        PrefetchPlanner planner = new PrefetchPlanner();
+        for (int i = 0; i < 100; i++) {
+            planner.recordIdleTime(10 * MS);
+        }
+        assertEquals(0, planner.getLookaheadDistance(5000, 10000, FRAME_INTERVAL_NS, 2 * MS));
+    }
+
+    @Test
+    public void testLookaheadForExpensiveItems() {
+        PrefetchPlanner planner = new PrefetchPlanner();
+        for (int i = 0; i < 100; i++) {
+            // most gaps are long, but some are too short for an item
+            planner.recordIdleTime(i % 5 == 0 ? 2 * MS : 14 * MS);
+        }
+        final int distance = planner.getLookaheadDistance(6000, 10000, FRAME_INTERVAL_NS,
+                5 * MS);
+        // 100 pixels per frame
+        assertEquals(100 * PrefetchPlanner.MAX_LOOKAHEAD_FRAMES, distance, 1);
+        // but not beyond the end of the fling
+        assertEquals(50, planner.getLookaheadDistance(6000, 50, FRAME_INTERVAL_NS, 5 * MS));
+    }
+
+    @Test
+    public void testLookaheadItemCount() {
+        // limited by the distance
+        assertEquals(3, PrefetchPlanner.getLookaheadItemCount(400, 100, 100, 100 * MS, MS));
+        // limited by the time left
+        assertEquals(2, PrefetchPlanner.getLookaheadItemCount(400, 100, 100, 11 * MS, 5 * MS));
+        // limited by the maximum
+        assertEquals(PrefetchPlanner.MAX_LOOKAHEAD_ITEMS,
+                PrefetchPlanner.getLookaheadItemCount(10000, 0, 10, 100 * MS, MS));
+        // nothing beyond the items that the layout manager reported already
+        assertEquals(0, PrefetchPlanner.getLookaheadItemCount(100, 150, 100, 100 * MS, MS));
+        assertEquals(0, PrefetchPlanner.getLookaheadItemCount(400, 100, 100, -MS, MS));
+    }
+
+    @Test
+    public void testFlingWithBusyFrames() {
+        // every third frame leaves too little idle time to bind an item, and more than one item
+        // scrolls in per frame for much of the fling
+        FrameClock withoutLookahead = new FrameClock(false);
+        FrameClock withLookahead = new FrameClock(true);
+        withoutLookahead.fling();
+        withLookahead.fling();
+        assertTrue("without lookahead: " + withoutLookahead.mMissedFrames
+                        + ", with lookahead: " + withLookahead.mMissedFrames,
+                withLookahead.mMissedFrames * 2 < withoutLookahead.mMissedFrames);
+        assertTrue(withLookahead.mMaxPreparedAhead <= PrefetchPlanner.MAX_LOOKAHEAD_ITEMS + 1);
+    }
+
+    @Test
+    public void testFlingWithCheapItems() {
+        // when items fit into every gap, the planner doesn't change anything
+        FrameClock withoutLookahead = new FrameClock(false);
+        FrameClock withLookahead = new FrameClock(true);
+        withoutLookahead.mBindNs = withLookahead.mBindNs = MS;
+        withoutLookahead.fling();
+        withLookahead.fling();
+        assertEquals(0, withoutLookahead.mMissedFrames);
+        assertEquals(0, withLookahead.mMissedFrames);
+        assertEquals(withoutLookahead.mMaxPreparedAhead, withLookahead.mMaxPreparedAhead);
+    }
+
+    /**
+     * Simulates a decelerating fling over a vertical list on a deterministic frame clock and
+     * prefetches like {@link GapWorker} does: the layout manager reports the next item, which is
+     * prepared regardless of the deadline if the next frame needs it, and the planner adds items
+     * beyond it, which are only prepared if they fit into the gap.
+     */
+    private static class FrameClock {
+        static final int ITEM_SIZE = 100;
+        static final int VIEWPORT_SIZE = 1000;
+        static final float START_VELOCITY = 12000;
+        static final float DECELERATION = 6000;
+
+        final boolean mLookahead;
+        final PrefetchPlanner mPlanner = new PrefetchPlanner();
+        final DurationHistogram mBindTimeHistogram = new DurationHistogram();
+        long mBindNs = 5 * MS;
+        final long mLightFrameNs = 3 * MS;
+        final long mBusyFrameNs = 13 * MS;
+        final boolean[] mPrepared = new boolean[200];
+
+        int mMissedFrames;
+        int mMaxPreparedAhead;
+
+        FrameClock(boolean lookahead) {
+            mLookahead = lookahead;
+            // the items on screen when the fling starts are laid out already
+            for (int item = 0; item * ITEM_SIZE < VIEWPORT_SIZE; item++) {
+                mPrepared[item] = true;
+            }
+        }
+
+        void fling() {
+            final float duration = START_VELOCITY / DECELERATION;
+            final int flingDistance = (int) (START_VELOCITY * duration / 2);
+            long lateNs = 0;
+            int lastOffset = 0;
+            for (int frame = 0; ; frame++) {
+                final float time = Math.min(duration, (float) frame * FRAME_INTERVAL_NS
+                        / TimeUnit.SECONDS.toNanos(1));
+                final int offset = (int) (START_VELOCITY * time
+                        - DECELERATION * time * time / 2);
+                final float velocity = START_VELOCITY - DECELERATION * time;
+
+                // the frame itself, which has to prepare any visible item that isn't yet
+                long nowNs = lateNs + (frame % 3 == 2 ? mBusyFrameNs : mLightFrameNs);
+                final int end = offset + VIEWPORT_SIZE;
+                for (int item = offset / ITEM_SIZE; item * ITEM_SIZE < end; item++) {
+                    nowNs += prepare(item);
+                }
+                if (nowNs > FRAME_INTERVAL_NS) {
+                    mMissedFrames++;
+                }
+                if (time >= duration) {
+                    break;
+                }
+
+                // the gap after it
+                final long deadlineNs = FRAME_INTERVAL_NS;
+                mPlanner.recordIdleTime(deadlineNs - nowNs);
+                final int nextItem = (end + ITEM_SIZE - 1) / ITEM_SIZE;
+                final int nextDistance = nextItem * ITEM_SIZE - end;
+                if (nextDistance <= offset - lastOffset) {
+                    nowNs += prepare(nextItem);
+                } else if (nowNs + mBindNs < deadlineNs) {
+                    nowNs += prepare(nextItem);
+                }
+                if (mLookahead) {
+                    final long itemCostNs = mBindTimeHistogram.getPercentileNs(
+                            PrefetchPlanner.COST_PERCENTILE);
+                    final int distance = mPlanner.getLookaheadDistance(velocity,
+                            flingDistance - offset, FRAME_INTERVAL_NS, itemCostNs);
+                    final int count = PrefetchPlanner.getLookaheadItemCount(distance,
+                            nextDistance, ITEM_SIZE, deadlineNs - nowNs, itemCostNs);
+                    for (int i = 1; i <= count; i++) {
+                        if (nowNs + mBindNs < deadlineNs) {
+                            nowNs += prepare(nextItem + i);
+                        }
+                    }
+                }
+                int preparedAhead = 0;
+                while (mPrepared[nextItem + preparedAhead]) {
+                    preparedAhead++;
+                }
+                mMaxPreparedAhead = Math.max(mMaxPreparedAhead, preparedAhead);
+                lateNs = Math.max(0, nowNs - deadlineNs);
+                lastOffset = offset;
+            }
+        }
+
+        private long prepare(int item) {
+            if (mPrepared[item]) {
+                return 0;
+            }
+            mPrepared[item] = true;
+            mBindTimeHistogram.record(mBindNs);
+            return mBindNs;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.widget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import androidx.recyclerview.widget.SortedListTest.Item;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that a {@link SortedList} that keeps its items in chunks behaves exactly like one that
+ * keeps them in a single array.
+ */
+@RunWith(JUnit4.class)
+public class SortedListChunkedTest {
+
+    @Test
+    public void testChunkingThreshold() {
+        SortedList<Item> list = new SortedList<>(Item.class, new RecordingCallback());
+        for (int i = 0; i < SortedList.CHUNKING_THRESHOLD; i++) {
+            list.add(new Item(i));
+        }
+        assertNull(list.mChunks);
+        list.add(new Item(SortedList.CHUNKING_THRESHOLD));
+        assertNotNull(list.mChunks);
+        assertNull(list.mData);
+        for (int i = 0; i < list.size(); i++) {
+            assertEquals(i, list.get(i).id);
+        }
+        list.clear();
+        assertNull(list.mChunks);
+        assertEquals(0, list.size());
+    }
+
+    @Test
+    public void testAddAllToLargeList() {
+        Item[] items = new Item[SortedList.CHUNKING_THRESHOLD * 2];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = new Item(i * 2);
+        }
+        SortedList<Item> list = new SortedList<>(Item.class, new RecordingCallback());
+        list.addAll(items);
+        assertNotNull(list.mChunks);
+
+        Item odd = new Item(101);
+        Item changed = new Item(200, 200, -1);
+        list.addAll(odd, changed);
+        assertNotNull(list.mChunks);
+        assertEquals(items.length + 1, list.size());
+        assertSame(odd, list.get(51));
+        assertSame(changed, list.get(101));
+        assertEquals(101, list.indexOf(changed));
+    }
+
+    @Test
+    public void testRandom() {
+        Random random = new Random(0);
+        List<SortedList<Item>> lists = new ArrayList<>();
+        List<RecordingCallback> callbacks = new ArrayList<>();
+        // one list that never chunks, one that always does and one with the default threshold
+        for (int threshold : new int[]{Integer.MAX_VALUE, 0, SortedList.CHUNKING_THRESHOLD}) {
+            RecordingCallback callback = new RecordingCallback();
+            SortedList<Item> list = new SortedList<>(Item.class, callback);
+            list.mChunkingThreshold = threshold;
+            callback.mList = list;
+            lists.add(list);
+            callbacks.add(callback);
+        }
+        int nextId = 0;
+        for (int i = 0; i < 3000; i++) {
+            final SortedList<Item> reference = lists.get(0);
+            final int size = reference.size();
+            // grow the lists past the threshold, then shrink them back
+            final boolean grow = i % 1000 < 600;
+            Item[] newItems = null;
+            Item removedItem = null;
+            int index = size > 0 ? random.nextInt(size) : 0;
+            Item updatedItem = null;
+            final boolean addOneByOne = random.nextBoolean();
+            final int operation = random.nextInt(10);
+            switch (operation) {
+                case 0:
+                case 1:
+                    // add a few items, some of which are already in the list
+                    newItems = new Item[1 + random.nextInt(grow ? 40 : 3)];
+                    for (int j = 0; j < newItems.length; j++) {
+                        if (size > 0 && random.nextInt(4) == 0) {
+                            Item existing = reference.get(random.nextInt(size));
+                            newItems[j] = new Item(existing.id, existing.cmpField,
+                                    random.nextInt(3));
+                        } else {
+                            newItems[j] = new Item(nextId++, random.nextInt(2000),
+                                    random.nextInt(3));
+                        }
+                    }
+                    break;
+                case 2:
+                    if (size > 0) {
+                        removedItem = reference.get(index);
+                    }
+                    break;
+                case 3:
+                    if (size > 0) {
+                        Item existing = reference.get(index);
+                        updatedItem = new Item(existing.id, random.nextInt(2000),
+                                random.nextInt(3));
+                    }
+                    break;
+                case 4:
+                    if (random.nextInt(50) == 0) {
+                        // replace the list with a part of itself and some new items
+                        List<Item> replacement = new ArrayList<>();
+                        for (int j = 0; j < size; j++) {
+                            if (random.nextInt(3) != 0) {
+                                replacement.add(reference.get(j));
+                            }
+                        }
+                        for (int j = 0; j < 100; j++) {
+                            replacement.add(new Item(nextId++, random.nextInt(2000), 0));
+                        }
+                        for (SortedList<Item> list : lists) {
+                            list.replaceAll(replacement);
+                        }
+                    }
+                    break;
+                default:
+                    if (grow) {
+                        Item item = new Item(nextId++, random.nextInt(2000), 0);
+                        for (SortedList<Item> list : lists) {
+                            list.add(item);
+                        }
+                    } else if (size > 0) {
+                        for (SortedList<Item> list : lists) {
+                            list.removeItemAt(index);
+                        }
+                    }
+                    break;
+            }
+            for (SortedList<Item> list : lists) {
+                if (newItems != null) {
+                    if (addOneByOne) {
+                        list.beginBatchedUpdates();
+                        for (Item item : newItems) {
+                            list.add(item);
+                        }
+                        list.endBatchedUpdates();
+                    } else {
+                        list.addAll(newItems);
+                    }
+                } else if (removedItem != null) {
+                    list.remove(removedItem);
+                } else if (updatedItem != null) {
+                    list.updateItemAt(index, updatedItem);
+                }
+            }
+            for (int j = 1; j < lists.size(); j++) {
+                assertEquals("operation " + i, callbacks.get(0).mEvents.toString(),
+                        callbacks.get(j).mEvents.toString());
+                assertEquals(reference.size(), lists.get(j).size());
+            }
+            if (i % 100 == 0) {
+                for (int j = 1; j < lists.size(); j++) {
+                    SortedList<Item> list = lists.get(j);
+                    for (int k = 0; k < reference.size(); k++) {
+                        assertSame(reference.get(k), list.get(k));
+                        assertEquals(reference.indexOf(reference.get(k)),
+                                list.indexOf(reference.get(k)));
+                    }
+                }
+            }
+            for (RecordingCallback callback : callbacks) {
+                callback.mEvents.setLength(0);
+            }
+        }
+    }
+
+    /**
+     * Records the events it receives along with the items that they point at.
+     */
+    private static class RecordingCallback extends SortedList.Callback<Item> {
+        final StringBuilder mEvents = new StringBuilder();
+        SortedList<Item> mList;
+
+        @Override
+        public int compare(Item o1, Item o2) {
+            return Integer.compare(o1.cmpField, o2.cmpField);
+        }
+
+        @Override
+        public boolean areContentsTheSame(Item oldItem, Item newItem) {
+            return oldItem.data == newItem.data;
+        }
+
+        @Override
+        public boolean areItemsTheSame(Item item1, Item item2) {
+            return item1.id == item2.id;
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            mEvents.append("insert ").append(position).append(' ').append(count);
+            appendItems(position, count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            mEvents.append("remove ").append(position).append(' ').append(count).append('\n');
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            mEvents.append("move ").append(fromPosition).append(' ').append(toPosition);
+            appendItems(toPosition, 1);
+        }
+
+        @Override
+        public void onChanged(int position, int count) {
+            mEvents.append("change ").append(position).append(' ').append(count);
+            appendItems(position, count);
+        }
+
+        private void appendItems(int position, int count) {
+            if (mList != null) {
+                for (int i = position; i < position + count; i++) {
+                    mEvents.append(' ').append(mList.get(i).id);
+                }
+            }
+            mEvents.append('\n');
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.benchmark
+
+import android.os.Build
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.room.Dao
+import androidx.room.Database
+import androidx.room.Entity
+import androidx.room.Insert
+import androidx.room.PrimaryKey
+import androidx.room.Query
+import androidx.room.Room
+import androidx.room.RoomDatabase
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import androidx.test.filters.SdkSuppress
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+/**
+ * Measures the time it takes [threadCount] threads to each run [QUERIES_PER_THREAD] queries
+ * concurrently, with a reader connection pool of [poolSize] connections. With a pool size of 0
+ * every query runs on the writer connection, so the time grows linearly with the number of
+ * threads; with a pool at least as large as the number of threads the queries run in parallel.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+@SdkSuppress(minSdkVersion = Build.VERSION_CODES.JELLY_BEAN)
+class ReaderConnectionPoolBenchmark(private val threadCount: Int, private val poolSize: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    val context = ApplicationProvider.getApplicationContext() as android.content.Context
+
+    private lateinit var db: TestDatabase
+    private lateinit var executor: ExecutorService
+
+    @Before
+    fun setup() {
+        for (postfix in arrayOf("", "-wal", "-shm")) {
+            val dbFile = context.getDatabasePath(DB_NAME + postfix)
+            if (dbFile.exists()) {
+                assertTrue(dbFile.delete())
+            }
+        }
+        db = Room.databaseBuilder(context, TestDatabase::class.java, DB_NAME)
+            .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+            .setReaderConnectionPoolSize(poolSize)
+            .build()
+        db.runInTransaction {
+            for (i in 0 until ROW_COUNT) {
+                db.getUserDao().insert(User(i, "name$i", i % 100))
+            }
+        }
+        executor = Executors.newFixedThreadPool(threadCount)
+    }
+
+    @After
+    fun tearDown() {
+        executor.shutdown()
+        db.close()
+    }
+
+    @Test
+    fun parallelReads() {
+        val tasks = List(threadCount) {
+            Callable {
+                var sum = 0
+                repeat(QUERIES_PER_THREAD) { query ->
+                    sum += db.getUserDao().countOlderThan(query % 100)
+                }
+                sum
+            }
+        }
+        benchmarkRule.measureRepeated {
+            val results = executor.invokeAll(tasks)
+            for (result in results) {
+                assertEquals(EXPECTED_SUM, result.get())
+            }
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "threadCount={0}, poolSize={1}")
+        fun data(): List<Array<Any>> {
+            return mutableListOf<Array<Any>>().apply {
+                arrayOf(1, 2, 4, 8).forEach { threadCount ->
+                    arrayOf(0, 4).forEach { poolSize ->
+                        add(arrayOf(threadCount, poolSize))
+                    }
+                }
+            }
+        }
+
+        private const val DB_NAME = "reader-pool-benchmark-test"
+        private const val ROW_COUNT = 10000
+        private const val QUERIES_PER_THREAD = 100
+        // Each age below 100 appears ROW_COUNT / 100 times, so COUNT(age > n) is
+        // (99 - n) * ROW_COUNT / 100 and the queries ask for every n from 0 to 99 once.
+        private const val EXPECTED_SUM = 4950 * ROW_COUNT / 100
+    }
+
+    @Database(entities = [User::class], version = 1, exportSchema = false)
+    abstract class TestDatabase : RoomDatabase() {
+        abstract fun getUserDao(): UserDao
+    }
+
+    @Entity
+    data class User(@PrimaryKey val id: Int, val name: String, val age: Int)
+
+    @Dao
+    interface UserDao {
+        @Insert
+        fun insert(user: User)
+
+        @Query("SELECT COUNT(*) FROM User WHERE age > :age")
+        fun countOlderThan(age: Int): Int
+    }
+}
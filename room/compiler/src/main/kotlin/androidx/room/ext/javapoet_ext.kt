@@ -92,6 +92,8 @@ object RoomTypeNames {
         ClassName.get("$ROOM_PACKAGE.util", "DBUtil")
     val CURSOR_UTIL: ClassName =
         ClassName.get("$ROOM_PACKAGE.util", "CursorUtil")
+    val CURSOR_ITERATOR: ClassName =
+        ClassName.get(ROOM_PACKAGE, "CursorIterator")
 }
 
 object PagingTypeNames {
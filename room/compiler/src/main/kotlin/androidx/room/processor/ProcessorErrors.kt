@@ -161,6 +161,15 @@ object ProcessorErrors {
         " possibility of inconsistent results between the POJO and its relations. See " +
         TRANSACTION_REFERENCE_DOCS + " for details."
 
+    val CURSOR_ITERATOR_IN_TRANSACTION = "Method annotated with @Transaction must not return a" +
+        " CursorIterator. The rows are mapped lazily after the method returns, outside of the" +
+        " transaction, and a transaction cannot be kept open until the iterator is closed" +
+        " because transactions are thread confined."
+
+    val CURSOR_ITERATOR_WITH_RELATION = "A CursorIterator cannot return a POJO with a" +
+        " @Relation. Relations are loaded for each window of rows after the method returns," +
+        " so they cannot be read consistently with the rows of the query. Return a List instead."
+
     val CANNOT_FIND_ENTITY_FOR_SHORTCUT_QUERY_PARAMETER = "Type of the parameter must be a class " +
         "annotated with @Entity or a collection/array of it."
 
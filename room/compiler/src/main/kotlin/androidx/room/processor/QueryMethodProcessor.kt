@@ -26,6 +26,7 @@ import androidx.room.compiler.processing.XDeclaredType
 import androidx.room.compiler.processing.XMethodElement
 import androidx.room.compiler.processing.XType
 import androidx.room.ext.isNotError
+import androidx.room.solver.query.result.CursorIteratorQueryResultBinder
 import androidx.room.solver.query.result.PojoRowAdapter
 import androidx.room.verifier.DatabaseVerificationErrors
 import androidx.room.verifier.DatabaseVerifier
@@ -211,9 +212,22 @@ private class InternalQueryProcessor(
         )
 
         val inTransaction = executableElement.hasAnnotation(Transaction::class)
-        if (query.type == QueryType.SELECT && !inTransaction) {
+        val hasRelations = rowAdapter is PojoRowAdapter &&
+            rowAdapter.relationCollectors.isNotEmpty()
+        if (resultBinder is CursorIteratorQueryResultBinder) {
+            context.checker.check(
+                !inTransaction,
+                executableElement,
+                ProcessorErrors.CURSOR_ITERATOR_IN_TRANSACTION
+            )
+            context.checker.check(
+                !hasRelations,
+                executableElement,
+                ProcessorErrors.CURSOR_ITERATOR_WITH_RELATION
+            )
+        } else if (query.type == QueryType.SELECT && !inTransaction) {
             // put a warning if it is has relations and not annotated w/ transaction
-            if (rowAdapter is PojoRowAdapter && rowAdapter.relationCollectors.isNotEmpty()) {
+            if (hasRelations) {
                 context.logger.w(
                     Warning.RELATION_QUERY_WITHOUT_TRANSACTION,
                     executableElement, ProcessorErrors.TRANSACTION_MISSING_ON_RELATION
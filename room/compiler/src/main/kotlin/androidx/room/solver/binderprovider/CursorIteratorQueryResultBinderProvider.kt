@@ -0,0 +1,52 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.solver.binderprovider
+
+import androidx.room.compiler.processing.XDeclaredType
+import androidx.room.compiler.processing.XRawType
+import androidx.room.ext.RoomTypeNames
+import androidx.room.parser.ParsedQuery
+import androidx.room.processor.Context
+import androidx.room.solver.QueryResultBinderProvider
+import androidx.room.solver.query.result.CursorIteratorQueryResultBinder
+import androidx.room.solver.query.result.ListQueryResultAdapter
+import androidx.room.solver.query.result.QueryResultBinder
+
+/**
+ * Provides a binder for methods that return a `CursorIterator<T>` or an `Iterator<T>`, which map
+ * the rows of the cursor lazily instead of loading them into a list.
+ */
+class CursorIteratorQueryResultBinderProvider(val context: Context) : QueryResultBinderProvider {
+    private val cursorIteratorType: XRawType? by lazy {
+        context.processingEnv.findType(RoomTypeNames.CURSOR_ITERATOR)?.rawType
+    }
+
+    override fun provide(declared: XDeclaredType, query: ParsedQuery): QueryResultBinder {
+        val typeArg = declared.typeArguments.first().extendsBoundOrSelf()
+        val listAdapter = context.typeAdapterStore.findRowAdapter(typeArg, query)?.let {
+            ListQueryResultAdapter(it)
+        }
+        return CursorIteratorQueryResultBinder(listAdapter)
+    }
+
+    override fun matches(declared: XDeclaredType): Boolean {
+        if (cursorIteratorType == null || declared.typeArguments.size != 1) {
+            return false
+        }
+        return declared.rawType.isAssignableFrom(cursorIteratorType!!)
+    }
+}
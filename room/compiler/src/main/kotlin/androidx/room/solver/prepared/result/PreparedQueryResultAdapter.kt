@@ -93,6 +93,9 @@ class PreparedQueryResultAdapter(
                 addStatement("$N.endTransaction()", dbField)
                 if (preparedStmtField != null) {
                     addStatement("$N.release($L)", preparedStmtField, stmtQueryVal)
+                } else {
+                    // One-off statements are borrowed from the database's statement cache.
+                    addStatement("$N.releaseStatement($L)", dbField, stmtQueryVal)
                 }
             }
             endControlFlow()
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.solver.query.result
+
+import androidx.room.ext.AndroidTypeNames
+import androidx.room.ext.CommonTypeNames
+import androidx.room.ext.L
+import androidx.room.ext.N
+import androidx.room.ext.RoomTypeNames
+import androidx.room.ext.T
+import androidx.room.solver.CodeGenScope
+import androidx.room.writer.DaoWriter
+import com.squareup.javapoet.FieldSpec
+import com.squareup.javapoet.MethodSpec
+import com.squareup.javapoet.ParameterSpec
+import com.squareup.javapoet.ParameterizedTypeName
+import com.squareup.javapoet.TypeName
+import com.squareup.javapoet.TypeSpec
+import javax.lang.model.element.Modifier
+
+/**
+ * Runs the query right away and returns a `CursorIterator` that maps the rows of the cursor a
+ * window at a time with the [listAdapter] and releases the query once it is closed.
+ */
+class CursorIteratorQueryResultBinder(
+    val listAdapter: ListQueryResultAdapter?
+) : QueryResultBinder(listAdapter) {
+    val itemTypeName: TypeName = listAdapter?.rowAdapter?.out?.typeName ?: TypeName.OBJECT
+    val typeName: ParameterizedTypeName = ParameterizedTypeName.get(
+        RoomTypeNames.CURSOR_ITERATOR, itemTypeName
+    )
+
+    override fun convertAndReturn(
+        roomSQLiteQueryVar: String,
+        canReleaseQuery: Boolean,
+        dbField: FieldSpec,
+        inTransaction: Boolean,
+        scope: CodeGenScope
+    ) {
+        // @Transaction and @Relation are rejected by the QueryMethodProcessor, the rows are
+        // mapped after this method returns so neither could be honored.
+        val builder = scope.builder()
+        builder.addStatement("$N.assertNotSuspendingTransaction()", DaoWriter.dbField)
+        val cursorVar = scope.getTmpVar("_cursor")
+        builder.addStatement(
+            "final $T $L = $T.query($N, $L, false, null)",
+            AndroidTypeNames.CURSOR,
+            cursorVar,
+            RoomTypeNames.DB_UTIL,
+            dbField,
+            roomSQLiteQueryVar
+        )
+        // The iterator releases the query when it is closed.
+        val spec = TypeSpec.anonymousClassBuilder(
+            "$L, $L",
+            cursorVar,
+            if (canReleaseQuery) roomSQLiteQueryVar else "null"
+        ).apply {
+            superclass(typeName)
+            addMethod(createConvertRowsMethod(scope))
+        }.build()
+        builder.addStatement("return $L", spec)
+    }
+
+    private fun createConvertRowsMethod(scope: CodeGenScope): MethodSpec =
+        MethodSpec.methodBuilder("convertRows").apply {
+            addAnnotation(Override::class.java)
+            addModifiers(Modifier.PROTECTED)
+            returns(ParameterizedTypeName.get(CommonTypeNames.LIST, itemTypeName))
+            val cursorParam = ParameterSpec.builder(AndroidTypeNames.CURSOR, "cursor")
+                .build()
+            addParameter(cursorParam)
+            val resultVar = scope.getTmpVar("_result")
+            val rowsScope = scope.fork()
+            listAdapter?.convert(resultVar, cursorParam.name, rowsScope)
+            addCode(rowsScope.builder().build())
+            addStatement("return $L", resultVar)
+        }.build()
+}
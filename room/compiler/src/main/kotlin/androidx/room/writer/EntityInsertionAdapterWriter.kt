@@ -93,6 +93,15 @@ class EntityInsertionAdapterWriter private constructor(
                     addStatement("return $S", query)
                 }.build()
             )
+            addMethod(
+                MethodSpec.methodBuilder("getColumnCount").apply {
+                    addAnnotation(Override::class.java)
+                    addModifiers(PUBLIC)
+                    returns(TypeName.INT)
+                    // lets the runtime bind several entities to one multi-row insert statement
+                    addStatement("return $L", pojo.fields.size)
+                }.build()
+            )
             addMethod(
                 MethodSpec.methodBuilder("bind").apply {
                     val bindScope = CodeGenScope(classWriter)
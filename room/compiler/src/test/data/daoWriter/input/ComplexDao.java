@@ -77,4 +77,7 @@ abstract class ComplexDao {
 
     @Query("SELECT * FROM Child1")
     abstract public ListenableFuture<List<Child1>> getChild1ListListenableFuture();
+
+    @Query("SELECT * FROM Child1")
+    abstract public CursorIterator<Child1> iterateChild1();
 }
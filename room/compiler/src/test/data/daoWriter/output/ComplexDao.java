@@ -3,6 +3,7 @@ package foo.bar;
 import android.database.Cursor;
 import android.os.CancellationSignal;
 import androidx.lifecycle.LiveData;
+import androidx.room.CursorIterator;
 import androidx.room.RoomDatabase;
 import androidx.room.RoomSQLiteQuery;
 import androidx.room.guava.GuavaRoom;
@@ -537,6 +538,42 @@ public final class ComplexDao_Impl extends ComplexDao {
         }, _statement, true, _cancellationSignal);
     }
 
+    @Override
+    public CursorIterator<Child1> iterateChild1() {
+        final String _sql = "SELECT * FROM Child1";
+        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquire(_sql, 0);
+        __db.assertNotSuspendingTransaction();
+        final Cursor _cursor = DBUtil.query(__db, _statement, false, null);
+        return new CursorIterator<Child1>(_cursor, _statement) {
+            @Override
+            protected List<Child1> convertRows(Cursor cursor) {
+                final int _cursorIndexOfId = CursorUtil.getColumnIndexOrThrow(cursor, "id");
+                final int _cursorIndexOfName = CursorUtil.getColumnIndexOrThrow(cursor, "name");
+                final int _cursorIndexOfSerial = CursorUtil.getColumnIndexOrThrow(cursor, "serial");
+                final int _cursorIndexOfCode = CursorUtil.getColumnIndexOrThrow(cursor, "code");
+                final List<Child1> _result = new ArrayList<Child1>(cursor.getCount());
+                while(cursor.moveToNext()) {
+                    final Child1 _item;
+                    final int _tmpId;
+                    _tmpId = cursor.getInt(_cursorIndexOfId);
+                    final String _tmpName;
+                    _tmpName = cursor.getString(_cursorIndexOfName);
+                    final Info _tmpInfo;
+                    if (! (cursor.isNull(_cursorIndexOfSerial) && cursor.isNull(_cursorIndexOfCode))) {
+                        _tmpInfo = new Info();
+                        _tmpInfo.serial = cursor.getInt(_cursorIndexOfSerial);
+                        _tmpInfo.code = cursor.getString(_cursorIndexOfCode);
+                    }  else  {
+                        _tmpInfo = null;
+                    }
+                    _item = new Child1(_tmpId,_tmpName,_tmpInfo);
+                    _result.add(_item);
+                }
+                return _result;
+            }
+        };
+    }
+
     public static List<Class<?>> getRequiredConverters() {
         return Collections.emptyList();
     }
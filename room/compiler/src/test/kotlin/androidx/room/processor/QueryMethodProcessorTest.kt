@@ -23,12 +23,14 @@ import androidx.room.ext.CommonTypeNames
 import androidx.room.ext.KotlinTypeNames
 import androidx.room.ext.LifecyclesTypeNames
 import androidx.room.ext.PagingTypeNames
+import androidx.room.ext.RoomTypeNames
 import androidx.room.ext.typeName
 import androidx.room.parser.QueryType
 import androidx.room.parser.Table
 import androidx.room.compiler.processing.XDeclaredType
 import androidx.room.compiler.processing.XType
 import androidx.room.processor.ProcessorErrors.cannotFindQueryResultAdapter
+import androidx.room.solver.query.result.CursorIteratorQueryResultBinder
 import androidx.room.solver.query.result.DataSourceFactoryQueryResultBinder
 import androidx.room.solver.query.result.ListQueryResultAdapter
 import androidx.room.solver.query.result.LiveDataQueryResultBinder
@@ -551,6 +553,75 @@ class QueryMethodProcessorTest(val enableVerification: Boolean) {
         }.compilesWithoutError()
     }
 
+    @Test
+    fun testCursorIteratorQuery() {
+        singleQueryMethod<ReadQueryMethod>(
+            """
+                @Query("select name from user")
+                abstract ${RoomTypeNames.CURSOR_ITERATOR}<String> iterateNames();
+                """
+        ) { parsedQuery, _ ->
+            assertThat(
+                parsedQuery.returnType.typeName,
+                `is`(
+                    ParameterizedTypeName.get(
+                        RoomTypeNames.CURSOR_ITERATOR,
+                        String::class.typeName
+                    ) as TypeName
+                )
+            )
+            val binder = parsedQuery.queryResultBinder
+            assertThat(binder, instanceOf(CursorIteratorQueryResultBinder::class.java))
+            assertThat(binder.adapter, instanceOf(ListQueryResultAdapter::class.java))
+        }.compilesWithoutError()
+    }
+
+    @Test
+    fun testIteratorQuery() {
+        singleQueryMethod<ReadQueryMethod>(
+            """
+                @Query("select name from user")
+                abstract java.util.Iterator<String> iterateNames();
+                """
+        ) { parsedQuery, _ ->
+            assertThat(
+                parsedQuery.queryResultBinder,
+                instanceOf(CursorIteratorQueryResultBinder::class.java)
+            )
+        }.compilesWithoutError()
+    }
+
+    @Test
+    fun testCursorIteratorInTransaction() {
+        singleQueryMethod<ReadQueryMethod>(
+            """
+                @Transaction
+                @Query("select name from user")
+                abstract ${RoomTypeNames.CURSOR_ITERATOR}<String> iterateNames();
+                """
+        ) { _, _ ->
+        }.failsToCompile().withErrorContaining(ProcessorErrors.CURSOR_ITERATOR_IN_TRANSACTION)
+    }
+
+    @Test
+    fun testCursorIteratorWithRelation() {
+        if (!enableVerification) {
+            return
+        }
+        singleQueryMethod<ReadQueryMethod>(
+            """
+                static class Merged extends User {
+                   @Relation(parentColumn = "name", entityColumn = "lastName",
+                             entity = User.class)
+                   java.util.List<? extends User> users;
+                }
+                @Query("select * from user")
+                abstract ${RoomTypeNames.CURSOR_ITERATOR}<Merged> iterateUsers();
+                """
+        ) { _, _ ->
+        }.failsToCompile().withErrorContaining(ProcessorErrors.CURSOR_ITERATOR_WITH_RELATION)
+    }
+
     @Test
     fun testBadReturnForDeleteQuery() {
         singleQueryMethod<WriteQueryMethod>(
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SdkSuppress;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+@SdkSuppress(minSdkVersion = 16) // multi-row VALUES clauses require SQLite 3.7.11
+public class EntityInsertionAdapterTest {
+    private RoomDatabase mDb;
+    private SupportSQLiteStatement mSharedStmt;
+    private final List<String> mBatchQueries = new ArrayList<>();
+    private final List<SupportSQLiteStatement> mBatchStmts = new ArrayList<>();
+    private final List<String> mCompiledQueries = new ArrayList<>();
+    private final List<SupportSQLiteStatement> mCompiledStmts = new ArrayList<>();
+    private EntityInsertionAdapter<Integer> mAdapter;
+
+    @Before
+    public void init() {
+        mDb = mock(RoomDatabase.class);
+        mSharedStmt = mock(SupportSQLiteStatement.class);
+        when(mDb.compileStatement(anyString())).thenAnswer(
+                new Answer<SupportSQLiteStatement>() {
+                    @Override
+                    public SupportSQLiteStatement answer(InvocationOnMock invocation) {
+                        String query = invocation.getArgument(0);
+                        if (!query.contains("),(")) {
+                            return mSharedStmt;
+                        }
+                        SupportSQLiteStatement stmt = mock(SupportSQLiteStatement.class);
+                        mCompiledQueries.add(query);
+                        mCompiledStmts.add(stmt);
+                        return stmt;
+                    }
+                });
+        when(mDb.acquireStatement(anyString())).thenAnswer(
+                new Answer<SupportSQLiteStatement>() {
+                    @Override
+                    public SupportSQLiteStatement answer(InvocationOnMock invocation) {
+                        SupportSQLiteStatement stmt = mock(SupportSQLiteStatement.class);
+                        mBatchQueries.add((String) invocation.getArgument(0));
+                        mBatchStmts.add(stmt);
+                        return stmt;
+                    }
+                });
+        mAdapter = new EntityInsertionAdapter<Integer>(mDb) {
+            @Override
+            protected String createQuery() {
+                return "INSERT OR ABORT INTO `Foo` (`id`,`value`) VALUES (nullif(?, 0),?)";
+            }
+
+            @Override
+            protected int getColumnCount() {
+                return 2;
+            }
+
+            @Override
+            protected void bind(SupportSQLiteStatement statement, Integer entity) {
+                statement.bindLong(1, entity);
+                statement.bindString(2, "value" + entity);
+            }
+        };
+    }
+
+    @Test
+    public void insertMultipleRowsPerStatement() throws IOException {
+        mAdapter.insert(Arrays.asList(1, 2, 3));
+        // A batch smaller than the batch size is not cached.
+        assertThat(mBatchQueries.size(), is(0));
+        assertThat(mCompiledQueries, is(Arrays.asList("INSERT OR ABORT INTO `Foo` (`id`,`value`)"
+                + " VALUES (nullif(?, 0),?),(nullif(?, 0),?),(nullif(?, 0),?)")));
+        SupportSQLiteStatement stmt = mCompiledStmts.get(0);
+        verify(stmt).bindLong(1, 1);
+        verify(stmt).bindString(2, "value1");
+        verify(stmt).bindLong(3, 2);
+        verify(stmt).bindString(4, "value2");
+        verify(stmt).bindLong(5, 3);
+        verify(stmt).bindString(6, "value3");
+        verify(stmt, times(1)).executeInsert();
+        verify(stmt).close();
+        verify(mDb, never()).releaseStatement(stmt);
+        verify(mSharedStmt, never()).executeInsert();
+    }
+
+    @Test
+    public void onlyFullBatchesAreCached() throws IOException {
+        int batchSize = EntityInsertionAdapter.MAX_BIND_ARGS / 2;
+        List<Integer> entities = new ArrayList<>();
+        for (int i = 0; i < batchSize + 2; i++) {
+            entities.add(i);
+        }
+        mAdapter.insert(entities);
+        assertThat(mBatchStmts.size(), is(1));
+        verify(mBatchStmts.get(0), times(1)).executeInsert();
+        verify(mDb).releaseStatement(mBatchStmts.get(0));
+        // The remaining two rows are compiled without the cache and closed.
+        assertThat(mCompiledStmts.size(), is(1));
+        verify(mCompiledStmts.get(0)).bindLong(3, batchSize + 1);
+        verify(mCompiledStmts.get(0), times(1)).executeInsert();
+        verify(mCompiledStmts.get(0)).close();
+    }
+
+    @Test
+    public void insertArrayInBatches() {
+        Integer[] entities = new Integer[EntityInsertionAdapter.MAX_BIND_ARGS];
+        for (int i = 0; i < entities.length; i++) {
+            entities[i] = i;
+        }
+        mAdapter.insert(entities);
+        // Two arguments per row, so each full batch has MAX_BIND_ARGS / 2 rows and the last
+        // remaining row is inserted with the shared statement.
+        assertThat(mBatchStmts.size(), is(2));
+        verify(mBatchStmts.get(0)).bindString(998, "value498");
+        verify(mBatchStmts.get(1)).bindString(998, "value997");
+        verify(mSharedStmt).bindLong(1, 998);
+        verify(mSharedStmt, times(1)).executeInsert();
+    }
+
+    @Test
+    public void insertSingleRow() {
+        mAdapter.insert(Arrays.asList(1));
+        assertThat(mBatchQueries.size(), is(0));
+        verify(mSharedStmt).bindLong(1, 1);
+        verify(mSharedStmt, times(1)).executeInsert();
+    }
+
+    @Test
+    public void unknownColumnCountInsertsOneByOne() {
+        EntityInsertionAdapter<Integer> adapter = new EntityInsertionAdapter<Integer>(mDb) {
+            @Override
+            protected String createQuery() {
+                return "INSERT OR ABORT INTO `Foo` (`id`) VALUES (?)";
+            }
+
+            @Override
+            protected void bind(SupportSQLiteStatement statement, Integer entity) {
+                statement.bindLong(1, entity);
+            }
+        };
+        adapter.insert(Arrays.asList(1, 2, 3));
+        assertThat(mBatchQueries.size(), is(0));
+        verify(mSharedStmt, times(3)).executeInsert();
+    }
+
+    @Test
+    public void returnIdsPerRow() {
+        mAdapter.insertAndReturnIdsList(Arrays.asList(1, 2, 3));
+        assertThat(mBatchQueries.size(), is(0));
+        verify(mSharedStmt, times(3)).executeInsert();
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import android.database.Cursor;
+import android.database.CursorWrapper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An {@link Iterator} over the result of a query that maps the rows of its {@link Cursor} to
+ * objects lazily, a window of rows at a time, instead of loading the whole result into a list.
+ * <p>
+ * A {@link Query} method can return a {@code CursorIterator} (or an {@link Iterator}) to go
+ * through a large result, such as when exporting or synchronizing a table, while keeping at most
+ * one window of mapped objects in memory:
+ * <pre>
+ * {@literal @}Dao
+ * interface UserDao {
+ *     {@literal @}Query("SELECT * FROM user")
+ *     CursorIterator&lt;User&gt; iterateAll();
+ * }
+ * </pre>
+ * The query runs when the method is called. The cursor is closed once the last row has been
+ * mapped; a caller that stops before the end should call {@link #close()} to free the cursor and
+ * the connection it holds.
+ * <p>
+ * Since the rows are mapped after the method returns, such a method cannot be annotated with
+ * {@link Transaction} and cannot return a POJO with a {@link Relation}.
+ *
+ * @param <T> The type of the objects the rows are mapped to.
+ */
+public abstract class CursorIterator<T> implements Iterator<T>, Closeable {
+    /**
+     * The number of rows mapped at a time by the iterators Room generates.
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 100;
+
+    private final Cursor mCursor;
+    @Nullable
+    private final RoomSQLiteQuery mQuery;
+    private final int mWindowSize;
+    private List<T> mWindow = Collections.emptyList();
+    private int mWindowPosition;
+    // The position in the cursor of the first row of the next window.
+    private int mNextRow;
+    private boolean mClosed;
+
+    /**
+     * Creates an iterator that maps {@link #DEFAULT_WINDOW_SIZE} rows at a time.
+     *
+     * @param cursor The cursor to iterate, which the iterator closes.
+     */
+    protected CursorIterator(@NonNull Cursor cursor) {
+        this(cursor, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Creates an iterator that maps {@link #DEFAULT_WINDOW_SIZE} rows at a time and releases the
+     * query of the cursor once it is closed.
+     *
+     * @param cursor The cursor to iterate, which the iterator closes.
+     * @param query The query the cursor is the result of, which the iterator releases, or
+     *              {@code null} if it is owned by the caller.
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    protected CursorIterator(@NonNull Cursor cursor, @Nullable RoomSQLiteQuery query) {
+        this(cursor, query, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Creates an iterator that maps {@code windowSize} rows at a time.
+     *
+     * @param cursor The cursor to iterate, which the iterator closes.
+     * @param windowSize The maximum number of rows mapped at a time.
+     */
+    protected CursorIterator(@NonNull Cursor cursor, int windowSize) {
+        this(cursor, null, windowSize);
+    }
+
+    private CursorIterator(@NonNull Cursor cursor, @Nullable RoomSQLiteQuery query,
+            int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("windowSize < 1");
+        }
+        mCursor = cursor;
+        mQuery = query;
+        mWindowSize = windowSize;
+    }
+
+    /**
+     * Maps every row of the given cursor to an object.
+     * <p>
+     * The cursor only exposes the rows of the current window, starting before its first row.
+     * It must not be closed.
+     *
+     * @param cursor The rows of the current window.
+     * @return The objects the rows are mapped to, in order.
+     */
+    @NonNull
+    protected abstract List<T> convertRows(@NonNull Cursor cursor);
+
+    @Override
+    public boolean hasNext() {
+        if (mWindowPosition < mWindow.size()) {
+            return true;
+        }
+        if (mClosed) {
+            return false;
+        }
+        loadWindow();
+        return mWindowPosition < mWindow.size();
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return mWindow.get(mWindowPosition++);
+    }
+
+    /**
+     * Unsupported, the result of a query cannot be modified.
+     */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+
+    /**
+     * Closes the cursor of this iterator and releases its query. Rows that have already been
+     * mapped can still be iterated.
+     */
+    @Override
+    public void close() {
+        if (!mClosed) {
+            mClosed = true;
+            mCursor.close();
+            if (mQuery != null) {
+                mQuery.release();
+            }
+        }
+    }
+
+    private void loadWindow() {
+        final int count = Math.min(mWindowSize, mCursor.getCount() - mNextRow);
+        mWindowPosition = 0;
+        if (count <= 0) {
+            mWindow = Collections.emptyList();
+            close();
+            return;
+        }
+        try {
+            mWindow = convertRows(new WindowCursor(mCursor, mNextRow, count));
+        } catch (RuntimeException e) {
+            mWindow = Collections.emptyList();
+            close();
+            throw e;
+        }
+        mNextRow += count;
+        if (mNextRow >= mCursor.getCount()) {
+            close();
+        }
+    }
+
+    /**
+     * A view of {@code count} rows of a cursor starting at {@code start}.
+     */
+    private static final class WindowCursor extends CursorWrapper {
+        private final int mStart;
+        private final int mCount;
+        private int mPosition = -1;
+
+        WindowCursor(Cursor cursor, int start, int count) {
+            super(cursor);
+            mStart = start;
+            mCount = count;
+        }
+
+        @Override
+        public int getCount() {
+            return mCount;
+        }
+
+        @Override
+        public int getPosition() {
+            return mPosition;
+        }
+
+        @Override
+        public boolean moveToPosition(int position) {
+            if (position >= mCount) {
+                mPosition = mCount;
+                return false;
+            }
+            if (position < 0) {
+                mPosition = -1;
+                return false;
+            }
+            // The position is within the rows the wrapped cursor reported.
+            mPosition = position;
+            super.moveToPosition(mStart + position);
+            return true;
+        }
+
+        @Override
+        public boolean move(int offset) {
+            return moveToPosition(mPosition + offset);
+        }
+
+        @Override
+        public boolean moveToFirst() {
+            return moveToPosition(0);
+        }
+
+        @Override
+        public boolean moveToLast() {
+            return moveToPosition(mCount - 1);
+        }
+
+        @Override
+        public boolean moveToNext() {
+            return moveToPosition(mPosition + 1);
+        }
+
+        @Override
+        public boolean moveToPrevious() {
+            return moveToPosition(mPosition - 1);
+        }
+
+        @Override
+        public boolean isFirst() {
+            return mCount > 0 && mPosition == 0;
+        }
+
+        @Override
+        public boolean isLast() {
+            return mCount > 0 && mPosition == mCount - 1;
+        }
+
+        @Override
+        public boolean isBeforeFirst() {
+            return mCount == 0 || mPosition == -1;
+        }
+
+        @Override
+        public boolean isAfterLast() {
+            return mCount == 0 || mPosition == mCount;
+        }
+
+        @Override
+        public void close() {
+            // The cursor is owned by the iterator.
+        }
+    }
+}
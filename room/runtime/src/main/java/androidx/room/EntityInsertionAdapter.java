@@ -16,16 +16,24 @@
 
 package androidx.room;
 
+import android.os.Build;
+
 import androidx.annotation.RestrictTo;
 import androidx.sqlite.db.SupportSQLiteStatement;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
 /**
  * Implementations of this class knows how to insert a particular entity.
  * <p>
+ * When several entities are inserted without returning their row ids, they are inserted in
+ * batches with multi-row {@code INSERT ... VALUES (...), (...)} statements, each of which binds
+ * at most {@link #MAX_BIND_ARGS} arguments, instead of executing the statement once per entity.
+ * <p>
  * This is an internal library class and all of its implementations are auto-generated.
  *
  * @param <T> The type parameter of the entity to be inserted
@@ -34,6 +42,28 @@ import java.util.List;
 @SuppressWarnings({"WeakerAccess", "unused"})
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
 public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
+    /**
+     * The maximum number of arguments bound to a multi-row insert statement, the default
+     * SQLITE_MAX_VARIABLE_NUMBER.
+     */
+    static final int MAX_BIND_ARGS = 999;
+
+    /**
+     * The maximum number of rows inserted by a multi-row insert statement, the default
+     * SQLITE_MAX_COMPOUND_SELECT which limited multi-row VALUES clauses before SQLite 3.8.8.
+     */
+    static final int MAX_BATCH_ROWS = 500;
+
+    private static final String VALUES = " VALUES ";
+
+    // The part of the insert query before the values of a row and the values of a row, split
+    // from the query when the first batch is inserted. A batch size below 2 means that the query
+    // is not batched. The batch size is written last so that reading it publishes the other
+    // fields.
+    private String mBatchPrefix;
+    private String mBatchRow;
+    private volatile int mBatchSize = -1;
+
     /**
      * Creates an InsertionAdapter that can insert the entity type T into the given database.
      *
@@ -52,6 +82,19 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
      */
     protected abstract void bind(SupportSQLiteStatement statement, T entity);
 
+    /**
+     * Returns the number of arguments that {@link #bind(SupportSQLiteStatement, Object)} binds
+     * for one entity, which is the number of columns of the insert query.
+     * <p>
+     * Adapters generated by Room override this so that several entities can be inserted by a
+     * single statement. The default of 0 inserts them one at a time.
+     *
+     * @return The number of arguments bound per entity, or 0 if unknown.
+     */
+    protected int getColumnCount() {
+        return 0;
+    }
+
     /**
      * Inserts the entity into the database.
      *
@@ -73,14 +116,23 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
      * @param entities Entities to insert
      */
     public final void insert(T[] entities) {
-        final SupportSQLiteStatement stmt = acquire();
-        try {
-            for (T entity : entities) {
-                bind(stmt, entity);
-                stmt.executeInsert();
+        final int batchSize = getBatchSize();
+        if (batchSize < 2) {
+            final SupportSQLiteStatement stmt = acquire();
+            try {
+                for (T entity : entities) {
+                    bind(stmt, entity);
+                    stmt.executeInsert();
+                }
+            } finally {
+                release(stmt);
             }
-        } finally {
-            release(stmt);
+            return;
+        }
+        final List<T> entityList = Arrays.asList(entities);
+        for (int start = 0; start < entities.length; start += batchSize) {
+            final int end = Math.min(start + batchSize, entities.length);
+            insertBatch(entityList.subList(start, end), batchSize);
         }
     }
 
@@ -90,17 +142,115 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
      * @param entities Entities to insert
      */
     public final void insert(Iterable<? extends T> entities) {
-        final SupportSQLiteStatement stmt = acquire();
+        final int batchSize = getBatchSize();
+        if (batchSize < 2) {
+            final SupportSQLiteStatement stmt = acquire();
+            try {
+                for (T entity : entities) {
+                    bind(stmt, entity);
+                    stmt.executeInsert();
+                }
+            } finally {
+                release(stmt);
+            }
+            return;
+        }
+        final List<T> batch = new ArrayList<>(batchSize);
+        for (T entity : entities) {
+            batch.add(entity);
+            if (batch.size() == batchSize) {
+                insertBatch(batch, batchSize);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertBatch(batch, batchSize);
+        }
+    }
+
+    /**
+     * Inserts the given entities with a single multi-row insert statement.
+     * <p>
+     * Only full batches borrow their statement from the {@link StatementCache}. The SQL of a
+     * smaller batch differs for every row count, so caching it would evict the statements that
+     * are reused.
+     */
+    private void insertBatch(List<? extends T> batch, int batchSize) {
+        if (batch.size() == 1) {
+            insert(batch.get(0));
+            return;
+        }
+        final boolean full = batch.size() == batchSize;
+        final String query = createBatchQuery(batch.size());
+        final SupportSQLiteStatement stmt = full
+                ? mDatabase.acquireStatement(query)
+                : mDatabase.compileStatement(query);
         try {
-            for (T entity : entities) {
-                bind(stmt, entity);
-                stmt.executeInsert();
+            final OffsetStatement offsetStmt = new OffsetStatement(stmt);
+            final int columnCount = getColumnCount();
+            for (int i = 0; i < batch.size(); i++) {
+                offsetStmt.mOffset = i * columnCount;
+                bind(offsetStmt, batch.get(i));
             }
+            stmt.executeInsert();
         } finally {
-            release(stmt);
+            if (full) {
+                mDatabase.releaseStatement(stmt);
+            } else {
+                closeQuietly(stmt);
+            }
         }
     }
 
+    /**
+     * Returns the insert query for the given number of rows.
+     */
+    private String createBatchQuery(int rowCount) {
+        final StringBuilder query = new StringBuilder(
+                mBatchPrefix.length() + (mBatchRow.length() + 1) * rowCount);
+        query.append(mBatchPrefix);
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) {
+                query.append(',');
+            }
+            query.append(mBatchRow);
+        }
+        return query.toString();
+    }
+
+    private static void closeQuietly(SupportSQLiteStatement statement) {
+        try {
+            statement.close();
+        } catch (IOException ignored) {
+            // Nothing else to release.
+        }
+    }
+
+    /**
+     * Returns the number of entities inserted per multi-row insert statement, or 0 if the insert
+     * query cannot be batched.
+     */
+    private int getBatchSize() {
+        if (mBatchSize >= 0) {
+            return mBatchSize;
+        }
+        int batchSize = 0;
+        final int columnCount = getColumnCount();
+        // Multi-row VALUES clauses are supported since SQLite 3.7.11.
+        if (columnCount > 0 && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            // The generated query ends with the values of its single row.
+            final String query = createQuery();
+            final int valuesIndex = query.lastIndexOf(VALUES);
+            if (valuesIndex >= 0) {
+                mBatchPrefix = query.substring(0, valuesIndex + VALUES.length());
+                mBatchRow = query.substring(valuesIndex + VALUES.length());
+                batchSize = Math.min(MAX_BATCH_ROWS, MAX_BIND_ARGS / columnCount);
+            }
+        }
+        mBatchSize = batchSize;
+        return batchSize;
+    }
+
     /**
      * Inserts the given entity into the database and returns the row id.
      *
@@ -248,4 +398,78 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
             release(stmt);
         }
     }
+
+    /**
+     * A statement that shifts the indices of the arguments it binds by an offset, so that the
+     * generated {@link #bind(SupportSQLiteStatement, Object)} can bind an entity to any row of a
+     * multi-row insert statement. Every other call goes to the multi-row statement itself.
+     */
+    private static final class OffsetStatement implements SupportSQLiteStatement {
+        private final SupportSQLiteStatement mDelegate;
+        int mOffset;
+
+        OffsetStatement(SupportSQLiteStatement delegate) {
+            mDelegate = delegate;
+        }
+
+        @Override
+        public void bindNull(int index) {
+            mDelegate.bindNull(index + mOffset);
+        }
+
+        @Override
+        public void bindLong(int index, long value) {
+            mDelegate.bindLong(index + mOffset, value);
+        }
+
+        @Override
+        public void bindDouble(int index, double value) {
+            mDelegate.bindDouble(index + mOffset, value);
+        }
+
+        @Override
+        public void bindString(int index, String value) {
+            mDelegate.bindString(index + mOffset, value);
+        }
+
+        @Override
+        public void bindBlob(int index, byte[] value) {
+            mDelegate.bindBlob(index + mOffset, value);
+        }
+
+        @Override
+        public void clearBindings() {
+            mDelegate.clearBindings();
+        }
+
+        @Override
+        public void execute() {
+            mDelegate.execute();
+        }
+
+        @Override
+        public int executeUpdateDelete() {
+            return mDelegate.executeUpdateDelete();
+        }
+
+        @Override
+        public long executeInsert() {
+            return mDelegate.executeInsert();
+        }
+
+        @Override
+        public long simpleQueryForLong() {
+            return mDelegate.simpleQueryForLong();
+        }
+
+        @Override
+        public String simpleQueryForString() {
+            return mDelegate.simpleQueryForString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            mDelegate.close();
+        }
+    }
 }
@@ -35,15 +35,22 @@ import androidx.sqlite.db.SupportSQLiteDatabase;
 import androidx.sqlite.db.SupportSQLiteStatement;
 
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 
 /**
@@ -61,6 +68,11 @@ import java.util.concurrent.locks.Lock;
 // memory table table, flipping the invalidated flag ON.
 // * When multi-instance invalidation is turned on, MultiInstanceInvalidationClient will be created.
 // It works as an Observer, and notifies other instances of table invalidation.
+// * When a coalescing window is set, the refresh is scheduled on a background thread with that
+// delay so that every transaction ending within the window is picked up by a single check of the
+// memory table.
+// * Observers are indexed by table id so that a refresh only visits the observers of the tables
+// that were invalidated, and each of them is notified once with all of its invalidated tables.
 public class InvalidationTracker {
 
     private static final String[] TRIGGERS = new String[]{"UPDATE", "DELETE", "INSERT"};
@@ -109,6 +121,20 @@ public class InvalidationTracker {
     @SuppressLint("RestrictedApi")
     final SafeIterableMap<Observer, ObserverWrapper> mObserverMap = new SafeIterableMap<>();
 
+    // Observers of each table, indexed by table id. Guarded by mObserverMap.
+    private final ArrayList<ObserverWrapper>[] mObserversByTable;
+
+    private long mCoalescingWindowMillis;
+
+    // System.nanoTime() at which the pending refresh was requested.
+    private volatile long mRefreshRequestedNanos = System.nanoTime();
+
+    private final AtomicLong mBatchCount = new AtomicLong();
+    private final AtomicLong mCoalescedRequestCount = new AtomicLong();
+    private final AtomicLong mDeliveryCount = new AtomicLong();
+    private final AtomicLong mTotalLatencyNanos = new AtomicLong();
+    private final AtomicLong mMaxLatencyNanos = new AtomicLong();
+
     private MultiInstanceInvalidationClient mMultiInstanceInvalidationClient;
 
     /**
@@ -128,7 +154,7 @@ public class InvalidationTracker {
      *
      * @hide
      */
-    @SuppressWarnings("WeakerAccess")
+    @SuppressWarnings({"WeakerAccess", "unchecked"})
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
     public InvalidationTracker(RoomDatabase database, Map<String, String> shadowTablesMap,
             Map<String, Set<String>> viewTables, String... tableNames) {
@@ -139,6 +165,7 @@ public class InvalidationTracker {
         mInvalidationLiveDataContainer = new InvalidationLiveDataContainer(mDatabase);
         final int size = tableNames.length;
         mTableNames = new String[size];
+        mObserversByTable = new ArrayList[size];
         for (int id = 0; id < size; id++) {
             final String tableName = tableNames[id].toLowerCase(Locale.US);
             mTableIdLookup.put(tableName, id);
@@ -183,6 +210,16 @@ public class InvalidationTracker {
         }
     }
 
+    /**
+     * Sets how long refreshes requested by {@link #refreshVersionsAsync()} are delayed so that
+     * the invalidations of several transactions are delivered as a single batch.
+     * <p>
+     * Called by {@link RoomDatabase} when it is initialized.
+     */
+    void setCoalescingWindowMillis(long windowMillis) {
+        mCoalescingWindowMillis = windowMillis;
+    }
+
     void startMultiInstanceInvalidation(Context context, String name) {
         mMultiInstanceInvalidationClient = new MultiInstanceInvalidationClient(context, name, this,
                 mDatabase.getQueryExecutor());
@@ -274,6 +311,16 @@ public class InvalidationTracker {
         ObserverWrapper currentObserver;
         synchronized (mObserverMap) {
             currentObserver = mObserverMap.putIfAbsent(observer, wrapper);
+            if (currentObserver == null) {
+                for (int tableId : tableIds) {
+                    ArrayList<ObserverWrapper> observers = mObserversByTable[tableId];
+                    if (observers == null) {
+                        observers = new ArrayList<>();
+                        mObserversByTable[tableId] = observers;
+                    }
+                    observers.add(wrapper);
+                }
+            }
         }
         if (currentObserver == null && mObservedTableTracker.onAdded(tableIds)) {
             syncTriggers();
@@ -348,6 +395,12 @@ public class InvalidationTracker {
         ObserverWrapper wrapper;
         synchronized (mObserverMap) {
             wrapper = mObserverMap.remove(observer);
+            if (wrapper != null) {
+                wrapper.mRemoved = true;
+                for (int tableId : wrapper.mTableIds) {
+                    mObserversByTable[tableId].remove(wrapper);
+                }
+            }
         }
         if (wrapper != null && mObservedTableTracker.onRemoved(wrapper.mTableIds)) {
             syncTriggers();
@@ -417,11 +470,7 @@ public class InvalidationTracker {
                 closeLock.unlock();
             }
             if (invalidatedTableIds != null && !invalidatedTableIds.isEmpty()) {
-                synchronized (mObserverMap) {
-                    for (Map.Entry<Observer, ObserverWrapper> entry : mObserverMap) {
-                        entry.getValue().notifyByTableInvalidStatus(invalidatedTableIds);
-                    }
-                }
+                notifyObserversByTableIds(invalidatedTableIds);
             }
         }
 
@@ -444,21 +493,100 @@ public class InvalidationTracker {
         }
     };
 
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    final Runnable mDelayedRefreshRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mDatabase.getQueryExecutor().execute(mRefreshRunnable);
+        }
+    };
+
+    /**
+     * Notifies the observers of the given tables, visiting only the observers registered for at
+     * least one of them and notifying each of those exactly once.
+     *
+     * @param invalidatedTableIds The table ids of the tables that are invalidated.
+     */
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    void notifyObserversByTableIds(Set<Integer> invalidatedTableIds) {
+        int deliveries;
+        synchronized (mObserverMap) {
+            // Collect the observers first, an observer may remove itself when notified.
+            Set<ObserverWrapper> affected = new LinkedHashSet<>();
+            for (int tableId : invalidatedTableIds) {
+                ArrayList<ObserverWrapper> observers = mObserversByTable[tableId];
+                if (observers != null) {
+                    affected.addAll(observers);
+                }
+            }
+            deliveries = 0;
+            for (ObserverWrapper wrapper : affected) {
+                // An observer notified earlier in this batch may have removed this one.
+                if (wrapper.mRemoved) {
+                    continue;
+                }
+                wrapper.notifyByTableInvalidStatus(invalidatedTableIds);
+                deliveries++;
+            }
+        }
+        final long latency = System.nanoTime() - mRefreshRequestedNanos;
+        mBatchCount.incrementAndGet();
+        mDeliveryCount.addAndGet(deliveries);
+        mTotalLatencyNanos.addAndGet(latency);
+        while (true) {
+            long max = mMaxLatencyNanos.get();
+            if (latency <= max || mMaxLatencyNanos.compareAndSet(max, latency)) {
+                break;
+            }
+        }
+    }
+
     /**
      * Enqueues a task to refresh the list of updated tables.
      * <p>
      * This method is automatically called when {@link RoomDatabase#endTransaction()} is called but
      * if you have another connection to the database or directly use {@link
      * SupportSQLiteDatabase}, you may need to call this manually.
+     * <p>
+     * If the database was built with an invalidation coalescing window, the refresh runs once the
+     * window has elapsed and every call made in the meantime is merged into it.
      */
     @SuppressWarnings("WeakerAccess")
     public void refreshVersionsAsync() {
         // TODO we should consider doing this sync instead of async.
         if (mPendingRefresh.compareAndSet(false, true)) {
-            mDatabase.getQueryExecutor().execute(mRefreshRunnable);
+            mRefreshRequestedNanos = System.nanoTime();
+            if (mCoalescingWindowMillis > 0) {
+                postDelayedRefresh(mCoalescingWindowMillis);
+            } else {
+                mDatabase.getQueryExecutor().execute(mRefreshRunnable);
+            }
+        } else {
+            mCoalescedRequestCount.incrementAndGet();
         }
     }
 
+    /**
+     * Schedules {@link #mDelayedRefreshRunnable} to run after the given delay. The delay is kept
+     * off the main thread, which may be busy or blocked when the window ends.
+     */
+    @VisibleForTesting
+    void postDelayedRefresh(long delayMillis) {
+        CoalescingScheduler.INSTANCE.schedule(mDelayedRefreshRunnable, delayMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns a snapshot of the statistics of the invalidations dispatched by this tracker.
+     *
+     * @return The current dispatch statistics.
+     */
+    @NonNull
+    public DispatchStats getDispatchStats() {
+        return new DispatchStats(mBatchCount.get(), mCoalescedRequestCount.get(),
+                mDeliveryCount.get(), mTotalLatencyNanos.get(), mMaxLatencyNanos.get());
+    }
+
     /**
      * Check versions for tables, and run observers synchronously if tables have been updated.
      *
@@ -609,6 +737,8 @@ public class InvalidationTracker {
         private final String[] mTableNames;
         final Observer mObserver;
         private final Set<String> mSingleTableSet;
+        // Set once the observer is removed. Guarded by mObserverMap.
+        boolean mRemoved;
 
         ObserverWrapper(Observer observer, int[] tableIds, String[] tableNames) {
             mObserver = observer;
@@ -687,6 +817,97 @@ public class InvalidationTracker {
         }
     }
 
+    /**
+     * Holds the thread that waits for coalescing windows to end. It only schedules refreshes onto
+     * the query executor of each database, so a single daemon thread is shared by all trackers.
+     */
+    private static final class CoalescingScheduler {
+        static final ScheduledExecutorService INSTANCE =
+                Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "Room-InvalidationCoalescing");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+
+        private CoalescingScheduler() {
+        }
+    }
+
+    /**
+     * Statistics about the invalidations dispatched by an {@link InvalidationTracker}, as
+     * returned by {@link #getDispatchStats()}.
+     * <p>
+     * A batch is a single refresh of the invalidated tables which found at least one of them
+     * invalidated. Its latency is measured from the call to {@link #refreshVersionsAsync()} that
+     * requested the refresh until every affected observer has been notified.
+     */
+    public static final class DispatchStats {
+        private final long mBatchCount;
+        private final long mCoalescedRequestCount;
+        private final long mDeliveryCount;
+        private final long mTotalLatencyNanos;
+        private final long mMaxLatencyNanos;
+
+        DispatchStats(long batchCount, long coalescedRequestCount, long deliveryCount,
+                long totalLatencyNanos, long maxLatencyNanos) {
+            mBatchCount = batchCount;
+            mCoalescedRequestCount = coalescedRequestCount;
+            mDeliveryCount = deliveryCount;
+            mTotalLatencyNanos = totalLatencyNanos;
+            mMaxLatencyNanos = maxLatencyNanos;
+        }
+
+        /**
+         * Returns the number of batches of invalidated tables dispatched to the observers.
+         */
+        public long getBatchCount() {
+            return mBatchCount;
+        }
+
+        /**
+         * Returns the number of refresh requests that were merged into an already pending
+         * refresh instead of running one of their own.
+         */
+        public long getCoalescedRequestCount() {
+            return mCoalescedRequestCount;
+        }
+
+        /**
+         * Returns the number of times an observer was notified. An observer is notified at most
+         * once per batch.
+         */
+        public long getDeliveryCount() {
+            return mDeliveryCount;
+        }
+
+        /**
+         * Returns the sum of the latencies of all batches, in nanoseconds.
+         */
+        public long getTotalLatencyNanos() {
+            return mTotalLatencyNanos;
+        }
+
+        /**
+         * Returns the highest latency of a single batch, in nanoseconds.
+         */
+        public long getMaxLatencyNanos() {
+            return mMaxLatencyNanos;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "DispatchStats{batches=" + mBatchCount
+                    + ", coalescedRequests=" + mCoalescedRequestCount
+                    + ", deliveries=" + mDeliveryCount
+                    + ", totalLatencyNanos=" + mTotalLatencyNanos
+                    + ", maxLatencyNanos=" + mMaxLatencyNanos + "}";
+        }
+    }
+
     /**
      * An observer that can listen for changes in the database.
      */
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.os.Build;
+import android.os.CancellationSignal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+/**
+ * A pool of read-only connections to the database file of a {@link RoomDatabase} that uses
+ * write-ahead logging.
+ * <p>
+ * In write-ahead logging mode SQLite lets any number of readers run alongside a single writer,
+ * but a Room database only has one connection, so its queries still run one after another. The
+ * pool opens up to {@code maxSize} additional connections with {@code PRAGMA query_only} set,
+ * lazily, and hands them out to queries that do not run inside a transaction. Each connection
+ * is given back to the pool when the cursor of its query is closed.
+ * <p>
+ * If every reader is in use the query runs on the writer connection instead of waiting for a
+ * reader, so a query made while iterating the cursor of another one never blocks.
+ */
+final class ReaderConnectionPool {
+    private final Context mContext;
+    private final String mName;
+    private final SupportSQLiteOpenHelper.Factory mFactory;
+    private final int mMaxSize;
+
+    // Guarded by this.
+    private final ArrayList<SupportSQLiteOpenHelper> mHelpers = new ArrayList<>();
+    private final ArrayDeque<SupportSQLiteDatabase> mIdle = new ArrayDeque<>();
+    private boolean mClosed;
+
+    ReaderConnectionPool(@NonNull Context context, @NonNull String name,
+            @NonNull SupportSQLiteOpenHelper.Factory factory, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize < 1");
+        }
+        mContext = context;
+        mName = name;
+        mFactory = factory;
+        mMaxSize = maxSize;
+    }
+
+    /**
+     * Returns an idle reader connection, opening a new one if the pool is not full, or
+     * {@code null} if every reader is in use or the pool is closed.
+     *
+     * @param writer The open writer connection of the database, the schema version of which the
+     *               readers expect.
+     * @return A reader connection that must be given back by calling
+     * {@link #release(SupportSQLiteDatabase)}, or {@code null}.
+     */
+    @Nullable
+    synchronized SupportSQLiteDatabase tryAcquire(@NonNull SupportSQLiteDatabase writer) {
+        if (mClosed) {
+            return null;
+        }
+        SupportSQLiteDatabase reader = mIdle.pollLast();
+        if (reader != null || mHelpers.size() >= mMaxSize) {
+            return reader;
+        }
+        SupportSQLiteOpenHelper helper = mFactory.create(
+                SupportSQLiteOpenHelper.Configuration.builder(mContext)
+                        .name(mName)
+                        .callback(new ReaderCallback(writer.getVersion()))
+                        .build());
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            helper.setWriteAheadLoggingEnabled(true);
+        }
+        reader = helper.getWritableDatabase();
+        mHelpers.add(helper);
+        return reader;
+    }
+
+    /**
+     * Gives back a reader returned by {@link #tryAcquire(SupportSQLiteDatabase)}.
+     *
+     * @param reader The reader connection.
+     */
+    synchronized void release(@NonNull SupportSQLiteDatabase reader) {
+        if (!mClosed) {
+            mIdle.addLast(reader);
+        }
+    }
+
+    /**
+     * Runs the given query on the given reader. The reader is given back to the pool when the
+     * returned cursor is closed, or right away if the query fails.
+     *
+     * @param reader The reader connection returned by {@link #tryAcquire(SupportSQLiteDatabase)}.
+     * @param query The query to run.
+     * @param signal The cancellation signal to be attached to the query.
+     * @return The result of the query.
+     */
+    @NonNull
+    Cursor query(@NonNull SupportSQLiteDatabase reader, @NonNull SupportSQLiteQuery query,
+            @Nullable CancellationSignal signal) {
+        final Cursor cursor;
+        try {
+            if (signal != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                cursor = reader.query(query, signal);
+            } else {
+                cursor = reader.query(query);
+            }
+        } catch (RuntimeException e) {
+            release(reader);
+            throw e;
+        }
+        return new ReleasingCursor(cursor, reader);
+    }
+
+    /**
+     * Returns the number of reader connections opened by the pool.
+     */
+    synchronized int size() {
+        return mHelpers.size();
+    }
+
+    /**
+     * Closes every reader connection. Readers in use are closed as well, so this must only be
+     * called when the database is being closed.
+     */
+    synchronized void close() {
+        mClosed = true;
+        mIdle.clear();
+        for (SupportSQLiteOpenHelper helper : mHelpers) {
+            helper.close();
+        }
+        mHelpers.clear();
+    }
+
+    private final class ReleasingCursor extends CursorWrapper {
+        private final SupportSQLiteDatabase mReader;
+        private boolean mReleased;
+
+        ReleasingCursor(Cursor cursor, SupportSQLiteDatabase reader) {
+            super(cursor);
+            mReader = reader;
+        }
+
+        @Override
+        public void close() {
+            try {
+                super.close();
+            } finally {
+                if (!mReleased) {
+                    mReleased = true;
+                    release(mReader);
+                }
+            }
+        }
+    }
+
+    /**
+     * The callback of a reader connection. The writer connection creates and migrates the
+     * database before any reader is opened, so a reader only has to make itself read-only.
+     */
+    private static final class ReaderCallback extends SupportSQLiteOpenHelper.Callback {
+        ReaderCallback(int version) {
+            super(version);
+        }
+
+        @Override
+        public void onOpen(@NonNull SupportSQLiteDatabase db) {
+            db.query("PRAGMA query_only = 1").close();
+        }
+
+        @Override
+        public void onCreate(@NonNull SupportSQLiteDatabase db) {
+            throw new IllegalStateException("A reader connection cannot create the database.");
+        }
+
+        @Override
+        public void onUpgrade(@NonNull SupportSQLiteDatabase db, int oldVersion,
+                int newVersion) {
+            throw new IllegalStateException("A reader connection cannot migrate the database.");
+        }
+
+        @Override
+        public void onDowngrade(@NonNull SupportSQLiteDatabase db, int oldVersion,
+                int newVersion) {
+            throw new IllegalStateException("A reader connection cannot migrate the database.");
+        }
+    }
+}
@@ -54,6 +54,7 @@ import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -86,6 +87,10 @@ public abstract class RoomDatabase {
     private Executor mTransactionExecutor;
     private SupportSQLiteOpenHelper mOpenHelper;
     private final InvalidationTracker mInvalidationTracker;
+    private final StatementCache mStatementCache =
+            new StatementCache(StatementCache.DEFAULT_MAX_SIZE);
+    @Nullable
+    private ReaderConnectionPool mReaderPool;
     private boolean mAllowMainThreadQueries;
     boolean mWriteAheadLoggingEnabled;
 
@@ -193,6 +198,13 @@ public abstract class RoomDatabase {
         mTransactionExecutor = new TransactionExecutor(configuration.transactionExecutor);
         mAllowMainThreadQueries = configuration.allowMainThreadQueries;
         mWriteAheadLoggingEnabled = wal;
+        if (wal && configuration.name != null && configuration.readerConnectionPoolSize > 0) {
+            mReaderPool = new ReaderConnectionPool(configuration.context, configuration.name,
+                    configuration.sqliteOpenHelperFactory,
+                    configuration.readerConnectionPoolSize);
+        }
+        mInvalidationTracker.setCoalescingWindowMillis(
+                configuration.invalidationCoalescingWindowMillis);
         if (configuration.multiInstanceInvalidation) {
             mInvalidationTracker.startMultiInstanceInvalidation(configuration.context,
                     configuration.name);
@@ -318,6 +330,10 @@ public abstract class RoomDatabase {
             closeLock.lock();
             try {
                 mInvalidationTracker.stopMultiInstanceInvalidation();
+                mStatementCache.clear();
+                if (mReaderPool != null) {
+                    mReaderPool.close();
+                }
                 mOpenHelper.close();
             } finally {
                 closeLock.unlock();
@@ -371,7 +387,13 @@ public abstract class RoomDatabase {
      */
     @NonNull
     public Cursor query(@NonNull String query, @Nullable Object[] args) {
-        return mOpenHelper.getWritableDatabase().query(new SimpleSQLiteQuery(query, args));
+        final SupportSQLiteQuery sqliteQuery = new SimpleSQLiteQuery(query, args);
+        final SupportSQLiteDatabase writer = mOpenHelper.getWritableDatabase();
+        final SupportSQLiteDatabase reader = acquireReader(writer);
+        if (reader != null) {
+            return mReaderPool.query(reader, sqliteQuery, null);
+        }
+        return writer.query(sqliteQuery);
     }
 
     /**
@@ -396,11 +418,29 @@ public abstract class RoomDatabase {
     public Cursor query(@NonNull SupportSQLiteQuery query, @Nullable CancellationSignal signal) {
         assertNotMainThread();
         assertNotSuspendingTransaction();
+        final SupportSQLiteDatabase writer = mOpenHelper.getWritableDatabase();
+        final SupportSQLiteDatabase reader = acquireReader(writer);
+        if (reader != null) {
+            return mReaderPool.query(reader, query, signal);
+        }
         if (signal != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
-            return mOpenHelper.getWritableDatabase().query(query, signal);
+            return writer.query(query, signal);
         } else {
-            return mOpenHelper.getWritableDatabase().query(query);
+            return writer.query(query);
+        }
+    }
+
+    /**
+     * Returns a reader connection to run a query on, or {@code null} if the query should run on
+     * the writer connection because there is no reader pool, every reader is in use or the
+     * calling thread is in a transaction, the changes of which only the writer can see.
+     */
+    @Nullable
+    private SupportSQLiteDatabase acquireReader(@NonNull SupportSQLiteDatabase writer) {
+        if (mReaderPool == null || writer.inTransaction()) {
+            return null;
         }
+        return mReaderPool.tryAcquire(writer);
     }
 
     /**
@@ -415,6 +455,39 @@ public abstract class RoomDatabase {
         return mOpenHelper.getWritableDatabase().compileStatement(sql);
     }
 
+    /**
+     * Returns a compiled statement for the given SQL from the {@link StatementCache} of this
+     * database, compiling it only if no idle statement for the same SQL is cached. SQL that is
+     * rarely repeated should be compiled with {@link #compileStatement(String)} instead, so
+     * that it does not evict the cached statements that are reused.
+     * <p>
+     * The statement must be given back by calling
+     * {@link #releaseStatement(SupportSQLiteStatement)} once it is no longer used.
+     *
+     * @param sql The query to compile.
+     * @return The compiled query.
+     * @hide
+     */
+    @NonNull
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    public SupportSQLiteStatement acquireStatement(@NonNull String sql) {
+        assertNotMainThread();
+        assertNotSuspendingTransaction();
+        return mStatementCache.acquire(mOpenHelper.getWritableDatabase(), sql);
+    }
+
+    /**
+     * Gives back a statement returned by {@link #acquireStatement(String)} to the
+     * {@link StatementCache} of this database.
+     *
+     * @param statement The statement to give back.
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    public void releaseStatement(@NonNull SupportSQLiteStatement statement) {
+        mStatementCache.release(statement);
+    }
+
     /**
      * Wrapper for {@link SupportSQLiteDatabase#beginTransaction()}.
      *
@@ -544,6 +617,19 @@ public abstract class RoomDatabase {
         return mInvalidationTracker;
     }
 
+    /**
+     * Returns the cache of compiled statements of this database.
+     * <p>
+     * You can use it to monitor how often the statements of queries with variable arguments are
+     * reused instead of being compiled again.
+     *
+     * @return The statement cache for the database.
+     */
+    @NonNull
+    public StatementCache getStatementCache() {
+        return mStatementCache;
+    }
+
     /**
      * Returns true if current thread is in a transaction.
      *
@@ -630,6 +716,8 @@ public abstract class RoomDatabase {
         private boolean mAllowMainThreadQueries;
         private JournalMode mJournalMode;
         private boolean mMultiInstanceInvalidation;
+        private long mInvalidationCoalescingWindowMillis;
+        private int mReaderConnectionPoolSize;
         private boolean mRequireMigration;
         private boolean mAllowDestructiveMigrationOnDowngrade;
         /**
@@ -998,6 +1086,61 @@ public abstract class RoomDatabase {
             return this;
         }
 
+        /**
+         * Sets how long the {@link InvalidationTracker} waits after a table is invalidated before
+         * notifying its observers.
+         * <p>
+         * Every table invalidated during the window is collected into a single batch, so an
+         * observer is notified once per batch with all of the tables it observes that changed,
+         * instead of once per transaction. This trades a little notification latency for fewer
+         * re-queries when many transactions are committed in a burst.
+         * <p>
+         * By default the window is 0 and observers are notified as soon as possible.
+         *
+         * @param window The length of the window, must not be negative.
+         * @param timeUnit The unit of {@code window}.
+         * @return This {@link Builder} instance.
+         */
+        @NonNull
+        public Builder<T> setInvalidationCoalescingWindow(long window,
+                @NonNull TimeUnit timeUnit) {
+            if (window < 0) {
+                throw new IllegalArgumentException("Invalidation coalescing window cannot be "
+                        + "negative: " + window);
+            }
+            mInvalidationCoalescingWindowMillis = timeUnit.toMillis(window);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of read-only connections Room opens to run queries in parallel.
+         * <p>
+         * SQLite lets readers run alongside the writer when the database uses write-ahead
+         * logging, but by default Room runs every query on a single connection. With a pool,
+         * queries that are not part of a transaction run on one of up to {@code size} additional
+         * read-only connections, opened as needed, so reads from several threads do not wait on
+         * each other. If every reader is busy, the query runs on the writer connection.
+         * <p>
+         * The pool is only used if the journal mode is {@link JournalMode#WRITE_AHEAD_LOGGING},
+         * either set explicitly or resolved from {@link JournalMode#AUTOMATIC}, and the database
+         * is not in memory. Each connection has its own page cache, so the pool trades memory
+         * for read throughput.
+         * <p>
+         * By default the size is 0 and every query runs on the writer connection.
+         *
+         * @param size The maximum number of read-only connections, must not be negative.
+         * @return This {@link Builder} instance.
+         */
+        @NonNull
+        public Builder<T> setReaderConnectionPoolSize(int size) {
+            if (size < 0) {
+                throw new IllegalArgumentException("Reader connection pool size cannot be "
+                        + "negative: " + size);
+            }
+            mReaderConnectionPoolSize = size;
+            return this;
+        }
+
         /**
          * Allows Room to destructively recreate database tables if {@link Migration}s that would
          * migrate old database schemas to the latest schema version are not found.
@@ -1192,7 +1335,9 @@ public abstract class RoomDatabase {
                             mCopyFromFile,
                             mCopyFromInputStream,
                             mPrepackagedDatabaseCallback,
-                            mTypeConverters);
+                            mTypeConverters,
+                            mInvalidationCoalescingWindowMillis,
+                            mReaderConnectionPoolSize);
             T db = Room.getGeneratedImplementation(mDatabaseClass, DB_IMPL_SUFFIX);
             db.init(configuration);
             return db;
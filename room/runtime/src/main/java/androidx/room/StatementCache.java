@@ -0,0 +1,235 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded cache of compiled statements of a {@link RoomDatabase}, keyed by their SQL.
+ * <p>
+ * Queries whose SQL depends on their arguments, such as {@code DELETE} queries with an
+ * {@code IN (:list)} clause, cannot be compiled once ahead of time. Instead, the generated code
+ * borrows a statement for the SQL it built from this cache and returns it once done, so that
+ * repeated calls with the same SQL skip compiling it again.
+ * <p>
+ * A statement is only handed out to one caller at a time; if every cached statement for the SQL
+ * is in use, a new one is compiled. The cache holds at most {@link #maxSize()} idle statements
+ * and closes the least recently used one when it is full. Statements belong to the connection
+ * they were compiled on, so the cache is emptied when that connection changes or the database
+ * is closed.
+ *
+ * @see RoomDatabase#getStatementCache()
+ */
+public final class StatementCache {
+    /**
+     * The maximum number of idle statements held by the cache of a {@link RoomDatabase}.
+     */
+    static final int DEFAULT_MAX_SIZE = 16;
+
+    private final int mMaxSize;
+
+    // Idle statements in access order. Each SQL maps to its idle statements.
+    private final LinkedHashMap<String, List<SupportSQLiteStatement>> mIdle =
+            new LinkedHashMap<>(0, 0.75f, true);
+    // Statements handed out by acquire, mapped to their SQL.
+    private final IdentityHashMap<SupportSQLiteStatement, String> mInUse =
+            new IdentityHashMap<>();
+    // The connection the statements were compiled on.
+    private SupportSQLiteDatabase mConnection;
+    private int mSize;
+
+    private long mHitCount;
+    private long mMissCount;
+    private long mEvictionCount;
+
+    StatementCache(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize < 0");
+        }
+        mMaxSize = maxSize;
+    }
+
+    /**
+     * Returns a compiled statement for the given SQL on the given connection, reusing an idle
+     * one if possible. It must be given back by calling {@link #release(SupportSQLiteStatement)}.
+     *
+     * @param connection The connection to compile the statement on.
+     * @param sql The SQL of the statement.
+     * @return A statement which is not used by any other caller.
+     * @hide
+     */
+    @NonNull
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    public SupportSQLiteStatement acquire(@NonNull SupportSQLiteDatabase connection,
+            @NonNull String sql) {
+        SupportSQLiteStatement statement = null;
+        synchronized (this) {
+            if (connection != mConnection) {
+                evictAll();
+                mConnection = connection;
+            }
+            List<SupportSQLiteStatement> idle = mIdle.get(sql);
+            if (idle != null) {
+                statement = idle.remove(idle.size() - 1);
+                if (idle.isEmpty()) {
+                    mIdle.remove(sql);
+                }
+                mSize--;
+                mHitCount++;
+            } else {
+                mMissCount++;
+            }
+        }
+        if (statement == null) {
+            statement = connection.compileStatement(sql);
+        }
+        synchronized (this) {
+            mInUse.put(statement, sql);
+        }
+        return statement;
+    }
+
+    /**
+     * Gives back a statement returned by {@link #acquire(SupportSQLiteDatabase, String)}. The
+     * statement must not be used by the caller afterwards.
+     *
+     * @param statement The statement to give back.
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    public void release(@NonNull SupportSQLiteStatement statement) {
+        final List<SupportSQLiteStatement> evicted = new ArrayList<>();
+        synchronized (this) {
+            final String sql = mInUse.remove(statement);
+            if (sql != null && mConnection != null && mMaxSize > 0) {
+                statement.clearBindings();
+                List<SupportSQLiteStatement> idle = mIdle.get(sql);
+                if (idle == null) {
+                    idle = new ArrayList<>(1);
+                    mIdle.put(sql, idle);
+                }
+                idle.add(statement);
+                mSize++;
+                trimToSize(mMaxSize, evicted);
+            } else {
+                evicted.add(statement);
+            }
+        }
+        closeAll(evicted);
+    }
+
+    /**
+     * Closes every idle statement. Statements in use are closed when they are released.
+     */
+    void clear() {
+        synchronized (this) {
+            evictAll();
+        }
+    }
+
+    // Closes the idle statements and forgets the connection. Must be called with the lock held.
+    private void evictAll() {
+        final List<SupportSQLiteStatement> evicted = new ArrayList<>();
+        trimToSize(0, evicted);
+        mConnection = null;
+        // Statements in use belong to the old connection and are closed when released.
+        mInUse.clear();
+        closeAll(evicted);
+    }
+
+    // Must be called with the lock held.
+    private void trimToSize(int maxSize, List<SupportSQLiteStatement> evicted) {
+        final Iterator<Map.Entry<String, List<SupportSQLiteStatement>>> iterator =
+                mIdle.entrySet().iterator();
+        while (mSize > maxSize && iterator.hasNext()) {
+            final List<SupportSQLiteStatement> idle = iterator.next().getValue();
+            while (mSize > maxSize && !idle.isEmpty()) {
+                evicted.add(idle.remove(idle.size() - 1));
+                mSize--;
+                mEvictionCount++;
+            }
+            if (idle.isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static void closeAll(List<SupportSQLiteStatement> statements) {
+        for (SupportSQLiteStatement statement : statements) {
+            try {
+                statement.close();
+            } catch (Exception ignored) {
+                // The connection may already be closed, nothing else to release.
+            }
+        }
+    }
+
+    /**
+     * Returns the number of idle statements in the cache.
+     */
+    public synchronized int size() {
+        return mSize;
+    }
+
+    /**
+     * Returns the maximum number of idle statements in the cache.
+     */
+    public int maxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * Returns the number of times a statement was reused instead of being compiled.
+     */
+    public synchronized long hitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * Returns the number of times a statement had to be compiled.
+     */
+    public synchronized long missCount() {
+        return mMissCount;
+    }
+
+    /**
+     * Returns the number of idle statements that were closed to make room for others, or because
+     * their connection changed.
+     */
+    public synchronized long evictionCount() {
+        return mEvictionCount;
+    }
+
+    @NonNull
+    @Override
+    public synchronized String toString() {
+        final long accesses = mHitCount + mMissCount;
+        final long hitPercent = accesses != 0 ? (100 * mHitCount / accesses) : 0;
+        return "StatementCache[size=" + mSize + ",maxSize=" + mMaxSize + ",hits=" + mHitCount
+                + ",misses=" + mMissCount + ",hitRate=" + hitPercent + "%]";
+    }
+}
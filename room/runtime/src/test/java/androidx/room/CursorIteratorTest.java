@@ -0,0 +1,165 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.database.Cursor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+@RunWith(JUnit4.class)
+public class CursorIteratorTest {
+    private final List<Integer> mWindowSizes = new ArrayList<>();
+    private int mMappedRows;
+
+    @Before
+    public void init() {
+        mWindowSizes.clear();
+        mMappedRows = 0;
+    }
+
+    @Test
+    public void mapsRowsInWindows() {
+        Cursor cursor = mockCursor(25);
+        CursorIterator<Integer> iterator = createIterator(cursor, 10);
+        List<Integer> rows = new ArrayList<>();
+        while (iterator.hasNext()) {
+            rows.add(iterator.next());
+        }
+        assertThat(rows.size(), is(25));
+        for (int i = 0; i < rows.size(); i++) {
+            assertThat(rows.get(i), is(i));
+        }
+        assertThat(mWindowSizes, is(Arrays.asList(10, 10, 5)));
+        verify(cursor, times(1)).close();
+    }
+
+    @Test
+    public void mapsLazily() {
+        Cursor cursor = mockCursor(25);
+        CursorIterator<Integer> iterator = createIterator(cursor, 10);
+        assertThat(mWindowSizes.size(), is(0));
+        assertThat(iterator.next(), is(0));
+        assertThat(mWindowSizes, is(Arrays.asList(10)));
+        verify(cursor, never()).close();
+    }
+
+    @Test
+    public void closeBeforeEnd() {
+        Cursor cursor = mockCursor(25);
+        CursorIterator<Integer> iterator = createIterator(cursor, 10);
+        assertThat(iterator.next(), is(0));
+        iterator.close();
+        iterator.close();
+        verify(cursor, times(1)).close();
+        int remaining = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            remaining++;
+        }
+        assertThat(remaining, is(9));
+    }
+
+    @Test
+    public void closeReleasesQuery() {
+        Cursor cursor = mockCursor(5);
+        RoomSQLiteQuery query = mock(RoomSQLiteQuery.class);
+        CursorIterator<Integer> iterator = new CursorIterator<Integer>(cursor, query) {
+            @Override
+            protected List<Integer> convertRows(Cursor cursor) {
+                return Arrays.asList(1, 2, 3, 4, 5);
+            }
+        };
+        verify(query, never()).release();
+        while (iterator.hasNext()) {
+            iterator.next();
+        }
+        iterator.close();
+        verify(cursor, times(1)).close();
+        verify(query, times(1)).release();
+    }
+
+    @Test
+    public void emptyResult() {
+        Cursor cursor = mockCursor(0);
+        CursorIterator<Integer> iterator = createIterator(cursor, 10);
+        assertThat(iterator.hasNext(), is(false));
+        assertThat(mWindowSizes.size(), is(0));
+        verify(cursor, times(1)).close();
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void nextAfterEnd() {
+        CursorIterator<Integer> iterator = createIterator(mockCursor(1), 10);
+        iterator.next();
+        iterator.next();
+    }
+
+    @Test
+    public void failedConversionClosesCursor() {
+        Cursor cursor = mockCursor(5);
+        CursorIterator<Integer> iterator = new CursorIterator<Integer>(cursor) {
+            @Override
+            protected List<Integer> convertRows(Cursor cursor) {
+                throw new IllegalStateException();
+            }
+        };
+        try {
+            iterator.hasNext();
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        verify(cursor, times(1)).close();
+        assertThat(iterator.hasNext(), is(false));
+    }
+
+    private CursorIterator<Integer> createIterator(Cursor cursor, int windowSize) {
+        return new CursorIterator<Integer>(cursor, windowSize) {
+            @Override
+            protected List<Integer> convertRows(Cursor cursor) {
+                List<Integer> rows = new ArrayList<>(cursor.getCount());
+                while (cursor.moveToNext()) {
+                    rows.add(mMappedRows + cursor.getPosition());
+                }
+                mMappedRows += rows.size();
+                mWindowSizes.add(rows.size());
+                return rows;
+            }
+        };
+    }
+
+    private static Cursor mockCursor(int count) {
+        Cursor cursor = mock(Cursor.class);
+        when(cursor.getCount()).thenReturn(count);
+        return cursor;
+    }
+}
@@ -27,6 +27,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -64,6 +65,7 @@ import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -257,6 +259,90 @@ public class InvalidationTrackerTest {
         assertThat(observer.await(), is(false));
     }
 
+    @Test
+    public void notifyOnlyObserversOfInvalidatedTables() throws Exception {
+        LatchObserver observerA = new LatchObserver(1, "a");
+        LatchObserver observerAB = new LatchObserver(1, "A", "B");
+        LatchObserver observerI = new LatchObserver(1, "i");
+        mTracker.addObserver(observerA);
+        mTracker.addObserver(observerAB);
+        mTracker.addObserver(observerI);
+        setInvalidatedTables(0, 1);
+        refreshSync();
+        assertThat(observerA.await(), is(true));
+        assertThat(observerA.getInvalidatedTables(), hasItem("a"));
+        assertThat(observerAB.await(), is(true));
+        assertThat(observerAB.getInvalidatedTables().size(), is(2));
+        assertThat(observerAB.getInvalidatedTables(), hasItems("A", "B"));
+        assertThat(observerI.getInvalidatedTables() == null, is(true));
+
+        InvalidationTracker.DispatchStats stats = mTracker.getDispatchStats();
+        assertThat(stats.getBatchCount(), is(1L));
+        assertThat(stats.getDeliveryCount(), is(2L));
+
+        mTracker.removeObserver(observerAB);
+        observerA.reset(1);
+        setInvalidatedTables(0, 1);
+        refreshSync();
+        assertThat(observerA.await(), is(true));
+        assertThat(mTracker.getDispatchStats().getDeliveryCount(), is(3L));
+    }
+
+    @Test
+    public void observerRemovedDuringBatchIsNotNotified() throws Exception {
+        final LatchObserver second = new LatchObserver(1, "a");
+        LatchObserver first = new LatchObserver(1, "a") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                mTracker.removeObserver(second);
+                super.onInvalidated(tables);
+            }
+        };
+        mTracker.addObserver(first);
+        mTracker.addObserver(second);
+        setInvalidatedTables(0);
+        refreshSync();
+        assertThat(first.await(), is(true));
+        assertThat(second.getInvalidatedTables() == null, is(true));
+        assertThat(mTracker.getDispatchStats().getDeliveryCount(), is(1L));
+    }
+
+    @Test
+    public void coalescingWindow() throws Exception {
+        final List<Long> delays = new ArrayList<>();
+        InvalidationTracker tracker = new InvalidationTracker(mRoomDatabase, "a", "B") {
+            @Override
+            void postDelayedRefresh(long delayMillis) {
+                delays.add(delayMillis);
+            }
+        };
+        doReturn(mock(SupportSQLiteStatement.class)).when(mSqliteDb)
+                .compileStatement(eq(InvalidationTracker.RESET_UPDATED_TABLES_SQL));
+        tracker.setCoalescingWindowMillis(50);
+        tracker.internalInit(mSqliteDb);
+        LatchObserver observer = new LatchObserver(1, "a", "B");
+        tracker.addObserver(observer);
+        setInvalidatedTables(0, 1);
+
+        tracker.refreshVersionsAsync();
+        tracker.refreshVersionsAsync();
+        tracker.refreshVersionsAsync();
+        assertThat(delays, is(Collections.singletonList(50L)));
+        verify(mTaskExecutorRule.getTaskExecutor(), never()).executeOnDiskIO(any(Runnable.class));
+
+        tracker.mDelayedRefreshRunnable.run();
+        verify(mTaskExecutorRule.getTaskExecutor()).executeOnDiskIO(tracker.mRefreshRunnable);
+        assertThat(observer.await(), is(true));
+        assertThat(observer.getInvalidatedTables(), hasItems("a", "B"));
+        drainTasks();
+
+        InvalidationTracker.DispatchStats stats = tracker.getDispatchStats();
+        assertThat(stats.getBatchCount(), is(1L));
+        assertThat(stats.getCoalescedRequestCount(), is(2L));
+        assertThat(stats.getDeliveryCount(), is(1L));
+        assertThat(stats.getMaxLatencyNanos() <= stats.getTotalLatencyNanos(), is(true));
+    }
+
     @Test
     public void locale() {
         LatchObserver observer = new LatchObserver(1, "I");
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class ReaderConnectionPoolTest {
+    private final List<SupportSQLiteOpenHelper> mHelpers = new ArrayList<>();
+    private SupportSQLiteDatabase mWriter;
+    private ReaderConnectionPool mPool;
+
+    @Before
+    public void init() {
+        mWriter = mock(SupportSQLiteDatabase.class);
+        when(mWriter.getVersion()).thenReturn(3);
+        SupportSQLiteOpenHelper.Factory factory = mock(SupportSQLiteOpenHelper.Factory.class);
+        when(factory.create(any(SupportSQLiteOpenHelper.Configuration.class))).thenAnswer(
+                new Answer<SupportSQLiteOpenHelper>() {
+                    @Override
+                    public SupportSQLiteOpenHelper answer(InvocationOnMock invocation) {
+                        SupportSQLiteOpenHelper.Configuration configuration =
+                                invocation.getArgument(0);
+                        assertThat(configuration.name, is("test.db"));
+                        assertThat(configuration.callback.version, is(3));
+                        SupportSQLiteOpenHelper helper = mock(SupportSQLiteOpenHelper.class);
+                        SupportSQLiteDatabase reader = mock(SupportSQLiteDatabase.class);
+                        when(reader.query(any(SupportSQLiteQuery.class)))
+                                .thenReturn(mock(Cursor.class));
+                        when(helper.getWritableDatabase()).thenReturn(reader);
+                        mHelpers.add(helper);
+                        return helper;
+                    }
+                });
+        mPool = new ReaderConnectionPool(mock(Context.class), "test.db", factory, 2);
+    }
+
+    @Test
+    public void opensReadersLazily() {
+        assertThat(mPool.size(), is(0));
+        SupportSQLiteDatabase reader1 = mPool.tryAcquire(mWriter);
+        assertThat(reader1, notNullValue());
+        assertThat(mPool.size(), is(1));
+        SupportSQLiteDatabase reader2 = mPool.tryAcquire(mWriter);
+        assertThat(reader2, notNullValue());
+        assertThat(reader2, not(sameInstance(reader1)));
+        assertThat(mPool.size(), is(2));
+    }
+
+    @Test
+    public void fullPool() {
+        mPool.tryAcquire(mWriter);
+        mPool.tryAcquire(mWriter);
+        assertThat(mPool.tryAcquire(mWriter), nullValue());
+        assertThat(mPool.size(), is(2));
+    }
+
+    @Test
+    public void reuseReleasedReader() {
+        SupportSQLiteDatabase reader = mPool.tryAcquire(mWriter);
+        mPool.release(reader);
+        assertThat(mPool.tryAcquire(mWriter), sameInstance(reader));
+        assertThat(mPool.size(), is(1));
+    }
+
+    @Test
+    public void closingCursorReleasesReader() {
+        SupportSQLiteDatabase reader1 = mPool.tryAcquire(mWriter);
+        mPool.tryAcquire(mWriter);
+        Cursor cursor = mPool.query(reader1, new SimpleSQLiteQuery("SELECT 1"), null);
+        assertThat(mPool.tryAcquire(mWriter), nullValue());
+        cursor.close();
+        cursor.close();
+        assertThat(mPool.tryAcquire(mWriter), sameInstance(reader1));
+        assertThat(mPool.tryAcquire(mWriter), nullValue());
+    }
+
+    @Test
+    public void failedQueryReleasesReader() {
+        SupportSQLiteDatabase reader = mPool.tryAcquire(mWriter);
+        SupportSQLiteQuery query = new SimpleSQLiteQuery("SELECT 1");
+        when(reader.query(query)).thenThrow(new IllegalStateException());
+        try {
+            mPool.query(reader, query, null);
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        assertThat(mPool.tryAcquire(mWriter), sameInstance(reader));
+    }
+
+    @Test
+    public void close() {
+        SupportSQLiteDatabase reader = mPool.tryAcquire(mWriter);
+        mPool.tryAcquire(mWriter);
+        mPool.close();
+        for (SupportSQLiteOpenHelper helper : mHelpers) {
+            verify(helper, times(1)).close();
+        }
+        mPool.release(reader);
+        assertThat(mPool.tryAcquire(mWriter), nullValue());
+        assertThat(mPool.size(), is(0));
+    }
+}
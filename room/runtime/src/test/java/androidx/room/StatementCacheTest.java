@@ -0,0 +1,143 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+@RunWith(JUnit4.class)
+public class StatementCacheTest {
+    private SupportSQLiteDatabase mConnection;
+    private StatementCache mCache;
+
+    @Before
+    public void init() {
+        mConnection = mockConnection();
+        mCache = new StatementCache(2);
+    }
+
+    private static SupportSQLiteDatabase mockConnection() {
+        SupportSQLiteDatabase connection = mock(SupportSQLiteDatabase.class);
+        when(connection.compileStatement(anyString())).thenAnswer(
+                new Answer<SupportSQLiteStatement>() {
+                    @Override
+                    public SupportSQLiteStatement answer(InvocationOnMock invocation) {
+                        return mock(SupportSQLiteStatement.class);
+                    }
+                });
+        return connection;
+    }
+
+    @Test
+    public void reuseReleasedStatement() {
+        SupportSQLiteStatement stmt = mCache.acquire(mConnection, "foo");
+        mCache.release(stmt);
+        verify(stmt).clearBindings();
+        assertThat(mCache.acquire(mConnection, "foo"), sameInstance(stmt));
+        verify(mConnection, times(1)).compileStatement("foo");
+        assertThat(mCache.hitCount(), is(1L));
+        assertThat(mCache.missCount(), is(1L));
+    }
+
+    @Test
+    public void statementInUseIsNotShared() {
+        SupportSQLiteStatement stmt1 = mCache.acquire(mConnection, "foo");
+        SupportSQLiteStatement stmt2 = mCache.acquire(mConnection, "foo");
+        assertThat(stmt1, not(sameInstance(stmt2)));
+        mCache.release(stmt1);
+        mCache.release(stmt2);
+        assertThat(mCache.size(), is(2));
+    }
+
+    @Test
+    public void differentSql() {
+        SupportSQLiteStatement stmt = mCache.acquire(mConnection, "foo");
+        mCache.release(stmt);
+        assertThat(mCache.acquire(mConnection, "bar"), not(sameInstance(stmt)));
+        assertThat(mCache.missCount(), is(2L));
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() {
+        SupportSQLiteStatement foo = mCache.acquire(mConnection, "foo");
+        SupportSQLiteStatement bar = mCache.acquire(mConnection, "bar");
+        SupportSQLiteStatement baz = mCache.acquire(mConnection, "baz");
+        mCache.release(foo);
+        mCache.release(bar);
+        mCache.release(baz);
+        verify(foo).close();
+        verify(bar, never()).close();
+        verify(baz, never()).close();
+        assertThat(mCache.size(), is(2));
+        assertThat(mCache.evictionCount(), is(1L));
+        assertThat(mCache.acquire(mConnection, "bar"), sameInstance(bar));
+    }
+
+    @Test
+    public void connectionChanged() {
+        SupportSQLiteStatement idle = mCache.acquire(mConnection, "foo");
+        SupportSQLiteStatement inUse = mCache.acquire(mConnection, "foo");
+        mCache.release(idle);
+
+        SupportSQLiteDatabase other = mockConnection();
+        SupportSQLiteStatement stmt = mCache.acquire(other, "foo");
+        assertThat(stmt, not(sameInstance(idle)));
+        verify(idle).close();
+        verify(other).compileStatement("foo");
+
+        mCache.release(inUse);
+        verify(inUse).close();
+        assertThat(mCache.size(), is(0));
+    }
+
+    @Test
+    public void clear() {
+        SupportSQLiteStatement stmt = mCache.acquire(mConnection, "foo");
+        mCache.release(stmt);
+        mCache.clear();
+        verify(stmt).close();
+        assertThat(mCache.size(), is(0));
+        assertThat(mCache.acquire(mConnection, "foo"), not(sameInstance(stmt)));
+    }
+
+    @Test
+    public void zeroMaxSize() {
+        StatementCache cache = new StatementCache(0);
+        SupportSQLiteStatement stmt = cache.acquire(mConnection, "foo");
+        cache.release(stmt);
+        verify(stmt).close();
+        assertThat(cache.size(), is(0));
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.benchmark
+
+import android.content.Context
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import androidx.work.Constraints
+import androidx.work.NetworkType
+import androidx.work.impl.constraints.NetworkState
+import androidx.work.impl.constraints.WorkConstraintsCallback
+import androidx.work.impl.constraints.WorkConstraintsTracker
+import androidx.work.impl.constraints.WorkConstraintsTrackerHelper
+import androidx.work.impl.constraints.controllers.BatteryChargingController
+import androidx.work.impl.constraints.controllers.BatteryNotLowController
+import androidx.work.impl.constraints.controllers.ConstraintController
+import androidx.work.impl.constraints.controllers.NetworkConnectedController
+import androidx.work.impl.constraints.controllers.NetworkMeteredController
+import androidx.work.impl.constraints.controllers.NetworkNotRoamingController
+import androidx.work.impl.constraints.controllers.NetworkUnmeteredController
+import androidx.work.impl.constraints.controllers.StorageNotLowController
+import androidx.work.impl.model.WorkSpec
+import androidx.work.impl.utils.SerialExecutor
+import androidx.work.impl.utils.SynchronousExecutor
+import androidx.work.impl.utils.taskexecutor.TaskExecutor
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.UUID
+import java.util.concurrent.Executor
+
+/**
+ * Measures how long a [WorkConstraintsTracker] tracking [count] constrained [WorkSpec]s takes
+ * to handle the network going down and coming back up.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class ConstraintTrackingBenchmark(private val count: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private lateinit var networkControllers: List<ConstraintController<NetworkState>>
+    private lateinit var tracker: WorkConstraintsTracker
+    private var metCount = 0
+
+    @Before
+    fun setUp() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        val serialExecutor = SerialExecutor(SynchronousExecutor())
+        val taskExecutor = object : TaskExecutor {
+            override fun postToMainThread(runnable: Runnable) {
+                serialExecutor.execute(runnable)
+            }
+
+            override fun getMainThreadExecutor(): Executor {
+                return serialExecutor
+            }
+
+            override fun executeOnBackgroundThread(runnable: Runnable) {
+                serialExecutor.execute(runnable)
+            }
+
+            override fun getBackgroundExecutor(): SerialExecutor {
+                return serialExecutor
+            }
+        }
+
+        networkControllers = listOf(
+            NetworkConnectedController(context, taskExecutor),
+            NetworkUnmeteredController(context, taskExecutor),
+            NetworkNotRoamingController(context, taskExecutor),
+            NetworkMeteredController(context, taskExecutor)
+        )
+        val controllers = arrayOf<ConstraintController<*>>(
+            BatteryChargingController(context, taskExecutor),
+            BatteryNotLowController(context, taskExecutor),
+            StorageNotLowController(context, taskExecutor)
+        ) + networkControllers
+
+        val callback = object : WorkConstraintsCallback {
+            override fun onAllConstraintsMet(workSpecIds: List<String>) {
+                metCount += workSpecIds.size
+            }
+
+            override fun onAllConstraintsNotMet(workSpecIds: List<String>) {
+            }
+        }
+        tracker = WorkConstraintsTrackerHelper.create(callback, controllers)
+
+        // A handful of constraint signatures shared by many WorkSpecs, as in a real app.
+        val signatures = listOf(
+            Constraints.Builder().setRequiredNetworkType(NetworkType.CONNECTED).build(),
+            Constraints.Builder().setRequiredNetworkType(NetworkType.UNMETERED).build(),
+            Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .setRequiresBatteryNotLow(true)
+                .build(),
+            Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.NOT_ROAMING)
+                .setRequiresStorageNotLow(true)
+                .build()
+        )
+        val workSpecs = List(count) { i ->
+            WorkSpec(UUID.randomUUID().toString(), NoOpWorker::class.java.name).apply {
+                constraints = signatures[i % signatures.size]
+            }
+        }
+        tracker.replace(workSpecs)
+    }
+
+    @After
+    fun tearDown() {
+        tracker.reset()
+    }
+
+    @Test
+    fun networkFlip() {
+        val disconnected = NetworkState(false, false, false, false)
+        val connected = NetworkState(true, true, false, true)
+        benchmarkRule.measureRepeated {
+            // This is the fan-out a ConstraintTracker does to its listeners on every change.
+            for (controller in networkControllers) {
+                controller.onConstraintChanged(disconnected)
+            }
+            for (controller in networkControllers) {
+                controller.onConstraintChanged(connected)
+            }
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "count={0}")
+        fun parameters(): List<Int> {
+            return listOf(1_000, 10_000)
+        }
+    }
+}
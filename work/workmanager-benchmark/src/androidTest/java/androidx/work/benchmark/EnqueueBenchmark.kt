@@ -0,0 +1,152 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.benchmark
+
+import android.content.Context
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import androidx.work.Configuration
+import androidx.work.ExistingWorkPolicy
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.WorkContinuation
+import androidx.work.impl.Processor
+import androidx.work.impl.Scheduler
+import androidx.work.impl.WorkDatabase
+import androidx.work.impl.WorkDatabasePathHelper
+import androidx.work.impl.WorkManagerImpl
+import androidx.work.impl.model.WorkSpec
+import androidx.work.impl.utils.SerialExecutor
+import androidx.work.impl.utils.SynchronousExecutor
+import androidx.work.impl.utils.taskexecutor.TaskExecutor
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.concurrent.Executor
+
+/**
+ * Measures enqueuing [count] uniquely named requests, either with a single
+ * [androidx.work.WorkManager.enqueueAll] or with one [WorkContinuation.enqueue] per request.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class EnqueueBenchmark(private val mode: Mode, private val count: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private lateinit var context: Context
+    private lateinit var database: WorkDatabase
+    private lateinit var workManager: WorkManagerImpl
+
+    @Before
+    fun setUp() {
+        context = ApplicationProvider.getApplicationContext()
+        // Everything runs on the calling thread, so enqueue has completed when it returns.
+        val executor = SynchronousExecutor()
+        val serialExecutor = SerialExecutor(executor)
+        val taskExecutor = object : TaskExecutor {
+            override fun postToMainThread(runnable: Runnable) {
+                serialExecutor.execute(runnable)
+            }
+
+            override fun getMainThreadExecutor(): Executor {
+                return serialExecutor
+            }
+
+            override fun executeOnBackgroundThread(runnable: Runnable) {
+                serialExecutor.execute(runnable)
+            }
+
+            override fun getBackgroundExecutor(): SerialExecutor {
+                return serialExecutor
+            }
+        }
+
+        val configuration = Configuration.Builder()
+            .setTaskExecutor(executor)
+            .setExecutor(executor)
+            .build()
+        database = WorkDatabase.create(context, executor, false)
+        val schedulers = listOf<Scheduler>(NoOpScheduler())
+        val processor = Processor(context, configuration, taskExecutor, database, schedulers)
+        workManager = WorkManagerImpl(
+            context, configuration, taskExecutor, database, schedulers, processor
+        )
+    }
+
+    @After
+    fun tearDown() {
+        database.close()
+        context.deleteDatabase(WorkDatabasePathHelper.getDatabasePath(context).path)
+    }
+
+    @Test
+    fun enqueue() {
+        lateinit var continuations: List<WorkContinuation>
+        benchmarkRule.measureRepeated {
+            runWithTimingDisabled {
+                database.clearAllTables()
+                continuations = List(count) { i ->
+                    workManager.beginUniqueWork(
+                        "name$i",
+                        ExistingWorkPolicy.REPLACE,
+                        OneTimeWorkRequestBuilder<NoOpWorker>().build()
+                    )
+                }
+            }
+            when (mode) {
+                Mode.BATCHED -> workManager.enqueueAll(continuations).result.get()
+                Mode.ONE_BY_ONE -> continuations.forEach { it.enqueue().result.get() }
+            }
+        }
+    }
+
+    private class NoOpScheduler : Scheduler {
+        override fun schedule(vararg workSpecs: WorkSpec) {
+        }
+
+        override fun cancel(workSpecId: String) {
+        }
+
+        override fun hasLimitedSchedulingSlots(): Boolean {
+            return true
+        }
+    }
+
+    enum class Mode {
+        BATCHED,
+        ONE_BY_ONE
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "mode={0}, count={1}")
+        fun parameters(): List<Array<Any>> {
+            return listOf(1_000, 10_000, 100_000).flatMap { count ->
+                Mode.values()
+                    // One transaction per request is too slow to measure repeatedly at 100k.
+                    .filter { mode -> mode == Mode.BATCHED || count <= 10_000 }
+                    .map { mode -> arrayOf<Any>(mode, count) }
+            }
+        }
+    }
+}
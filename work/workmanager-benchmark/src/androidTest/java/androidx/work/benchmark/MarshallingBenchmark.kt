@@ -34,6 +34,10 @@ import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
 import org.junit.runner.RunWith
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.ObjectInputStream
+import java.io.ObjectOutputStream
 import java.util.concurrent.TimeUnit
 
 @RunWith(AndroidJUnit4::class)
@@ -48,6 +52,10 @@ class MarshallingBenchmark {
     lateinit var request: WorkRequest
     lateinit var parcelledWorkRequest: ParcelableWorkRequest
 
+    lateinit var data: Data
+    lateinit var dataBytes: ByteArray
+    lateinit var objectStreamDataBytes: ByteArray
+
     @Before
     fun setUp() {
         val uri = Uri.parse("test://foo")
@@ -77,6 +85,19 @@ class MarshallingBenchmark {
 
         parcelledConstraints = ParcelableConstraints(constraints)
         parcelledWorkRequest = ParcelableWorkRequest(request)
+
+        data = Data.Builder()
+            .putString("id", "8f8d1a7e-65a4-4a8b-9c3b-2d4f7d1e0c55")
+            .putString("url", "https://example.com/upload/photos/12345")
+            .putLong("timestamp", 1600000000000L)
+            .putInt("attempt", 3)
+            .putBoolean("wifiOnly", true)
+            .putDouble("progress", 0.5)
+            .putIntArray("chunks", IntArray(64) { it })
+            .putStringArray("tags", arrayOf("photos", "upload", "background"))
+            .build()
+        dataBytes = data.toByteArray()
+        objectStreamDataBytes = toObjectStreamByteArray(data)
     }
 
     @Test
@@ -98,4 +119,61 @@ class MarshallingBenchmark {
             )
         }
     }
+
+    @Test
+    fun dataToByteArrayBenchmark() {
+        benchmarkRule.measureRepeated {
+            data.toByteArray()
+        }
+    }
+
+    @Test
+    fun dataFromByteArrayBenchmark() {
+        benchmarkRule.measureRepeated {
+            Data.fromByteArray(dataBytes)
+        }
+    }
+
+    @Test
+    fun objectStreamDataToByteArrayBenchmark() {
+        benchmarkRule.measureRepeated {
+            toObjectStreamByteArray(data)
+        }
+    }
+
+    @Test
+    fun objectStreamDataFromByteArrayBenchmark() {
+        benchmarkRule.measureRepeated {
+            fromObjectStreamByteArray(objectStreamDataBytes)
+        }
+    }
+
+    /**
+     * The [ObjectOutputStream] based format [Data] used before its compact binary encoding.
+     */
+    private fun toObjectStreamByteArray(data: Data): ByteArray {
+        val outputStream = ByteArrayOutputStream()
+        ObjectOutputStream(outputStream).use { objectOutputStream ->
+            objectOutputStream.writeInt(data.keyValueMap.size)
+            for ((key, value) in data.keyValueMap) {
+                objectOutputStream.writeUTF(key)
+                objectOutputStream.writeObject(value)
+            }
+        }
+        return outputStream.toByteArray()
+    }
+
+    /**
+     * Only reads the values, since [Data.Builder.build] would also serialize them to check their
+     * size.
+     */
+    private fun fromObjectStreamByteArray(bytes: ByteArray): Map<String, Any?> {
+        val values = mutableMapOf<String, Any?>()
+        ObjectInputStream(ByteArrayInputStream(bytes)).use { objectInputStream ->
+            for (i in 0 until objectInputStream.readInt()) {
+                values[objectInputStream.readUTF()] = objectInputStream.readObject()
+            }
+        }
+        return values
+    }
 }
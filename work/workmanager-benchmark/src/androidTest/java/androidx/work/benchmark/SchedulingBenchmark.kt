@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.benchmark
+
+import android.content.Context
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import androidx.work.Configuration
+import androidx.work.WorkInfo
+import androidx.work.impl.Scheduler
+import androidx.work.impl.Schedulers
+import androidx.work.impl.WorkDatabase
+import androidx.work.impl.WorkDatabasePathHelper
+import androidx.work.impl.model.WorkSpec
+import androidx.work.impl.utils.SynchronousExecutor
+import androidx.work.impl.utils.WorkTracer
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.UUID
+
+/**
+ * Measures a [Schedulers.schedule] pass at startup, with [HISTORY_COUNT] finished
+ * [WorkSpec]s that have not been pruned yet and [ENQUEUED_COUNT] enqueued ones.
+ *
+ * When [indexed] is `false` the scheduling indices are dropped, to compare with the previous
+ * full table scans.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class SchedulingBenchmark(private val indexed: Boolean) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private lateinit var context: Context
+    private lateinit var database: WorkDatabase
+    private lateinit var configuration: Configuration
+    private val schedulers = listOf<Scheduler>(NoOpScheduler(true), NoOpScheduler(false))
+    private val workTracer = WorkTracer(null)
+
+    @Before
+    fun setUp() {
+        context = ApplicationProvider.getApplicationContext()
+        val executor = SynchronousExecutor()
+        configuration = Configuration.Builder()
+            .setTaskExecutor(executor)
+            .setExecutor(executor)
+            .build()
+        database = WorkDatabase.create(context, executor, false)
+
+        val now = System.currentTimeMillis()
+        val workSpecs = List(HISTORY_COUNT + ENQUEUED_COUNT) { i ->
+            WorkSpec(UUID.randomUUID().toString(), NoOpWorker::class.java.name).apply {
+                periodStartTime = now - i
+                if (i < HISTORY_COUNT) {
+                    state = WorkInfo.State.SUCCEEDED
+                    scheduleRequestedAt = now - i
+                }
+            }
+        }
+        database.workSpecDao().insertWorkSpecs(workSpecs)
+
+        if (!indexed) {
+            val db = database.openHelper.writableDatabase
+            db.execSQL(
+                "DROP INDEX IF EXISTS " +
+                    "`index_WorkSpec_state_schedule_requested_at_period_start_time`"
+            )
+            db.execSQL("DROP INDEX IF EXISTS `index_WorkSpec_state_period_start_time`")
+        }
+    }
+
+    @After
+    fun tearDown() {
+        database.close()
+        context.deleteDatabase(WorkDatabasePathHelper.getDatabasePath(context).path)
+    }
+
+    @Test
+    fun schedule() {
+        benchmarkRule.measureRepeated {
+            runWithTimingDisabled {
+                // Every pass at startup sees the enqueued work as not scheduled yet.
+                database.workSpecDao().resetScheduledState()
+            }
+            Schedulers.schedule(configuration, database, schedulers, workTracer)
+        }
+    }
+
+    private class NoOpScheduler(private val limited: Boolean) : Scheduler {
+        override fun schedule(vararg workSpecs: WorkSpec) {
+        }
+
+        override fun cancel(workSpecId: String) {
+        }
+
+        override fun hasLimitedSchedulingSlots(): Boolean {
+            return limited
+        }
+    }
+
+    companion object {
+        private const val HISTORY_COUNT = 100_000
+        private const val ENQUEUED_COUNT = 100
+
+        @JvmStatic
+        @Parameterized.Parameters(name = "indexed={0}")
+        fun parameters(): List<Boolean> {
+            return listOf(true, false)
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.benchmark
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.filters.LargeTest
+import androidx.work.RunnableScheduler
+import androidx.work.impl.utils.TimingWheel
+import androidx.work.impl.utils.TimingWheelScheduler
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.ScheduledThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import kotlin.random.Random
+
+/**
+ * Measures scheduling and then cancelling [COUNT] timers, either on a [TimingWheelScheduler] or
+ * on a [ScheduledThreadPoolExecutor] as `WorkTimer` used to.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class TimerBenchmark(private val timingWheel: Boolean) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val delays = Random(0).let { random ->
+        LongArray(COUNT) {
+            random.nextLong(TimeUnit.SECONDS.toMillis(1), TimeUnit.MINUTES.toMillis(10))
+        }
+    }
+    private val task = Runnable { }
+
+    @Test
+    fun scheduleAndCancel() {
+        if (timingWheel) {
+            scheduleAndCancelOnTimingWheel()
+        } else {
+            scheduleAndCancelOnExecutor()
+        }
+    }
+
+    private fun scheduleAndCancelOnTimingWheel() {
+        // The timers are cancelled before they are due, so the single wakeup never runs.
+        val runnableScheduler = object : RunnableScheduler {
+            override fun scheduleWithDelay(delayInMillis: Long, runnable: Runnable) {
+            }
+
+            override fun cancel(runnable: Runnable) {
+            }
+        }
+        val timeouts = arrayOfNulls<TimingWheel.Timeout>(COUNT)
+        benchmarkRule.measureRepeated {
+            val scheduler = runWithTimingDisabled { TimingWheelScheduler(runnableScheduler) }
+            for (i in 0 until COUNT) {
+                timeouts[i] = scheduler.schedule(delays[i], task)
+            }
+            for (i in 0 until COUNT) {
+                scheduler.cancel(timeouts[i]!!)
+            }
+        }
+    }
+
+    private fun scheduleAndCancelOnExecutor() {
+        val futures = arrayOfNulls<ScheduledFuture<*>>(COUNT)
+        benchmarkRule.measureRepeated {
+            val executor = runWithTimingDisabled { ScheduledThreadPoolExecutor(1) }
+            for (i in 0 until COUNT) {
+                futures[i] = executor.schedule(task, delays[i], TimeUnit.MILLISECONDS)
+            }
+            for (i in 0 until COUNT) {
+                futures[i]!!.cancel(false)
+            }
+            runWithTimingDisabled { executor.shutdownNow() }
+        }
+    }
+
+    companion object {
+        private const val COUNT = 100_000
+
+        @JvmStatic
+        @Parameterized.Parameters(name = "timingWheel={0}")
+        fun parameters(): List<Boolean> {
+            return listOf(true, false)
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl.constraints;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.work.impl.constraints.controllers.ConstraintController;
+
+/**
+ * Gives the benchmarks access to the package-private {@link WorkConstraintsTracker} constructor
+ * that takes the {@link ConstraintController}s to use.
+ */
+public final class WorkConstraintsTrackerHelper {
+
+    /**
+     * Creates a {@link WorkConstraintsTracker} that is driven by the given controllers.
+     *
+     * @param callback    The callback to notify about changes in constraints
+     * @param controllers The {@link ConstraintController}s to track
+     * @return The {@link WorkConstraintsTracker}
+     */
+    @NonNull
+    public static WorkConstraintsTracker create(
+            @Nullable WorkConstraintsCallback callback,
+            @NonNull ConstraintController<?>[] controllers) {
+        return new WorkConstraintsTracker(callback, controllers);
+    }
+
+    private WorkConstraintsTrackerHelper() {
+    }
+}
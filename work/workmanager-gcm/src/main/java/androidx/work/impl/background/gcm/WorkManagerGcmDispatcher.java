@@ -171,7 +171,8 @@ public class WorkManagerGcmDispatcher {
                 Schedulers.schedule(
                         mWorkManagerImpl.getConfiguration(),
                         mWorkManagerImpl.getWorkDatabase(),
-                        mWorkManagerImpl.getSchedulers());
+                        mWorkManagerImpl.getSchedulers(),
+                        mWorkManagerImpl.getWorkTracer());
             }
         });
 
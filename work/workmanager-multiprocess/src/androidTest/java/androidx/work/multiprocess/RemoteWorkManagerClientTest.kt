@@ -23,13 +23,21 @@ import android.os.Build
 import android.os.IBinder
 import androidx.test.ext.junit.runners.AndroidJUnit4
 import androidx.test.filters.MediumTest
+import androidx.work.Data
+import androidx.work.OneTimeWorkRequest
 import androidx.work.impl.WorkManagerImpl
 import androidx.work.impl.utils.SerialExecutor
 import androidx.work.impl.utils.futures.SettableFuture
 import androidx.work.impl.utils.taskexecutor.TaskExecutor
+import androidx.work.multiprocess.parcelable.ParcelConverters
+import androidx.work.multiprocess.parcelable.ParcelableWorkRequestBatch
+import androidx.work.multiprocess.parcelable.ParcelableWorkRequestBatchResult
+import androidx.work.multiprocess.parcelable.ParcelableWorkRequests
+import org.junit.Assert.assertEquals
 import org.junit.Assert.assertNotNull
 import org.junit.Assert.assertNull
 import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
 import org.junit.Before
 import org.junit.Test
 import org.junit.runner.RunWith
@@ -37,10 +45,14 @@ import org.mockito.ArgumentMatchers.any
 import org.mockito.ArgumentMatchers.anyString
 import org.mockito.Mockito.`when`
 import org.mockito.Mockito.anyInt
+import org.mockito.Mockito.doAnswer
+import org.mockito.Mockito.doReturn
 import org.mockito.Mockito.mock
 import org.mockito.Mockito.never
 import org.mockito.Mockito.spy
 import org.mockito.Mockito.verify
+import java.util.ArrayDeque
+import java.util.concurrent.ExecutionException
 import java.util.concurrent.Executor
 
 @RunWith(AndroidJUnit4::class)
@@ -155,4 +167,138 @@ public class RemoteWorkManagerClientTest {
         verify(callback).onSuccess(any())
         verify(mClient, never()).cleanUp()
     }
+
+    @Test
+    @MediumTest
+    public fun enqueueBatchesPendingCallsIntoOneTransaction() {
+        val pending = ArrayDeque<Runnable>()
+        val transactions = mutableListOf<List<ByteArray>>()
+        val client = createClientWithTransport(pending, transactions)
+        val futures = listOf(1, 2, 1).map { count ->
+            client.enqueue(List(count) { OneTimeWorkRequest.from(TestWorker::class.java) })
+        }
+        // Nothing is sent on the calling thread.
+        assertTrue(transactions.isEmpty())
+        while (pending.isNotEmpty()) {
+            pending.poll()!!.run()
+        }
+        assertEquals(1, transactions.size)
+        val sizes = transactions[0].map {
+            ParcelConverters.unmarshall(it, ParcelableWorkRequests.CREATOR).requests.size
+        }
+        assertEquals(listOf(1, 2, 1), sizes)
+        futures.forEach { assertNull(it.get()) }
+        assertEquals(2L, client.batchedRequestCount)
+        assertEquals(1L, client.roundTripCount)
+    }
+
+    @Test
+    @MediumTest
+    public fun enqueueSplitsLargeBatches() {
+        val pending = ArrayDeque<Runnable>()
+        val transactions = mutableListOf<List<ByteArray>>()
+        val client = createClientWithTransport(pending, transactions)
+        // Every call is about 90KB, so no more than two of them fit into a transaction.
+        val data = Data.Builder().putString("key", "x".repeat(9000)).build()
+        val futures = (1..4).map {
+            client.enqueue(
+                List(10) {
+                    OneTimeWorkRequest.Builder(TestWorker::class.java).setInputData(data).build()
+                }
+            )
+        }
+        while (pending.isNotEmpty()) {
+            pending.poll()!!.run()
+        }
+        assertTrue(transactions.size > 1)
+        transactions.forEach { requests ->
+            assertTrue(requests.sumBy { it.size } <= RemoteWorkManagerClient.MAX_TRANSACTION_BYTES)
+        }
+        assertEquals(4, transactions.sumBy { it.size })
+        futures.forEach { assertNull(it.get()) }
+        assertEquals(4L - transactions.size, client.batchedRequestCount)
+    }
+
+    @Test
+    @MediumTest
+    public fun enqueueFailsOnlyTheCallThatFailed() {
+        val pending = ArrayDeque<Runnable>()
+        val transactions = mutableListOf<List<ByteArray>>()
+        val client = createClientWithTransport(pending, transactions, failingCall = 1)
+        val futures = (1..3).map {
+            client.enqueue(OneTimeWorkRequest.from(TestWorker::class.java))
+        }
+        while (pending.isNotEmpty()) {
+            pending.poll()!!.run()
+        }
+        assertEquals(1, transactions.size)
+        assertNull(futures[0].get())
+        try {
+            futures[1].get()
+            fail()
+        } catch (exception: ExecutionException) {
+            assertEquals("Failed", exception.cause?.message)
+        }
+        assertNull(futures[2].get())
+    }
+
+    @Test
+    @MediumTest
+    public fun enqueueFailsEveryCallOfAFailedTransaction() {
+        val pending = ArrayDeque<Runnable>()
+        val transactions = mutableListOf<List<ByteArray>>()
+        val client = createClientWithTransport(pending, transactions, failTransactions = true)
+        val futures = (1..2).map {
+            client.enqueue(OneTimeWorkRequest.from(TestWorker::class.java))
+        }
+        while (pending.isNotEmpty()) {
+            pending.poll()!!.run()
+        }
+        futures.forEach { future ->
+            try {
+                future.get()
+                fail()
+            } catch (exception: ExecutionException) {
+                // Expected
+            }
+        }
+    }
+
+    private fun createClientWithTransport(
+        pending: ArrayDeque<Runnable>,
+        transactions: MutableList<List<ByteArray>>,
+        failingCall: Int = -1,
+        failTransactions: Boolean = false
+    ): RemoteWorkManagerClient {
+        val taskExecutor = mock(TaskExecutor::class.java)
+        `when`(taskExecutor.backgroundExecutor)
+            .thenReturn(SerialExecutor(Executor { pending.add(it) }))
+        `when`(mWorkManager.workTaskExecutor).thenReturn(taskExecutor)
+        val client = spy(RemoteWorkManagerClient(mContext, mWorkManager))
+        val binder = mock(IBinder::class.java)
+        val remoteStub = mock(IWorkManagerImpl::class.java)
+        `when`(remoteStub.asBinder()).thenReturn(binder)
+        var calls = 0
+        doAnswer {
+            val callback = it.getArgument<IWorkManagerImplCallback>(1)
+            val requests = ParcelConverters.unmarshall(
+                it.getArgument<ByteArray>(0),
+                ParcelableWorkRequestBatch.CREATOR
+            ).requests
+            transactions += requests
+            if (failTransactions) {
+                callback.onFailure("Failed")
+            } else {
+                val failures = requests.map { if (calls++ == failingCall) "Failed" else null }
+                callback.onSuccess(
+                    ParcelConverters.marshall(ParcelableWorkRequestBatchResult(failures))
+                )
+            }
+            null
+        }.`when`(remoteStub).enqueueWorkRequestBatch(any(), any())
+        val session = SettableFuture.create<IWorkManagerImpl>()
+        session.set(remoteStub)
+        doReturn(session).`when`(client).session
+        return client
+    }
 }
@@ -26,7 +26,6 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.ServiceConnection;
 import android.os.IBinder;
-import android.os.RemoteException;
 
 import androidx.annotation.Keep;
 import androidx.annotation.NonNull;
@@ -49,19 +48,30 @@ import androidx.work.multiprocess.parcelable.ParcelConverters;
 import androidx.work.multiprocess.parcelable.ParcelableWorkContinuationImpl;
 import androidx.work.multiprocess.parcelable.ParcelableWorkInfos;
 import androidx.work.multiprocess.parcelable.ParcelableWorkQuery;
+import androidx.work.multiprocess.parcelable.ParcelableWorkRequestBatch;
+import androidx.work.multiprocess.parcelable.ParcelableWorkRequestBatchResult;
 import androidx.work.multiprocess.parcelable.ParcelableWorkRequests;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The implementation of the {@link RemoteWorkManager} which sets up the
  * {@link android.content.ServiceConnection} and dispatches the request.
+ * <p>
+ * Calls to {@link #enqueue(List)} that are made before the previous ones were dispatched are
+ * batched into a single binder transaction, which is split when it would exceed
+ * {@link #MAX_TRANSACTION_BYTES}.  The service still enqueues the {@link WorkRequest}s of every
+ * call atomically and returns a result for each call, so the future of a call only reflects the
+ * result of its own {@link WorkRequest}s.  Pending calls are dispatched before any later request,
+ * so requests reach the service in the order in which they were made.
  *
  * @hide
  */
@@ -70,6 +80,11 @@ public class RemoteWorkManagerClient extends RemoteWorkManager {
 
     static final String TAG = Logger.tagWithPrefix("RemoteWorkManagerClient");
 
+    // Batches are split into transactions of at most this size, well below the 1MB limit of the
+    // binder transaction buffer which is shared by all transactions in flight.
+    @VisibleForTesting
+    static final int MAX_TRANSACTION_BYTES = 256 * 1024;
+
     final Context mContext;
     final WorkManagerImpl mWorkManager;
     final Executor mExecutor;
@@ -77,6 +92,16 @@ public class RemoteWorkManagerClient extends RemoteWorkManager {
 
     private Session mSession;
 
+    // The calls to enqueue(List) that are waiting to be dispatched, guarded by mLock.
+    private List<PendingEnqueue> mPendingEnqueues;
+    private final Runnable mFlushRunnable;
+
+    // Instrumentation, guarded by mLock.
+    private long mRoundTripCount;
+    private long mTotalRoundTripNanos;
+    private long mMaxRoundTripNanos;
+    private long mBatchedRequestCount;
+
     @Keep
     public RemoteWorkManagerClient(@NonNull Context context, @NonNull WorkManagerImpl workManager) {
         mContext = context.getApplicationContext();
@@ -84,6 +109,12 @@ public class RemoteWorkManagerClient extends RemoteWorkManager {
         mExecutor = mWorkManager.getWorkTaskExecutor().getBackgroundExecutor();
         mLock = new Object();
         mSession = null;
+        mFlushRunnable = new Runnable() {
+            @Override
+            public void run() {
+                flushPendingRequests();
+            }
+        };
     }
 
     @NonNull
@@ -95,16 +126,19 @@ public class RemoteWorkManagerClient extends RemoteWorkManager {
     @NonNull
     @Override
     public ListenableFuture<Void> enqueue(@NonNull final List<WorkRequest> requests) {
-        ListenableFuture<byte[]> result = execute(new RemoteDispatcher() {
-            @Override
-            public void execute(
-                    @NonNull IWorkManagerImpl iWorkManagerImpl,
-                    @NonNull IWorkManagerImplCallback callback) throws RemoteException {
-                byte[] request = ParcelConverters.marshall(new ParcelableWorkRequests(requests));
-                iWorkManagerImpl.enqueueWorkRequests(request, callback);
+        boolean scheduleFlush = false;
+        PendingEnqueue pending = new PendingEnqueue(new ArrayList<>(requests));
+        synchronized (mLock) {
+            if (mPendingEnqueues == null) {
+                mPendingEnqueues = new ArrayList<>();
+                scheduleFlush = true;
             }
-        });
-        return map(result, sVoidMapper, mExecutor);
+            mPendingEnqueues.add(pending);
+        }
+        if (scheduleFlush) {
+            mExecutor.execute(mFlushRunnable);
+        }
+        return pending.mFuture;
     }
 
     @NonNull
@@ -245,7 +279,153 @@ public class RemoteWorkManagerClient extends RemoteWorkManager {
      */
     @NonNull
     public ListenableFuture<byte[]> execute(@NonNull final RemoteDispatcher dispatcher) {
-        return execute(getSession(), dispatcher, new RemoteCallback());
+        final RemoteCallback callback = new RemoteCallback();
+        // Preserve the order of requests. Pending calls to enqueue(List) are only marshalled on
+        // the background executor, so go through it as well.
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                flushPendingRequests();
+                execute(getSession(), dispatcher, callback);
+            }
+        });
+        return callback.getFuture();
+    }
+
+    /**
+     * Dispatches the pending calls to {@link #enqueue(List)}, if any, in as few binder
+     * transactions as {@link #MAX_TRANSACTION_BYTES} allows.  Runs on the background executor.
+     */
+    // Synthetic access
+    void flushPendingRequests() {
+        List<PendingEnqueue> pendingEnqueues;
+        synchronized (mLock) {
+            pendingEnqueues = mPendingEnqueues;
+            mPendingEnqueues = null;
+        }
+        if (pendingEnqueues == null) {
+            return;
+        }
+        ListenableFuture<IWorkManagerImpl> session = getSession();
+        List<PendingEnqueue> batch = new ArrayList<>();
+        List<byte[]> requests = new ArrayList<>();
+        int batchBytes = 0;
+        for (PendingEnqueue pending : pendingEnqueues) {
+            byte[] request;
+            try {
+                request = ParcelConverters.marshall(new ParcelableWorkRequests(pending.mRequests));
+            } catch (Throwable throwable) {
+                pending.mFuture.setException(throwable);
+                continue;
+            }
+            if (!batch.isEmpty() && batchBytes + request.length > MAX_TRANSACTION_BYTES) {
+                dispatchBatch(session, batch, requests);
+                batch = new ArrayList<>();
+                requests = new ArrayList<>();
+                batchBytes = 0;
+            }
+            batch.add(pending);
+            requests.add(request);
+            batchBytes += request.length;
+        }
+        if (!batch.isEmpty()) {
+            dispatchBatch(session, batch, requests);
+        }
+    }
+
+    /**
+     * Sends calls to {@link #enqueue(List)} in a single binder transaction, and completes the
+     * future of every call with its own result.
+     */
+    private void dispatchBatch(
+            @NonNull ListenableFuture<IWorkManagerImpl> session,
+            @NonNull final List<PendingEnqueue> batch,
+            @NonNull final List<byte[]> requests) {
+        synchronized (mLock) {
+            mBatchedRequestCount += batch.size() - 1;
+        }
+        final ListenableFuture<byte[]> result = execute(session, new RemoteDispatcher() {
+            @Override
+            public void execute(
+                    @NonNull IWorkManagerImpl iWorkManagerImpl,
+                    @NonNull IWorkManagerImplCallback callback) throws Throwable {
+                byte[] request = ParcelConverters.marshall(
+                        new ParcelableWorkRequestBatch(requests));
+                iWorkManagerImpl.enqueueWorkRequestBatch(request, callback);
+            }
+        }, new RemoteCallback());
+        result.addListener(new Runnable() {
+            @Override
+            public void run() {
+                ParcelableWorkRequestBatchResult batchResult;
+                try {
+                    batchResult = ParcelConverters.unmarshall(
+                            result.get(), ParcelableWorkRequestBatchResult.CREATOR);
+                    if (batchResult.size() != batch.size()) {
+                        throw new IllegalStateException(String.format(
+                                "Expected %s results, got %s", batch.size(), batchResult.size()));
+                    }
+                } catch (Throwable throwable) {
+                    // The transaction failed as a whole.
+                    Throwable cause = throwable.getCause();
+                    cause = cause == null ? throwable : cause;
+                    for (PendingEnqueue pending : batch) {
+                        pending.mFuture.setException(cause);
+                    }
+                    return;
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    String failure = batchResult.getFailure(i);
+                    if (failure == null) {
+                        batch.get(i).mFuture.set(null);
+                    } else {
+                        batch.get(i).mFuture.setException(new RuntimeException(failure));
+                    }
+                }
+            }
+        }, mExecutor);
+    }
+
+    /**
+     * @return The number of binder transactions that completed
+     */
+    public long getRoundTripCount() {
+        synchronized (mLock) {
+            return mRoundTripCount;
+        }
+    }
+
+    /**
+     * @return The average time in milliseconds between dispatching a request and receiving its
+     * result
+     */
+    public long getAverageRoundTripMillis() {
+        synchronized (mLock) {
+            if (mRoundTripCount == 0) {
+                return 0L;
+            }
+            return TimeUnit.NANOSECONDS.toMillis(mTotalRoundTripNanos / mRoundTripCount);
+        }
+    }
+
+    /**
+     * @return The longest time in milliseconds between dispatching a request and receiving its
+     * result
+     */
+    public long getMaxRoundTripMillis() {
+        synchronized (mLock) {
+            return TimeUnit.NANOSECONDS.toMillis(mMaxRoundTripNanos);
+        }
+    }
+
+    /**
+     * @return The number of calls to {@link #enqueue(List)} that did not need a binder
+     * transaction of their own, because they were sent in the same transaction as an earlier call
+     */
+    public long getBatchedRequestCount() {
+        synchronized (mLock) {
+            return mBatchedRequestCount;
+        }
     }
 
     /**
@@ -263,6 +443,18 @@ public class RemoteWorkManagerClient extends RemoteWorkManager {
             @NonNull final ListenableFuture<IWorkManagerImpl> session,
             @NonNull final RemoteDispatcher dispatcher,
             @NonNull final RemoteCallback callback) {
+        final long startTime = System.nanoTime();
+        callback.getFuture().addListener(new Runnable() {
+            @Override
+            public void run() {
+                long roundTripNanos = System.nanoTime() - startTime;
+                synchronized (mLock) {
+                    mRoundTripCount++;
+                    mTotalRoundTripNanos += roundTripNanos;
+                    mMaxRoundTripNanos = Math.max(mMaxRoundTripNanos, roundTripNanos);
+                }
+            }
+        }, mExecutor);
         session.addListener(new Runnable() {
             @Override
             public void run() {
@@ -367,6 +559,19 @@ public class RemoteWorkManagerClient extends RemoteWorkManager {
         return output;
     }
 
+    /**
+     * A call to {@link #enqueue(List)} that has not been dispatched yet.
+     */
+    private static final class PendingEnqueue {
+        final List<WorkRequest> mRequests;
+        final SettableFuture<Void> mFuture;
+
+        PendingEnqueue(@NonNull List<WorkRequest> requests) {
+            mRequests = requests;
+            mFuture = SettableFuture.create();
+        }
+    }
+
     /**
      * @hide
      */
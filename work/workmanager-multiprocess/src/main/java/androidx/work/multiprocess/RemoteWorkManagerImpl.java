@@ -29,17 +29,23 @@ import androidx.work.WorkInfo;
 import androidx.work.WorkRequest;
 import androidx.work.impl.WorkContinuationImpl;
 import androidx.work.impl.WorkManagerImpl;
+import androidx.work.impl.utils.futures.SettableFuture;
 import androidx.work.multiprocess.parcelable.ParcelConverters;
 import androidx.work.multiprocess.parcelable.ParcelableWorkContinuationImpl;
 import androidx.work.multiprocess.parcelable.ParcelableWorkInfos;
 import androidx.work.multiprocess.parcelable.ParcelableWorkQuery;
+import androidx.work.multiprocess.parcelable.ParcelableWorkRequestBatch;
+import androidx.work.multiprocess.parcelable.ParcelableWorkRequestBatchResult;
 import androidx.work.multiprocess.parcelable.ParcelableWorkRequests;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The implementation of a subset of WorkManager APIs that are safe to be supported across
@@ -85,6 +91,67 @@ public class RemoteWorkManagerImpl extends IWorkManagerImpl.Stub {
         }
     }
 
+    @Override
+    @MainThread
+    public void enqueueWorkRequestBatch(
+            final @NonNull byte[] request,
+            final @NonNull IWorkManagerImplCallback callback) {
+        try {
+            ParcelableWorkRequestBatch batch =
+                    ParcelConverters.unmarshall(request, ParcelableWorkRequestBatch.CREATOR);
+            List<byte[]> requests = batch.getRequests();
+            final Executor executor = mWorkManager.getWorkTaskExecutor().getBackgroundExecutor();
+            final String[] failures = new String[requests.size()];
+            final AtomicInteger remaining = new AtomicInteger(requests.size());
+            final SettableFuture<List<String>> results = SettableFuture.create();
+            if (requests.isEmpty()) {
+                results.set(Collections.<String>emptyList());
+            }
+            for (int i = 0; i < requests.size(); i++) {
+                final int index = i;
+                ListenableFuture<Operation.State.SUCCESS> result;
+                try {
+                    ParcelableWorkRequests parcelledRequests = ParcelConverters.unmarshall(
+                            requests.get(i), ParcelableWorkRequests.CREATOR);
+                    result = mWorkManager.enqueue(parcelledRequests.getRequests()).getResult();
+                } catch (Throwable throwable) {
+                    SettableFuture<Operation.State.SUCCESS> failure = SettableFuture.create();
+                    failure.setException(throwable);
+                    result = failure;
+                }
+                final ListenableFuture<Operation.State.SUCCESS> operationResult = result;
+                // A failure only fails the list of WorkRequests it belongs to.
+                operationResult.addListener(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            operationResult.get();
+                        } catch (Throwable throwable) {
+                            Throwable cause = throwable.getCause();
+                            cause = cause == null ? throwable : cause;
+                            failures[index] = String.valueOf(cause.getMessage());
+                        }
+                        if (remaining.decrementAndGet() == 0) {
+                            results.set(Arrays.asList(failures));
+                        }
+                    }
+                }, executor);
+            }
+            final ListenableCallback<List<String>> listenableCallback =
+                    new ListenableCallback<List<String>>(executor, callback, results) {
+                        @NonNull
+                        @Override
+                        public byte[] toByteArray(@NonNull List<String> result) {
+                            return ParcelConverters.marshall(
+                                    new ParcelableWorkRequestBatchResult(result));
+                        }
+                    };
+            listenableCallback.dispatchCallbackSafely();
+        } catch (Throwable throwable) {
+            failureCallback(callback, throwable);
+        }
+    }
+
     @Override
     public void enqueueContinuation(
             final @NonNull byte[] request,
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.multiprocess.parcelable;
+
+import android.annotation.SuppressLint;
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link Parcelable} representation of several lists of {@link androidx.work.WorkRequest}s
+ * that are sent in a single transaction, but enqueued separately.
+ * <p>
+ * Every list is held as a marshalled {@link ParcelableWorkRequests}, so that the size of a batch
+ * is known before it is sent.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+@SuppressLint("BanParcelableUsage")
+public class ParcelableWorkRequestBatch implements Parcelable {
+    private final List<byte[]> mRequests;
+
+    public ParcelableWorkRequestBatch(@NonNull List<byte[]> requests) {
+        mRequests = requests;
+    }
+
+    protected ParcelableWorkRequestBatch(@NonNull Parcel in) {
+        int size = in.readInt();
+        mRequests = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            mRequests.add(in.createByteArray());
+        }
+    }
+
+    public static final Creator<ParcelableWorkRequestBatch> CREATOR =
+            new Creator<ParcelableWorkRequestBatch>() {
+                @Override
+                public ParcelableWorkRequestBatch createFromParcel(Parcel in) {
+                    return new ParcelableWorkRequestBatch(in);
+                }
+
+                @Override
+                public ParcelableWorkRequestBatch[] newArray(int size) {
+                    return new ParcelableWorkRequestBatch[size];
+                }
+            };
+
+    @Override
+    public int describeContents() {
+        // No file descriptors being returned.
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(@NonNull Parcel parcel, int flags) {
+        parcel.writeInt(mRequests.size());
+        for (byte[] requests : mRequests) {
+            parcel.writeByteArray(requests);
+        }
+    }
+
+    /**
+     * @return The marshalled {@link ParcelableWorkRequests}, one for each list
+     */
+    @NonNull
+    public List<byte[]> getRequests() {
+        return mRequests;
+    }
+}
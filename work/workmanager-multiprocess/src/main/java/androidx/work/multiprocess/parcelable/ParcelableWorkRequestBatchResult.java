@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.multiprocess.parcelable;
+
+import android.annotation.SuppressLint;
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+import java.util.List;
+
+/**
+ * A {@link Parcelable} representation of the results of a {@link ParcelableWorkRequestBatch}:
+ * for every list of {@link androidx.work.WorkRequest}s, {@code null} if it was enqueued and the
+ * reason of the failure otherwise.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+@SuppressLint("BanParcelableUsage")
+public class ParcelableWorkRequestBatchResult implements Parcelable {
+    private final List<String> mFailures;
+
+    public ParcelableWorkRequestBatchResult(@NonNull List<String> failures) {
+        mFailures = failures;
+    }
+
+    protected ParcelableWorkRequestBatchResult(@NonNull Parcel in) {
+        mFailures = in.createStringArrayList();
+    }
+
+    public static final Creator<ParcelableWorkRequestBatchResult> CREATOR =
+            new Creator<ParcelableWorkRequestBatchResult>() {
+                @Override
+                public ParcelableWorkRequestBatchResult createFromParcel(Parcel in) {
+                    return new ParcelableWorkRequestBatchResult(in);
+                }
+
+                @Override
+                public ParcelableWorkRequestBatchResult[] newArray(int size) {
+                    return new ParcelableWorkRequestBatchResult[size];
+                }
+            };
+
+    @Override
+    public int describeContents() {
+        // No file descriptors being returned.
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(@NonNull Parcel parcel, int flags) {
+        parcel.writeStringList(mFailures);
+    }
+
+    /**
+     * @param index The index of a list of {@link androidx.work.WorkRequest}s in the batch
+     * @return {@code null} if the list was enqueued, or the reason why it was not
+     */
+    @Nullable
+    public String getFailure(int index) {
+        return mFailures.get(index);
+    }
+
+    /**
+     * @return The number of lists of {@link androidx.work.WorkRequest}s in the batch
+     */
+    public int size() {
+        return mFailures.size();
+    }
+}
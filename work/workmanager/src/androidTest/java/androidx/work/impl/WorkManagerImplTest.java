@@ -48,6 +48,7 @@ import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -94,6 +95,7 @@ import androidx.work.impl.background.systemalarm.RescheduleReceiver;
 import androidx.work.impl.model.Dependency;
 import androidx.work.impl.model.DependencyDao;
 import androidx.work.impl.model.WorkName;
+import androidx.work.impl.model.WorkNameDao;
 import androidx.work.impl.model.WorkSpec;
 import androidx.work.impl.model.WorkSpecDao;
 import androidx.work.impl.model.WorkTag;
@@ -101,6 +103,7 @@ import androidx.work.impl.model.WorkTagDao;
 import androidx.work.impl.utils.CancelWorkRunnable;
 import androidx.work.impl.utils.ForceStopRunnable;
 import androidx.work.impl.utils.PreferenceUtils;
+import androidx.work.impl.utils.WorkPruner;
 import androidx.work.impl.utils.taskexecutor.InstantWorkTaskExecutor;
 import androidx.work.impl.workers.ConstraintTrackingWorker;
 import androidx.work.worker.InfiniteTestWorker;
@@ -114,6 +117,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -290,6 +294,78 @@ public class WorkManagerImplTest {
         assertThat(prerequisites, containsInAnyOrder(work2.getStringId()));
     }
 
+    @Test
+    @MediumTest
+    public void testEnqueueAll_insertsUniqueWork()
+            throws ExecutionException, InterruptedException {
+
+        OneTimeWorkRequest work1 = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        OneTimeWorkRequest work2 = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+
+        mWorkManagerImpl.enqueueAll(Arrays.asList(
+                mWorkManagerImpl.beginUniqueWork("name1", REPLACE, work1),
+                mWorkManagerImpl.beginUniqueWork("name2", REPLACE, work2)))
+                .getResult()
+                .get();
+
+        WorkSpecDao workSpecDao = mDatabase.workSpecDao();
+        assertThat(workSpecDao.getWorkSpec(work1.getStringId()), is(notNullValue()));
+        assertThat(workSpecDao.getWorkSpec(work2.getStringId()), is(notNullValue()));
+
+        WorkNameDao workNameDao = mDatabase.workNameDao();
+        assertThat(workNameDao.getWorkSpecIdsWithName("name1"), contains(work1.getStringId()));
+        assertThat(workNameDao.getWorkSpecIdsWithName("name2"), contains(work2.getStringId()));
+    }
+
+    @Test
+    @MediumTest
+    public void testEnqueueAll_appendsToWorkEnqueuedInSameBatch()
+            throws ExecutionException, InterruptedException {
+
+        OneTimeWorkRequest work1 = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        OneTimeWorkRequest work2 = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+
+        mWorkManagerImpl.enqueueAll(Arrays.asList(
+                mWorkManagerImpl.beginUniqueWork("name", APPEND, work1),
+                mWorkManagerImpl.beginUniqueWork("name", APPEND, work2)))
+                .getResult()
+                .get();
+
+        DependencyDao dependencyDao = mDatabase.dependencyDao();
+        assertThat(dependencyDao.getPrerequisites(work1.getStringId()),
+                is(emptyCollectionOf(String.class)));
+        assertThat(dependencyDao.getPrerequisites(work2.getStringId()),
+                contains(work1.getStringId()));
+        assertThat(mDatabase.workSpecDao().getState(work2.getStringId()), is(BLOCKED));
+    }
+
+    @Test
+    @MediumTest
+    public void testEnqueueAll_enqueuesSharedParentOnce()
+            throws ExecutionException, InterruptedException {
+
+        OneTimeWorkRequest work1 = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        OneTimeWorkRequest work2 = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        WorkContinuation parent = mWorkManagerImpl.beginWith(work1);
+
+        mWorkManagerImpl.enqueueAll(Arrays.asList(parent.then(work2), parent))
+                .getResult()
+                .get();
+
+        WorkSpecDao workSpecDao = mDatabase.workSpecDao();
+        assertThat(workSpecDao.getState(work1.getStringId()), is(ENQUEUED));
+        assertThat(workSpecDao.getState(work2.getStringId()), is(BLOCKED));
+        assertThat(mDatabase.dependencyDao().getPrerequisites(work2.getStringId()),
+                contains(work1.getStringId()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    @SmallTest
+    public void testEnqueueAll_rejectsForeignContinuation() {
+        mWorkManagerImpl.enqueueAll(
+                Collections.singletonList(mock(WorkContinuation.class)));
+    }
+
     @Test
     @MediumTest
     public void testEnqueue_insertWithCompletedDependencies_isNotStatusBlocked()
@@ -1573,6 +1649,63 @@ public class WorkManagerImplTest {
                 is(nullValue()));
     }
 
+    @Test
+    @MediumTest
+    public void workPruner_prunesInBatchesAndHonorsKeepForAtLeast() {
+        OneTimeWorkRequest enqueuedWork = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        OneTimeWorkRequest finishedWorkWithUnfinishedDependent =
+                new OneTimeWorkRequest.Builder(TestWorker.class).setInitialState(SUCCEEDED).build();
+        OneTimeWorkRequest finishedWorkWithLongKeepForAtLeast =
+                new OneTimeWorkRequest.Builder(TestWorker.class)
+                        .setInitialState(SUCCEEDED)
+                        .keepResultsForAtLeast(999, TimeUnit.DAYS)
+                        .build();
+        List<OneTimeWorkRequest> finishedWork = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            OneTimeWorkRequest work = new OneTimeWorkRequest.Builder(TestWorker.class)
+                    .setInitialState(SUCCEEDED)
+                    .addTag("tag")
+                    .build();
+            finishedWork.add(work);
+            insertWorkSpecAndTags(work);
+        }
+        insertWorkSpecAndTags(enqueuedWork);
+        insertWorkSpecAndTags(finishedWorkWithUnfinishedDependent);
+        insertWorkSpecAndTags(finishedWorkWithLongKeepForAtLeast);
+        insertDependency(enqueuedWork, finishedWorkWithUnfinishedDependent);
+
+        Configuration configuration = new Configuration.Builder(mConfiguration)
+                .setPruneInterval(1, TimeUnit.HOURS)
+                .setPruneBatchSize(2)
+                .build();
+        WorkPruner workPruner = new WorkPruner(
+                mDatabase, configuration, mWorkManagerImpl.getWorkTaskExecutor());
+        assertThat(workPruner.prune(), is(5));
+
+        WorkSpecDao workSpecDao = mDatabase.workSpecDao();
+        for (OneTimeWorkRequest work : finishedWork) {
+            assertThat(workSpecDao.getWorkSpec(work.getStringId()), is(nullValue()));
+        }
+        assertThat(mDatabase.workTagDao().getWorkSpecIdsWithTag("tag"),
+                is(emptyCollectionOf(String.class)));
+        assertThat(workSpecDao.getWorkSpec(enqueuedWork.getStringId()), is(notNullValue()));
+        assertThat(workSpecDao.getWorkSpec(finishedWorkWithUnfinishedDependent.getStringId()),
+                is(notNullValue()));
+        assertThat(workSpecDao.getWorkSpec(finishedWorkWithLongKeepForAtLeast.getStringId()),
+                is(notNullValue()));
+    }
+
+    @Test
+    @SmallTest
+    public void testSetDelegate_stopsWorkPrunerOfReplacedInstance() {
+        WorkPruner workPruner = mock(WorkPruner.class);
+        when(mWorkManagerImpl.getWorkPruner()).thenReturn(workPruner);
+        WorkManagerImpl.setDelegate(mWorkManagerImpl);
+        verify(workPruner, never()).stop();
+        WorkManagerImpl.setDelegate(null);
+        verify(workPruner).stop();
+    }
+
     @Test
     @MediumTest
     public void testSynchronousCancelAndGetWorkInfo()
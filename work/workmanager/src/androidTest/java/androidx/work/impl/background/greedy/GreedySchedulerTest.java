@@ -36,6 +36,7 @@ import androidx.work.impl.Processor;
 import androidx.work.impl.WorkManagerImpl;
 import androidx.work.impl.constraints.WorkConstraintsTracker;
 import androidx.work.impl.model.WorkSpec;
+import androidx.work.impl.utils.WorkTracer;
 import androidx.work.impl.utils.taskexecutor.TaskExecutor;
 import androidx.work.worker.TestWorker;
 
@@ -71,6 +72,7 @@ public class GreedySchedulerTest extends WorkManagerTest {
         mMockWorkConstraintsTracker = mock(WorkConstraintsTracker.class);
         when(mWorkManagerImpl.getProcessor()).thenReturn(mMockProcessor);
         when(mWorkManagerImpl.getWorkTaskExecutor()).thenReturn(taskExecutor);
+        when(mWorkManagerImpl.getWorkTracer()).thenReturn(new WorkTracer(null));
         mGreedyScheduler = new GreedyScheduler(
                 mContext,
                 mWorkManagerImpl,
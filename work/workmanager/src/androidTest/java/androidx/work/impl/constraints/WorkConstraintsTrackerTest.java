@@ -128,6 +128,21 @@ public class WorkConstraintsTrackerTest {
         assertThat(mUnconstrainedWorkSpecIds, is(empty()));
     }
 
+    @Test
+    public void testOnConstraintMet_evaluatesEachSignatureOnce() {
+        List<WorkSpec> workSpecs = new ArrayList<>();
+        for (String id : TEST_WORKSPEC_IDS) {
+            workSpecs.add(new WorkSpec(id, "Worker"));
+        }
+        when(mMockController.isTrackingWorkSpec(any(String.class))).thenReturn(true);
+        when(mMockController.isWorkSpecConstrained(any(String.class))).thenReturn(false);
+        mWorkConstraintsTracker.replace(workSpecs);
+
+        mWorkConstraintsTracker.onConstraintMet(TEST_WORKSPEC_IDS);
+        verify(mMockController, times(1)).isWorkSpecConstrained(any(String.class));
+        assertThat(mUnconstrainedWorkSpecIds, is(TEST_WORKSPEC_IDS));
+    }
+
     @Test
     public void testOnConstraintNotMet() {
         mWorkConstraintsTracker.onConstraintNotMet(TEST_WORKSPEC_IDS);
@@ -17,20 +17,35 @@
 package androidx.work.impl.utils
 
 import android.content.Context
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule
+import androidx.lifecycle.MutableLiveData
+import androidx.lifecycle.testing.TestLifecycleOwner
 import androidx.test.ext.junit.runners.AndroidJUnit4
 import androidx.test.filters.MediumTest
 import androidx.test.filters.SdkSuppress
 import androidx.work.Data
+import androidx.work.OneTimeWorkRequest
+import androidx.work.RunnableScheduler
 import androidx.work.WorkInfo
 import androidx.work.impl.WorkDatabase
+import androidx.work.impl.model.WorkProgress
+import androidx.work.impl.model.WorkProgressDao
+import androidx.work.impl.model.WorkSpec
 import androidx.work.impl.model.WorkSpecDao
+import androidx.work.worker.TestWorker
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.`is`
 import androidx.work.impl.utils.taskexecutor.InstantWorkTaskExecutor
 import androidx.work.impl.utils.taskexecutor.TaskExecutor
 import org.junit.Before
+import org.junit.Rule
 import org.junit.Test
 import org.junit.runner.RunWith
+import org.mockito.ArgumentCaptor
 import org.mockito.ArgumentMatchers.anyString
 import org.mockito.Mockito
+import org.mockito.Mockito.times
+import org.mockito.Mockito.verify
 import org.mockito.Mockito.`when`
 import java.util.UUID
 
@@ -38,6 +53,9 @@ import java.util.UUID
 // Mockito tries to class load android.os.CancellationSignal which is only available on API >= 16
 @SdkSuppress(minSdkVersion = 16)
 class WorkProgressUpdaterTest {
+    @get:Rule
+    val instantTaskExecutorRule = InstantTaskExecutorRule()
+
     private lateinit var mContext: Context
     private lateinit var mDatabase: WorkDatabase
     private lateinit var mWorkSpecDao: WorkSpecDao
@@ -66,4 +84,148 @@ class WorkProgressUpdaterTest {
             throw exception.cause ?: exception
         }
     }
+
+    @Test
+    @MediumTest
+    fun updateProgress_coalescesUpdatesWithinInterval() {
+        val workProgressDao = Mockito.mock(WorkProgressDao::class.java)
+        `when`(mDatabase.workProgressDao()).thenReturn(workProgressDao)
+        val workSpec = OneTimeWorkRequest.from(TestWorker::class.java).workSpec
+        workSpec.state = WorkInfo.State.RUNNING
+        `when`(mWorkSpecDao.getWorkSpec(workSpec.id)).thenReturn(workSpec)
+        val scheduled = mutableListOf<Runnable>()
+        val runnableScheduler = object : RunnableScheduler {
+            override fun scheduleWithDelay(delayInMillis: Long, runnable: Runnable) {
+                scheduled += runnable
+            }
+
+            override fun cancel(runnable: Runnable) {
+                scheduled -= runnable
+            }
+        }
+        val progressUpdater = WorkProgressUpdater(
+            mDatabase, mTaskExecutor, runnableScheduler, 60_000L
+        )
+        val observed = mutableListOf<Int>()
+        progressUpdater.addProgressListener { _, progress ->
+            observed += progress.getInt(PROGRESS, -1)
+        }
+
+        val uuid = UUID.fromString(workSpec.id)
+        val futures = (1..4).map { value ->
+            val data = Data.Builder().putInt(PROGRESS, value).build()
+            progressUpdater.updateProgress(mContext, uuid, data)
+        }
+        // The first update is written right away, the others are coalesced.
+        assertThat(scheduled.size, `is`(1))
+        assertThat(futures.map { it.isDone }, `is`(listOf(true, false, false, false)))
+        scheduled.removeAt(0).run()
+        // The coalesced updates complete with the write of the last value.
+        assertThat(futures.all { it.isDone }, `is`(true))
+
+        val captor = ArgumentCaptor.forClass(WorkProgress::class.java)
+        verify(workProgressDao, times(2)).insert(captor.capture())
+        assertThat(captor.allValues.map { it.mProgress.getInt(PROGRESS, -1) }, `is`(listOf(1, 4)))
+        assertThat(observed, `is`(listOf(1, 2, 3, 4)))
+        assertThat(progressUpdater.metrics.persistedUpdateCount, `is`(2L))
+        assertThat(progressUpdater.metrics.coalescedUpdateCount, `is`(2L))
+        assertThat(progressUpdater.metrics.droppedUpdateCount, `is`(0L))
+
+        // Coalesced progress is dropped if the work finished in the meantime.
+        val dropped = progressUpdater.updateProgress(mContext, uuid, Data.EMPTY)
+        workSpec.state = WorkInfo.State.SUCCEEDED
+        scheduled.removeAt(0).run()
+        dropped.get()
+        verify(workProgressDao, times(2)).insert(captor.capture())
+        assertThat(progressUpdater.metrics.droppedUpdateCount, `is`(1L))
+    }
+
+    @Test
+    @MediumTest
+    fun updateProgress_coalescesUpdatesOfManyWorkers() {
+        `when`(mDatabase.workProgressDao()).thenReturn(Mockito.mock(WorkProgressDao::class.java))
+        val workSpec = OneTimeWorkRequest.from(TestWorker::class.java).workSpec
+        workSpec.state = WorkInfo.State.RUNNING
+        `when`(mWorkSpecDao.getWorkSpec(anyString())).thenReturn(workSpec)
+        var scheduledCount = 0
+        val runnableScheduler = object : RunnableScheduler {
+            override fun scheduleWithDelay(delayInMillis: Long, runnable: Runnable) {
+                scheduledCount++
+            }
+
+            override fun cancel(runnable: Runnable) {
+            }
+        }
+        val progressUpdater = WorkProgressUpdater(
+            mDatabase, mTaskExecutor, runnableScheduler, 60_000L
+        )
+
+        val ids = List(1_000) { UUID.randomUUID() }
+        for (id in ids) {
+            progressUpdater.updateProgress(mContext, id, Data.EMPTY)
+        }
+        for (id in ids) {
+            progressUpdater.updateProgress(mContext, id, Data.EMPTY)
+        }
+        // Every worker's second update waits for the end of its interval.
+        assertThat(scheduledCount, `is`(ids.size))
+        assertThat(progressUpdater.metrics.persistedUpdateCount, `is`(ids.size.toLong()))
+    }
+
+    @Test
+    @MediumTest
+    fun updateProgress_reachesWorkInfoLiveDataBeforeItIsPersisted() {
+        `when`(mDatabase.workProgressDao()).thenReturn(Mockito.mock(WorkProgressDao::class.java))
+        val workSpec = OneTimeWorkRequest.from(TestWorker::class.java).workSpec
+        workSpec.state = WorkInfo.State.RUNNING
+        `when`(mWorkSpecDao.getWorkSpec(workSpec.id)).thenReturn(workSpec)
+        val scheduled = mutableListOf<Runnable>()
+        val runnableScheduler = object : RunnableScheduler {
+            override fun scheduleWithDelay(delayInMillis: Long, runnable: Runnable) {
+                scheduled += runnable
+            }
+
+            override fun cancel(runnable: Runnable) {
+                scheduled -= runnable
+            }
+        }
+        val progressUpdater = WorkProgressUpdater(
+            mDatabase, mTaskExecutor, runnableScheduler, 60_000L
+        )
+        val pojo = WorkSpec.WorkInfoPojo()
+        pojo.id = workSpec.id
+        pojo.state = WorkInfo.State.RUNNING
+        pojo.output = Data.EMPTY
+        pojo.tags = emptyList()
+        pojo.progress = emptyList()
+        val databaseLiveData = MutableLiveData<List<WorkSpec.WorkInfoPojo>>(listOf(pojo))
+        val liveData = PendingProgressLiveData(databaseLiveData, progressUpdater, mTaskExecutor)
+        val lifecycleOwner = TestLifecycleOwner()
+        val observed = mutableListOf<Int>()
+        liveData.observe(lifecycleOwner) { pojos ->
+            observed += pojos.single().toWorkInfo().progress.getInt(PROGRESS, -1)
+        }
+
+        val uuid = UUID.fromString(workSpec.id)
+        for (value in 1..3) {
+            val data = Data.Builder().putInt(PROGRESS, value).build()
+            progressUpdater.updateProgress(mContext, uuid, data)
+        }
+        // The first update is only visible once the database emits it, the coalesced ones
+        // right away.
+        assertThat(observed, `is`(listOf(-1, 2, 3)))
+        // The database pojos are left untouched.
+        assertThat(pojo.progress.isEmpty(), `is`(true))
+
+        scheduled.removeAt(0).run()
+        val persisted = Data.Builder().putInt(PROGRESS, 3).build()
+        pojo.progress = listOf(persisted)
+        databaseLiveData.value = listOf(pojo)
+        assertThat(observed, `is`(listOf(-1, 2, 3, 3)))
+        liveData.removeObservers(lifecycleOwner)
+    }
+
+    companion object {
+        private const val PROGRESS = "progress"
+    }
 }
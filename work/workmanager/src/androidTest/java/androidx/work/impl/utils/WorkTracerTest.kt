@@ -0,0 +1,54 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl.utils
+
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.SmallTest
+import androidx.work.OneTimeWorkRequest
+import androidx.work.WorkInfo
+import androidx.work.worker.TestWorker
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.`is`
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(AndroidJUnit4::class)
+@SmallTest
+class WorkTracerTest {
+
+    @Test
+    fun getMetrics_reportsFinishedWork() {
+        val tracer = WorkTracer(null)
+        assertThat(tracer.metrics.finishedCount, `is`(0L))
+        assertThat(tracer.metrics.queueLatencyP99Millis, `is`(0L))
+
+        val workSpec = OneTimeWorkRequest.from(TestWorker::class.java).workSpec
+        tracer.onEnqueued(workSpec.id, 1_000L)
+        tracer.onStarted(workSpec, 1_003L)
+        tracer.onFinished(workSpec.id, WorkInfo.State.SUCCEEDED, 1_005L)
+
+        val metrics = tracer.metrics
+        assertThat(metrics.finishedCount, `is`(1L))
+        assertThat(metrics.queueLatencyP50Millis, `is`(3L))
+        assertThat(metrics.queueLatencyP99Millis, `is`(3L))
+        assertThat(metrics.maxQueueLatencyMillis, `is`(3L))
+        assertThat(metrics.executionTimeP50Millis, `is`(2L))
+        assertThat(metrics.executionTimeP99Millis, `is`(2L))
+        assertThat(metrics.maxExecutionTimeMillis, `is`(2L))
+        assertThat(metrics.droppedSpanCount, `is`(0L))
+    }
+}
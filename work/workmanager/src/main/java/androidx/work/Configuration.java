@@ -31,8 +31,14 @@ import androidx.work.impl.DefaultRunnableScheduler;
 import androidx.work.impl.Scheduler;
 import androidx.work.impl.utils.IdGenerator;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The Configuration object used to customize {@link WorkManager} upon initialization.
@@ -52,6 +58,11 @@ public final class Configuration {
     @SuppressLint("MinMaxConstant")
     public static final int MIN_SCHEDULER_LIMIT = 20;
 
+    /**
+     * The default number of finished {@link WorkRequest}s deleted at a time by automatic pruning.
+     */
+    public static final int DEFAULT_PRUNE_BATCH_SIZE = 500;
+
     // Synthetic access
     @SuppressWarnings("WeakerAccess")
     final @NonNull Executor mExecutor;
@@ -75,6 +86,18 @@ public final class Configuration {
     final int mMaxJobSchedulerId;
     @SuppressWarnings("WeakerAccess")
     final int mMaxSchedulerLimit;
+    @SuppressWarnings("WeakerAccess")
+    final long mPruneIntervalMillis;
+    @SuppressWarnings("WeakerAccess")
+    final int mPruneBatchSize;
+    @SuppressWarnings("WeakerAccess")
+    final long mMinimumProgressUpdateIntervalMillis;
+    @SuppressWarnings("WeakerAccess")
+    final @NonNull Set<String> mPriorityTags;
+    @SuppressWarnings("WeakerAccess")
+    final @NonNull Map<String, Integer> mTagConcurrencyLimits;
+    @SuppressWarnings("WeakerAccess")
+    final @Nullable WorkTraceExporter mTraceExporter;
     private final boolean mIsUsingDefaultTaskExecutor;
 
     Configuration(@NonNull Configuration.Builder builder) {
@@ -119,6 +142,13 @@ public final class Configuration {
         mMaxSchedulerLimit = builder.mMaxSchedulerLimit;
         mExceptionHandler = builder.mExceptionHandler;
         mDefaultProcessName = builder.mDefaultProcessName;
+        mPruneIntervalMillis = builder.mPruneIntervalMillis;
+        mPruneBatchSize = builder.mPruneBatchSize;
+        mMinimumProgressUpdateIntervalMillis = builder.mMinimumProgressUpdateIntervalMillis;
+        mPriorityTags = Collections.unmodifiableSet(new HashSet<>(builder.mPriorityTags));
+        mTagConcurrencyLimits =
+                Collections.unmodifiableMap(new HashMap<>(builder.mTagConcurrencyLimits));
+        mTraceExporter = builder.mTraceExporter;
     }
 
     /**
@@ -255,6 +285,72 @@ public final class Configuration {
         return mExceptionHandler;
     }
 
+    /**
+     * Gets the interval at which {@link WorkManager} automatically prunes finished work.
+     *
+     * @return The prune interval in milliseconds, or {@code 0} if automatic pruning is disabled
+     */
+    public long getPruneIntervalMillis() {
+        return mPruneIntervalMillis;
+    }
+
+    /**
+     * Gets the maximum number of finished {@link WorkRequest}s deleted at a time by automatic
+     * pruning.
+     *
+     * @return The prune batch size
+     */
+    public int getPruneBatchSize() {
+        return mPruneBatchSize;
+    }
+
+    /**
+     * Gets the minimum time between two writes of the progress of a unit of work.
+     *
+     * @return The minimum progress update interval in milliseconds, or {@code 0} if every progress
+     * update is written
+     */
+    public long getMinimumProgressUpdateIntervalMillis() {
+        return mMinimumProgressUpdateIntervalMillis;
+    }
+
+    /**
+     * @return The {@link WorkTraceExporter} that receives the lifecycle spans of work, or
+     * {@code null} if none was specified
+     */
+    public @Nullable WorkTraceExporter getTraceExporter() {
+        return mTraceExporter;
+    }
+
+    /**
+     * @return The tags of work that starts ahead of all other work
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    @NonNull
+    public Set<String> getPriorityTags() {
+        return mPriorityTags;
+    }
+
+    /**
+     * @return The maximum number of concurrently running units of work, keyed by their tag
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    @NonNull
+    public Map<String, Integer> getTagConcurrencyLimits() {
+        return mTagConcurrencyLimits;
+    }
+
+    /**
+     * @return {@code true} if work is started through priority lanes
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public boolean isUsingWorkLanes() {
+        return !mPriorityTags.isEmpty() || !mTagConcurrencyLimits.isEmpty();
+    }
+
     private @NonNull Executor createDefaultExecutor() {
         return Executors.newFixedThreadPool(
                 // This value is the same as the core pool size for AsyncTask#THREAD_POOL_EXECUTOR.
@@ -278,15 +374,24 @@ public final class Configuration {
         int mMinJobSchedulerId;
         int mMaxJobSchedulerId;
         int mMaxSchedulerLimit;
+        long mPruneIntervalMillis;
+        int mPruneBatchSize;
+        long mMinimumProgressUpdateIntervalMillis;
+        @NonNull Set<String> mPriorityTags;
+        @NonNull Map<String, Integer> mTagConcurrencyLimits;
+        @Nullable WorkTraceExporter mTraceExporter;
 
         /**
          * Creates a new {@link Configuration.Builder}.
          */
         public Builder() {
+            mPriorityTags = new HashSet<>();
+            mTagConcurrencyLimits = new HashMap<>();
             mLoggingLevel = Log.INFO;
             mMinJobSchedulerId = IdGenerator.INITIAL_ID;
             mMaxJobSchedulerId = Integer.MAX_VALUE;
             mMaxSchedulerLimit = MIN_SCHEDULER_LIMIT;
+            mPruneBatchSize = DEFAULT_PRUNE_BATCH_SIZE;
         }
 
         /**
@@ -311,6 +416,13 @@ public final class Configuration {
             mRunnableScheduler = configuration.mRunnableScheduler;
             mExceptionHandler = configuration.mExceptionHandler;
             mDefaultProcessName = configuration.mDefaultProcessName;
+            mPruneIntervalMillis = configuration.mPruneIntervalMillis;
+            mPruneBatchSize = configuration.mPruneBatchSize;
+            mMinimumProgressUpdateIntervalMillis =
+                    configuration.mMinimumProgressUpdateIntervalMillis;
+            mPriorityTags = new HashSet<>(configuration.mPriorityTags);
+            mTagConcurrencyLimits = new HashMap<>(configuration.mTagConcurrencyLimits);
+            mTraceExporter = configuration.mTraceExporter;
         }
 
         /**
@@ -426,6 +538,144 @@ public final class Configuration {
             return this;
         }
 
+        /**
+         * Specifies the interval at which {@link WorkManager} automatically prunes finished work.
+         * <p>
+         * Finished work accumulates in WorkManager's database until it is pruned, which slows down
+         * queries for {@link WorkInfo}s.  When an interval is set, WorkManager periodically
+         * deletes finished work whose
+         * {@link WorkRequest.Builder#keepResultsForAtLeast(long, TimeUnit)} duration has expired
+         * and which has no unfinished dependent work.  The first pass runs one interval after
+         * WorkManager is initialized.
+         * <p>
+         * Automatic pruning is disabled by default.
+         *
+         * @param interval The interval between pruning passes, or {@code 0} to disable automatic
+         *                 pruning
+         * @param timeUnit The {@link TimeUnit} of {@code interval}
+         * @return This {@link Builder} instance
+         * @throws IllegalArgumentException if {@code interval} is negative
+         */
+        @NonNull
+        public Builder setPruneInterval(long interval, @NonNull TimeUnit timeUnit) {
+            if (interval < 0) {
+                throw new IllegalArgumentException("The prune interval cannot be negative.");
+            }
+            mPruneIntervalMillis = timeUnit.toMillis(interval);
+            return this;
+        }
+
+        /**
+         * Specifies the maximum number of finished {@link WorkRequest}s deleted at a time by
+         * automatic pruning.  Smaller batches hold the database for a shorter time, larger batches
+         * need fewer transactions.  The default value is
+         * {@link Configuration#DEFAULT_PRUNE_BATCH_SIZE}.
+         *
+         * @param batchSize The maximum number of {@link WorkRequest}s deleted in one transaction
+         * @return This {@link Builder} instance
+         * @throws IllegalArgumentException if {@code batchSize} is less than {@code 1}
+         */
+        @NonNull
+        public Builder setPruneBatchSize(int batchSize) {
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("The prune batch size must be at least 1.");
+            }
+            mPruneBatchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Specifies the minimum time between two writes of the progress of a unit of work.
+         * <p>
+         * Workers that call {@link ListenableWorker#setProgressAsync(Data)} often cause a database
+         * write and a {@link WorkInfo} update for every call.  When an interval is set, the first
+         * update in an interval is written right away and later updates are coalesced: only the
+         * last value is written when the interval ends.  The futures returned for coalesced
+         * updates complete once that write has finished.  {@link WorkManager#getProgressMetrics()}
+         * reports how many updates were coalesced.
+         * <p>
+         * Every progress update is written by default.
+         *
+         * @param interval The minimum interval between two progress writes, or {@code 0} to write
+         *                 every progress update
+         * @param timeUnit The {@link TimeUnit} of {@code interval}
+         * @return This {@link Builder} instance
+         * @throws IllegalArgumentException if {@code interval} is negative
+         */
+        @NonNull
+        public Builder setMinimumProgressUpdateInterval(
+                long interval,
+                @NonNull TimeUnit timeUnit) {
+            if (interval < 0) {
+                throw new IllegalArgumentException(
+                        "The minimum progress update interval cannot be negative.");
+            }
+            mMinimumProgressUpdateIntervalMillis = timeUnit.toMillis(interval);
+            return this;
+        }
+
+        /**
+         * Specifies the tags of latency sensitive work.
+         * <p>
+         * {@link ListenableWorker}s with at least one of these tags are started ahead of all other
+         * work.  When priority tags or tag concurrency limits are specified, WorkManager runs at
+         * most as many units of work at the same time as the {@link Executor} specified with
+         * {@link #setExecutor(Executor)} has threads, if it is a
+         * {@link java.util.concurrent.ThreadPoolExecutor}, and otherwise at most
+         * {@link #setMaxSchedulerLimit(int)}.  Unless that is less than three, one of these slots
+         * is kept free for work with a priority tag.  The {@link WorkLaneMetrics} of the lanes are
+         * available from {@link WorkManager#getPriorityLaneMetrics()} and
+         * {@link WorkManager#getDefaultLaneMetrics()}.
+         *
+         * @param priorityTags The tags of work that should run ahead of other work
+         * @return This {@link Builder} instance
+         */
+        @NonNull
+        public Builder setPriorityTags(@NonNull Set<String> priorityTags) {
+            mPriorityTags = new HashSet<>(priorityTags);
+            return this;
+        }
+
+        /**
+         * Specifies the maximum number of units of work with the given tag that can run at the
+         * same time.  Further work with the tag waits until running work with the tag finishes,
+         * while work without the tag keeps running.  The limit applies to whole units of work, so
+         * the tasks a {@link ListenableWorker} runs on its background executor are not limited.
+         *
+         * @param tag            The tag of the work to limit
+         * @param maxConcurrency The maximum number of concurrently running units of work
+         * @return This {@link Builder} instance
+         * @throws IllegalArgumentException if {@code maxConcurrency} is less than {@code 1}
+         */
+        @NonNull
+        public Builder setMaxConcurrencyForTag(@NonNull String tag, int maxConcurrency) {
+            if (maxConcurrency < 1) {
+                throw new IllegalArgumentException("maxConcurrency must be at least 1.");
+            }
+            mTagConcurrencyLimits.put(tag, maxConcurrency);
+            return this;
+        }
+
+        /**
+         * Specifies a {@link WorkTraceExporter} that receives a {@link WorkSpan} every time a
+         * {@link ListenableWorker} finishes.
+         * <p>
+         * Regardless of this, the executions of {@link ListenableWorker}s are written to the system
+         * trace as asynchronous sections named after their class.
+         * <p>
+         * The events before a worker starts are kept for at most 512 units of work at a time.
+         * When more work is waiting, the least recently updated work loses them, and the
+         * {@link WorkSpan} of its next execution reports them as {@link WorkSpan#UNKNOWN_TIME}.
+         *
+         * @param traceExporter The {@link WorkTraceExporter} to use
+         * @return This {@link Builder} instance
+         */
+        @NonNull
+        public Builder setTraceExporter(@NonNull WorkTraceExporter traceExporter) {
+            mTraceExporter = traceExporter;
+            return this;
+        }
+
         /**
          * Specifies the minimum logging level, corresponding to the constants found in
          * {@link android.util.Log}.  For example, specifying {@link android.util.Log#VERBOSE} will
@@ -384,6 +384,25 @@ public final class Data {
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
     @TypeConverter
     public static @NonNull byte[] toByteArrayInternal(@NonNull Data data) {
+        byte[] bytes = DataCodec.encode(data.mValues);
+        if (bytes == null) {
+            bytes = toObjectStreamByteArray(data);
+        }
+
+        if (bytes.length > MAX_DATA_BYTES) {
+            throw new IllegalStateException(
+                    "Data cannot occupy more than " + MAX_DATA_BYTES
+                            + " bytes when serialized");
+        }
+        return bytes;
+    }
+
+    /**
+     * Serializes {@link Data} with {@link ObjectOutputStream}.  This is the format used before
+     * {@link DataCodec} was introduced, and is still used for values {@link DataCodec} cannot
+     * represent.
+     */
+    private static @NonNull byte[] toObjectStreamByteArray(@NonNull Data data) {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         ObjectOutputStream objectOutputStream = null;
         try {
@@ -412,12 +431,6 @@ public final class Data {
                 Log.e(TAG, "Error in Data#toByteArray: ", e);
             }
         }
-
-        if (outputStream.size() > MAX_DATA_BYTES) {
-            throw new IllegalStateException(
-                    "Data cannot occupy more than " + MAX_DATA_BYTES
-                            + " bytes when serialized");
-        }
         return outputStream.toByteArray();
     }
 
@@ -436,6 +449,15 @@ public final class Data {
         }
 
         Map<String, Object> map = new HashMap<>();
+        if (DataCodec.isEncoded(bytes)) {
+            try {
+                DataCodec.decode(bytes, map);
+            } catch (IOException e) {
+                Log.e(TAG, "Error in Data#fromByteArray: ", e);
+            }
+            return new Data(map);
+        }
+
         ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
         ObjectInputStream objectInputStream = null;
         try {
@@ -0,0 +1,407 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Compact binary encoding for the values of {@link Data}.
+ * <p>
+ * The encoding starts with the two byte magic {@code 0xDA 0x7A} and a version byte.  Blobs
+ * written by {@link java.io.ObjectOutputStream} always start with {@code 0xAC 0xED}, so both
+ * formats can be told apart when reading.  The header is followed by a varint entry count and
+ * the entries, each of which is a varint-length-prefixed UTF-8 key, a type tag and the value.
+ * Integral values are zigzag varints, floating point values are fixed width, and arrays are a
+ * varint element count followed by the elements.
+ */
+final class DataCodec {
+
+    static final int VERSION = 1;
+
+    private static final byte MAGIC_0 = (byte) 0xDA;
+    private static final byte MAGIC_1 = (byte) 0x7A;
+
+    private static final int TAG_NULL = 0;
+    private static final int TAG_FALSE = 1;
+    private static final int TAG_TRUE = 2;
+    private static final int TAG_BYTE = 3;
+    private static final int TAG_INT = 4;
+    private static final int TAG_LONG = 5;
+    private static final int TAG_FLOAT = 6;
+    private static final int TAG_DOUBLE = 7;
+    private static final int TAG_STRING = 8;
+    private static final int TAG_ARRAY = 0x10;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private DataCodec() {
+    }
+
+    /**
+     * @return {@code true} if {@code bytes} were written by {@link #encode(Map)}
+     */
+    static boolean isEncoded(@NonNull byte[] bytes) {
+        return bytes.length >= 3 && bytes[0] == MAGIC_0 && bytes[1] == MAGIC_1;
+    }
+
+    /**
+     * Encodes the values of a {@link Data}.
+     *
+     * @return the encoded values, or {@code null} if some value cannot be represented (e.g. a
+     * boxed array containing {@code null}) and the legacy encoding has to be used instead
+     */
+    @Nullable
+    static byte[] encode(@NonNull Map<String, Object> values) {
+        Writer writer = new Writer();
+        writer.writeByte(MAGIC_0);
+        writer.writeByte(MAGIC_1);
+        writer.writeByte(VERSION);
+        writer.writeVarInt(values.size());
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            writer.writeString(entry.getKey());
+            if (!writer.writeValue(entry.getValue())) {
+                return null;
+            }
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Decodes values written by {@link #encode(Map)} into {@code values}.
+     *
+     * @throws IOException if the bytes are malformed or of an unknown version; {@code values}
+     *                     then contains the entries decoded so far
+     */
+    static void decode(@NonNull byte[] bytes, @NonNull Map<String, Object> values)
+            throws IOException {
+        Reader reader = new Reader(bytes, 2);
+        int version = reader.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported Data encoding version " + version);
+        }
+        for (int i = reader.readVarInt(); i > 0; i--) {
+            String key = reader.readString();
+            values.put(key, reader.readValue());
+        }
+    }
+
+    private static final class Writer {
+        private byte[] mBuffer = new byte[64];
+        private int mSize;
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            mBuffer[mSize++] = (byte) value;
+        }
+
+        void writeVarInt(int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                mBuffer[mSize++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            mBuffer[mSize++] = (byte) value;
+        }
+
+        void writeZigZag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeFixed(long value, int bytes) {
+            ensureCapacity(bytes);
+            for (int i = 0; i < bytes; i++) {
+                mBuffer[mSize++] = (byte) (value >>> (8 * i));
+            }
+        }
+
+        void writeString(@NonNull String value) {
+            byte[] bytes = value.getBytes(UTF_8);
+            writeVarInt(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, mBuffer, mSize, bytes.length);
+            mSize += bytes.length;
+        }
+
+        /**
+         * @return {@code false} if the value is not supported by this encoding
+         */
+        boolean writeValue(@Nullable Object value) {
+            if (value == null) {
+                writeByte(TAG_NULL);
+            } else if (value instanceof Boolean) {
+                writeByte((Boolean) value ? TAG_TRUE : TAG_FALSE);
+            } else if (value instanceof Byte) {
+                writeByte(TAG_BYTE);
+                writeByte((Byte) value);
+            } else if (value instanceof Integer) {
+                writeByte(TAG_INT);
+                writeZigZag((Integer) value);
+            } else if (value instanceof Long) {
+                writeByte(TAG_LONG);
+                writeZigZag((Long) value);
+            } else if (value instanceof Float) {
+                writeByte(TAG_FLOAT);
+                writeFixed(Float.floatToIntBits((Float) value), 4);
+            } else if (value instanceof Double) {
+                writeByte(TAG_DOUBLE);
+                writeFixed(Double.doubleToLongBits((Double) value), 8);
+            } else if (value instanceof String) {
+                writeByte(TAG_STRING);
+                writeString((String) value);
+            } else if (value instanceof String[]) {
+                String[] array = (String[]) value;
+                writeByte(TAG_ARRAY | TAG_STRING);
+                writeVarInt(array.length);
+                for (String element : array) {
+                    // Elements are prefixed with their tag so that nulls can be represented.
+                    if (element == null) {
+                        writeByte(TAG_NULL);
+                    } else {
+                        writeByte(TAG_STRING);
+                        writeString(element);
+                    }
+                }
+            } else if (value instanceof Object[]) {
+                return writeBoxedArray((Object[]) value);
+            } else {
+                return false;
+            }
+            return true;
+        }
+
+        private boolean writeBoxedArray(@NonNull Object[] array) {
+            int tag;
+            if (array instanceof Boolean[]) {
+                tag = TAG_TRUE;
+            } else if (array instanceof Byte[]) {
+                tag = TAG_BYTE;
+            } else if (array instanceof Integer[]) {
+                tag = TAG_INT;
+            } else if (array instanceof Long[]) {
+                tag = TAG_LONG;
+            } else if (array instanceof Float[]) {
+                tag = TAG_FLOAT;
+            } else if (array instanceof Double[]) {
+                tag = TAG_DOUBLE;
+            } else {
+                return false;
+            }
+            for (Object element : array) {
+                if (element == null) {
+                    return false;
+                }
+            }
+
+            writeByte(TAG_ARRAY | tag);
+            writeVarInt(array.length);
+            for (Object element : array) {
+                switch (tag) {
+                    case TAG_TRUE:
+                        writeByte((Boolean) element ? 1 : 0);
+                        break;
+                    case TAG_BYTE:
+                        writeByte((Byte) element);
+                        break;
+                    case TAG_INT:
+                        writeZigZag((Integer) element);
+                        break;
+                    case TAG_LONG:
+                        writeZigZag((Long) element);
+                        break;
+                    case TAG_FLOAT:
+                        writeFixed(Float.floatToIntBits((Float) element), 4);
+                        break;
+                    default:
+                        writeFixed(Double.doubleToLongBits((Double) element), 8);
+                        break;
+                }
+            }
+            return true;
+        }
+
+        @NonNull
+        byte[] toByteArray() {
+            return Arrays.copyOf(mBuffer, mSize);
+        }
+
+        private void ensureCapacity(int bytes) {
+            if (mSize + bytes > mBuffer.length) {
+                mBuffer = Arrays.copyOf(mBuffer, Math.max(mBuffer.length * 2, mSize + bytes));
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] mBuffer;
+        private int mPosition;
+
+        Reader(@NonNull byte[] buffer, int position) {
+            mBuffer = buffer;
+            mPosition = position;
+        }
+
+        int readByte() throws IOException {
+            if (mPosition >= mBuffer.length) {
+                throw new IOException("Unexpected end of Data");
+            }
+            return mBuffer[mPosition++] & 0xFF;
+        }
+
+        int readVarInt() throws IOException {
+            long value = readVarLong();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new IOException("Malformed length in Data");
+            }
+            return (int) value;
+        }
+
+        long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint in Data");
+        }
+
+        long readZigZag() throws IOException {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        long readFixed(int bytes) throws IOException {
+            long value = 0;
+            for (int i = 0; i < bytes; i++) {
+                value |= (long) readByte() << (8 * i);
+            }
+            return value;
+        }
+
+        @NonNull
+        String readString() throws IOException {
+            int length = readLength();
+            String value = new String(mBuffer, mPosition, length, UTF_8);
+            mPosition += length;
+            return value;
+        }
+
+        @Nullable
+        Object readValue() throws IOException {
+            int tag = readByte();
+            switch (tag) {
+                case TAG_NULL:
+                    return null;
+                case TAG_FALSE:
+                    return false;
+                case TAG_TRUE:
+                    return true;
+                case TAG_BYTE:
+                    return (byte) readByte();
+                case TAG_INT:
+                    return (int) readZigZag();
+                case TAG_LONG:
+                    return readZigZag();
+                case TAG_FLOAT:
+                    return Float.intBitsToFloat((int) readFixed(4));
+                case TAG_DOUBLE:
+                    return Double.longBitsToDouble(readFixed(8));
+                case TAG_STRING:
+                    return readString();
+                default:
+                    return readArray(tag);
+            }
+        }
+
+        @NonNull
+        private Object[] readArray(int tag) throws IOException {
+            int length = readLength();
+            Object[] array;
+            switch (tag) {
+                case TAG_ARRAY | TAG_TRUE:
+                    array = new Boolean[length];
+                    for (int i = 0; i < length; i++) {
+                        array[i] = readByte() != 0;
+                    }
+                    break;
+                case TAG_ARRAY | TAG_BYTE:
+                    array = new Byte[length];
+                    for (int i = 0; i < length; i++) {
+                        array[i] = (byte) readByte();
+                    }
+                    break;
+                case TAG_ARRAY | TAG_INT:
+                    array = new Integer[length];
+                    for (int i = 0; i < length; i++) {
+                        array[i] = (int) readZigZag();
+                    }
+                    break;
+                case TAG_ARRAY | TAG_LONG:
+                    array = new Long[length];
+                    for (int i = 0; i < length; i++) {
+                        array[i] = readZigZag();
+                    }
+                    break;
+                case TAG_ARRAY | TAG_FLOAT:
+                    array = new Float[length];
+                    for (int i = 0; i < length; i++) {
+                        array[i] = Float.intBitsToFloat((int) readFixed(4));
+                    }
+                    break;
+                case TAG_ARRAY | TAG_DOUBLE:
+                    array = new Double[length];
+                    for (int i = 0; i < length; i++) {
+                        array[i] = Double.longBitsToDouble(readFixed(8));
+                    }
+                    break;
+                case TAG_ARRAY | TAG_STRING:
+                    array = new String[length];
+                    for (int i = 0; i < length; i++) {
+                        array[i] = readByte() == TAG_NULL ? null : readString();
+                    }
+                    break;
+                default:
+                    throw new IOException("Unknown type tag " + tag + " in Data");
+            }
+            return array;
+        }
+
+        /**
+         * Reads a length, checking that at least that many bytes remain.  Every element takes at
+         * least one byte, so this also bounds array allocations by the size of the input.
+         */
+        private int readLength() throws IOException {
+            int length = readVarInt();
+            if (length > mBuffer.length - mPosition) {
+                throw new IOException("Malformed length in Data");
+            }
+            return length;
+        }
+    }
+}
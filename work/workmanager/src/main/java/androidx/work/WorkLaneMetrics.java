@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+
+/**
+ * A snapshot of the queue depth and wait times of a lane of work, as returned by
+ * {@link WorkManager#getPriorityLaneMetrics()} and {@link WorkManager#getDefaultLaneMetrics()}.
+ * <p>
+ * Lanes are only used when {@link Configuration.Builder#setPriorityTags(java.util.Set)} or
+ * {@link Configuration.Builder#setMaxConcurrencyForTag(String, int)} is specified; otherwise all
+ * the values are {@code 0}.  They only cover the work that runs in the current process.
+ */
+public final class WorkLaneMetrics {
+    private final int mQueueDepth;
+    private final int mRunningCount;
+    private final long mDispatchedCount;
+    private final long mTotalWaitMillis;
+    private final long mMaxWaitMillis;
+
+    /**
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public WorkLaneMetrics(
+            int queueDepth,
+            int runningCount,
+            long dispatchedCount,
+            long totalWaitMillis,
+            long maxWaitMillis) {
+        mQueueDepth = queueDepth;
+        mRunningCount = runningCount;
+        mDispatchedCount = dispatchedCount;
+        mTotalWaitMillis = totalWaitMillis;
+        mMaxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * @return The number of units of work waiting in the lane
+     */
+    public int getQueueDepth() {
+        return mQueueDepth;
+    }
+
+    /**
+     * @return The number of units of work of the lane that are currently running
+     */
+    public int getRunningCount() {
+        return mRunningCount;
+    }
+
+    /**
+     * @return The number of units of work of the lane that have been started
+     */
+    public long getDispatchedCount() {
+        return mDispatchedCount;
+    }
+
+    /**
+     * @return The average time, in milliseconds, a started unit of work waited in the lane
+     */
+    public long getAverageWaitMillis() {
+        return mDispatchedCount == 0 ? 0 : mTotalWaitMillis / mDispatchedCount;
+    }
+
+    /**
+     * @return The longest time, in milliseconds, a started unit of work waited in the lane
+     */
+    public long getMaxWaitMillis() {
+        return mMaxWaitMillis;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "WorkLaneMetrics{queueDepth=" + mQueueDepth
+                + ", running=" + mRunningCount
+                + ", dispatched=" + mDispatchedCount
+                + ", averageWaitMillis=" + getAverageWaitMillis()
+                + ", maxWaitMillis=" + mMaxWaitMillis + "}";
+    }
+}
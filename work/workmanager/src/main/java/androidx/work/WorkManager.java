@@ -230,6 +230,18 @@ public abstract class WorkManager {
     @NonNull
     public abstract Operation enqueue(@NonNull List<? extends WorkRequest> requests);
 
+    /**
+     * Enqueues several {@link WorkContinuation}s at once, as if {@link WorkContinuation#enqueue()}
+     * was called on each of them.  The work of all the continuations is persisted in a single
+     * transaction and scheduled once, which is much cheaper than enqueuing a large number of
+     * continuations one at a time.
+     *
+     * @param continuations One or more {@link WorkContinuation}s created by this WorkManager
+     * @return An {@link Operation} that can be used to determine when the enqueue has completed
+     */
+    @NonNull
+    public abstract Operation enqueueAll(@NonNull List<? extends WorkContinuation> continuations);
+
     /**
      * Begins a chain with one or more {@link OneTimeWorkRequest}s, which can be enqueued together
      * in the future using {@link WorkContinuation#enqueue()}.
@@ -578,6 +590,42 @@ public abstract class WorkManager {
     public abstract @NonNull ListenableFuture<List<WorkInfo>> getWorkInfos(
             @NonNull WorkQuery workQuery);
 
+    /**
+     * Gets a snapshot of the lane of work with at least one of the tags specified by
+     * {@link Configuration.Builder#setPriorityTags(java.util.Set)}, which run ahead of all other
+     * work in this process.
+     *
+     * @return The {@link WorkLaneMetrics} of the priority lane
+     */
+    public abstract @NonNull WorkLaneMetrics getPriorityLaneMetrics();
+
+    /**
+     * Gets a snapshot of the lane of work without any of the tags specified by
+     * {@link Configuration.Builder#setPriorityTags(java.util.Set)} in this process.
+     *
+     * @return The {@link WorkLaneMetrics} of the default lane
+     */
+    public abstract @NonNull WorkLaneMetrics getDefaultLaneMetrics();
+
+    /**
+     * Gets a snapshot of how many progress updates of workers in this process were written to the
+     * database, and how many were coalesced as specified by
+     * {@link Configuration.Builder#setMinimumProgressUpdateInterval(long, TimeUnit)}.
+     *
+     * @return The {@link WorkProgressMetrics} of this process
+     */
+    public abstract @NonNull WorkProgressMetrics getProgressMetrics();
+
+    /**
+     * Gets a snapshot of how long the workers that finished in this process waited to run after
+     * they became eligible to run, and how long they ran.  The individual executions are reported
+     * to the {@link WorkTraceExporter} specified by
+     * {@link Configuration.Builder#setTraceExporter(WorkTraceExporter)}, if any.
+     *
+     * @return The {@link WorkTraceMetrics} of this process
+     */
+    public abstract @NonNull WorkTraceMetrics getTraceMetrics();
+
     /**
      * @hide
      */
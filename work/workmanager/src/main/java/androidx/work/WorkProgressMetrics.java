@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+
+/**
+ * A snapshot of how the progress updates of {@link ListenableWorker}s were persisted, as returned
+ * by {@link WorkManager#getProgressMetrics()}.
+ * <p>
+ * Updates are only coalesced when a minimum progress update interval is set on the
+ * {@link Configuration}.  The counts only cover the work that runs in the current process.
+ */
+public final class WorkProgressMetrics {
+    private final long mPersistedUpdateCount;
+    private final long mCoalescedUpdateCount;
+    private final long mDroppedUpdateCount;
+
+    /**
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public WorkProgressMetrics(
+            long persistedUpdateCount,
+            long coalescedUpdateCount,
+            long droppedUpdateCount) {
+        mPersistedUpdateCount = persistedUpdateCount;
+        mCoalescedUpdateCount = coalescedUpdateCount;
+        mDroppedUpdateCount = droppedUpdateCount;
+    }
+
+    /**
+     * @return The number of progress updates written to the database
+     */
+    public long getPersistedUpdateCount() {
+        return mPersistedUpdateCount;
+    }
+
+    /**
+     * @return The number of progress updates that were replaced by a later update before they
+     * were written to the database
+     */
+    public long getCoalescedUpdateCount() {
+        return mCoalescedUpdateCount;
+    }
+
+    /**
+     * @return The number of coalesced progress updates that were discarded because the work was
+     * no longer running when they were due to be written
+     */
+    public long getDroppedUpdateCount() {
+        return mDroppedUpdateCount;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "WorkProgressMetrics{"
+                + "persisted=" + mPersistedUpdateCount
+                + ", coalesced=" + mCoalescedUpdateCount
+                + ", dropped=" + mDroppedUpdateCount
+                + '}';
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+
+import java.util.UUID;
+
+/**
+ * The lifecycle of one execution of a unit of work, from the time it was enqueued to the time its
+ * {@link ListenableWorker} finished.
+ * <p>
+ * All times are in milliseconds since the epoch, as returned by
+ * {@link System#currentTimeMillis()}.  A time is {@link #UNKNOWN_TIME} when the corresponding event
+ * was not observed by this process; for example, work enqueued before the application process was
+ * restarted has no known enqueue time.
+ */
+public final class WorkSpan {
+
+    /**
+     * The value of a time that was not observed.
+     */
+    public static final long UNKNOWN_TIME = -1L;
+
+    private final @NonNull UUID mId;
+    private final @NonNull String mWorkerClassName;
+    private final long mEnqueueTimeMillis;
+    private final long mScheduleTimeMillis;
+    private final long mConstraintsMetTimeMillis;
+    private final long mEligibleTimeMillis;
+    private final long mStartTimeMillis;
+    private final long mFinishTimeMillis;
+    private final @NonNull WorkInfo.State mState;
+    private final int mRunAttemptCount;
+
+    /**
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public WorkSpan(
+            @NonNull UUID id,
+            @NonNull String workerClassName,
+            long enqueueTimeMillis,
+            long scheduleTimeMillis,
+            long constraintsMetTimeMillis,
+            long eligibleTimeMillis,
+            long startTimeMillis,
+            long finishTimeMillis,
+            @NonNull WorkInfo.State state,
+            int runAttemptCount) {
+        mId = id;
+        mWorkerClassName = workerClassName;
+        mEnqueueTimeMillis = enqueueTimeMillis;
+        mScheduleTimeMillis = scheduleTimeMillis;
+        mConstraintsMetTimeMillis = constraintsMetTimeMillis;
+        mEligibleTimeMillis = eligibleTimeMillis;
+        mStartTimeMillis = startTimeMillis;
+        mFinishTimeMillis = finishTimeMillis;
+        mState = state;
+        mRunAttemptCount = runAttemptCount;
+    }
+
+    /**
+     * @return The identifier of the {@link WorkRequest}
+     */
+    public @NonNull UUID getId() {
+        return mId;
+    }
+
+    /**
+     * @return The fully qualified class name of the {@link ListenableWorker}
+     */
+    public @NonNull String getWorkerClassName() {
+        return mWorkerClassName;
+    }
+
+    /**
+     * @return The time the work was enqueued, or {@link #UNKNOWN_TIME}
+     */
+    public long getEnqueueTimeMillis() {
+        return mEnqueueTimeMillis;
+    }
+
+    /**
+     * @return The time the work was first handed to a scheduler, or {@link #UNKNOWN_TIME}
+     */
+    public long getScheduleTimeMillis() {
+        return mScheduleTimeMillis;
+    }
+
+    /**
+     * @return The time the in-process scheduler observed that all the {@link Constraints} of the
+     * work were met, or {@link #UNKNOWN_TIME}
+     */
+    public long getConstraintsMetTimeMillis() {
+        return mConstraintsMetTimeMillis;
+    }
+
+    /**
+     * Gets the time the work became eligible to run: the latest of the time it was enqueued, the
+     * time its initial delay or backoff elapsed and, when known, the time its {@link Constraints}
+     * were met.
+     *
+     * @return The time the work became eligible to run
+     */
+    public long getEligibleTimeMillis() {
+        return mEligibleTimeMillis;
+    }
+
+    /**
+     * @return The time the {@link ListenableWorker} started
+     */
+    public long getStartTimeMillis() {
+        return mStartTimeMillis;
+    }
+
+    /**
+     * @return The time the {@link ListenableWorker} finished
+     */
+    public long getFinishTimeMillis() {
+        return mFinishTimeMillis;
+    }
+
+    /**
+     * Gets the time the work spent waiting to run after it became eligible to run, that is after
+     * its initial delay or backoff elapsed and, when known, its {@link Constraints} were met.
+     *
+     * @return The queue latency in milliseconds
+     */
+    public long getQueueLatencyMillis() {
+        return Math.max(0L, mStartTimeMillis - mEligibleTimeMillis);
+    }
+
+    /**
+     * @return The time the {@link ListenableWorker} spent running, in milliseconds
+     */
+    public long getExecutionTimeMillis() {
+        return Math.max(0L, mFinishTimeMillis - mStartTimeMillis);
+    }
+
+    /**
+     * @return The {@link WorkInfo.State} of the work when this execution finished;
+     * {@link WorkInfo.State#ENQUEUED} if it will run again
+     */
+    public @NonNull WorkInfo.State getState() {
+        return mState;
+    }
+
+    /**
+     * @return The run attempt count of the work for this execution, starting at {@code 1}
+     */
+    public int getRunAttemptCount() {
+        return mRunAttemptCount;
+    }
+
+    @Override
+    public String toString() {
+        return "WorkSpan{" + mId + ", " + mWorkerClassName + ", " + mState
+                + ", queueLatency=" + getQueueLatencyMillis()
+                + "ms, executionTime=" + getExecutionTimeMillis() + "ms}";
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Receives the lifecycle spans of the units of work run by {@link WorkManager}.
+ * <br/>
+ * This can be used to export the execution traces of {@link ListenableWorker}s to a metrics or
+ * tracing backend.  An exporter is specified with
+ * {@link Configuration.Builder#setTraceExporter(WorkTraceExporter)}.
+ */
+public interface WorkTraceExporter {
+
+    /**
+     * Called when an execution of a unit of work finishes.
+     * <p>
+     * This is called on a background thread used by {@link WorkManager}, so implementations should
+     * return quickly and hand off any expensive processing.
+     *
+     * @param span The {@link WorkSpan} of the finished execution
+     */
+    void onWorkSpanFinished(@NonNull WorkSpan span);
+}
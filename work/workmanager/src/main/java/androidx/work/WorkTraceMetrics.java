@@ -0,0 +1,138 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+
+/**
+ * A snapshot of the latencies of the {@link ListenableWorker}s that finished in the current
+ * process, as returned by {@link WorkManager#getTraceMetrics()}.
+ * <p>
+ * The queue latency of a unit of work is the time it waited to run after it became eligible to
+ * run, as reported by {@link WorkSpan#getQueueLatencyMillis()}; its execution time is reported by
+ * {@link WorkSpan#getExecutionTimeMillis()}.  Percentiles are upper bounds with a relative error
+ * of at most 25%.
+ */
+public final class WorkTraceMetrics {
+    private final long mFinishedCount;
+    private final long mQueueLatencyP50Millis;
+    private final long mQueueLatencyP99Millis;
+    private final long mMaxQueueLatencyMillis;
+    private final long mExecutionTimeP50Millis;
+    private final long mExecutionTimeP99Millis;
+    private final long mMaxExecutionTimeMillis;
+    private final long mDroppedSpanCount;
+
+    /**
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public WorkTraceMetrics(
+            long finishedCount,
+            long queueLatencyP50Millis,
+            long queueLatencyP99Millis,
+            long maxQueueLatencyMillis,
+            long executionTimeP50Millis,
+            long executionTimeP99Millis,
+            long maxExecutionTimeMillis,
+            long droppedSpanCount) {
+        mFinishedCount = finishedCount;
+        mQueueLatencyP50Millis = queueLatencyP50Millis;
+        mQueueLatencyP99Millis = queueLatencyP99Millis;
+        mMaxQueueLatencyMillis = maxQueueLatencyMillis;
+        mExecutionTimeP50Millis = executionTimeP50Millis;
+        mExecutionTimeP99Millis = executionTimeP99Millis;
+        mMaxExecutionTimeMillis = maxExecutionTimeMillis;
+        mDroppedSpanCount = droppedSpanCount;
+    }
+
+    /**
+     * @return The number of workers that finished
+     */
+    public long getFinishedCount() {
+        return mFinishedCount;
+    }
+
+    /**
+     * @return The median queue latency in milliseconds, or {@code 0} if no worker finished
+     */
+    public long getQueueLatencyP50Millis() {
+        return mQueueLatencyP50Millis;
+    }
+
+    /**
+     * @return The 99th percentile of the queue latency in milliseconds, or {@code 0} if no worker
+     * finished
+     */
+    public long getQueueLatencyP99Millis() {
+        return mQueueLatencyP99Millis;
+    }
+
+    /**
+     * @return The largest queue latency in milliseconds, or {@code 0} if no worker finished
+     */
+    public long getMaxQueueLatencyMillis() {
+        return mMaxQueueLatencyMillis;
+    }
+
+    /**
+     * @return The median execution time in milliseconds, or {@code 0} if no worker finished
+     */
+    public long getExecutionTimeP50Millis() {
+        return mExecutionTimeP50Millis;
+    }
+
+    /**
+     * @return The 99th percentile of the execution time in milliseconds, or {@code 0} if no
+     * worker finished
+     */
+    public long getExecutionTimeP99Millis() {
+        return mExecutionTimeP99Millis;
+    }
+
+    /**
+     * @return The largest execution time in milliseconds, or {@code 0} if no worker finished
+     */
+    public long getMaxExecutionTimeMillis() {
+        return mMaxExecutionTimeMillis;
+    }
+
+    /**
+     * @return The number of units of work whose events before they started were not tracked,
+     * because too many units of work were waiting to start; their queue latency may be
+     * underestimated
+     */
+    public long getDroppedSpanCount() {
+        return mDroppedSpanCount;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "WorkTraceMetrics{"
+                + "finished=" + mFinishedCount
+                + ", queueLatencyP50=" + mQueueLatencyP50Millis
+                + ", queueLatencyP99=" + mQueueLatencyP99Millis
+                + ", maxQueueLatency=" + mMaxQueueLatencyMillis
+                + ", executionTimeP50=" + mExecutionTimeP50Millis
+                + ", executionTimeP99=" + mExecutionTimeP99Millis
+                + ", maxExecutionTime=" + mMaxExecutionTimeMillis
+                + ", droppedSpans=" + mDroppedSpanCount
+                + '}';
+    }
+}
@@ -32,6 +32,9 @@ import androidx.work.Logger;
 import androidx.work.WorkerParameters;
 import androidx.work.impl.foreground.ForegroundProcessor;
 import androidx.work.impl.utils.WakeLocks;
+import androidx.work.impl.utils.WorkLaneExecutor;
+import androidx.work.impl.utils.WorkProgressUpdater;
+import androidx.work.impl.utils.WorkTracer;
 import androidx.work.impl.utils.taskexecutor.TaskExecutor;
 
 import com.google.common.util.concurrent.ListenableFuture;
@@ -64,6 +67,10 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
     private Map<String, WorkerWrapper> mForegroundWorkMap;
     private Map<String, WorkerWrapper> mEnqueuedWorkMap;
     private List<Scheduler> mSchedulers;
+    @Nullable
+    private final WorkLaneExecutor mWorkLaneExecutor;
+    private final WorkProgressUpdater mProgressUpdater;
+    private final WorkTracer mWorkTracer;
 
     private Set<String> mCancelledIds;
 
@@ -76,6 +83,25 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
             @NonNull TaskExecutor workTaskExecutor,
             @NonNull WorkDatabase workDatabase,
             @NonNull List<Scheduler> schedulers) {
+        this(appContext,
+                configuration,
+                workTaskExecutor,
+                workDatabase,
+                schedulers,
+                new WorkTracer(configuration.getTraceExporter()));
+    }
+
+    /**
+     * @param workTracer The {@link WorkTracer} that keeps track of the work started by this
+     *                   {@link Processor}
+     */
+    public Processor(
+            @NonNull Context appContext,
+            @NonNull Configuration configuration,
+            @NonNull TaskExecutor workTaskExecutor,
+            @NonNull WorkDatabase workDatabase,
+            @NonNull List<Scheduler> schedulers,
+            @NonNull WorkTracer workTracer) {
         mAppContext = appContext;
         mConfiguration = configuration;
         mWorkTaskExecutor = workTaskExecutor;
@@ -83,6 +109,21 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
         mEnqueuedWorkMap = new HashMap<>();
         mForegroundWorkMap = new HashMap<>();
         mSchedulers = schedulers;
+        if (configuration.isUsingWorkLanes()) {
+            mWorkLaneExecutor = new WorkLaneExecutor(
+                    workTaskExecutor.getBackgroundExecutor(),
+                    WorkLaneExecutor.getParallelism(configuration),
+                    configuration.getPriorityTags(),
+                    configuration.getTagConcurrencyLimits());
+        } else {
+            mWorkLaneExecutor = null;
+        }
+        mProgressUpdater = new WorkProgressUpdater(
+                workDatabase,
+                workTaskExecutor,
+                configuration.getRunnableScheduler(),
+                configuration.getMinimumProgressUpdateIntervalMillis());
+        mWorkTracer = workTracer;
         mCancelledIds = new HashSet<>();
         mOuterListeners = new ArrayList<>();
         mForegroundLock = null;
@@ -131,6 +172,9 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
                             id)
                             .withSchedulers(mSchedulers)
                             .withRuntimeExtras(runtimeExtras)
+                            .withWorkLaneExecutor(mWorkLaneExecutor)
+                            .withProgressUpdater(mProgressUpdater)
+                            .withWorkTracer(mWorkTracer)
                             .build();
             ListenableFuture<Boolean> future = workWrapper.getFuture();
             future.addListener(
@@ -143,6 +187,33 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
         return true;
     }
 
+    /**
+     * @return The {@link WorkLaneExecutor} that admits the work started by this
+     * {@link Processor}, or {@code null} if the {@link Configuration} does not use priority lanes
+     */
+    @Nullable
+    public WorkLaneExecutor getWorkLaneExecutor() {
+        return mWorkLaneExecutor;
+    }
+
+    /**
+     * @return The {@link WorkProgressUpdater} shared by the workers started by this
+     * {@link Processor}
+     */
+    @NonNull
+    public WorkProgressUpdater getProgressUpdater() {
+        return mProgressUpdater;
+    }
+
+    /**
+     * @return The {@link WorkTracer} that keeps track of the work started by this
+     * {@link Processor}
+     */
+    @NonNull
+    public WorkTracer getWorkTracer() {
+        return mWorkTracer;
+    }
+
     @Override
     public void startForeground(@NonNull String workSpecId, @NonNull ForegroundInfo info) {
         synchronized (mLock) {
@@ -33,6 +33,7 @@ import androidx.work.impl.background.systemjob.SystemJobScheduler;
 import androidx.work.impl.background.systemjob.SystemJobService;
 import androidx.work.impl.model.WorkSpec;
 import androidx.work.impl.model.WorkSpecDao;
+import androidx.work.impl.utils.WorkTracer;
 
 import java.util.List;
 
@@ -55,18 +56,28 @@ public class Schedulers {
      *
      * @param workDatabase The {@link WorkDatabase}.
      * @param schedulers   The {@link List} of {@link Scheduler}s to delegate to.
+     * @param workTracer   The {@link WorkTracer} that is told when work is scheduled.
      */
     public static void schedule(
             @NonNull Configuration configuration,
             @NonNull WorkDatabase workDatabase,
-            List<Scheduler> schedulers) {
+            List<Scheduler> schedulers,
+            @NonNull WorkTracer workTracer) {
         if (schedulers == null || schedulers.size() == 0) {
             return;
         }
 
+        boolean hasUnlimitedSchedulers = false;
+        for (Scheduler scheduler : schedulers) {
+            if (!scheduler.hasLimitedSchedulingSlots()) {
+                hasUnlimitedSchedulers = true;
+                break;
+            }
+        }
+
         WorkSpecDao workSpecDao = workDatabase.workSpecDao();
         List<WorkSpec> eligibleWorkSpecsForLimitedSlots;
-        List<WorkSpec> allEligibleWorkSpecs;
+        List<WorkSpec> allEligibleWorkSpecs = null;
 
         workDatabase.beginTransaction();
         try {
@@ -75,8 +86,10 @@ public class Schedulers {
                     configuration.getMaxSchedulerLimit());
 
             // Enqueued workSpecs when scheduling limits are NOT applicable.
-            allEligibleWorkSpecs = workSpecDao.getAllEligibleWorkSpecsForScheduling(
-                    MAX_GREEDY_SCHEDULER_LIMIT);
+            if (hasUnlimitedSchedulers) {
+                allEligibleWorkSpecs = workSpecDao.getAllEligibleWorkSpecsForScheduling(
+                        MAX_GREEDY_SCHEDULER_LIMIT);
+            }
 
             if (eligibleWorkSpecsForLimitedSlots != null
                     && eligibleWorkSpecsForLimitedSlots.size() > 0) {
@@ -94,8 +107,12 @@ public class Schedulers {
             workDatabase.endTransaction();
         }
 
+        long now = System.currentTimeMillis();
         if (eligibleWorkSpecsForLimitedSlots != null
                 && eligibleWorkSpecsForLimitedSlots.size() > 0) {
+            for (WorkSpec workSpec : eligibleWorkSpecsForLimitedSlots) {
+                workTracer.onScheduled(workSpec.id, now);
+            }
 
             WorkSpec[] eligibleWorkSpecsArray =
                     new WorkSpec[eligibleWorkSpecsForLimitedSlots.size()];
@@ -111,6 +128,9 @@ public class Schedulers {
         }
 
         if (allEligibleWorkSpecs != null && allEligibleWorkSpecs.size() > 0) {
+            for (WorkSpec workSpec : allEligibleWorkSpecs) {
+                workTracer.onScheduled(workSpec.id, now);
+            }
             WorkSpec[] enqueuedWorkSpecsArray = new WorkSpec[allEligibleWorkSpecs.size()];
             enqueuedWorkSpecsArray = allEligibleWorkSpecs.toArray(enqueuedWorkSpecsArray);
             // Delegate to the underlying schedulers.
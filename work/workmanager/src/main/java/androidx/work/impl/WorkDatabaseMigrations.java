@@ -59,6 +59,7 @@ public class WorkDatabaseMigrations {
     public static final int VERSION_9 = 9;
     public static final int VERSION_10 = 10;
     public static final int VERSION_11 = 11;
+    public static final int VERSION_12 = 12;
 
     private static final String CREATE_SYSTEM_ID_INFO =
             "CREATE TABLE IF NOT EXISTS `SystemIdInfo` (`work_spec_id` TEXT NOT NULL, `system_id`"
@@ -94,6 +95,15 @@ public class WorkDatabaseMigrations {
             "CREATE INDEX IF NOT EXISTS `index_WorkSpec_period_start_time` ON `workspec` "
                     + "(`period_start_time`)";
 
+    private static final String CREATE_INDEX_STATE_SCHEDULE_REQUESTED_AT =
+            "CREATE INDEX IF NOT EXISTS "
+                    + "`index_WorkSpec_state_schedule_requested_at_period_start_time`"
+                    + " ON `workspec` (`state`, `schedule_requested_at`, `period_start_time`)";
+
+    private static final String CREATE_INDEX_STATE_PERIOD_START_TIME =
+            "CREATE INDEX IF NOT EXISTS `index_WorkSpec_state_period_start_time` ON `workspec` "
+                    + "(`state`, `period_start_time`)";
+
     private static final String CREATE_RUN_IN_FOREGROUND =
             "ALTER TABLE workspec ADD COLUMN `run_in_foreground` INTEGER NOT NULL DEFAULT 0";
 
@@ -210,6 +220,18 @@ public class WorkDatabaseMigrations {
         }
     };
 
+    /**
+     * Adds the indices used by the scheduling queries in {@link WorkSpec}.
+     */
+    @NonNull
+    public static Migration MIGRATION_11_12 = new Migration(VERSION_11, VERSION_12) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL(CREATE_INDEX_STATE_SCHEDULE_REQUESTED_AT);
+            database.execSQL(CREATE_INDEX_STATE_PERIOD_START_TIME);
+        }
+    };
+
     /**
      * Adds the {@link Preference} table.
      */
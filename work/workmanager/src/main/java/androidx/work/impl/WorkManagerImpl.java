@@ -42,9 +42,12 @@ import androidx.work.PeriodicWorkRequest;
 import androidx.work.R;
 import androidx.work.WorkContinuation;
 import androidx.work.WorkInfo;
+import androidx.work.WorkLaneMetrics;
 import androidx.work.WorkManager;
+import androidx.work.WorkProgressMetrics;
 import androidx.work.WorkQuery;
 import androidx.work.WorkRequest;
+import androidx.work.WorkTraceMetrics;
 import androidx.work.WorkerParameters;
 import androidx.work.impl.background.greedy.GreedyScheduler;
 import androidx.work.impl.background.systemjob.SystemJobScheduler;
@@ -52,14 +55,19 @@ import androidx.work.impl.model.RawWorkInfoDao;
 import androidx.work.impl.model.WorkSpec;
 import androidx.work.impl.model.WorkSpecDao;
 import androidx.work.impl.utils.CancelWorkRunnable;
+import androidx.work.impl.utils.EnqueueRunnable;
 import androidx.work.impl.utils.ForceStopRunnable;
 import androidx.work.impl.utils.LiveDataUtils;
+import androidx.work.impl.utils.PendingProgressLiveData;
 import androidx.work.impl.utils.PreferenceUtils;
 import androidx.work.impl.utils.PruneWorkRunnable;
 import androidx.work.impl.utils.RawQueries;
 import androidx.work.impl.utils.StartWorkRunnable;
 import androidx.work.impl.utils.StatusRunnable;
 import androidx.work.impl.utils.StopWorkRunnable;
+import androidx.work.impl.utils.WorkLaneExecutor;
+import androidx.work.impl.utils.WorkPruner;
+import androidx.work.impl.utils.WorkTracer;
 import androidx.work.impl.utils.futures.SettableFuture;
 import androidx.work.impl.utils.taskexecutor.TaskExecutor;
 import androidx.work.impl.utils.taskexecutor.WorkManagerTaskExecutor;
@@ -67,6 +75,7 @@ import androidx.work.multiprocess.RemoteWorkManager;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -92,7 +101,9 @@ public class WorkManagerImpl extends WorkManager {
     private TaskExecutor mWorkTaskExecutor;
     private List<Scheduler> mSchedulers;
     private Processor mProcessor;
+    private WorkTracer mWorkTracer;
     private PreferenceUtils mPreferenceUtils;
+    private @Nullable WorkPruner mWorkPruner;
     private boolean mForceStopRunnableCompleted;
     private BroadcastReceiver.PendingResult mRescheduleReceiverResult;
     private volatile RemoteWorkManager mRemoteWorkManager;
@@ -103,6 +114,9 @@ public class WorkManagerImpl extends WorkManager {
 
 
     /**
+     * Replaces the instance returned by {@link #getInstance()}.  The {@link WorkPruner} of the
+     * replaced instance is stopped, unless it is the default instance.
+     *
      * @param delegate The delegate for {@link WorkManagerImpl} for testing; {@code null} to use the
      *                 default instance
      * @hide
@@ -110,7 +124,15 @@ public class WorkManagerImpl extends WorkManager {
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
     public static void setDelegate(@Nullable WorkManagerImpl delegate) {
         synchronized (sLock) {
+            WorkManagerImpl replaced = sDelegatedInstance;
             sDelegatedInstance = delegate;
+            if (replaced != null && replaced != delegate && replaced != sDefaultInstance) {
+                // The replaced instance is no longer used, don't keep pruning on its behalf.
+                WorkPruner workPruner = replaced.getWorkPruner();
+                if (workPruner != null) {
+                    workPruner.stop();
+                }
+            }
         }
     }
 
@@ -271,7 +293,8 @@ public class WorkManagerImpl extends WorkManager {
                 configuration,
                 workTaskExecutor,
                 database,
-                schedulers);
+                schedulers,
+                new WorkTracer(configuration.getTraceExporter()));
         internalInit(context, configuration, workTaskExecutor, database, schedulers, processor);
     }
 
@@ -346,6 +369,15 @@ public class WorkManagerImpl extends WorkManager {
         return mProcessor;
     }
 
+    /**
+     * @return The {@link WorkTracer} that keeps track of the lifecycle of work in this process
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public @NonNull WorkTracer getWorkTracer() {
+        return mWorkTracer;
+    }
+
     /**
      * @return the {@link TaskExecutor} used by the instance of {@link WorkManager}.
      * @hide
@@ -364,6 +396,16 @@ public class WorkManagerImpl extends WorkManager {
         return mPreferenceUtils;
     }
 
+    /**
+     * @return the {@link WorkPruner} that automatically prunes finished work, or {@code null} if
+     * automatic pruning is disabled in the {@link Configuration}.
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public @Nullable WorkPruner getWorkPruner() {
+        return mWorkPruner;
+    }
+
     @Override
     @NonNull
     public Operation enqueue(
@@ -378,6 +420,27 @@ public class WorkManagerImpl extends WorkManager {
         return new WorkContinuationImpl(this, workRequests).enqueue();
     }
 
+    @Override
+    @NonNull
+    public Operation enqueueAll(@NonNull List<? extends WorkContinuation> continuations) {
+        if (continuations.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "enqueueAll needs at least one WorkContinuation.");
+        }
+        List<WorkContinuationImpl> workContinuations = new ArrayList<>(continuations.size());
+        for (WorkContinuation continuation : continuations) {
+            if (!(continuation instanceof WorkContinuationImpl)
+                    || ((WorkContinuationImpl) continuation).getWorkManagerImpl() != this) {
+                throw new IllegalArgumentException(
+                        "enqueueAll needs WorkContinuations created by this WorkManager.");
+            }
+            workContinuations.add((WorkContinuationImpl) continuation);
+        }
+        EnqueueRunnable runnable = new EnqueueRunnable(this, workContinuations);
+        mWorkTaskExecutor.executeOnBackgroundThread(runnable);
+        return runnable.getOperation();
+    }
+
     @Override
     public @NonNull WorkContinuation beginWith(@NonNull List<OneTimeWorkRequest> work) {
         if (work.isEmpty()) {
@@ -513,7 +576,8 @@ public class WorkManagerImpl extends WorkManager {
         WorkSpecDao dao = mWorkDatabase.workSpecDao();
         LiveData<List<WorkSpec.WorkInfoPojo>> inputLiveData =
                 dao.getWorkStatusPojoLiveDataForIds(Collections.singletonList(id.toString()));
-        return LiveDataUtils.dedupedMappedLiveDataFor(inputLiveData,
+        return LiveDataUtils.dedupedMappedLiveDataFor(
+                withPendingProgress(inputLiveData),
                 new Function<List<WorkSpec.WorkInfoPojo>, WorkInfo>() {
                     @Override
                     public WorkInfo apply(List<WorkSpec.WorkInfoPojo> input) {
@@ -540,7 +604,7 @@ public class WorkManagerImpl extends WorkManager {
         LiveData<List<WorkSpec.WorkInfoPojo>> inputLiveData =
                 workSpecDao.getWorkStatusPojoLiveDataForTag(tag);
         return LiveDataUtils.dedupedMappedLiveDataFor(
-                inputLiveData,
+                withPendingProgress(inputLiveData),
                 WorkSpec.WORK_INFO_MAPPER,
                 mWorkTaskExecutor);
     }
@@ -559,7 +623,7 @@ public class WorkManagerImpl extends WorkManager {
         LiveData<List<WorkSpec.WorkInfoPojo>> inputLiveData =
                 workSpecDao.getWorkStatusPojoLiveDataForName(name);
         return LiveDataUtils.dedupedMappedLiveDataFor(
-                inputLiveData,
+                withPendingProgress(inputLiveData),
                 WorkSpec.WORK_INFO_MAPPER,
                 mWorkTaskExecutor);
     }
@@ -582,7 +646,7 @@ public class WorkManagerImpl extends WorkManager {
                 rawWorkInfoDao.getWorkInfoPojosLiveData(
                         RawQueries.workQueryToRawQuery(workQuery));
         return LiveDataUtils.dedupedMappedLiveDataFor(
-                inputLiveData,
+                withPendingProgress(inputLiveData),
                 WorkSpec.WORK_INFO_MAPPER,
                 mWorkTaskExecutor);
     }
@@ -597,16 +661,56 @@ public class WorkManagerImpl extends WorkManager {
         return runnable.getFuture();
     }
 
+    @Override
+    public @NonNull WorkLaneMetrics getPriorityLaneMetrics() {
+        return getLaneMetrics(WorkLaneExecutor.LANE_PRIORITY);
+    }
+
+    @Override
+    public @NonNull WorkLaneMetrics getDefaultLaneMetrics() {
+        return getLaneMetrics(WorkLaneExecutor.LANE_DEFAULT);
+    }
+
+    @Override
+    public @NonNull WorkProgressMetrics getProgressMetrics() {
+        return mProcessor.getProgressUpdater().getMetrics();
+    }
+
+    @Override
+    public @NonNull WorkTraceMetrics getTraceMetrics() {
+        return mWorkTracer.getMetrics();
+    }
+
+    private @NonNull WorkLaneMetrics getLaneMetrics(int lane) {
+        WorkLaneExecutor workLaneExecutor = mProcessor.getWorkLaneExecutor();
+        if (workLaneExecutor == null) {
+            return new WorkLaneMetrics(0, 0, 0, 0, 0);
+        }
+        return workLaneExecutor.getMetrics(lane);
+    }
+
     LiveData<List<WorkInfo>> getWorkInfosById(@NonNull List<String> workSpecIds) {
         WorkSpecDao dao = mWorkDatabase.workSpecDao();
         LiveData<List<WorkSpec.WorkInfoPojo>> inputLiveData =
                 dao.getWorkStatusPojoLiveDataForIds(workSpecIds);
         return LiveDataUtils.dedupedMappedLiveDataFor(
-                inputLiveData,
+                withPendingProgress(inputLiveData),
                 WorkSpec.WORK_INFO_MAPPER,
                 mWorkTaskExecutor);
     }
 
+    /**
+     * Carries the coalesced progress of work running in this process, which is not persisted
+     * yet, into {@link WorkInfo} {@link LiveData}.
+     */
+    private @NonNull LiveData<List<WorkSpec.WorkInfoPojo>> withPendingProgress(
+            @NonNull LiveData<List<WorkSpec.WorkInfoPojo>> inputLiveData) {
+        return new PendingProgressLiveData(
+                inputLiveData,
+                mProcessor.getProgressUpdater(),
+                mWorkTaskExecutor);
+    }
+
     /**
      * @hide
      */
@@ -690,7 +794,8 @@ public class WorkManagerImpl extends WorkManager {
         // Delegate to the WorkManager's schedulers.
         // Using getters here so we can use from a mocked instance
         // of WorkManagerImpl.
-        Schedulers.schedule(getConfiguration(), getWorkDatabase(), getSchedulers());
+        Schedulers.schedule(
+                getConfiguration(), getWorkDatabase(), getSchedulers(), getWorkTracer());
     }
 
     /**
@@ -752,6 +857,8 @@ public class WorkManagerImpl extends WorkManager {
         mWorkDatabase = workDatabase;
         mSchedulers = schedulers;
         mProcessor = processor;
+        // The Processor traces the workers, so the rest of the lifecycle goes to its tracer too.
+        mWorkTracer = processor.getWorkTracer();
         mPreferenceUtils = new PreferenceUtils(workDatabase);
         mForceStopRunnableCompleted = false;
 
@@ -762,6 +869,11 @@ public class WorkManagerImpl extends WorkManager {
 
         // Checks for app force stops.
         mWorkTaskExecutor.executeOnBackgroundThread(new ForceStopRunnable(context, this));
+
+        if (configuration.getPruneIntervalMillis() > 0) {
+            mWorkPruner = new WorkPruner(workDatabase, configuration, workTaskExecutor);
+            mWorkPruner.start();
+        }
     }
 
     /**
@@ -48,8 +48,10 @@ import androidx.work.impl.model.WorkSpec;
 import androidx.work.impl.model.WorkSpecDao;
 import androidx.work.impl.model.WorkTagDao;
 import androidx.work.impl.utils.PackageManagerHelper;
+import androidx.work.impl.utils.WorkLaneExecutor;
 import androidx.work.impl.utils.WorkForegroundUpdater;
 import androidx.work.impl.utils.WorkProgressUpdater;
+import androidx.work.impl.utils.WorkTracer;
 import androidx.work.impl.utils.futures.SettableFuture;
 import androidx.work.impl.utils.taskexecutor.TaskExecutor;
 
@@ -79,6 +81,11 @@ public class WorkerWrapper implements Runnable {
     private String mWorkSpecId;
     private List<Scheduler> mSchedulers;
     private WorkerParameters.RuntimeExtras mRuntimeExtras;
+    @Nullable
+    private WorkLaneExecutor mWorkLaneExecutor;
+    @Nullable
+    private WorkProgressUpdater mProgressUpdater;
+    private WorkTracer mWorkTracer;
     // Avoid Synthetic accessor
     WorkSpec mWorkSpec;
     ListenableWorker mWorker;
@@ -106,6 +113,8 @@ public class WorkerWrapper implements Runnable {
     @Nullable ListenableFuture<ListenableWorker.Result> mInnerFuture = null;
 
     private volatile boolean mInterrupted;
+    // Whether the worker was started, and its execution is being traced.
+    private volatile boolean mStarted;
 
     // Package-private for synthetic accessor.
     WorkerWrapper(@NonNull Builder builder) {
@@ -115,9 +124,14 @@ public class WorkerWrapper implements Runnable {
         mWorkSpecId = builder.mWorkSpecId;
         mSchedulers = builder.mSchedulers;
         mRuntimeExtras = builder.mRuntimeExtras;
+        mWorkLaneExecutor = builder.mWorkLaneExecutor;
+        mProgressUpdater = builder.mProgressUpdater;
         mWorker = builder.mWorker;
 
         mConfiguration = builder.mConfiguration;
+        mWorkTracer = builder.mWorkTracer != null
+                ? builder.mWorkTracer
+                : new WorkTracer(mConfiguration.getTraceExporter());
         mWorkDatabase = builder.mWorkDatabase;
         mWorkSpecDao = mWorkDatabase.workSpecDao();
         mDependencyDao = mWorkDatabase.dependencyDao();
@@ -133,10 +147,23 @@ public class WorkerWrapper implements Runnable {
     public void run() {
         mTags = mWorkTagDao.getTagsForWorkSpecId(mWorkSpecId);
         mWorkDescription = createWorkDescription(mTags);
-        runWorker();
+        if (mWorkLaneExecutor == null) {
+            runWorker();
+            return;
+        }
+        // The work holds its slot in the lanes until it is resolved, while the tasks of the
+        // worker run on the Configuration's executor without any further limit.
+        Runnable finish = mWorkLaneExecutor.startWork(mTags, new Runnable() {
+            @Override
+            public void run() {
+                runWorker();
+            }
+        });
+        mFuture.addListener(finish, mWorkTaskExecutor.getBackgroundExecutor());
     }
 
-    private void runWorker() {
+    // Package-private for synthetic accessor.
+    void runWorker() {
         if (tryCheckForInterruptionAndResolve()) {
             return;
         }
@@ -233,7 +260,9 @@ public class WorkerWrapper implements Runnable {
                 mConfiguration.getExecutor(),
                 mWorkTaskExecutor,
                 mConfiguration.getWorkerFactory(),
-                new WorkProgressUpdater(mWorkDatabase, mWorkTaskExecutor),
+                mProgressUpdater != null
+                        ? mProgressUpdater
+                        : new WorkProgressUpdater(mWorkDatabase, mWorkTaskExecutor),
                 new WorkForegroundUpdater(mWorkDatabase, mForegroundProcessor, mWorkTaskExecutor));
 
         // Not always creating a worker here, as the WorkerWrapper.Builder can set a worker override
@@ -359,7 +388,7 @@ public class WorkerWrapper implements Runnable {
             for (Scheduler scheduler : mSchedulers) {
                 scheduler.cancel(mWorkSpecId);
             }
-            Schedulers.schedule(mConfiguration, mWorkDatabase, mSchedulers);
+            Schedulers.schedule(mConfiguration, mWorkDatabase, mSchedulers, mWorkTracer);
         }
     }
 
@@ -424,6 +453,7 @@ public class WorkerWrapper implements Runnable {
     }
 
     private void resolve(final boolean needsReschedule) {
+        WorkInfo.State finalState = null;
         mWorkDatabase.beginTransaction();
         try {
             // IMPORTANT: We are using a transaction here as to ensure that we have some guarantees
@@ -447,10 +477,20 @@ public class WorkerWrapper implements Runnable {
             if (mWorkSpec != null && mWorker != null && mWorker.isRunInForeground()) {
                 mForegroundProcessor.stopForeground(mWorkSpecId);
             }
+            if (mStarted) {
+                finalState = mWorkSpecDao.getState(mWorkSpecId);
+            }
             mWorkDatabase.setTransactionSuccessful();
         } finally {
             mWorkDatabase.endTransaction();
         }
+        if (mStarted) {
+            // The WorkSpec no longer exists when it was replaced by unique work.
+            mWorkTracer.onFinished(
+                    mWorkSpecId,
+                    finalState != null ? finalState : CANCELLED,
+                    System.currentTimeMillis());
+        }
         mFuture.set(needsReschedule);
     }
 
@@ -496,6 +536,10 @@ public class WorkerWrapper implements Runnable {
         } finally {
             mWorkDatabase.endTransaction();
         }
+        if (setToRunning) {
+            mStarted = true;
+            mWorkTracer.onStarted(mWorkSpec, System.currentTimeMillis());
+        }
         return setToRunning;
     }
 
@@ -626,6 +670,12 @@ public class WorkerWrapper implements Runnable {
         List<Scheduler> mSchedulers;
         @NonNull
         WorkerParameters.RuntimeExtras mRuntimeExtras = new WorkerParameters.RuntimeExtras();
+        @Nullable
+        WorkLaneExecutor mWorkLaneExecutor;
+        @Nullable
+        WorkProgressUpdater mProgressUpdater;
+        @Nullable
+        WorkTracer mWorkTracer;
 
         public Builder(@NonNull Context context,
                 @NonNull Configuration configuration,
@@ -665,6 +715,41 @@ public class WorkerWrapper implements Runnable {
             return this;
         }
 
+        /**
+         * @param workLaneExecutor The {@link WorkLaneExecutor} that admits the work; if this is
+         *                         {@code null}, the work starts right away.
+         * @return The instance of {@link Builder} for chaining.
+         */
+        @NonNull
+        public Builder withWorkLaneExecutor(@Nullable WorkLaneExecutor workLaneExecutor) {
+            mWorkLaneExecutor = workLaneExecutor;
+            return this;
+        }
+
+        /**
+         * @param progressUpdater The {@link WorkProgressUpdater} that persists the progress of the
+         *                        {@link Worker}; if this is {@code null}, a
+         *                        {@link WorkProgressUpdater} that writes every update is used.
+         * @return The instance of {@link Builder} for chaining.
+         */
+        @NonNull
+        public Builder withProgressUpdater(@Nullable WorkProgressUpdater progressUpdater) {
+            mProgressUpdater = progressUpdater;
+            return this;
+        }
+
+        /**
+         * @param workTracer The {@link WorkTracer} that keeps track of the execution of the
+         *                   {@link Worker}; if this is {@code null}, a new {@link WorkTracer} is
+         *                   used.
+         * @return The instance of {@link Builder} for chaining.
+         */
+        @NonNull
+        public Builder withWorkTracer(@Nullable WorkTracer workTracer) {
+            mWorkTracer = workTracer;
+            return this;
+        }
+
         /**
          * @param worker The instance of {@link ListenableWorker} to be executed by
          * {@link WorkerWrapper}. Useful in the context of testing.
@@ -21,6 +21,8 @@ import androidx.annotation.RestrictTo;
 import androidx.work.Logger;
 import androidx.work.RunnableScheduler;
 import androidx.work.impl.model.WorkSpec;
+import androidx.work.impl.utils.TimingWheel;
+import androidx.work.impl.utils.TimingWheelScheduler;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -29,6 +31,10 @@ import java.util.Map;
 /**
  * Keeps track of {@link androidx.work.WorkRequest}s that have a timing component in a
  * {@link GreedyScheduler}.
+ * <p>
+ * The delays are kept in a {@link TimingWheelScheduler}, which posts a single wakeup to the
+ * {@link RunnableScheduler} rather than one {@link Runnable} per
+ * {@link androidx.work.WorkRequest}.
  *
  * @hide
  */
@@ -43,16 +49,16 @@ public class DelayedWorkTracker {
     @SuppressWarnings("WeakerAccess")
     final GreedyScheduler mGreedyScheduler;
 
-    private final RunnableScheduler mRunnableScheduler;
-    private final Map<String, Runnable> mRunnables;
+    private final TimingWheelScheduler mTimers;
+    private final Map<String, TimingWheel.Timeout> mTimeouts;
 
     public DelayedWorkTracker(
             @NonNull GreedyScheduler scheduler,
             @NonNull RunnableScheduler runnableScheduler) {
 
         mGreedyScheduler = scheduler;
-        mRunnableScheduler = runnableScheduler;
-        mRunnables = new HashMap<>();
+        mTimers = new TimingWheelScheduler(runnableScheduler);
+        mTimeouts = new HashMap<>();
     }
 
     /**
@@ -63,9 +69,9 @@ public class DelayedWorkTracker {
      * @param workSpec The {@link WorkSpec} corresponding to the {@link androidx.work.WorkRequest}
      */
     public void schedule(@NonNull final WorkSpec workSpec) {
-        Runnable existing = mRunnables.remove(workSpec.id);
+        TimingWheel.Timeout existing = mTimeouts.remove(workSpec.id);
         if (existing != null) {
-            mRunnableScheduler.cancel(existing);
+            mTimers.cancel(existing);
         }
 
         Runnable runnable = new Runnable() {
@@ -76,10 +82,9 @@ public class DelayedWorkTracker {
             }
         };
 
-        mRunnables.put(workSpec.id, runnable);
         long now = System.currentTimeMillis();
         long delay = workSpec.calculateNextRunTime() - now;
-        mRunnableScheduler.scheduleWithDelay(delay, runnable);
+        mTimeouts.put(workSpec.id, mTimers.schedule(delay, runnable));
     }
 
     /**
@@ -88,9 +93,9 @@ public class DelayedWorkTracker {
      * @param workSpecId The {@link androidx.work.WorkRequest} id
      */
     public void unschedule(@NonNull String workSpecId) {
-        Runnable runnable = mRunnables.remove(workSpecId);
-        if (runnable != null) {
-            mRunnableScheduler.cancel(runnable);
+        TimingWheel.Timeout timeout = mTimeouts.remove(workSpecId);
+        if (timeout != null) {
+            mTimers.cancel(timeout);
         }
     }
 }
@@ -34,6 +34,7 @@ import androidx.work.impl.constraints.WorkConstraintsCallback;
 import androidx.work.impl.constraints.WorkConstraintsTracker;
 import androidx.work.impl.model.WorkSpec;
 import androidx.work.impl.utils.ProcessUtils;
+import androidx.work.impl.utils.WorkTracer;
 import androidx.work.impl.utils.taskexecutor.TaskExecutor;
 
 import java.util.HashSet;
@@ -186,10 +187,13 @@ public class GreedyScheduler implements Scheduler, WorkConstraintsCallback, Exec
 
     @Override
     public void onAllConstraintsMet(@NonNull List<String> workSpecIds) {
+        WorkTracer workTracer = mWorkManagerImpl.getWorkTracer();
+        long now = System.currentTimeMillis();
         for (String workSpecId : workSpecIds) {
             Logger.get().debug(
                     TAG,
                     String.format("Constraints met: Scheduling work ID %s", workSpecId));
+            workTracer.onConstraintsMet(workSpecId, now);
             mWorkManagerImpl.startWork(workSpecId);
         }
     }
@@ -34,7 +34,9 @@ import androidx.work.impl.model.WorkSpec;
 import androidx.work.impl.utils.taskexecutor.TaskExecutor;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Tracks {@link WorkSpec}s and their {@link Constraints}, and notifies an optional
@@ -48,6 +50,11 @@ public class WorkConstraintsTracker implements ConstraintController.OnConstraint
     @Nullable private final WorkConstraintsCallback mCallback;
     private final ConstraintController<?>[] mConstraintControllers;
 
+    // The constraint signature of every tracked WorkSpec: a bit mask of the controllers that
+    // track it.  WorkSpecs with the same signature are always met or not met together, so a
+    // change in constraints only needs to be evaluated once per signature.
+    private final Map<String, Integer> mSignatures;
+
     // We need to keep hold a lock here for the cases where there is 1 WCT tracking a list of
     // WorkSpecs. Changes in constraints are notified on the main thread. Enqueues / Cancellations
     // occur on the task executor thread pool. So there is a chance of
@@ -77,6 +84,7 @@ public class WorkConstraintsTracker implements ConstraintController.OnConstraint
                 new NetworkNotRoamingController(appContext, taskExecutor),
                 new NetworkMeteredController(appContext, taskExecutor)
         };
+        mSignatures = new HashMap<>();
         mLock = new Object();
     }
 
@@ -87,6 +95,7 @@ public class WorkConstraintsTracker implements ConstraintController.OnConstraint
 
         mCallback = callback;
         mConstraintControllers = controllers;
+        mSignatures = new HashMap<>();
         mLock = new Object();
     }
 
@@ -106,6 +115,17 @@ public class WorkConstraintsTracker implements ConstraintController.OnConstraint
                 controller.replace(workSpecs);
             }
 
+            mSignatures.clear();
+            for (WorkSpec workSpec : workSpecs) {
+                int signature = 0;
+                for (int i = 0; i < mConstraintControllers.length; i++) {
+                    if (mConstraintControllers[i].isTrackingWorkSpec(workSpec.id)) {
+                        signature |= 1 << i;
+                    }
+                }
+                mSignatures.put(workSpec.id, signature);
+            }
+
             for (ConstraintController<?> controller : mConstraintControllers) {
                 controller.setCallback(this);
             }
@@ -120,6 +140,7 @@ public class WorkConstraintsTracker implements ConstraintController.OnConstraint
             for (ConstraintController<?> controller : mConstraintControllers) {
                 controller.reset();
             }
+            mSignatures.clear();
         }
     }
 
@@ -147,12 +168,28 @@ public class WorkConstraintsTracker implements ConstraintController.OnConstraint
     public void onConstraintMet(@NonNull List<String> workSpecIds) {
         synchronized (mLock) {
             List<String> unconstrainedWorkSpecIds = new ArrayList<>();
+            Map<Integer, Boolean> metBySignature = new HashMap<>();
             for (String workSpecId : workSpecIds) {
-                if (areAllConstraintsMet(workSpecId)) {
-                    Logger.get().debug(TAG, String.format("Constraints met for %s", workSpecId));
+                Integer signature = mSignatures.get(workSpecId);
+                boolean met;
+                if (signature == null) {
+                    met = areAllConstraintsMet(workSpecId);
+                } else {
+                    Boolean signatureMet = metBySignature.get(signature);
+                    if (signatureMet == null) {
+                        signatureMet = areAllConstraintsMet(workSpecId);
+                        metBySignature.put(signature, signatureMet);
+                    }
+                    met = signatureMet;
+                }
+                if (met) {
                     unconstrainedWorkSpecIds.add(workSpecId);
                 }
             }
+            if (!unconstrainedWorkSpecIds.isEmpty()) {
+                Logger.get().debug(TAG,
+                        String.format("Constraints met for %s", unconstrainedWorkSpecIds));
+            }
             if (mCallback != null) {
                 mCallback.onAllConstraintsMet(unconstrainedWorkSpecIds);
             }
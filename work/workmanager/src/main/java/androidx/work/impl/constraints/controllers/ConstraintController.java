@@ -22,7 +22,9 @@ import androidx.work.impl.constraints.trackers.ConstraintTracker;
 import androidx.work.impl.model.WorkSpec;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * A controller for a particular constraint.
@@ -53,6 +55,8 @@ public abstract class ConstraintController<T> implements ConstraintListener<T> {
     }
 
     private final List<String> mMatchingWorkSpecIds = new ArrayList<>();
+    // Mirrors mMatchingWorkSpecIds for constant time lookups.
+    private final Set<String> mMatchingWorkSpecIdSet = new HashSet<>();
 
     private T mCurrentValue;
     private ConstraintTracker<T> mTracker;
@@ -86,9 +90,10 @@ public abstract class ConstraintController<T> implements ConstraintListener<T> {
      */
     public void replace(@NonNull Iterable<WorkSpec> workSpecs) {
         mMatchingWorkSpecIds.clear();
+        mMatchingWorkSpecIdSet.clear();
 
         for (WorkSpec workSpec : workSpecs) {
-            if (hasConstraint(workSpec)) {
+            if (hasConstraint(workSpec) && mMatchingWorkSpecIdSet.add(workSpec.id)) {
                 mMatchingWorkSpecIds.add(workSpec.id);
             }
         }
@@ -107,6 +112,7 @@ public abstract class ConstraintController<T> implements ConstraintListener<T> {
     public void reset() {
         if (!mMatchingWorkSpecIds.isEmpty()) {
             mMatchingWorkSpecIds.clear();
+            mMatchingWorkSpecIdSet.clear();
             mTracker.removeListener(this);
         }
     }
@@ -120,7 +126,17 @@ public abstract class ConstraintController<T> implements ConstraintListener<T> {
      */
     public boolean isWorkSpecConstrained(@NonNull String workSpecId) {
         return mCurrentValue != null && isConstrained(mCurrentValue)
-                && mMatchingWorkSpecIds.contains(workSpecId);
+                && mMatchingWorkSpecIdSet.contains(workSpecId);
+    }
+
+    /**
+     * Determines if a particular {@link WorkSpec} has the constraint of this controller.
+     *
+     * @param workSpecId The ID of the {@link WorkSpec} to check
+     * @return {@code true} if the {@link WorkSpec} is tracked by this controller
+     */
+    public boolean isTrackingWorkSpec(@NonNull String workSpecId) {
+        return mMatchingWorkSpecIdSet.contains(workSpecId);
     }
 
     private void updateCallback(
@@ -52,7 +52,11 @@ import java.util.UUID;
 @Entity(
         indices = {
                 @Index(value = {"schedule_requested_at"}),
-                @Index(value = {"period_start_time"})
+                @Index(value = {"period_start_time"}),
+                // Lets scheduling queries seek to unfinished work, in period_start_time order,
+                // without visiting the history of finished work.
+                @Index(value = {"state", "schedule_requested_at", "period_start_time"}),
+                @Index(value = {"state", "period_start_time"})
         }
 )
 public final class WorkSpec {
@@ -18,6 +18,7 @@ package androidx.work.impl.model;
 
 import static androidx.room.OnConflictStrategy.IGNORE;
 import static androidx.work.impl.model.WorkTypeConverters.StateIds.COMPLETED_STATES;
+import static androidx.work.impl.model.WorkTypeConverters.StateIds.UNFINISHED_STATES;
 
 import android.annotation.SuppressLint;
 
@@ -46,6 +47,14 @@ public interface WorkSpecDao {
     @Insert(onConflict = IGNORE)
     void insertWorkSpec(WorkSpec workSpec);
 
+    /**
+     * Attempts to insert {@link WorkSpec}s into the database.
+     *
+     * @param workSpecs The WorkSpecs to insert.
+     */
+    @Insert(onConflict = IGNORE)
+    void insertWorkSpecs(List<WorkSpec> workSpecs);
+
     /**
      * Deletes {@link WorkSpec}s from the database.
      *
@@ -285,10 +294,17 @@ public interface WorkSpecDao {
      * @return The number of rows that were updated
      */
     @Query("UPDATE workspec SET schedule_requested_at=" + WorkSpec.SCHEDULE_NOT_REQUESTED_YET
-            + " WHERE state NOT IN " + COMPLETED_STATES)
+            + " WHERE state IN " + UNFINISHED_STATES)
     int resetScheduledState();
 
     /**
+     * Returns the {@link WorkSpec}s that are eligible to be scheduled.
+     * <p>
+     * {@code schedule_requested_at} acts as the scheduling cursor: it is set once a
+     * {@link WorkSpec} is handed to the schedulers, and reset whenever it needs to be scheduled
+     * again.  With the {@code (state, schedule_requested_at, period_start_time)} index this only
+     * visits work that is newly enqueued or changed since the last pass, in order.
+     *
      * @return The List of {@link WorkSpec}s that are eligible to be scheduled.
      */
     @Query("SELECT * FROM workspec WHERE "
@@ -300,7 +316,7 @@ public interface WorkSpecDao {
             + " LIMIT "
                 + "(SELECT MAX(:schedulerLimit" + "-COUNT(*), 0) FROM workspec WHERE"
                     + " schedule_requested_at<>" + WorkSpec.SCHEDULE_NOT_REQUESTED_YET
-                    + " AND state NOT IN " + COMPLETED_STATES
+                    + " AND state IN " + UNFINISHED_STATES
                 + ")"
     )
     List<WorkSpec> getEligibleWorkForScheduling(int schedulerLimit);
@@ -359,4 +375,26 @@ public interface WorkSpecDao {
             + "    work_spec_id NOT IN "
             + "        (SELECT id FROM workspec WHERE state IN " + COMPLETED_STATES + "))")
     void pruneFinishedWorkWithZeroDependentsIgnoringKeepForAtLeast();
+
+    /**
+     * Prunes up to {@code batchSize} rows of eligible work from the database meeting the
+     * following criteria:
+     * - Is finished (succeeded, failed, or cancelled)
+     * - Its minimum retention time expired before {@code pruneBefore}
+     * - Has zero unfinished dependents
+     *
+     * @param pruneBefore The time before which the retention time of the work must have expired
+     * @param batchSize   The maximum number of {@link WorkSpec}s to delete
+     * @return The number of {@link WorkSpec}s that were deleted
+     */
+    @Query("DELETE FROM workspec WHERE id IN "
+            + "(SELECT id FROM workspec WHERE "
+            + "state IN " + COMPLETED_STATES
+            + " AND (period_start_time + minimum_retention_duration) < :pruneBefore"
+            + " AND (SELECT COUNT(*)=0 FROM dependency WHERE "
+            + "    prerequisite_id=id AND "
+            + "    work_spec_id NOT IN "
+            + "        (SELECT id FROM workspec WHERE state IN " + COMPLETED_STATES + "))"
+            + " LIMIT :batchSize)")
+    int pruneFinishedWork(long pruneBefore, int batchSize);
 }
@@ -38,6 +38,14 @@ public interface WorkTagDao {
     @Insert(onConflict = IGNORE)
     void insert(WorkTag workTag);
 
+    /**
+     * Inserts {@link WorkTag}s into the table.
+     *
+     * @param workTags The {@link WorkTag}s to insert
+     */
+    @Insert(onConflict = IGNORE)
+    void insert(List<WorkTag> workTags);
+
     /**
      * Retrieves all {@link WorkSpec} ids with the given tag.
      *
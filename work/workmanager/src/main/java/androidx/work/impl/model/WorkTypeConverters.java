@@ -57,6 +57,10 @@ public class WorkTypeConverters {
         int CANCELLED = 5;
 
         String COMPLETED_STATES = "(" + SUCCEEDED + ", " + FAILED + ", " + CANCELLED + ")";
+
+        // The complement of COMPLETED_STATES. Unlike NOT IN, IN can be answered by an index
+        // seek on state.
+        String UNFINISHED_STATES = "(" + ENQUEUED + ", " + RUNNING + ", " + BLOCKED + ")";
     }
 
     /**
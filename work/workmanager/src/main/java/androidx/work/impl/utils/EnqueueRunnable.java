@@ -62,7 +62,8 @@ import java.util.List;
 import java.util.Set;
 
 /**
- * Manages the enqueuing of a {@link WorkContinuationImpl}.
+ * Manages the enqueuing of one or more {@link WorkContinuationImpl}s.  All of them are added to
+ * the database in a single transaction, and scheduled once.
  *
  * @hide
  */
@@ -71,26 +72,35 @@ public class EnqueueRunnable implements Runnable {
 
     private static final String TAG = Logger.tagWithPrefix("EnqueueRunnable");
 
-    private final WorkContinuationImpl mWorkContinuation;
+    private final WorkManagerImpl mWorkManagerImpl;
+    private final List<WorkContinuationImpl> mWorkContinuations;
     private final OperationImpl mOperation;
 
     public EnqueueRunnable(@NonNull WorkContinuationImpl workContinuation) {
-        mWorkContinuation = workContinuation;
+        this(workContinuation.getWorkManagerImpl(), Collections.singletonList(workContinuation));
+    }
+
+    public EnqueueRunnable(
+            @NonNull WorkManagerImpl workManagerImpl,
+            @NonNull List<WorkContinuationImpl> workContinuations) {
+        mWorkManagerImpl = workManagerImpl;
+        mWorkContinuations = workContinuations;
         mOperation = new OperationImpl();
     }
 
     @Override
     public void run() {
         try {
-            if (mWorkContinuation.hasCycles()) {
-                throw new IllegalStateException(
-                        String.format("WorkContinuation has cycles (%s)", mWorkContinuation));
+            for (WorkContinuationImpl workContinuation : mWorkContinuations) {
+                if (workContinuation.hasCycles()) {
+                    throw new IllegalStateException(
+                            String.format("WorkContinuation has cycles (%s)", workContinuation));
+                }
             }
             boolean needsScheduling = addToDatabase();
             if (needsScheduling) {
                 // Enable RescheduleReceiver, only when there are Worker's that need scheduling.
-                final Context context =
-                        mWorkContinuation.getWorkManagerImpl().getApplicationContext();
+                final Context context = mWorkManagerImpl.getApplicationContext();
                 PackageManagerHelper.setComponentEnabled(context, RescheduleReceiver.class, true);
                 scheduleWorkInBackground();
             }
@@ -113,16 +123,31 @@ public class EnqueueRunnable implements Runnable {
      */
     @VisibleForTesting
     public boolean addToDatabase() {
-        WorkManagerImpl workManagerImpl = mWorkContinuation.getWorkManagerImpl();
-        WorkDatabase workDatabase = workManagerImpl.getWorkDatabase();
+        WorkDatabase workDatabase = mWorkManagerImpl.getWorkDatabase();
+        List<String> enqueuedIds = new ArrayList<>();
+        boolean needsScheduling = false;
         workDatabase.beginTransaction();
         try {
-            boolean needsScheduling = processContinuation(mWorkContinuation);
+            for (WorkContinuationImpl workContinuation : mWorkContinuations) {
+                // A continuation may already have been enqueued as the parent of an earlier one.
+                if (!workContinuation.isEnqueued()) {
+                    needsScheduling |= processContinuation(workContinuation, enqueuedIds);
+                } else {
+                    Logger.get().warning(TAG, String.format("Already enqueued work ids (%s).",
+                            TextUtils.join(", ", workContinuation.getIds())));
+                }
+            }
             workDatabase.setTransactionSuccessful();
-            return needsScheduling;
         } finally {
             workDatabase.endTransaction();
         }
+        // Only work that was committed is traced.
+        WorkTracer workTracer = mWorkManagerImpl.getWorkTracer();
+        long now = System.currentTimeMillis();
+        for (String id : enqueuedIds) {
+            workTracer.onEnqueued(id, now);
+        }
+        return needsScheduling;
     }
 
     /**
@@ -130,14 +155,16 @@ public class EnqueueRunnable implements Runnable {
      */
     @VisibleForTesting
     public void scheduleWorkInBackground() {
-        WorkManagerImpl workManager = mWorkContinuation.getWorkManagerImpl();
         Schedulers.schedule(
-                workManager.getConfiguration(),
-                workManager.getWorkDatabase(),
-                workManager.getSchedulers());
+                mWorkManagerImpl.getConfiguration(),
+                mWorkManagerImpl.getWorkDatabase(),
+                mWorkManagerImpl.getSchedulers(),
+                mWorkManagerImpl.getWorkTracer());
     }
 
-    private static boolean processContinuation(@NonNull WorkContinuationImpl workContinuation) {
+    private static boolean processContinuation(
+            @NonNull WorkContinuationImpl workContinuation,
+            @NonNull List<String> enqueuedIds) {
         boolean needsScheduling = false;
         List<WorkContinuationImpl> parents = workContinuation.getParents();
         if (parents != null) {
@@ -145,18 +172,20 @@ public class EnqueueRunnable implements Runnable {
                 // When chaining off a completed continuation we need to pay
                 // attention to parents that may have been marked as enqueued before.
                 if (!parent.isEnqueued()) {
-                    needsScheduling |= processContinuation(parent);
+                    needsScheduling |= processContinuation(parent, enqueuedIds);
                 } else {
                     Logger.get().warning(TAG, String.format("Already enqueued work ids (%s).",
                             TextUtils.join(", ", parent.getIds())));
                 }
             }
         }
-        needsScheduling |= enqueueContinuation(workContinuation);
+        needsScheduling |= enqueueContinuation(workContinuation, enqueuedIds);
         return needsScheduling;
     }
 
-    private static boolean enqueueContinuation(@NonNull WorkContinuationImpl workContinuation) {
+    private static boolean enqueueContinuation(
+            @NonNull WorkContinuationImpl workContinuation,
+            @NonNull List<String> enqueuedIds) {
         Set<String> prerequisiteIds = WorkContinuationImpl.prerequisitesFor(workContinuation);
 
         boolean needsScheduling = enqueueWorkWithPrerequisites(
@@ -164,7 +193,8 @@ public class EnqueueRunnable implements Runnable {
                 workContinuation.getWork(),
                 prerequisiteIds.toArray(new String[0]),
                 workContinuation.getName(),
-                workContinuation.getExistingWorkPolicy());
+                workContinuation.getExistingWorkPolicy(),
+                enqueuedIds);
 
         workContinuation.markEnqueued();
         return needsScheduling;
@@ -173,6 +203,7 @@ public class EnqueueRunnable implements Runnable {
     /**
      * Enqueues the {@link WorkSpec}'s while keeping track of the prerequisites.
      *
+     * @param enqueuedIds Receives the ids of the inserted {@link WorkSpec}s
      * @return {@code true} If there is any scheduling to be done.
      */
     private static boolean enqueueWorkWithPrerequisites(
@@ -180,7 +211,8 @@ public class EnqueueRunnable implements Runnable {
             @NonNull List<? extends WorkRequest> workList,
             String[] prerequisiteIds,
             String name,
-            ExistingWorkPolicy existingWorkPolicy) {
+            ExistingWorkPolicy existingWorkPolicy,
+            @NonNull List<String> enqueuedIds) {
 
         boolean needsScheduling = false;
 
@@ -288,6 +320,12 @@ public class EnqueueRunnable implements Runnable {
             }
         }
 
+        // Rows are collected and inserted in bulk once all WorkSpecs are ready.
+        List<WorkSpec> workSpecs = new ArrayList<>(workList.size());
+        List<Dependency> dependencies = new ArrayList<>();
+        List<WorkTag> workTags = new ArrayList<>();
+        List<WorkName> workNames = new ArrayList<>();
+
         for (WorkRequest work : workList) {
             WorkSpec workSpec = work.getWorkSpec();
 
@@ -330,23 +368,37 @@ public class EnqueueRunnable implements Runnable {
                 needsScheduling = true;
             }
 
-            workDatabase.workSpecDao().insertWorkSpec(workSpec);
+            workSpecs.add(workSpec);
 
             if (hasPrerequisite) {
                 for (String prerequisiteId : prerequisiteIds) {
-                    Dependency dep = new Dependency(work.getStringId(), prerequisiteId);
-                    workDatabase.dependencyDao().insertDependency(dep);
+                    dependencies.add(new Dependency(work.getStringId(), prerequisiteId));
                 }
             }
 
             for (String tag : work.getTags()) {
-                workDatabase.workTagDao().insert(new WorkTag(tag, work.getStringId()));
+                workTags.add(new WorkTag(tag, work.getStringId()));
             }
 
             if (isNamed) {
-                workDatabase.workNameDao().insert(new WorkName(name, work.getStringId()));
+                workNames.add(new WorkName(name, work.getStringId()));
             }
         }
+
+        // WorkSpecs go first, the other tables have foreign keys to them.
+        workDatabase.workSpecDao().insertWorkSpecs(workSpecs);
+        for (WorkSpec workSpec : workSpecs) {
+            enqueuedIds.add(workSpec.id);
+        }
+        if (!dependencies.isEmpty()) {
+            workDatabase.dependencyDao().insertDependencies(dependencies);
+        }
+        if (!workTags.isEmpty()) {
+            workDatabase.workTagDao().insert(workTags);
+        }
+        if (!workNames.isEmpty()) {
+            workDatabase.workNameDao().insert(workNames);
+        }
         return needsScheduling;
     }
 
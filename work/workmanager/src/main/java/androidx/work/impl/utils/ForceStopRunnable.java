@@ -174,7 +174,8 @@ public class ForceStopRunnable implements Runnable {
             Schedulers.schedule(
                     mWorkManager.getConfiguration(),
                     mWorkManager.getWorkDatabase(),
-                    mWorkManager.getSchedulers());
+                    mWorkManager.getSchedulers(),
+                    mWorkManager.getWorkTracer());
         }
         mWorkManager.onForceStopRunnableCompleted();
     }
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl.utils;
+
+import androidx.annotation.RestrictTo;
+
+/**
+ * A histogram of latencies in milliseconds with logarithmic buckets.
+ * <p>
+ * Every power of two is split into four buckets, so a percentile is reported with a relative error
+ * of at most 25%, using a fixed amount of memory regardless of the number of recorded values.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class LatencyHistogram {
+
+    // Values below this are counted exactly.
+    private static final int LINEAR_BUCKETS = 4;
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int BUCKET_COUNT =
+            LINEAR_BUCKETS + (63 - SUB_BUCKET_BITS) * LINEAR_BUCKETS;
+
+    private final long[] mCounts;
+    private long mCount;
+    private long mMax;
+
+    public LatencyHistogram() {
+        mCounts = new long[BUCKET_COUNT];
+    }
+
+    /**
+     * Records a latency.  Negative latencies, for example caused by a change of the system clock,
+     * are recorded as {@code 0}.
+     *
+     * @param latencyMillis The latency in milliseconds
+     */
+    public synchronized void record(long latencyMillis) {
+        long value = Math.max(0L, latencyMillis);
+        mCounts[bucketIndex(value)]++;
+        mCount++;
+        mMax = Math.max(mMax, value);
+    }
+
+    /**
+     * @return The number of recorded latencies
+     */
+    public synchronized long getCount() {
+        return mCount;
+    }
+
+    /**
+     * @return The largest recorded latency in milliseconds, or {@code 0} if none were recorded
+     */
+    public synchronized long getMaxMillis() {
+        return mMax;
+    }
+
+    /**
+     * Gets an upper bound of the latency at the given percentile.
+     *
+     * @param percentile The percentile, between {@code 0} and {@code 100}
+     * @return The latency in milliseconds, or {@code 0} if none were recorded
+     */
+    public synchronized long getPercentileMillis(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100.");
+        }
+        if (mCount == 0) {
+            return 0L;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(mCount * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += mCounts[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), mMax);
+            }
+        }
+        return mMax;
+    }
+
+    /**
+     * Removes all the recorded latencies.
+     */
+    public synchronized void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mCounts[i] = 0;
+        }
+        mCount = 0;
+        mMax = 0;
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (LINEAR_BUCKETS - 1);
+        return LINEAR_BUCKETS + shift * LINEAR_BUCKETS + subBucket;
+    }
+
+    private static long bucketUpperBound(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int shift = (index - LINEAR_BUCKETS) / LINEAR_BUCKETS;
+        int subBucket = (index - LINEAR_BUCKETS) % LINEAR_BUCKETS;
+        long lowerBound = (long) (LINEAR_BUCKETS + subBucket) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
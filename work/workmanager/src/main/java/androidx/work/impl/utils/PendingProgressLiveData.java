@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl.utils;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+import androidx.lifecycle.Observer;
+import androidx.work.Data;
+import androidx.work.WorkInfo;
+import androidx.work.impl.model.WorkSpec;
+import androidx.work.impl.utils.taskexecutor.TaskExecutor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link LiveData} of {@link WorkSpec.WorkInfoPojo}s that carries the progress of running work
+ * which a {@link WorkProgressUpdater} has coalesced but not persisted yet, so that observers in
+ * the same process do not wait for the database write.  It emits again whenever the progress of
+ * one of its units of work is updated.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class PendingProgressLiveData extends MediatorLiveData<List<WorkSpec.WorkInfoPojo>>
+        implements WorkProgressUpdater.ProgressListener {
+
+    private final WorkProgressUpdater mProgressUpdater;
+    private final TaskExecutor mTaskExecutor;
+    private final Runnable mRefresh;
+
+    // Only accessed on the main thread.
+    private List<WorkSpec.WorkInfoPojo> mInput;
+    // The ids of mInput, read on the threads of the workers.
+    private volatile Set<String> mWorkSpecIds;
+
+    /**
+     * @param inputLiveData   The {@link LiveData} of {@link WorkSpec.WorkInfoPojo}s read from the
+     *                        database
+     * @param progressUpdater The {@link WorkProgressUpdater} of this process
+     * @param taskExecutor    The {@link TaskExecutor} used to emit on the main thread
+     */
+    public PendingProgressLiveData(
+            @NonNull LiveData<List<WorkSpec.WorkInfoPojo>> inputLiveData,
+            @NonNull WorkProgressUpdater progressUpdater,
+            @NonNull TaskExecutor taskExecutor) {
+        mProgressUpdater = progressUpdater;
+        mTaskExecutor = taskExecutor;
+        mWorkSpecIds = Collections.emptySet();
+        mRefresh = new Runnable() {
+            @Override
+            public void run() {
+                refresh();
+            }
+        };
+        addSource(inputLiveData, new Observer<List<WorkSpec.WorkInfoPojo>>() {
+            @Override
+            public void onChanged(@Nullable List<WorkSpec.WorkInfoPojo> input) {
+                setInput(input);
+            }
+        });
+    }
+
+    @Override
+    public void onProgressUpdated(@NonNull String workSpecId, @NonNull Data progress) {
+        if (mWorkSpecIds.contains(workSpecId)) {
+            // Re-read the pending progress on the main thread, so that emissions stay ordered.
+            mTaskExecutor.postToMainThread(mRefresh);
+        }
+    }
+
+    @Override
+    protected void onActive() {
+        super.onActive();
+        mProgressUpdater.addProgressListener(this);
+        // Progress may have been updated while inactive.
+        refresh();
+    }
+
+    @Override
+    protected void onInactive() {
+        super.onInactive();
+        mProgressUpdater.removeProgressListener(this);
+    }
+
+    // Synthetic access
+    @MainThread
+    void setInput(@Nullable List<WorkSpec.WorkInfoPojo> input) {
+        mInput = input;
+        Set<String> workSpecIds = new HashSet<>();
+        if (input != null) {
+            for (WorkSpec.WorkInfoPojo pojo : input) {
+                workSpecIds.add(pojo.id);
+            }
+        }
+        mWorkSpecIds = workSpecIds;
+        setValue(withPendingProgress(input));
+    }
+
+    // Synthetic access
+    @MainThread
+    void refresh() {
+        List<WorkSpec.WorkInfoPojo> output = withPendingProgress(mInput);
+        // Without pending progress, the input is emitted as is; don't emit it twice.
+        if (output != getValue()) {
+            setValue(output);
+        }
+    }
+
+    @Nullable
+    private List<WorkSpec.WorkInfoPojo> withPendingProgress(
+            @Nullable List<WorkSpec.WorkInfoPojo> input) {
+        if (input == null) {
+            return null;
+        }
+        List<WorkSpec.WorkInfoPojo> output = null;
+        for (int i = 0; i < input.size(); i++) {
+            WorkSpec.WorkInfoPojo pojo = input.get(i);
+            if (pojo.state != WorkInfo.State.RUNNING) {
+                continue;
+            }
+            Data progress = mProgressUpdater.getPendingProgress(pojo.id);
+            if (progress == null) {
+                continue;
+            }
+            if (output == null) {
+                // Copy on write, the database pojos are left untouched.
+                output = new ArrayList<>(input);
+            }
+            output.set(i, copyWithProgress(pojo, progress));
+        }
+        return output == null ? input : output;
+    }
+
+    @NonNull
+    private static WorkSpec.WorkInfoPojo copyWithProgress(
+            @NonNull WorkSpec.WorkInfoPojo pojo,
+            @NonNull Data progress) {
+        WorkSpec.WorkInfoPojo copy = new WorkSpec.WorkInfoPojo();
+        copy.id = pojo.id;
+        copy.state = pojo.state;
+        copy.output = pojo.output;
+        copy.runAttemptCount = pojo.runAttemptCount;
+        copy.tags = pojo.tags;
+        copy.progress = Collections.singletonList(progress);
+        return copy;
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A hierarchical timing wheel.
+ * <p>
+ * Time is divided into ticks of a fixed duration.  Timers are kept in {@code LEVELS} wheels of
+ * {@code WHEEL_SIZE} slots each; a slot of level {@code n} spans {@code WHEEL_SIZE^n} ticks.
+ * When a slot of a higher level comes due, its timers cascade down to the lower levels.
+ * Scheduling and cancelling a timer take constant time, and all timers of a tick expire
+ * together.  Deadlines are rounded up to the next tick.
+ * <p>
+ * This class is not thread-safe.  See {@link TimingWheelScheduler} for a thread-safe scheduler
+ * on top of it.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class TimingWheel {
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+    // The number of ticks the wheels can represent.  Timers that are further out are parked in
+    // the last slot of the top level and cascade again when it comes due.
+    private static final long MAX_SPAN = 1L << (WHEEL_BITS * LEVELS);
+
+    private final long mTickMillis;
+    private final long mOriginMillis;
+    private final Timeout[][] mSlots;
+    private final int[] mLevelSizes;
+    // All ticks up to and including this one have expired.
+    private long mCurrentTick;
+    private int mSize;
+
+    /**
+     * @param tickMillis   The duration of a tick in milliseconds
+     * @param originMillis The current time in milliseconds
+     */
+    public TimingWheel(long tickMillis, long originMillis) {
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("The tick duration must be at least 1ms.");
+        }
+        mTickMillis = tickMillis;
+        mOriginMillis = originMillis;
+        mSlots = new Timeout[LEVELS][WHEEL_SIZE];
+        mLevelSizes = new int[LEVELS];
+        mCurrentTick = 0;
+        mSize = 0;
+    }
+
+    /**
+     * @return The number of pending timers
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Schedules a timer.
+     *
+     * @param deadlineMillis The time at which the timer expires, in the same time base as the
+     *                       origin
+     * @param task           The {@link Runnable} returned by {@link #expire(long)} when the
+     *                       timer expires
+     * @return The {@link Timeout} that can be used to cancel the timer
+     */
+    @NonNull
+    public Timeout schedule(long deadlineMillis, @NonNull Runnable task) {
+        long deadlineTick = divideRoundingUp(deadlineMillis - mOriginMillis, mTickMillis);
+        Timeout timeout = new Timeout(Math.max(deadlineTick, mCurrentTick + 1), task);
+        insert(timeout);
+        mSize++;
+        return timeout;
+    }
+
+    /**
+     * Cancels a timer.
+     *
+     * @param timeout The {@link Timeout} returned by {@link #schedule(long, Runnable)}
+     * @return {@code true} if the timer was pending
+     */
+    public boolean cancel(@NonNull Timeout timeout) {
+        if (timeout.mLevel < 0) {
+            return false;
+        }
+        unlink(timeout);
+        mSize--;
+        return true;
+    }
+
+    /**
+     * Advances the wheel and returns the tasks of all timers that expired by {@code nowMillis},
+     * tick by tick.
+     *
+     * @param nowMillis The current time in milliseconds
+     * @return The tasks of the expired timers
+     */
+    @NonNull
+    public List<Runnable> expire(long nowMillis) {
+        long targetTick = divideRoundingDown(nowMillis - mOriginMillis, mTickMillis);
+        List<Runnable> expired = new ArrayList<>();
+        while (mCurrentTick < targetTick) {
+            if (mSize == 0) {
+                mCurrentTick = targetTick;
+                break;
+            }
+            // Skip the ticks at which nothing can expire or cascade.
+            int level = 0;
+            while (mLevelSizes[level] == 0) {
+                level++;
+            }
+            if (level > 0) {
+                long boundary = ((mCurrentTick >> (WHEEL_BITS * level)) + 1)
+                        << (WHEEL_BITS * level);
+                mCurrentTick = Math.min(targetTick, boundary) - 1;
+            }
+            tick(expired);
+        }
+        return expired;
+    }
+
+    /**
+     * @return The time in milliseconds at which the wheel next needs to be advanced, or
+     * {@link Long#MAX_VALUE} if there are no pending timers
+     */
+    public long getNextExpiryMillis() {
+        if (mSize == 0) {
+            return Long.MAX_VALUE;
+        }
+        long nextTick = Long.MAX_VALUE;
+        for (int level = 0; level < LEVELS; level++) {
+            if (mLevelSizes[level] == 0) {
+                continue;
+            }
+            int shift = WHEEL_BITS * level;
+            long current = mCurrentTick >> shift;
+            for (int i = 1; i <= WHEEL_SIZE; i++) {
+                if (mSlots[level][(int) ((current + i) & WHEEL_MASK)] != null) {
+                    // Timers of level 0 expire at that tick, the others cascade.
+                    nextTick = Math.min(nextTick, (current + i) << shift);
+                    break;
+                }
+            }
+        }
+        return mOriginMillis + nextTick * mTickMillis;
+    }
+
+    private void tick(@NonNull List<Runnable> expired) {
+        long tick = ++mCurrentTick;
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = WHEEL_BITS * level;
+            if ((tick & ((1L << shift) - 1)) != 0) {
+                break;
+            }
+            cascade(level, (int) ((tick >> shift) & WHEEL_MASK));
+        }
+        int slot = (int) (tick & WHEEL_MASK);
+        Timeout timeout = mSlots[0][slot];
+        mSlots[0][slot] = null;
+        while (timeout != null) {
+            Timeout next = timeout.mNext;
+            mLevelSizes[0]--;
+            timeout.mLevel = -1;
+            timeout.mPrevious = null;
+            timeout.mNext = null;
+            if (timeout.mDeadlineTick <= tick) {
+                mSize--;
+                expired.add(timeout.mTask);
+            } else {
+                insert(timeout);
+            }
+            timeout = next;
+        }
+    }
+
+    private void cascade(int level, int slot) {
+        Timeout timeout = mSlots[level][slot];
+        mSlots[level][slot] = null;
+        while (timeout != null) {
+            Timeout next = timeout.mNext;
+            mLevelSizes[level]--;
+            timeout.mPrevious = null;
+            timeout.mNext = null;
+            insert(timeout);
+            timeout = next;
+        }
+    }
+
+    private void insert(@NonNull Timeout timeout) {
+        // Timers cascade before the current tick expires, so they can be due at the current tick.
+        long deadlineTick = Math.max(timeout.mDeadlineTick, mCurrentTick);
+        long delta = deadlineTick - mCurrentTick;
+        if (delta >= MAX_SPAN) {
+            deadlineTick = mCurrentTick + MAX_SPAN - 1;
+            delta = MAX_SPAN - 1;
+        }
+        int level = 0;
+        while (delta >= (1L << (WHEEL_BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = (int) ((deadlineTick >> (WHEEL_BITS * level)) & WHEEL_MASK);
+        Timeout head = mSlots[level][slot];
+        timeout.mLevel = level;
+        timeout.mSlot = slot;
+        timeout.mNext = head;
+        if (head != null) {
+            head.mPrevious = timeout;
+        }
+        mSlots[level][slot] = timeout;
+        mLevelSizes[level]++;
+    }
+
+    private void unlink(@NonNull Timeout timeout) {
+        if (timeout.mPrevious != null) {
+            timeout.mPrevious.mNext = timeout.mNext;
+        } else {
+            mSlots[timeout.mLevel][timeout.mSlot] = timeout.mNext;
+        }
+        if (timeout.mNext != null) {
+            timeout.mNext.mPrevious = timeout.mPrevious;
+        }
+        mLevelSizes[timeout.mLevel]--;
+        timeout.mLevel = -1;
+        timeout.mPrevious = null;
+        timeout.mNext = null;
+    }
+
+    private static long divideRoundingDown(long dividend, long divisor) {
+        return dividend >= 0 ? dividend / divisor : -((divisor - 1 - dividend) / divisor);
+    }
+
+    private static long divideRoundingUp(long dividend, long divisor) {
+        return -divideRoundingDown(-dividend, divisor);
+    }
+
+    /**
+     * A handle to a timer scheduled in a {@link TimingWheel}.
+     *
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public static final class Timeout {
+        final long mDeadlineTick;
+        final Runnable mTask;
+        // The level of the wheel the timer is in, or -1 once it expired or was cancelled.
+        int mLevel;
+        int mSlot;
+        @Nullable
+        Timeout mPrevious;
+        @Nullable
+        Timeout mNext;
+
+        Timeout(long deadlineTick, @NonNull Runnable task) {
+            mDeadlineTick = deadlineTick;
+            mTask = task;
+            mLevel = -1;
+        }
+
+        /**
+         * @return {@code true} if the timer has neither expired nor been cancelled
+         */
+        public boolean isPending() {
+            return mLevel >= 0;
+        }
+    }
+}
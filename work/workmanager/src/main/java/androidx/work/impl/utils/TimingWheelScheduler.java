@@ -0,0 +1,139 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+import androidx.annotation.VisibleForTesting;
+import androidx.work.RunnableScheduler;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules {@link Runnable}s on a {@link TimingWheel}.
+ * <p>
+ * Instead of posting every {@link Runnable} to the {@link RunnableScheduler}, only a single
+ * wakeup is posted for the earliest pending deadline.  Timers that expire at the same tick run
+ * together on that wakeup, and cancelling a timer does not touch the {@link RunnableScheduler}.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class TimingWheelScheduler {
+
+    /**
+     * The default duration of a tick in milliseconds.
+     */
+    public static final long DEFAULT_TICK_MILLIS = 10L;
+
+    private final RunnableScheduler mRunnableScheduler;
+    private final TimingWheel mWheel;
+    private final Runnable mWakeup;
+    private final Object mLock;
+    // The time at which mWakeup is scheduled, or Long.MAX_VALUE.
+    private long mWakeupMillis;
+
+    public TimingWheelScheduler(@NonNull RunnableScheduler runnableScheduler) {
+        this(runnableScheduler, DEFAULT_TICK_MILLIS);
+    }
+
+    public TimingWheelScheduler(@NonNull RunnableScheduler runnableScheduler, long tickMillis) {
+        mRunnableScheduler = runnableScheduler;
+        mWheel = new TimingWheel(tickMillis, currentTimeMillis());
+        mLock = new Object();
+        mWakeupMillis = Long.MAX_VALUE;
+        mWakeup = new Runnable() {
+            @Override
+            public void run() {
+                onWakeup();
+            }
+        };
+    }
+
+    /**
+     * Schedules a {@link Runnable} to run after a delay.
+     *
+     * @param delayMillis The delay in milliseconds
+     * @param runnable    The {@link Runnable} to run
+     * @return The {@link TimingWheel.Timeout} that can be used to cancel the {@link Runnable}
+     */
+    @NonNull
+    public TimingWheel.Timeout schedule(long delayMillis, @NonNull Runnable runnable) {
+        synchronized (mLock) {
+            long now = currentTimeMillis();
+            TimingWheel.Timeout timeout =
+                    mWheel.schedule(now + Math.max(0L, delayMillis), runnable);
+            updateWakeup(now);
+            return timeout;
+        }
+    }
+
+    /**
+     * Cancels a {@link Runnable} if it has not run yet.
+     *
+     * @param timeout The {@link TimingWheel.Timeout} returned by {@link #schedule(long, Runnable)}
+     * @return {@code true} if the {@link Runnable} was pending
+     */
+    public boolean cancel(@NonNull TimingWheel.Timeout timeout) {
+        synchronized (mLock) {
+            // A wakeup that is no longer needed is left in place; it finds nothing to run.
+            return mWheel.cancel(timeout);
+        }
+    }
+
+    /**
+     * @return The number of pending {@link Runnable}s
+     */
+    public int size() {
+        synchronized (mLock) {
+            return mWheel.size();
+        }
+    }
+
+    // Synthetic access
+    void onWakeup() {
+        List<Runnable> expired;
+        synchronized (mLock) {
+            mWakeupMillis = Long.MAX_VALUE;
+            long now = currentTimeMillis();
+            expired = mWheel.expire(now);
+            updateWakeup(now);
+        }
+        for (Runnable runnable : expired) {
+            runnable.run();
+        }
+    }
+
+    @VisibleForTesting
+    long currentTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    private void updateWakeup(long now) {
+        long next = mWheel.getNextExpiryMillis();
+        if (next >= mWakeupMillis) {
+            // An earlier wakeup is already scheduled.
+            return;
+        }
+        if (mWakeupMillis != Long.MAX_VALUE) {
+            mRunnableScheduler.cancel(mWakeup);
+        }
+        mWakeupMillis = next;
+        mRunnableScheduler.scheduleWithDelay(Math.max(0L, next - now), mWakeup);
+    }
+}
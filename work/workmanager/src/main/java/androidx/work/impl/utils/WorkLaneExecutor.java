@@ -0,0 +1,319 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+import androidx.work.Configuration;
+import androidx.work.WorkLaneMetrics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admits units of work to run in priority lanes, in front of the start of their
+ * {@link androidx.work.ListenableWorker}s.
+ * <p>
+ * At most {@code parallelism} units of work run at any time.  A unit of work occupies its slot
+ * from the moment it is admitted until it has finished, however many tasks its worker runs on
+ * its background {@link Executor}, which is never throttled.  Free slots always admit work from
+ * the {@link #LANE_PRIORITY} lane first and steal from the {@link #LANE_DEFAULT} lane when it is
+ * empty.  When there are priority tags and at least three slots, default work can occupy all but
+ * one of them, so priority work never waits behind a full pool.  Work with a tag that has a
+ * concurrency limit is held back while that many units of work with the same tag are running.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class WorkLaneExecutor {
+
+    /**
+     * The lane for work that has at least one of the priority tags.
+     */
+    public static final int LANE_PRIORITY = 0;
+
+    /**
+     * The lane for all other work.
+     */
+    public static final int LANE_DEFAULT = 1;
+
+    private static final int LANE_COUNT = 2;
+
+    // Keeping a slot free for priority work only pays off when default work keeps at least two.
+    private static final int MIN_PARALLELISM_FOR_RESERVED_SLOT = 3;
+
+    private final Executor mExecutor;
+    private final int mParallelism;
+    private final int mDefaultLaneParallelism;
+    private final Set<String> mPriorityTags;
+    private final Map<String, Integer> mTagLimits;
+
+    private final Object mLock;
+    private final List<ArrayDeque<Task>> mQueues;
+    private final Map<String, Integer> mRunningPerTag;
+    private final int[] mRunning;
+
+    // Metrics, guarded by mLock.
+    private final long[] mDispatched;
+    private final long[] mTotalWaitNanos;
+    private final long[] mMaxWaitNanos;
+
+    /**
+     * @param executor     The {@link Executor} that runs the start of admitted work
+     * @param parallelism  The maximum number of units of work that run at the same time
+     * @param priorityTags The tags of work that runs in the {@link #LANE_PRIORITY} lane
+     * @param tagLimits    The maximum number of concurrently running units of work per tag
+     */
+    public WorkLaneExecutor(
+            @NonNull Executor executor,
+            int parallelism,
+            @NonNull Set<String> priorityTags,
+            @NonNull Map<String, Integer> tagLimits) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        mExecutor = executor;
+        mParallelism = parallelism;
+        mDefaultLaneParallelism =
+                !priorityTags.isEmpty() && parallelism >= MIN_PARALLELISM_FOR_RESERVED_SLOT
+                        ? parallelism - 1
+                        : parallelism;
+        mPriorityTags = new HashSet<>(priorityTags);
+        mTagLimits = new HashMap<>(tagLimits);
+        mLock = new Object();
+        mQueues = new ArrayList<>(LANE_COUNT);
+        for (int i = 0; i < LANE_COUNT; i++) {
+            mQueues.add(new ArrayDeque<Task>());
+        }
+        mRunningPerTag = new HashMap<>();
+        mRunning = new int[LANE_COUNT];
+        mDispatched = new long[LANE_COUNT];
+        mTotalWaitNanos = new long[LANE_COUNT];
+        mMaxWaitNanos = new long[LANE_COUNT];
+    }
+
+    /**
+     * Returns the number of units of work that can run at the same time for the given
+     * {@link Configuration}: the maximum size of its {@link Configuration#getExecutor()} if that
+     * is a {@link ThreadPoolExecutor}, as the default one is, and otherwise its
+     * {@link Configuration#getMaxSchedulerLimit()}.
+     *
+     * @param configuration The {@link Configuration} of WorkManager
+     * @return The number of units of work that can run at the same time
+     */
+    public static int getParallelism(@NonNull Configuration configuration) {
+        Executor executor = configuration.getExecutor();
+        if (executor instanceof ThreadPoolExecutor) {
+            return Math.max(1, ((ThreadPoolExecutor) executor).getMaximumPoolSize());
+        }
+        return configuration.getMaxSchedulerLimit();
+    }
+
+    /**
+     * Queues a unit of work with the given tags.  Once it is admitted, {@code start} runs on the
+     * {@link Executor} of this instance and the work occupies a slot until the returned
+     * {@link Runnable} is run.
+     *
+     * @param tags  The tags of the unit of work
+     * @param start Starts the unit of work
+     * @return A {@link Runnable} to run once the unit of work has finished.  It frees the slot of
+     * the work, or removes the work from its lane if it has not been admitted yet.
+     */
+    @NonNull
+    public Runnable startWork(@NonNull Collection<String> tags, @NonNull Runnable start) {
+        int lane = LANE_DEFAULT;
+        Set<String> limitedTags = null;
+        for (String tag : tags) {
+            if (mPriorityTags.contains(tag)) {
+                lane = LANE_PRIORITY;
+            }
+            if (mTagLimits.containsKey(tag)) {
+                if (limitedTags == null) {
+                    limitedTags = new HashSet<>();
+                }
+                limitedTags.add(tag);
+            }
+        }
+        if (limitedTags == null) {
+            limitedTags = Collections.emptySet();
+        }
+        Task task = new Task(this, lane, limitedTags, start, System.nanoTime());
+        List<Task> admitted;
+        synchronized (mLock) {
+            mQueues.get(lane).add(task);
+            admitted = admitLocked();
+        }
+        dispatch(admitted);
+        return task;
+    }
+
+    /**
+     * Returns a snapshot of the metrics of a lane.
+     *
+     * @param lane One of {@link #LANE_PRIORITY} or {@link #LANE_DEFAULT}
+     * @return The {@link WorkLaneMetrics} of {@code lane}
+     */
+    @NonNull
+    public WorkLaneMetrics getMetrics(int lane) {
+        synchronized (mLock) {
+            return new WorkLaneMetrics(
+                    mQueues.get(lane).size(),
+                    mRunning[lane],
+                    mDispatched[lane],
+                    TimeUnit.NANOSECONDS.toMillis(mTotalWaitNanos[lane]),
+                    TimeUnit.NANOSECONDS.toMillis(mMaxWaitNanos[lane]));
+        }
+    }
+
+    // Synthetic access
+    void finish(@NonNull Task task) {
+        List<Task> admitted;
+        synchronized (mLock) {
+            if (task.mState == Task.STATE_QUEUED) {
+                mQueues.get(task.mLane).remove(task);
+                task.mState = Task.STATE_FINISHED;
+                return;
+            }
+            if (task.mState != Task.STATE_RUNNING) {
+                return;
+            }
+            task.mState = Task.STATE_FINISHED;
+            mRunning[task.mLane]--;
+            for (String tag : task.mLimitedTags) {
+                int running = mRunningPerTag.get(tag) - 1;
+                if (running == 0) {
+                    mRunningPerTag.remove(tag);
+                } else {
+                    mRunningPerTag.put(tag, running);
+                }
+            }
+            admitted = admitLocked();
+        }
+        dispatch(admitted);
+    }
+
+    private void dispatch(@NonNull List<Task> admitted) {
+        for (Task task : admitted) {
+            mExecutor.execute(task.mStart);
+        }
+    }
+
+    /**
+     * Admits queued work while there are free slots, and returns the admitted work.
+     */
+    @NonNull
+    private List<Task> admitLocked() {
+        List<Task> admitted = Collections.emptyList();
+        while (mRunning[LANE_PRIORITY] + mRunning[LANE_DEFAULT] < mParallelism) {
+            Task task = pollLocked(LANE_PRIORITY);
+            if (task == null && mRunning[LANE_DEFAULT] < mDefaultLaneParallelism) {
+                task = pollLocked(LANE_DEFAULT);
+            }
+            if (task == null) {
+                break;
+            }
+            startLocked(task);
+            if (admitted.isEmpty()) {
+                admitted = new ArrayList<>();
+            }
+            admitted.add(task);
+        }
+        return admitted;
+    }
+
+    private Task pollLocked(int lane) {
+        Iterator<Task> iterator = mQueues.get(lane).iterator();
+        while (iterator.hasNext()) {
+            Task task = iterator.next();
+            if (isAllowedLocked(task)) {
+                iterator.remove();
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private boolean isAllowedLocked(@NonNull Task task) {
+        for (String tag : task.mLimitedTags) {
+            Integer running = mRunningPerTag.get(tag);
+            if (running != null && running >= mTagLimits.get(tag)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void startLocked(@NonNull Task task) {
+        task.mState = Task.STATE_RUNNING;
+        mRunning[task.mLane]++;
+        for (String tag : task.mLimitedTags) {
+            Integer running = mRunningPerTag.get(tag);
+            mRunningPerTag.put(tag, running == null ? 1 : running + 1);
+        }
+        long waitNanos = System.nanoTime() - task.mEnqueueTimeNanos;
+        mDispatched[task.mLane]++;
+        mTotalWaitNanos[task.mLane] += waitNanos;
+        mMaxWaitNanos[task.mLane] = Math.max(mMaxWaitNanos[task.mLane], waitNanos);
+    }
+
+    /**
+     * A queued or running unit of work along with the lane and tag limits it is subject to.
+     * Running it finishes the work.
+     */
+    static final class Task implements Runnable {
+        static final int STATE_QUEUED = 0;
+        static final int STATE_RUNNING = 1;
+        static final int STATE_FINISHED = 2;
+
+        private final WorkLaneExecutor mWorkLaneExecutor;
+        final int mLane;
+        final Set<String> mLimitedTags;
+        final Runnable mStart;
+        final long mEnqueueTimeNanos;
+        // Guarded by the lock of mWorkLaneExecutor.
+        int mState;
+
+        Task(@NonNull WorkLaneExecutor workLaneExecutor,
+                int lane,
+                @NonNull Set<String> limitedTags,
+                @NonNull Runnable start,
+                long enqueueTimeNanos) {
+            mWorkLaneExecutor = workLaneExecutor;
+            mLane = lane;
+            mLimitedTags = limitedTags;
+            mStart = start;
+            mEnqueueTimeNanos = enqueueTimeNanos;
+            mState = STATE_QUEUED;
+        }
+
+        @Override
+        public void run() {
+            mWorkLaneExecutor.finish(this);
+        }
+    }
+}
@@ -19,11 +19,15 @@ package androidx.work.impl.utils;
 import android.content.Context;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
+import androidx.annotation.WorkerThread;
 import androidx.work.Data;
 import androidx.work.Logger;
 import androidx.work.ProgressUpdater;
+import androidx.work.RunnableScheduler;
 import androidx.work.WorkInfo.State;
+import androidx.work.WorkProgressMetrics;
 import androidx.work.impl.WorkDatabase;
 import androidx.work.impl.model.WorkProgress;
 import androidx.work.impl.model.WorkSpec;
@@ -33,10 +37,24 @@ import androidx.work.impl.utils.taskexecutor.TaskExecutor;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
  * Persists {@link androidx.work.ListenableWorker} progress in a {@link WorkDatabase}.
+ * <p>
+ * When a minimum update interval is set, progress of a unit of work is persisted at most once per
+ * interval.  The first update in an interval is persisted right away; later ones are coalesced,
+ * and only the last value is persisted when the interval ends.  The futures of coalesced updates
+ * complete once the write that carries their value has finished.  {@link ProgressListener}s in
+ * the same process are notified of every update, including coalesced ones, and
+ * {@link #getPendingProgress(String)} returns coalesced progress until it is persisted; this is
+ * how {@link androidx.work.WorkInfo} {@code LiveData} of the same process sees it early.
  *
  * @hide
  */
@@ -55,59 +73,309 @@ public class WorkProgressUpdater implements ProgressUpdater {
     @SuppressWarnings("WeakerAccess")
     final TaskExecutor mTaskExecutor;
 
+    private final RunnableScheduler mRunnableScheduler;
+    private final long mMinimumIntervalMillis;
+
+    private final Object mLock;
+    // The latest coalesced progress of work that has a write scheduled.
+    private final Map<String, PendingProgress> mPendingProgress;
+    // The times of the writes within the last interval, oldest first.
+    private final LinkedHashMap<String, Long> mLastWriteTimes;
+    private final List<ProgressListener> mListeners;
+
+    private long mPersistedCount;
+    private long mCoalescedCount;
+    private long mDroppedCount;
+
     public WorkProgressUpdater(
             @NonNull WorkDatabase workDatabase,
             @NonNull TaskExecutor taskExecutor) {
+        this(workDatabase, taskExecutor, null, 0L);
+    }
+
+    /**
+     * @param workDatabase          The {@link WorkDatabase} progress is persisted in
+     * @param taskExecutor          The {@link TaskExecutor} used for database writes
+     * @param runnableScheduler     The {@link RunnableScheduler} used to persist coalesced
+     *                              progress; only required if {@code minimumIntervalMillis > 0}
+     * @param minimumIntervalMillis The minimum time between two writes of the progress of a
+     *                              unit of work, or {@code 0} to persist every update
+     */
+    public WorkProgressUpdater(
+            @NonNull WorkDatabase workDatabase,
+            @NonNull TaskExecutor taskExecutor,
+            @Nullable RunnableScheduler runnableScheduler,
+            long minimumIntervalMillis) {
+        if (minimumIntervalMillis > 0 && runnableScheduler == null) {
+            throw new IllegalArgumentException(
+                    "A RunnableScheduler is required to coalesce progress updates");
+        }
         mWorkDatabase = workDatabase;
         mTaskExecutor = taskExecutor;
+        mRunnableScheduler = runnableScheduler;
+        mMinimumIntervalMillis = minimumIntervalMillis;
+        mLock = new Object();
+        mPendingProgress = new HashMap<>();
+        mLastWriteTimes = new LinkedHashMap<>();
+        mListeners = new ArrayList<>();
     }
 
     @NonNull
     @Override
     public ListenableFuture<Void> updateProgress(
             @NonNull final Context context,
-            @NonNull final UUID id,
+            @NonNull UUID id,
+            @NonNull Data data) {
+        String workSpecId = id.toString();
+        ListenableFuture<Void> future = enqueueProgress(workSpecId, data);
+        // Listeners see the update only once getPendingProgress() returns it.
+        notifyListeners(workSpecId, data);
+        return future;
+    }
+
+    @NonNull
+    private ListenableFuture<Void> enqueueProgress(
+            @NonNull final String workSpecId,
             @NonNull final Data data) {
         final SettableFuture<Void> future = SettableFuture.create();
+        if (mMinimumIntervalMillis > 0) {
+            synchronized (mLock) {
+                PendingProgress pending = mPendingProgress.get(workSpecId);
+                if (pending != null) {
+                    // Last value wins.
+                    pending.mData = data;
+                    pending.mFutures.add(future);
+                    mCoalescedCount++;
+                    return future;
+                }
+                long now = System.currentTimeMillis();
+                pruneWriteTimesLocked(now);
+                Long lastWriteTime = mLastWriteTimes.get(workSpecId);
+                long delay = lastWriteTime == null
+                        ? 0L : lastWriteTime + mMinimumIntervalMillis - now;
+                if (delay > 0) {
+                    pending = new PendingProgress(data);
+                    pending.mFutures.add(future);
+                    mPendingProgress.put(workSpecId, pending);
+                    mRunnableScheduler.scheduleWithDelay(delay, new Runnable() {
+                        @Override
+                        public void run() {
+                            // The RunnableScheduler typically runs on the main thread.
+                            mTaskExecutor.executeOnBackgroundThread(new Runnable() {
+                                @Override
+                                public void run() {
+                                    flush(workSpecId);
+                                }
+                            });
+                        }
+                    });
+                    return future;
+                }
+                putWriteTimeLocked(workSpecId, now);
+            }
+        }
+
         mTaskExecutor.executeOnBackgroundThread(new Runnable() {
             @Override
             public void run() {
-                String workSpecId = id.toString();
-                Logger.get().debug(TAG, String.format("Updating progress for %s (%s)", id, data));
-                mWorkDatabase.beginTransaction();
+                Logger.get().debug(TAG,
+                        String.format("Updating progress for %s (%s)", workSpecId, data));
                 try {
-                    WorkSpecDao workSpecDao = mWorkDatabase.workSpecDao();
-                    WorkSpec workSpec = workSpecDao.getWorkSpec(workSpecId);
-                    if (workSpec != null) {
-                        State state = workSpec.state;
-                        // Update Progress
-                        if (state == State.RUNNING) {
-                            WorkProgress progress = new WorkProgress(workSpecId, data);
-                            mWorkDatabase.workProgressDao().insert(progress);
-                        } else {
-                            Logger.get().warning(TAG,
-                                    String.format(
-                                            "Ignoring setProgressAsync(...). WorkSpec (%s) is not"
-                                                    + " in a RUNNING state.",
-                                            workSpecId));
-                        }
-                    } else {
-                        String message =
-                                "Calls to setProgressAsync() must complete before a "
-                                        + "ListenableWorker signals completion of work by "
-                                        + "returning an instance of Result.";
-                        throw new IllegalStateException(message);
-                    }
+                    writeProgress(workSpecId, data);
                     future.set(null);
-                    mWorkDatabase.setTransactionSuccessful();
                 } catch (Throwable throwable) {
                     Logger.get().error(TAG, "Error updating Worker progress", throwable);
                     future.setException(throwable);
-                } finally {
-                    mWorkDatabase.endTransaction();
                 }
             }
         });
         return future;
     }
+
+    /**
+     * Adds a {@link ProgressListener} that is notified of every progress update in this process.
+     *
+     * @param listener The {@link ProgressListener} to add
+     */
+    public void addProgressListener(@NonNull ProgressListener listener) {
+        synchronized (mLock) {
+            mListeners.add(listener);
+        }
+    }
+
+    /**
+     * Removes a {@link ProgressListener}.
+     *
+     * @param listener The {@link ProgressListener} to remove
+     */
+    public void removeProgressListener(@NonNull ProgressListener listener) {
+        synchronized (mLock) {
+            mListeners.remove(listener);
+        }
+    }
+
+    /**
+     * @param workSpecId The id of the work
+     * @return The latest coalesced progress of the work that is not persisted yet, or
+     * {@code null} if the database holds its latest progress
+     */
+    @Nullable
+    public Data getPendingProgress(@NonNull String workSpecId) {
+        synchronized (mLock) {
+            PendingProgress pending = mPendingProgress.get(workSpecId);
+            return pending == null ? null : pending.mData;
+        }
+    }
+
+    /**
+     * @return A snapshot of the {@link WorkProgressMetrics} of this instance
+     */
+    @NonNull
+    public WorkProgressMetrics getMetrics() {
+        synchronized (mLock) {
+            return new WorkProgressMetrics(mPersistedCount, mCoalescedCount, mDroppedCount);
+        }
+    }
+
+    // Synthetic access
+    @WorkerThread
+    void flush(@NonNull String workSpecId) {
+        PendingProgress pending;
+        synchronized (mLock) {
+            pending = mPendingProgress.remove(workSpecId);
+            if (pending == null) {
+                return;
+            }
+            putWriteTimeLocked(workSpecId, System.currentTimeMillis());
+        }
+        Logger.get().debug(TAG, String.format(
+                "Updating coalesced progress for %s (%s)", workSpecId, pending.mData));
+        Throwable error = null;
+        boolean persisted = false;
+        try {
+            persisted = writeProgress(workSpecId, pending.mData);
+        } catch (Throwable throwable) {
+            Logger.get().error(TAG, "Error updating Worker progress", throwable);
+            error = throwable;
+        }
+        if (!persisted) {
+            synchronized (mLock) {
+                mDroppedCount++;
+            }
+        }
+        for (SettableFuture<Void> future : pending.mFutures) {
+            if (error == null) {
+                future.set(null);
+            } else {
+                future.setException(error);
+            }
+        }
+    }
+
+    /**
+     * Records the time of a write, keeping {@link #mLastWriteTimes} ordered by time.
+     */
+    private void putWriteTimeLocked(@NonNull String workSpecId, long time) {
+        mLastWriteTimes.remove(workSpecId);
+        mLastWriteTimes.put(workSpecId, time);
+    }
+
+    /**
+     * Forgets the writes that no longer delay the next update of their work.
+     */
+    private void pruneWriteTimesLocked(long now) {
+        Iterator<Long> iterator = mLastWriteTimes.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() + mMinimumIntervalMillis > now) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Writes progress if the work is running.
+     *
+     * @return {@code true} if the progress was written
+     */
+    @WorkerThread
+    private boolean writeProgress(@NonNull String workSpecId, @NonNull Data data) {
+        boolean persisted = false;
+        mWorkDatabase.beginTransaction();
+        try {
+            WorkSpecDao workSpecDao = mWorkDatabase.workSpecDao();
+            WorkSpec workSpec = workSpecDao.getWorkSpec(workSpecId);
+            if (workSpec != null) {
+                State state = workSpec.state;
+                // Update Progress
+                if (state == State.RUNNING) {
+                    WorkProgress progress = new WorkProgress(workSpecId, data);
+                    mWorkDatabase.workProgressDao().insert(progress);
+                    persisted = true;
+                } else {
+                    Logger.get().warning(TAG,
+                            String.format(
+                                    "Ignoring setProgressAsync(...). WorkSpec (%s) is not"
+                                            + " in a RUNNING state.",
+                                    workSpecId));
+                }
+            } else {
+                String message =
+                        "Calls to setProgressAsync() must complete before a "
+                                + "ListenableWorker signals completion of work by "
+                                + "returning an instance of Result.";
+                throw new IllegalStateException(message);
+            }
+            mWorkDatabase.setTransactionSuccessful();
+        } finally {
+            mWorkDatabase.endTransaction();
+        }
+        if (persisted) {
+            synchronized (mLock) {
+                mPersistedCount++;
+            }
+        }
+        return persisted;
+    }
+
+    private void notifyListeners(@NonNull String workSpecId, @NonNull Data data) {
+        List<ProgressListener> listeners;
+        synchronized (mLock) {
+            if (mListeners.isEmpty()) {
+                return;
+            }
+            listeners = new ArrayList<>(mListeners);
+        }
+        for (ProgressListener listener : listeners) {
+            listener.onProgressUpdated(workSpecId, data);
+        }
+    }
+
+    /**
+     * The latest coalesced value of the progress of a unit of work, and the futures of all the
+     * updates that its write completes.
+     */
+    private static final class PendingProgress {
+        Data mData;
+        final List<SettableFuture<Void>> mFutures;
+
+        PendingProgress(@NonNull Data data) {
+            mData = data;
+            mFutures = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Receives the progress updates of running work in the same process, without going through
+     * the database.
+     */
+    public interface ProgressListener {
+        /**
+         * Called on the thread of the worker that updated its progress.
+         *
+         * @param workSpecId The id of the work
+         * @param progress   The new progress
+         */
+        void onProgressUpdated(@NonNull String workSpecId, @NonNull Data progress);
+    }
 }
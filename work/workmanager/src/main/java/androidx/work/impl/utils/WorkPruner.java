@@ -0,0 +1,144 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+import androidx.annotation.WorkerThread;
+import androidx.work.Configuration;
+import androidx.work.Logger;
+import androidx.work.RunnableScheduler;
+import androidx.work.impl.WorkDatabase;
+import androidx.work.impl.model.WorkSpecDao;
+import androidx.work.impl.utils.taskexecutor.TaskExecutor;
+
+/**
+ * Periodically prunes finished work from the {@link WorkDatabase}, as configured with
+ * {@link Configuration.Builder#setPruneInterval(long, java.util.concurrent.TimeUnit)}.
+ * <p>
+ * Unlike {@link PruneWorkRunnable}, this honors
+ * {@link androidx.work.WorkRequest.Builder#keepResultsForAtLeast(long,
+ * java.util.concurrent.TimeUnit)}.  Work is deleted in batches of
+ * {@link Configuration#getPruneBatchSize()} rows, so that each pass only holds the database for a
+ * short time.
+ * <p>
+ * Once started, passes run until {@link #stop()} is called, which
+ * {@link androidx.work.impl.WorkManagerImpl#setDelegate(androidx.work.impl.WorkManagerImpl)} does
+ * when the instance that owns this is replaced.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class WorkPruner {
+
+    // Synthetic access
+    static final String TAG = Logger.tagWithPrefix("WorkPruner");
+
+    private final WorkDatabase mWorkDatabase;
+    private final RunnableScheduler mRunnableScheduler;
+    // Synthetic access
+    final TaskExecutor mTaskExecutor;
+    private final long mIntervalMillis;
+    private final int mBatchSize;
+    private final Runnable mPassRunnable;
+    private final Object mLock;
+    private boolean mStarted;
+
+    public WorkPruner(
+            @NonNull WorkDatabase workDatabase,
+            @NonNull Configuration configuration,
+            @NonNull TaskExecutor taskExecutor) {
+        mWorkDatabase = workDatabase;
+        mRunnableScheduler = configuration.getRunnableScheduler();
+        mTaskExecutor = taskExecutor;
+        mIntervalMillis = configuration.getPruneIntervalMillis();
+        mBatchSize = configuration.getPruneBatchSize();
+        mLock = new Object();
+        mPassRunnable = new Runnable() {
+            @Override
+            public void run() {
+                // The RunnableScheduler typically runs on the main thread.
+                mTaskExecutor.executeOnBackgroundThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        runPass();
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Schedules the first pruning pass, one prune interval from now.
+     */
+    public void start() {
+        synchronized (mLock) {
+            if (mStarted) {
+                return;
+            }
+            mStarted = true;
+        }
+        mRunnableScheduler.scheduleWithDelay(mIntervalMillis, mPassRunnable);
+    }
+
+    /**
+     * Cancels the next pruning pass.
+     */
+    public void stop() {
+        synchronized (mLock) {
+            mStarted = false;
+        }
+        mRunnableScheduler.cancel(mPassRunnable);
+    }
+
+    /**
+     * Prunes all eligible finished work, one batch at a time.
+     *
+     * @return The number of {@link androidx.work.impl.model.WorkSpec}s that were deleted
+     */
+    @WorkerThread
+    public int prune() {
+        WorkSpecDao workSpecDao = mWorkDatabase.workSpecDao();
+        long now = System.currentTimeMillis();
+        int total = 0;
+        int deleted;
+        do {
+            // Every batch is its own transaction, so other writers can get in between batches.
+            deleted = workSpecDao.pruneFinishedWork(now, mBatchSize);
+            total += deleted;
+        } while (deleted == mBatchSize);
+        return total;
+    }
+
+    // Synthetic access
+    void runPass() {
+        try {
+            int pruned = prune();
+            Logger.get().debug(TAG, String.format("Pruned %s finished WorkSpecs", pruned));
+        } catch (RuntimeException exception) {
+            Logger.get().error(TAG, "Unable to prune finished work", exception);
+        } finally {
+            boolean reschedule;
+            synchronized (mLock) {
+                reschedule = mStarted;
+            }
+            if (reschedule) {
+                mRunnableScheduler.scheduleWithDelay(mIntervalMillis, mPassRunnable);
+            }
+        }
+    }
+}
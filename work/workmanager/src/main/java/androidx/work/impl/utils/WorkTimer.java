@@ -17,15 +17,18 @@
 package androidx.work.impl.utils;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
 import androidx.work.Logger;
+import androidx.work.RunnableScheduler;
 import androidx.work.WorkRequest;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
@@ -33,6 +36,9 @@ import java.util.concurrent.TimeUnit;
  * Manages timers to enforce a time limit for processing {@link WorkRequest}.
  * Notifies a {@link TimeLimitExceededListener} when the time limit
  * is exceeded.
+ * <p>
+ * Timers are kept in a {@link TimingWheelScheduler}, so that the executor only ever has a single
+ * pending wakeup.
  *
  * @hide
  */
@@ -56,6 +62,7 @@ public class WorkTimer {
     };
 
     private final ScheduledExecutorService mExecutorService;
+    private final TimingWheelScheduler mTimers;
     final Map<String, WorkTimerRunnable> mTimerMap;
     final Map<String, TimeLimitExceededListener> mListeners;
     final Object mLock;
@@ -65,6 +72,24 @@ public class WorkTimer {
         mListeners = new HashMap<>();
         mLock = new Object();
         mExecutorService = Executors.newSingleThreadScheduledExecutor(mBackgroundThreadFactory);
+        mTimers = new TimingWheelScheduler(new RunnableScheduler() {
+            // Only accessed with the lock of mTimers held.
+            private final Map<Runnable, ScheduledFuture<?>> mFutures = new HashMap<>();
+
+            @Override
+            public void scheduleWithDelay(long delayInMillis, @NonNull Runnable runnable) {
+                mFutures.put(runnable,
+                        mExecutorService.schedule(runnable, delayInMillis, TimeUnit.MILLISECONDS));
+            }
+
+            @Override
+            public void cancel(@NonNull Runnable runnable) {
+                ScheduledFuture<?> future = mFutures.remove(runnable);
+                if (future != null) {
+                    future.cancel(false);
+                }
+            }
+        });
     }
 
     /**
@@ -77,7 +102,6 @@ public class WorkTimer {
      * @param listener             The listener which is notified when the execution time exceeds
      *                             {@code processingTimeMillis}
      */
-    @SuppressWarnings("FutureReturnValueIgnored")
     public void startTimer(@NonNull final String workSpecId,
             long processingTimeMillis,
             @NonNull TimeLimitExceededListener listener) {
@@ -89,7 +113,7 @@ public class WorkTimer {
             WorkTimerRunnable runnable = new WorkTimerRunnable(this, workSpecId);
             mTimerMap.put(workSpecId, runnable);
             mListeners.put(workSpecId, listener);
-            mExecutorService.schedule(runnable, processingTimeMillis, TimeUnit.MILLISECONDS);
+            runnable.mTimeout = mTimers.schedule(processingTimeMillis, runnable);
         }
     }
 
@@ -103,6 +127,9 @@ public class WorkTimer {
             WorkTimerRunnable removed = mTimerMap.remove(workSpecId);
             if (removed != null) {
                 Logger.get().debug(TAG, String.format("Stopping timer for %s", workSpecId));
+                if (removed.mTimeout != null) {
+                    mTimers.cancel(removed.mTimeout);
+                }
                 mListeners.remove(workSpecId);
             }
         }
@@ -139,7 +166,7 @@ public class WorkTimer {
     }
 
     /**
-     * The actual runnable scheduled on the scheduled executor.
+     * The actual runnable scheduled on the {@link TimingWheelScheduler}.
      *
      * @hide
      */
@@ -149,6 +176,8 @@ public class WorkTimer {
 
         private final WorkTimer mWorkTimer;
         private final String mWorkSpecId;
+        @Nullable
+        TimingWheel.Timeout mTimeout;
 
         WorkTimerRunnable(@NonNull WorkTimer workTimer, @NonNull String workSpecId) {
             mWorkTimer = workTimer;
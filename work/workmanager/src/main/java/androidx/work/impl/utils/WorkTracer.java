@@ -0,0 +1,274 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import androidx.tracing.Trace;
+import androidx.work.Logger;
+import androidx.work.WorkInfo;
+import androidx.work.WorkSpan;
+import androidx.work.WorkTraceExporter;
+import androidx.work.WorkTraceMetrics;
+import androidx.work.impl.model.WorkSpec;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps track of the lifecycle of the units of work run by WorkManager.
+ * <p>
+ * Every execution of a {@link androidx.work.ListenableWorker} is written to the system trace as an
+ * asynchronous section named after the worker class, the number of running workers is written as
+ * a counter, and the queue and execution latencies are recorded in {@link LatencyHistogram}s,
+ * which {@link androidx.work.WorkManager#getTraceMetrics()} reports.
+ * When a {@link WorkTraceExporter} is specified, it receives a {@link WorkSpan} for every
+ * finished execution.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class WorkTracer {
+
+    private static final String TAG = Logger.tagWithPrefix("WorkTracer");
+
+    // The maximum number of spans of work that is not running tracked at a time. Work that is
+    // enqueued but does not run in this process (for example work that is cancelled) would
+    // otherwise never be removed. Dropped spans are counted and logged.
+    static final int MAX_PENDING_SPANS = 512;
+    // atrace drops section names longer than this.
+    private static final int MAX_SECTION_NAME_LENGTH = 127;
+    private static final String RUNNING_COUNTER = "WorkManager:Running";
+
+    private final Object mLock;
+    private final Map<String, SpanRecord> mPendingSpans;
+    private final Map<String, SpanRecord> mRunningSpans;
+    private final LatencyHistogram mQueueLatencies;
+    private final LatencyHistogram mExecutionTimes;
+    private final @Nullable WorkTraceExporter mExporter;
+    private int mRunningCount;
+    private long mDroppedSpanCount;
+
+    public WorkTracer(@Nullable WorkTraceExporter exporter) {
+        mExporter = exporter;
+        mLock = new Object();
+        mPendingSpans = new LinkedHashMap<String, SpanRecord>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SpanRecord> eldest) {
+                if (size() <= MAX_PENDING_SPANS) {
+                    return false;
+                }
+                onSpanDropped(eldest.getKey());
+                return true;
+            }
+        };
+        mRunningSpans = new HashMap<>();
+        mQueueLatencies = new LatencyHistogram();
+        mExecutionTimes = new LatencyHistogram();
+    }
+
+    /**
+     * @return The number of units of work whose events before they started were dropped, because
+     * more than {@link #MAX_PENDING_SPANS} units of work were waiting to start
+     */
+    public long getDroppedSpanCount() {
+        synchronized (mLock) {
+            return mDroppedSpanCount;
+        }
+    }
+
+    /**
+     * @return A snapshot of the {@link WorkTraceMetrics} of this instance
+     */
+    public @NonNull WorkTraceMetrics getMetrics() {
+        return new WorkTraceMetrics(
+                mExecutionTimes.getCount(),
+                mQueueLatencies.getPercentileMillis(50),
+                mQueueLatencies.getPercentileMillis(99),
+                mQueueLatencies.getMaxMillis(),
+                mExecutionTimes.getPercentileMillis(50),
+                mExecutionTimes.getPercentileMillis(99),
+                mExecutionTimes.getMaxMillis(),
+                getDroppedSpanCount());
+    }
+
+    /**
+     * Called when a unit of work is enqueued.
+     *
+     * @param workSpecId The {@link WorkSpec} id
+     * @param timeMillis The time of the event
+     */
+    public void onEnqueued(@NonNull String workSpecId, long timeMillis) {
+        synchronized (mLock) {
+            SpanRecord record = new SpanRecord();
+            record.mEnqueueTimeMillis = timeMillis;
+            mPendingSpans.put(workSpecId, record);
+        }
+    }
+
+    /**
+     * Called when a unit of work is handed to the schedulers.
+     *
+     * @param workSpecId The {@link WorkSpec} id
+     * @param timeMillis The time of the event
+     */
+    public void onScheduled(@NonNull String workSpecId, long timeMillis) {
+        synchronized (mLock) {
+            SpanRecord record = getOrCreateRecord(workSpecId);
+            if (record.mScheduleTimeMillis == WorkSpan.UNKNOWN_TIME) {
+                record.mScheduleTimeMillis = timeMillis;
+            }
+        }
+    }
+
+    /**
+     * Called when all the constraints of a unit of work are met.
+     *
+     * @param workSpecId The {@link WorkSpec} id
+     * @param timeMillis The time of the event
+     */
+    public void onConstraintsMet(@NonNull String workSpecId, long timeMillis) {
+        synchronized (mLock) {
+            getOrCreateRecord(workSpecId).mConstraintsMetTimeMillis = timeMillis;
+        }
+    }
+
+    /**
+     * Called when the {@link androidx.work.ListenableWorker} of a unit of work starts.
+     *
+     * @param workSpec   The {@link WorkSpec} as it was before the worker started
+     * @param timeMillis The time of the event
+     */
+    public void onStarted(@NonNull WorkSpec workSpec, long timeMillis) {
+        int runningCount;
+        synchronized (mLock) {
+            if (mRunningSpans.containsKey(workSpec.id)) {
+                return;
+            }
+            SpanRecord record = mPendingSpans.remove(workSpec.id);
+            if (record == null) {
+                record = new SpanRecord();
+            }
+            mRunningSpans.put(workSpec.id, record);
+            record.mWorkerClassName = workSpec.workerClassName;
+            record.mStartTimeMillis = timeMillis;
+            record.mRunAttemptCount = workSpec.runAttemptCount + 1;
+            // The first run of periodic work is eligible right away.
+            long eligibleTimeMillis = workSpec.isPeriodic() && workSpec.periodStartTime == 0
+                    ? record.mEnqueueTimeMillis
+                    : workSpec.calculateNextRunTime();
+            eligibleTimeMillis = Math.max(eligibleTimeMillis, record.mEnqueueTimeMillis);
+            eligibleTimeMillis = Math.max(eligibleTimeMillis, record.mConstraintsMetTimeMillis);
+            // Without any known event, the work is assumed to have been eligible when it started.
+            record.mEligibleTimeMillis = eligibleTimeMillis > 0 ? eligibleTimeMillis : timeMillis;
+            runningCount = ++mRunningCount;
+        }
+        if (Trace.isEnabled()) {
+            Trace.beginAsyncSection(sectionName(workSpec.workerClassName), cookie(workSpec.id));
+            Trace.setCounter(RUNNING_COUNTER, runningCount);
+        }
+    }
+
+    /**
+     * Called when the {@link androidx.work.ListenableWorker} of a unit of work finishes.
+     * Does nothing if the worker was not started in this process.
+     *
+     * @param workSpecId The {@link WorkSpec} id
+     * @param state      The {@link WorkInfo.State} of the work after it finished
+     * @param timeMillis The time of the event
+     */
+    public void onFinished(
+            @NonNull String workSpecId,
+            @NonNull WorkInfo.State state,
+            long timeMillis) {
+        SpanRecord record;
+        int runningCount;
+        synchronized (mLock) {
+            record = mRunningSpans.remove(workSpecId);
+            if (record == null) {
+                return;
+            }
+            runningCount = --mRunningCount;
+        }
+        if (Trace.isEnabled()) {
+            Trace.endAsyncSection(sectionName(record.mWorkerClassName), cookie(workSpecId));
+            Trace.setCounter(RUNNING_COUNTER, runningCount);
+        }
+        WorkSpan span = new WorkSpan(
+                UUID.fromString(workSpecId),
+                record.mWorkerClassName,
+                record.mEnqueueTimeMillis,
+                record.mScheduleTimeMillis,
+                record.mConstraintsMetTimeMillis,
+                record.mEligibleTimeMillis,
+                record.mStartTimeMillis,
+                timeMillis,
+                state,
+                record.mRunAttemptCount);
+        mQueueLatencies.record(span.getQueueLatencyMillis());
+        mExecutionTimes.record(span.getExecutionTimeMillis());
+        if (mExporter != null) {
+            try {
+                mExporter.onWorkSpanFinished(span);
+            } catch (Throwable throwable) {
+                Logger.get().error(TAG, "Unable to export " + span, throwable);
+            }
+        }
+    }
+
+    // Synthetic access, called with mLock held
+    void onSpanDropped(@NonNull String workSpecId) {
+        mDroppedSpanCount++;
+        Logger.get().debug(TAG, String.format(
+                "Tracking more than %d pending units of work, dropping the span of %s",
+                MAX_PENDING_SPANS, workSpecId));
+    }
+
+    private @NonNull SpanRecord getOrCreateRecord(@NonNull String workSpecId) {
+        SpanRecord record = mPendingSpans.get(workSpecId);
+        if (record == null) {
+            record = new SpanRecord();
+            mPendingSpans.put(workSpecId, record);
+        }
+        return record;
+    }
+
+    private static @NonNull String sectionName(@NonNull String workerClassName) {
+        if (workerClassName.length() <= MAX_SECTION_NAME_LENGTH) {
+            return workerClassName;
+        }
+        // Keep the end of the name, which is the most specific part.
+        return workerClassName.substring(workerClassName.length() - MAX_SECTION_NAME_LENGTH);
+    }
+
+    private static int cookie(@NonNull String workSpecId) {
+        return workSpecId.hashCode();
+    }
+
+    private static class SpanRecord {
+        String mWorkerClassName;
+        long mEnqueueTimeMillis = WorkSpan.UNKNOWN_TIME;
+        long mScheduleTimeMillis = WorkSpan.UNKNOWN_TIME;
+        long mConstraintsMetTimeMillis = WorkSpan.UNKNOWN_TIME;
+        long mEligibleTimeMillis = WorkSpan.UNKNOWN_TIME;
+        long mStartTimeMillis = WorkSpan.UNKNOWN_TIME;
+        int mRunAttemptCount;
+    }
+}
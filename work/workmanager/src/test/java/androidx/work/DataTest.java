@@ -27,6 +27,9 @@ import androidx.annotation.NonNull;
 
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -89,6 +92,72 @@ public class DataTest {
         assertThat(restoredData.getIntArray(KEY2), is(equalTo(expectedValue2)));
     }
 
+    @Test
+    public void testSerializeAllTypes() {
+        Data data = new Data.Builder()
+                .putBoolean("boolean", true)
+                .putByte("byte", (byte) -1)
+                .putInt("int", Integer.MIN_VALUE)
+                .putLong("long", Long.MAX_VALUE)
+                .putFloat("float", -1.5f)
+                .putDouble("double", Double.NaN)
+                .putString("String", "\u00e9t\u00e9")
+                .putString("null", null)
+                .putBooleanArray("boolean array", new boolean[]{true, false})
+                .putByteArray("byte array", new byte[]{1, -2})
+                .putIntArray("int array", new int[]{-1, 0, Integer.MAX_VALUE})
+                .putLongArray("long array", new long[]{Long.MIN_VALUE})
+                .putFloatArray("float array", new float[]{0.25f})
+                .putDoubleArray("double array", new double[]{-0.0})
+                .putStringArray("String array", new String[]{"a", null, ""})
+                .build();
+
+        byte[] byteArray = data.toByteArray();
+        Data restoredData = Data.fromByteArray(byteArray);
+
+        assertThat(DataCodec.isEncoded(byteArray), is(true));
+        assertThat(restoredData, is(data));
+    }
+
+    @Test
+    public void testDeserializeObjectStreamFormat() throws IOException {
+        Data data = createData();
+
+        Data restoredData = Data.fromByteArray(toObjectStreamByteArray(data));
+
+        assertThat(restoredData, is(data));
+    }
+
+    @Test
+    public void testSerializeIsSmallerThanObjectStreamFormat() throws IOException {
+        Data data = createData();
+
+        int length = data.toByteArray().length;
+        int objectStreamLength = toObjectStreamByteArray(data).length;
+        assertThat(length * 4 < objectStreamLength, is(true));
+    }
+
+    @Test
+    public void testSerializeNullArrayElementFallsBackToObjectStreamFormat() {
+        Map<String, Object> map = new HashMap<>();
+        map.put(KEY1, new Integer[]{1, null});
+        Data data = new Data(map);
+
+        byte[] byteArray = data.toByteArray();
+        Data restoredData = Data.fromByteArray(byteArray);
+
+        assertThat(DataCodec.isEncoded(byteArray), is(false));
+        assertThat(restoredData, is(data));
+    }
+
+    @Test
+    public void testDeserializeUnknownVersion() {
+        byte[] byteArray = createData().toByteArray();
+        byteArray[2] = (byte) (DataCodec.VERSION + 1);
+
+        assertThat(Data.fromByteArray(byteArray).size(), is(0));
+    }
+
     @Test
     public void testSerializePastMaxSize() {
         int[] payload = new int[Data.MAX_DATA_BYTES + 1];
@@ -230,6 +299,19 @@ public class DataTest {
         assertThat(caughtIllegalArgumentException, is(true));
     }
 
+    @NonNull
+    private static byte[] toObjectStreamByteArray(@NonNull Data data) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
+        objectOutputStream.writeInt(data.size());
+        for (Map.Entry<String, Object> entry : data.getKeyValueMap().entrySet()) {
+            objectOutputStream.writeUTF(entry.getKey());
+            objectOutputStream.writeObject(entry.getValue());
+        }
+        objectOutputStream.close();
+        return outputStream.toByteArray();
+    }
+
     @NonNull
     private Data createData() {
         Map<String, Object> map = new HashMap<>();
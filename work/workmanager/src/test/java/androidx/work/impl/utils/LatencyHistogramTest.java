@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl.utils;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testPercentiles_emptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.getCount(), is(0L));
+        assertThat(histogram.getPercentileMillis(50), is(0L));
+        assertThat(histogram.getMaxMillis(), is(0L));
+    }
+
+    @Test
+    public void testPercentiles_smallLatenciesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(0L);
+        histogram.record(1L);
+        histogram.record(2L);
+        histogram.record(3L);
+        assertThat(histogram.getCount(), is(4L));
+        assertThat(histogram.getPercentileMillis(25), is(0L));
+        assertThat(histogram.getPercentileMillis(50), is(1L));
+        assertThat(histogram.getPercentileMillis(100), is(3L));
+    }
+
+    @Test
+    public void testPercentiles_areWithinTheRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long latency = 1; latency <= 10_000; latency++) {
+            histogram.record(latency);
+        }
+        assertThat(histogram.getCount(), is(10_000L));
+        assertThat(histogram.getMaxMillis(), is(10_000L));
+        assertWithin(histogram.getPercentileMillis(50), 5_000L);
+        assertWithin(histogram.getPercentileMillis(90), 9_000L);
+        assertWithin(histogram.getPercentileMillis(99), 9_900L);
+        assertThat(histogram.getPercentileMillis(100), is(10_000L));
+    }
+
+    @Test
+    public void testRecord_negativeLatenciesAreRecordedAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-100L);
+        assertThat(histogram.getCount(), is(1L));
+        assertThat(histogram.getPercentileMillis(100), is(0L));
+    }
+
+    @Test
+    public void testReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+        assertThat(histogram.getPercentileMillis(99), is(Long.MAX_VALUE));
+        histogram.reset();
+        assertThat(histogram.getCount(), is(0L));
+        assertThat(histogram.getPercentileMillis(99), is(0L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPercentiles_rejectsInvalidPercentiles() {
+        new LatencyHistogram().getPercentileMillis(101);
+    }
+
+    private static void assertWithin(long actual, long expected) {
+        assertThat(actual >= expected, is(true));
+        assertThat(actual <= expected * 1.25, is(true));
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl.utils;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class TimingWheelTest {
+
+    private static final long TICK_MILLIS = 10L;
+
+    @Test
+    public void testExpire_runsTimersAtTheirDeadlines() {
+        TimingWheel wheel = new TimingWheel(TICK_MILLIS, 0L);
+        Runnable first = new NamedTask("first");
+        Runnable second = new NamedTask("second");
+        Runnable third = new NamedTask("third");
+        wheel.schedule(5L, first);
+        wheel.schedule(25L, second);
+        wheel.schedule(100_000L, third);
+        assertThat(wheel.size(), is(3));
+        assertThat(wheel.getNextExpiryMillis(), is(10L));
+
+        assertThat(wheel.expire(9L).isEmpty(), is(true));
+        assertThat(wheel.expire(10L), is(Collections.singletonList(first)));
+        // Deadlines are rounded up to the next tick.
+        assertThat(wheel.expire(29L).isEmpty(), is(true));
+        assertThat(wheel.expire(30L), is(Collections.singletonList(second)));
+        assertThat(wheel.expire(99_999L).isEmpty(), is(true));
+        assertThat(wheel.expire(100_000L), is(Collections.singletonList(third)));
+        assertThat(wheel.size(), is(0));
+        assertThat(wheel.getNextExpiryMillis(), is(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testExpire_expiresTimersOfTheSameTickTogether() {
+        TimingWheel wheel = new TimingWheel(TICK_MILLIS, 0L);
+        Runnable first = new NamedTask("first");
+        Runnable second = new NamedTask("second");
+        wheel.schedule(5_001L, first);
+        wheel.schedule(5_009L, second);
+        List<Runnable> expired = wheel.expire(5_010L);
+        assertThat(expired.size(), is(2));
+        assertThat(expired.containsAll(Arrays.asList(first, second)), is(true));
+    }
+
+    @Test
+    public void testCancel() {
+        TimingWheel wheel = new TimingWheel(TICK_MILLIS, 0L);
+        TimingWheel.Timeout timeout = wheel.schedule(5_000L, new NamedTask("cancelled"));
+        assertThat(timeout.isPending(), is(true));
+        assertThat(wheel.cancel(timeout), is(true));
+        assertThat(wheel.cancel(timeout), is(false));
+        assertThat(timeout.isPending(), is(false));
+        assertThat(wheel.size(), is(0));
+        assertThat(wheel.expire(10_000L).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testExpire_matchesDeadlinesOfRandomTimers() {
+        Random random = new Random(42L);
+        TimingWheel wheel = new TimingWheel(TICK_MILLIS, 0L);
+        List<RecordingTask> tasks = new ArrayList<>();
+        List<TimingWheel.Timeout> timeouts = new ArrayList<>();
+        long now = 0L;
+        for (int round = 0; round < 200; round++) {
+            for (int i = 0; i < 100; i++) {
+                // Some of the deadlines are beyond the span of the wheels.
+                long delay = random.nextInt(4) == 0
+                        ? (long) (random.nextDouble() * (1L << 28)) * TICK_MILLIS
+                        : random.nextInt(100_000);
+                RecordingTask task = new RecordingTask(now + delay);
+                tasks.add(task);
+                timeouts.add(wheel.schedule(task.mDeadlineMillis, task));
+            }
+            for (int i = 0; i < 20; i++) {
+                int index = random.nextInt(tasks.size());
+                if (wheel.cancel(timeouts.get(index))) {
+                    tasks.get(index).mCancelled = true;
+                }
+            }
+            long next = wheel.getNextExpiryMillis();
+            for (int i = 0; i < tasks.size(); i++) {
+                RecordingTask task = tasks.get(i);
+                if (timeouts.get(i).isPending()) {
+                    assertThat(next <= roundUp(task.mDeadlineMillis), is(true));
+                }
+            }
+            now += random.nextBoolean() ? random.nextInt(50_000) : Math.max(0L, next - now);
+            for (Runnable runnable : wheel.expire(now)) {
+                ((RecordingTask) runnable).mExpiredAt = now;
+            }
+            for (RecordingTask task : tasks) {
+                if (!task.mCancelled && roundUp(task.mDeadlineMillis) <= now) {
+                    assertThat(task.mExpiredAt >= 0, is(true));
+                }
+            }
+        }
+        while (wheel.size() > 0) {
+            now = wheel.getNextExpiryMillis();
+            for (Runnable runnable : wheel.expire(now)) {
+                ((RecordingTask) runnable).mExpiredAt = now;
+            }
+        }
+        for (RecordingTask task : tasks) {
+            if (task.mCancelled) {
+                assertThat(task.mExpiredAt, is(-1L));
+            } else {
+                assertThat(task.mExpiredAt >= roundUp(task.mDeadlineMillis), is(true));
+            }
+        }
+    }
+
+    private static long roundUp(long millis) {
+        return (millis + TICK_MILLIS - 1) / TICK_MILLIS * TICK_MILLIS;
+    }
+
+    private static class NamedTask implements Runnable {
+        private final String mName;
+
+        NamedTask(String name) {
+            mName = name;
+        }
+
+        @Override
+        public void run() {
+        }
+
+        @Override
+        public String toString() {
+            return mName;
+        }
+    }
+
+    private static class RecordingTask implements Runnable {
+        final long mDeadlineMillis;
+        long mExpiredAt = -1L;
+        boolean mCancelled;
+
+        RecordingTask(long deadlineMillis) {
+            mDeadlineMillis = deadlineMillis;
+        }
+
+        @Override
+        public void run() {
+        }
+    }
+}
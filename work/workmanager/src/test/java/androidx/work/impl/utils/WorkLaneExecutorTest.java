@@ -0,0 +1,178 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl.utils;
+
+import static androidx.work.impl.utils.WorkLaneExecutor.LANE_DEFAULT;
+import static androidx.work.impl.utils.WorkLaneExecutor.LANE_PRIORITY;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import androidx.work.WorkLaneMetrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+public class WorkLaneExecutorTest {
+
+    private static final String PRIORITY_TAG = "priority";
+    private static final String LIMITED_TAG = "limited";
+
+    private ManualExecutor mExecutor;
+    private List<String> mStarted;
+
+    @Before
+    public void setUp() {
+        mExecutor = new ManualExecutor();
+        mStarted = new ArrayList<>();
+    }
+
+    @Test
+    public void testPriorityLane_startsFirst() {
+        WorkLaneExecutor workLaneExecutor = create(1);
+        Runnable first = start(workLaneExecutor, "first");
+        start(workLaneExecutor, "default1");
+        start(workLaneExecutor, "default2");
+        start(workLaneExecutor, "priority", "a", PRIORITY_TAG);
+        mExecutor.runAll();
+        assertThat(mStarted, is(Collections.singletonList("first")));
+        assertThat(workLaneExecutor.getMetrics(LANE_DEFAULT).getQueueDepth(), is(2));
+        assertThat(workLaneExecutor.getMetrics(LANE_PRIORITY).getQueueDepth(), is(1));
+
+        first.run();
+        mExecutor.runAll();
+        assertThat(mStarted, is(Arrays.asList("first", "priority")));
+        assertThat(workLaneExecutor.getMetrics(LANE_DEFAULT).getDispatchedCount(), is(1L));
+        assertThat(workLaneExecutor.getMetrics(LANE_PRIORITY).getDispatchedCount(), is(1L));
+    }
+
+    @Test
+    public void testPriorityLane_keepsSlotFree() {
+        WorkLaneExecutor workLaneExecutor = create(3);
+        for (int i = 0; i < 3; i++) {
+            start(workLaneExecutor, "default" + i);
+        }
+        mExecutor.runAll();
+        WorkLaneMetrics metrics = workLaneExecutor.getMetrics(LANE_DEFAULT);
+        assertThat(metrics.getRunningCount(), is(2));
+        assertThat(metrics.getQueueDepth(), is(1));
+
+        start(workLaneExecutor, "priority", PRIORITY_TAG);
+        mExecutor.runAll();
+        assertThat(mStarted.contains("priority"), is(true));
+    }
+
+    @Test
+    public void testTwoSlots_defaultWorkUsesBoth() {
+        // With two slots, keeping one free for priority work would leave other work one slot.
+        WorkLaneExecutor workLaneExecutor = create(2);
+        start(workLaneExecutor, "default1");
+        start(workLaneExecutor, "default2");
+        mExecutor.runAll();
+        assertThat(mStarted, is(Arrays.asList("default1", "default2")));
+    }
+
+    @Test
+    public void testNoPriorityTags_noSlotReserved() {
+        WorkLaneExecutor workLaneExecutor = new WorkLaneExecutor(
+                mExecutor,
+                3,
+                Collections.<String>emptySet(),
+                Collections.singletonMap(LIMITED_TAG, 1));
+        for (int i = 0; i < 3; i++) {
+            start(workLaneExecutor, "default" + i);
+        }
+        mExecutor.runAll();
+        assertThat(workLaneExecutor.getMetrics(LANE_DEFAULT).getRunningCount(), is(3));
+    }
+
+    @Test
+    public void testTagLimit_countsUnitsOfWork() {
+        WorkLaneExecutor workLaneExecutor = create(4);
+        Runnable limited1 = start(workLaneExecutor, "limited1", LIMITED_TAG);
+        start(workLaneExecutor, "limited2", LIMITED_TAG);
+        start(workLaneExecutor, "other");
+        mExecutor.runAll();
+        // The second limited work waits for the first one, other work keeps running.
+        assertThat(mStarted, is(Arrays.asList("limited1", "other")));
+
+        limited1.run();
+        mExecutor.runAll();
+        assertThat(mStarted, is(Arrays.asList("limited1", "other", "limited2")));
+    }
+
+    @Test
+    public void testFinishBeforeAdmission_removesWork() {
+        WorkLaneExecutor workLaneExecutor = create(1);
+        Runnable first = start(workLaneExecutor, "first");
+        Runnable cancelled = start(workLaneExecutor, "cancelled");
+        start(workLaneExecutor, "next");
+        cancelled.run();
+        assertThat(workLaneExecutor.getMetrics(LANE_DEFAULT).getQueueDepth(), is(1));
+
+        first.run();
+        first.run();
+        mExecutor.runAll();
+        assertThat(mStarted, is(Arrays.asList("first", "next")));
+        assertThat(workLaneExecutor.getMetrics(LANE_DEFAULT).getRunningCount(), is(1));
+    }
+
+    private WorkLaneExecutor create(int parallelism) {
+        Map<String, Integer> limits = new HashMap<>();
+        limits.put(LIMITED_TAG, 1);
+        return new WorkLaneExecutor(
+                mExecutor,
+                parallelism,
+                Collections.singleton(PRIORITY_TAG),
+                limits);
+    }
+
+    private Runnable start(WorkLaneExecutor workLaneExecutor, final String name, String... tags) {
+        Collection<String> tagList = Arrays.asList(tags);
+        return workLaneExecutor.startWork(tagList, new Runnable() {
+            @Override
+            public void run() {
+                mStarted.add(name);
+            }
+        });
+    }
+
+    private static class ManualExecutor implements Executor {
+        final ArrayDeque<Runnable> mCommands = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            mCommands.add(command);
+        }
+
+        void runAll() {
+            while (!mCommands.isEmpty()) {
+                mCommands.poll().run();
+            }
+        }
+    }
+}